@@ -0,0 +1,54 @@
+package com.mdsd.cloud.controller.dji.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 大疆 UDP 数据包头部 (serialNumber、module)
+ * <p>
+ * 直接在 ByteBuf 上做流式扫描,只读取顶层的 serialNumber 和 module 字段,两个字段都读到后立即停止,
+ * 其余字段 (对象/数组) 整体跳过; 不拷贝数据、不构建 JsonNode,心跳包据此直接回复而无需完整解析
+ *
+ * @author WangYunwei [2025-06-30]
+ */
+public record DjiDatagramHeader(String serialNumber, int module) {
+
+    /**
+     * 扫描数据包头部,不移动读指针; 数据不是 JSON 对象或缺少 serialNumber/module 时返回 null
+     */
+    public static DjiDatagramHeader scan(JsonFactory factory, ByteBuf content) throws IOException {
+        try (JsonParser parser = content.hasArray()
+                ? factory.createParser(content.array(), content.arrayOffset() + content.readerIndex(), content.readableBytes())
+                : factory.createParser((InputStream) new ByteBufInputStream(content.duplicate()))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String serialNumber = null;
+            int module = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("serialNumber".equals(name)) {
+                    serialNumber = parser.getValueAsString();
+                } else if ("module".equals(name)) {
+                    module = parser.getValueAsInt(-1);
+                } else {
+                    parser.skipChildren();
+                }
+                if (serialNumber != null && module >= 0) {
+                    return new DjiDatagramHeader(serialNumber, module);
+                }
+                if (token == null) {
+                    break;
+                }
+            }
+            return null;
+        }
+    }
+}
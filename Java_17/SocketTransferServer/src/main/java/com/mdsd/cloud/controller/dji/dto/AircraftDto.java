@@ -1,5 +1,6 @@
 package com.mdsd.cloud.controller.dji.dto;
 
+import com.mdsd.cloud.controller.dji.video.VideoRelay;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,7 +13,12 @@ import java.net.InetSocketAddress;
 @Setter
 public class AircraftDto {
 
+    private String serialNumber;
+
     private InetSocketAddress inetSocketAddress;
 
-    private Process process;
+    /**
+     * 视频转发,收到第一个视频分片时创建
+     */
+    private VideoRelay videoRelay;
 }
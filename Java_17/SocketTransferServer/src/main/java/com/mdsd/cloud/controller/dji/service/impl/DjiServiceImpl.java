@@ -1,18 +1,22 @@
 package com.mdsd.cloud.controller.dji.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.util.JsonFormat;
+import com.mdsd.cloud.controller.dji.codec.DjiDatagramHeader;
 import com.mdsd.cloud.controller.dji.dto.AircraftDto;
+import com.mdsd.cloud.controller.dji.video.VideoRelay;
+import com.mdsd.cloud.controller.dji.video.VideoRelayManager;
 import com.mdsd.cloud.controller.dji.service.IDjiService;
 import com.mdsd.cloud.controller.websocket.service.IWebSocketService;
 import com.mdsd.cloud.controller.websocket.service.impl.WebSocketServiceImpl;
 import com.mdsd.cloud.enums.CommonEnum;
 import com.mdsd.cloud.enums.DjiEnum;
 import com.mdsd.cloud.event.CommonEvent;
+import com.mdsd.cloud.util.NettyTransport;
 import com.mdsd.cloud.util.SocketUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
@@ -26,11 +30,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
+import java.net.InetSocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * @author WangYunwei [2024-11-01]
@@ -39,8 +41,6 @@ import java.util.concurrent.LinkedBlockingQueue;
 @Service
 public class DjiServiceImpl implements IDjiService {
 
-    private final static String STREAM_PATH = "rtmp://192.168.0.221/live/%s";
-
     private final static String PAYLOAD = "{\"serialNumber\":\"%s\",\"module\":%d,\"directive\":%d%s}";
 
     @Value("${env.port.sts.udp}")
@@ -49,19 +49,25 @@ public class DjiServiceImpl implements IDjiService {
     private int mountPosition;
 
     private final ConcurrentHashMap<String, AircraftDto> aircraftMap = new ConcurrentHashMap<>();
+    /**
+     * 按发送地址索引,视频分片不是 JSON,只能通过地址找到对应的飞行器
+     */
+    private final ConcurrentHashMap<InetSocketAddress, AircraftDto> aircraftByAddress = new ConcurrentHashMap<>();
     private final ObjectMapper obm = new ObjectMapper();
     private final JsonFormat.Printer printer = JsonFormat.printer();
     private final StringBuilder stringBuilder = new StringBuilder();
 
-    private final BlockingQueue<byte[]> videoQueue = new LinkedBlockingQueue<>();
-
     private Channel udpChannel;
     private final ApplicationEventPublisher publisher;
     private final IWebSocketService webSocketService;
+    private final NettyTransport transport;
+    private final VideoRelayManager videoRelayManager;
 
-    public DjiServiceImpl(ApplicationEventPublisher publisher, IWebSocketService webSocketService) {
+    public DjiServiceImpl(ApplicationEventPublisher publisher, IWebSocketService webSocketService, NettyTransport transport, VideoRelayManager videoRelayManager) {
         this.publisher = publisher;
         this.webSocketService = webSocketService;
+        this.transport = transport;
+        this.videoRelayManager = videoRelayManager;
     }
 
     @ChannelHandler.Sharable
@@ -69,46 +75,46 @@ public class DjiServiceImpl implements IDjiService {
         @Override
         protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket pak) {
             ByteBuf content = pak.content();
-            int i = content.readableBytes();
-            ByteBuf buffer = Unpooled.buffer(i);
-            content.readBytes(buffer);
-
-            String str = buffer.toString(CharsetUtil.UTF_8);
+            if (!content.isReadable()) {
+                return;
+            }
+            // 不是 JSON 的数据包为相机码流 (H.264 Annex B 分片),直接在 I/O 线程上重组转发
+            if (content.getByte(content.readerIndex()) != '{') {
+                AircraftDto aircraftDto = aircraftByAddress.get(pak.sender());
+                if (aircraftDto != null) {
+                    feedVideo(aircraftDto, content);
+                }
+                return;
+            }
             try {
-                JsonNode jsonNode = obm.readTree(str);
-                log.info("size: {}, body: {}", i, jsonNode);
-
-                // 当接收到心跳后解析地址和端口号
-                String serialNumber = jsonNode.get("serialNumber").asText();
-                int module = jsonNode.get("module").asInt();
-
-                if (module == DjiEnum.心跳.getModule()) {
-                    if (aircraftMap.containsKey(serialNumber)) {
-                        udpChannel.writeAndFlush(new DatagramPacket(Unpooled.copiedBuffer(buffer.array()), aircraftMap.get(serialNumber).getInetSocketAddress()));
+                // 只扫描 serialNumber/module,心跳包不做完整解析
+                DjiDatagramHeader header = DjiDatagramHeader.scan(obm.getFactory(), content);
+                if (header == null) {
+                    log.warn("无法识别的 UDP 数据包, size: {}, sender: {}", content.readableBytes(), pak.sender());
+                    return;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("size: {}, body: {}", content.readableBytes(), content.toString(CharsetUtil.UTF_8));
+                }
+                String serialNumber = header.serialNumber();
+                if (header.module() == DjiEnum.心跳.getModule()) {
+                    // 当接收到心跳后解析地址和端口号
+                    AircraftDto aircraftDto = aircraftMap.get(serialNumber);
+                    if (aircraftDto != null) {
+                        // 原样回复心跳,与接收缓冲区共享内存
+                        ctx.writeAndFlush(new DatagramPacket(content.retainedDuplicate(), aircraftDto.getInetSocketAddress()));
                     } else {
                         log.info("{} 注册到系统!", serialNumber);
-                        AircraftDto aircraftDto = new AircraftDto();
+                        aircraftDto = new AircraftDto();
+                        aircraftDto.setSerialNumber(serialNumber);
                         aircraftDto.setInetSocketAddress(pak.sender());
-//                        aircraftDto.setProcess(FFmpegUtil.startProcess(String.format(STREAM_PATH, payload.getSerialNumber())));
                         aircraftMap.put(serialNumber, aircraftDto);
-
-                        // 消费线程
-//                        new Thread(() -> {
-//                            try {
-//                                while (!Thread.interrupted()) {
-//                                    byte[] packet = videoQueue.take(); // 取出一个完整的UDP包（约33656字节）
-//                                    aircraftDto.getProcess().getOutputStream().write(packet);
-//                                    aircraftDto.getProcess().getOutputStream().flush();
-//                                }
-//                            } catch (IOException | InterruptedException e) {
-//                                e.printStackTrace();
-//                            }
-//                        }).start();
+                        aircraftByAddress.put(pak.sender(), aircraftDto);
                     }
                 } else {
-                    publisher.publishEvent(new CommonEvent(CommonEnum.UDP_TO_DJI, jsonNode));
+                    publisher.publishEvent(new CommonEvent(CommonEnum.UDP_TO_DJI, obm.readTree(new ByteBufInputStream(content.duplicate()))));
                 }
-            } catch (JsonProcessingException e) {
+            } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
@@ -116,7 +122,22 @@ public class DjiServiceImpl implements IDjiService {
 
     @Override
     public void startUdpListening() {
-        udpChannel = SocketUtil.createUdpServer(new DjiChannelInboundHandler(), port);
+        udpChannel = SocketUtil.createUdpServer(transport, new DjiChannelInboundHandler(), port);
+    }
+
+    /**
+     * 写入视频分片,第一次收到时创建转发
+     */
+    private void feedVideo(AircraftDto aircraftDto, ByteBuf data) {
+        VideoRelay relay = aircraftDto.getVideoRelay();
+        if (relay == null) {
+            relay = videoRelayManager.open(aircraftDto.getSerialNumber());
+            if (relay == null) {
+                return;
+            }
+            aircraftDto.setVideoRelay(relay);
+        }
+        relay.feed(data);
     }
 
     /**
@@ -125,64 +146,30 @@ public class DjiServiceImpl implements IDjiService {
     @Override
     public void handleUdpSocket(JsonNode jsonNode) {
         String serialNumber = jsonNode.get("serialNumber").asText();
-        AircraftDto aircraftDto = aircraftMap.get(jsonNode.get("serialNumber").asText());
+        AircraftDto aircraftDto = aircraftMap.get(serialNumber);
         DjiEnum anEnum = DjiEnum.getEnum(jsonNode.get("module").asInt(), 0x00);
         switch (anEnum) {
-//            case 消息订阅 -> {
-//                if (payload.getPackageNum() == 1) {
-//                    log.info("M2_FC_SUBSCRIPTION ===> {}", payload.getBody().toStringUtf8());
-//                } else {
-//                    stringBuilder.append(payload.getBody().toStringUtf8());
-//                    if (payload.getPackageNum() == payload.getPackageIndex()) {
-//                        log.info("M2_FC_SUBSCRIPTION ===> {}", stringBuilder);
-//                        stringBuilder.setLength(0);
-//                    }
-//                }
-//            }
             case 电源管理 -> {
                 // 飞行器下电,关闭视频流管道
                 log.info("===> {}", jsonNode.get("message").asText());
-//                try {
-//                    aircraftDto.getProcess().getOutputStream().close();
-//                } catch (IOException e) {
-//                    throw new RuntimeException(e);
-//                }
-//                aircraftDto.getProcess().destroy();
+                videoRelayManager.close(serialNumber);
                 // 删除注册
                 aircraftMap.remove(serialNumber);
+                if (aircraftDto != null) {
+                    aircraftByAddress.remove(aircraftDto.getInetSocketAddress(), aircraftDto);
+                }
                 log.info("aircraftMap remove {}", aircraftMap);
             }
             case 相机码流 -> {
-                // 如果是 Windows 环境则将视频流写入本地
-                try (FileOutputStream fileOutputStream = new FileOutputStream("output.h264", true)) {
-
-//                    fileOutputStream.write(payload.getBody().toByteArray(), 0, payload.getBody().size());
-
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
+                // JSON 封装的码流: body 为 Base64 编码的 H.264 分片
+                JsonNode body = jsonNode.get("body");
+                if (aircraftDto != null && body != null) {
+                    try {
+                        feedVideo(aircraftDto, Unpooled.wrappedBuffer(body.binaryValue()));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
                 }
-//                if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
-//                    // 将接收到的数据直接写入FFmpeg标准输入
-//                    try {
-//                        aircraftDto.getProcess().getOutputStream().write(payload.getBody().toByteArray());
-//                        aircraftDto.getProcess().getOutputStream().flush();
-//                    } catch (IOException e) {
-//                        throw new RuntimeException(e);
-//                    }
-//                    // 将数据流写入队列
-//                    byte[] byteArray = payload.getBody().toByteArray();
-//                    if(!videoQueue.offer(byteArray)){
-//                        log.error("Queue is full, dropping frame.");
-//                    }
-//                } else {
-//                    // 如果是 Windows 环境则将视频流写入本地
-//                    log.info("已接收 {} 字节", payload.getBody().size());
-//                    try (FileOutputStream fileOutputStream = new FileOutputStream("output.h264", true)) {
-//                        fileOutputStream.write(payload.getBody().toByteArray(), 0, payload.getBody().size());
-//                    } catch (IOException e) {
-//                        throw new RuntimeException(e);
-//                    }
-//                }
             }
             default -> log.info("================");
         }
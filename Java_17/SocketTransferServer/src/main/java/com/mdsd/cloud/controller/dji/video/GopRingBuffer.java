@@ -0,0 +1,129 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按字节数限制容量的 NAL 单元缓冲区 (单生产者、单消费者)
+ * <p>
+ * - 容量不足时从队首开始整 GOP 丢弃,保证写入 FFmpeg 的数据总是从 GOP 起点开始,不会出现花屏
+ * - 正在接收的 GOP 被丢弃后,后续的 NAL 单元一律丢弃,直到下一个 GOP 起点
+ * - 初始状态以及 resync() 之后同样等待 GOP 起点 (FFmpeg 需要先收到 SPS/PPS)
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+public class GopRingBuffer {
+
+    private final ArrayDeque<H264Nal> queue = new ArrayDeque<>();
+
+    private final long capacityBytes;
+
+    private long bytes;
+
+    private boolean waitingForGop = true;
+
+    private boolean closed;
+
+    /**
+     * 累计丢弃的 NAL 单元数
+     */
+    private long dropped;
+
+    public GopRingBuffer(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * 写入 NAL 单元 (转移所有权),返回 false 表示已丢弃
+     */
+    public synchronized boolean offer(H264Nal nal) {
+        if (closed || (waitingForGop && !nal.gopStart())) {
+            drop(nal);
+            return false;
+        }
+        waitingForGop = false;
+        boolean droppedGop = false;
+        while (bytes + nal.size() > capacityBytes && !queue.isEmpty()) {
+            dropHeadGop();
+            droppedGop = true;
+        }
+        // 队列为空可能只是已被全部取走; 只有刚丢弃到队尾时,丢弃的才是当前 NAL 所在的 GOP
+        if (bytes + nal.size() > capacityBytes || (droppedGop && queue.isEmpty() && !nal.gopStart())) {
+            // 所在的 GOP 已被丢弃
+            waitingForGop = true;
+            drop(nal);
+            return false;
+        }
+        queue.addLast(nal);
+        bytes += nal.size();
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * 取出 NAL 单元,超时返回 null
+     */
+    public synchronized H264Nal poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (queue.isEmpty() && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        H264Nal nal = queue.pollFirst();
+        if (nal != null) {
+            bytes -= nal.size();
+        }
+        return nal;
+    }
+
+    /**
+     * 清空缓冲区并等待下一个 GOP 起点 (FFmpeg 重启后调用)
+     */
+    public synchronized void resync() {
+        clear();
+        waitingForGop = true;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        clear();
+        notifyAll();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    private void dropHeadGop() {
+        H264Nal head = queue.pollFirst();
+        while (head != null) {
+            bytes -= head.size();
+            drop(head);
+            head = queue.peekFirst();
+            if (head == null || head.gopStart()) {
+                break;
+            }
+            queue.pollFirst();
+        }
+    }
+
+    private void clear() {
+        H264Nal nal;
+        while ((nal = queue.pollFirst()) != null) {
+            bytes -= nal.size();
+            drop(nal);
+        }
+    }
+
+    private void drop(H264Nal nal) {
+        nal.content().release();
+        dropped++;
+    }
+}
@@ -0,0 +1,25 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * H.264 NAL 单元 (Annex B, 含起始码)
+ *
+ * @param content    NAL 数据,由持有者负责释放
+ * @param type       NAL 类型 (5: IDR, 7: SPS, 8: PPS ...)
+ * @param gopStart   是否为一个 GOP 的起点 (SPS,或前面没有 SPS/PPS 的 IDR),丢弃时以此为边界
+ * @param receivedAt 接收时间 (System.nanoTime),用于统计转发延迟
+ * @author WangYunwei [2025-07-03]
+ */
+public record H264Nal(ByteBuf content, int type, boolean gopStart, long receivedAt) {
+
+    public static final int TYPE_IDR = 5;
+
+    public static final int TYPE_SPS = 7;
+
+    public static final int TYPE_PPS = 8;
+
+    public int size() {
+        return content.readableBytes();
+    }
+}
@@ -0,0 +1,152 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.ByteProcessor;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * H.264 NAL 单元重组
+ * <p>
+ * UDP 分片以 retainedSlice 的形式追加到 CompositeByteBuf,按起始码 (00 00 01 / 00 00 00 01) 切分出完整的 NAL 单元,
+ * 每个 NAL 单元由其覆盖的分片切片组合而成 (decompose),整个过程不拷贝数据; 一个 NAL 单元在下一个起始码到达后才输出
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+public class H264NalAssembler {
+
+    private final ByteBufAllocator alloc;
+
+    private final CompositeByteBuf cumulation;
+
+    private final int maxNalBytes;
+
+    private final StartCodeFinder finder = new StartCodeFinder();
+
+    /**
+     * 下次查找起始码的位置
+     */
+    private int scanIndex;
+
+    /**
+     * 读指针处是否为一个 NAL 单元的起始码
+     */
+    private boolean started;
+
+    /**
+     * 上一个输出的 NAL 单元是否为 SPS/PPS,用于判断 IDR 是否为 GOP 起点
+     */
+    private boolean afterParameterSet;
+
+    public H264NalAssembler(ByteBufAllocator alloc, int maxNalBytes) {
+        this.alloc = alloc;
+        this.cumulation = alloc.compositeBuffer(Integer.MAX_VALUE);
+        this.maxNalBytes = maxNalBytes;
+    }
+
+    /**
+     * 追加一个分片 (不转移所有权),输出其中已完整的 NAL 单元
+     */
+    public void feed(ByteBuf data, long receivedAt, Consumer<H264Nal> out) {
+        if (!data.isReadable()) {
+            return;
+        }
+        cumulation.addComponent(true, data.retainedSlice());
+        int end = cumulation.writerIndex();
+        int i = Math.max(scanIndex, cumulation.readerIndex());
+        while (i < end) {
+            finder.reset();
+            int found = cumulation.forEachByte(i, end - i, finder);
+            if (found < 0) {
+                break;
+            }
+            // found 为 0x01 的位置
+            int startCode = found - 2;
+            // 四字节起始码的第一个 0x00 可能在上一次查找的范围之外,直接检查前一个字节
+            if (startCode - 1 >= cumulation.readerIndex() && cumulation.getByte(startCode - 1) == 0) {
+                startCode--;
+            }
+            if (started) {
+                if (startCode > cumulation.readerIndex()) {
+                    emit(startCode - cumulation.readerIndex(), receivedAt, out);
+                }
+            } else {
+                // 丢弃第一个起始码之前的数据
+                cumulation.readerIndex(startCode);
+                started = true;
+            }
+            i = found + 1;
+        }
+        // 起始码可能跨越分片,保留末尾两个字节重新查找
+        scanIndex = Math.max(i, Math.max(cumulation.readerIndex(), end - 2));
+        if (cumulation.readableBytes() > maxNalBytes) {
+            // 超长的 NAL 单元视为数据损坏,丢弃后等待下一个起始码
+            cumulation.skipBytes(cumulation.readableBytes());
+            scanIndex = cumulation.readerIndex();
+            started = false;
+        }
+        int before = cumulation.readerIndex();
+        cumulation.discardReadComponents();
+        scanIndex -= before - cumulation.readerIndex();
+    }
+
+    /**
+     * 从读指针处切出指定长度的 NAL 单元; 不直接使用 cumulation 的切片,因为 discardReadComponents 会移动其索引
+     */
+    private void emit(int length, long receivedAt, Consumer<H264Nal> out) {
+        List<ByteBuf> parts = cumulation.decompose(cumulation.readerIndex(), length);
+        CompositeByteBuf nal = alloc.compositeBuffer(Math.max(2, parts.size()));
+        for (ByteBuf part : parts) {
+            nal.addComponent(true, part.retain());
+        }
+        cumulation.skipBytes(length);
+        int header = nal.getByte(nal.readerIndex() + 2) == 1 ? 3 : 4;
+        int type = nal.readableBytes() > header ? nal.getByte(nal.readerIndex() + header) & 0x1F : 0;
+        boolean gopStart = type == H264Nal.TYPE_SPS || (type == H264Nal.TYPE_IDR && !afterParameterSet);
+        afterParameterSet = type == H264Nal.TYPE_SPS || type == H264Nal.TYPE_PPS;
+        out.accept(new H264Nal(nal, type, gopStart, receivedAt));
+    }
+
+    /**
+     * 丢弃未完成的数据,从下一个起始码重新开始
+     */
+    public void reset() {
+        cumulation.skipBytes(cumulation.readableBytes());
+        cumulation.discardReadComponents();
+        scanIndex = cumulation.readerIndex();
+        started = false;
+        afterParameterSet = false;
+    }
+
+    public void release() {
+        cumulation.release();
+    }
+
+    /**
+     * 查找 00 00 01,返回 0x01 的位置; zeros 为 0x01 之前连续 0x00 的个数
+     */
+    private static final class StartCodeFinder implements ByteProcessor {
+
+        private int zeros;
+
+        void reset() {
+            zeros = 0;
+        }
+
+        @Override
+        public boolean process(byte value) {
+            if (value == 0) {
+                zeros++;
+                return true;
+            }
+            if (value == 1 && zeros >= 2) {
+                return false;
+            }
+            zeros = 0;
+            return true;
+        }
+    }
+}
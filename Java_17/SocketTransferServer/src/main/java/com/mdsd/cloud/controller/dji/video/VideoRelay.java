@@ -0,0 +1,248 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import com.mdsd.cloud.util.FFmpegUtil;
+import io.micrometer.core.instrument.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 单架飞行器的视频转发: UDP 分片 -> NAL 单元 -> GOP 缓冲区 -> FFmpeg 标准输入
+ * <p>
+ * - feed() 在接收线程上完成 NAL 重组并写入缓冲区,不做任何阻塞操作
+ * - 写入任务在共享的线程池上运行,负责启动/监管 FFmpeg 进程,进程退出或写入失败时按退避时间重启,重启后从下一个 GOP 起点继续写入
+ * - 每个转发占用进程池的一个名额 (processes),名额用完时等待其他转发关闭,等待期间缓冲区照常整 GOP 丢弃
+ * - 指标 (标签 serialNumber): sts.video.nal{result=relayed|dropped}, sts.video.latency (接收到写入 FFmpeg 的耗时), sts.video.queue.bytes, sts.video.restarts
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+@Slf4j
+public class VideoRelay {
+
+    @Getter
+    private final String serialNumber;
+
+    private final String output;
+
+    private final VideoRelayProperties properties;
+
+    private final H264NalAssembler assembler;
+
+    private final GopRingBuffer buffer;
+
+    private final Function<String, Process> launcher;
+
+    private final Semaphore processes;
+
+    /**
+     * 写入任务结束
+     */
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * 执行写入任务的线程,关闭时中断 (guarded by this)
+     */
+    private Thread writer;
+
+    private final MeterRegistry meterRegistry;
+
+    private final List<Meter> meters = new ArrayList<>();
+
+    private final Counter relayed;
+
+    private final Counter restarts;
+
+    private final Timer latency;
+
+    private volatile boolean closed;
+
+    private volatile Process process;
+
+    public VideoRelay(String serialNumber, VideoRelayProperties properties, ByteBufAllocator alloc, MeterRegistry meterRegistry, Executor executor, Semaphore processes) {
+        this(serialNumber, properties, alloc, meterRegistry, executor, processes, FFmpegUtil::startProcess);
+    }
+
+    /**
+     * @param launcher 按输出地址启动进程,进程从标准输入读取 H.264 码流
+     */
+    VideoRelay(String serialNumber, VideoRelayProperties properties, ByteBufAllocator alloc, MeterRegistry meterRegistry, Executor executor, Semaphore processes, Function<String, Process> launcher) {
+        this.serialNumber = serialNumber;
+        this.output = String.format(properties.getOutput(), serialNumber);
+        this.properties = properties;
+        this.assembler = new H264NalAssembler(alloc, properties.getMaxNalBytes());
+        this.buffer = new GopRingBuffer(properties.getQueueBytes());
+        this.meterRegistry = meterRegistry;
+        this.launcher = launcher;
+        this.processes = processes;
+        Tags tags = Tags.of("serialNumber", serialNumber);
+        this.relayed = register(Counter.builder("sts.video.nal").tags(tags).tag("result", "relayed").register(meterRegistry));
+        register(FunctionCounter.builder("sts.video.nal", buffer, GopRingBuffer::getDropped).tags(tags).tag("result", "dropped").register(meterRegistry));
+        register(Gauge.builder("sts.video.queue.bytes", buffer, GopRingBuffer::getBytes).tags(tags).register(meterRegistry));
+        this.restarts = register(Counter.builder("sts.video.restarts").tags(tags).register(meterRegistry));
+        this.latency = register(Timer.builder("sts.video.latency").tags(tags).register(meterRegistry));
+        executor.execute(this::run);
+    }
+
+    private <T extends Meter> T register(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    /**
+     * 写入一个 UDP 分片 (不转移所有权)
+     */
+    public void feed(ByteBuf data) {
+        long now = System.nanoTime();
+        synchronized (assembler) {
+            if (!closed) {
+                assembler.feed(data, now, buffer::offer);
+            }
+        }
+    }
+
+    private void run() {
+        synchronized (this) {
+            writer = Thread.currentThread();
+        }
+        boolean acquired = false;
+        try {
+            acquired = acquireProcess();
+            if (acquired) {
+                relay();
+            }
+        } catch (InterruptedException e) {
+            // 关闭
+        } finally {
+            destroyProcess();
+            if (acquired) {
+                processes.release();
+            }
+            synchronized (this) {
+                writer = null;
+                // 清除关闭时的中断标志,线程归还线程池
+                Thread.interrupted();
+            }
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * 等待进程池的名额,关闭时返回 false
+     */
+    private boolean acquireProcess() throws InterruptedException {
+        boolean waiting = false;
+        while (!closed) {
+            if (processes.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            if (!waiting) {
+                waiting = true;
+                log.warn("FFmpeg 进程数已达上限 {}, {} 等待空闲名额", properties.getMaxProcesses(), output);
+            }
+        }
+        return false;
+    }
+
+    private void relay() throws InterruptedException {
+        long backoffMs = properties.getRestartBackoffMs();
+        while (!closed) {
+            try {
+                Process p = process;
+                if (p == null || !p.isAlive()) {
+                    if (p != null) {
+                        log.warn("视频流管道 {} 已退出 (exit {}), {} 毫秒后重启", output, p.exitValue(), backoffMs);
+                        restarts.increment();
+                        Thread.sleep(backoffMs);
+                        backoffMs = Math.min(backoffMs * 2, properties.getMaxRestartBackoffMs());
+                        if (closed) {
+                            break;
+                        }
+                    }
+                    // 新进程需要从 GOP 起点开始
+                    buffer.resync();
+                    process = launcher.apply(output);
+                    continue;
+                }
+                H264Nal nal = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (nal == null) {
+                    continue;
+                }
+                try {
+                    OutputStream stdin = p.getOutputStream();
+                    ByteBuf content = nal.content();
+                    content.getBytes(content.readerIndex(), stdin, content.readableBytes());
+                    stdin.flush();
+                    relayed.increment();
+                    latency.record(System.nanoTime() - nal.receivedAt(), TimeUnit.NANOSECONDS);
+                    backoffMs = properties.getRestartBackoffMs();
+                } finally {
+                    nal.content().release();
+                }
+            } catch (IOException e) {
+                // 管道断开,销毁进程后由下一轮循环重启
+                log.warn("写入视频流管道 {} 失败 -> {}", output, e.getMessage());
+                destroyProcess();
+            } catch (RuntimeException e) {
+                log.error("视频流管道 {} 启动失败 -> {}", output, e.getMessage());
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, properties.getMaxRestartBackoffMs());
+            }
+        }
+    }
+
+    /**
+     * 关闭转发: 停止写入任务、关闭 FFmpeg、释放缓冲区并注销指标
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.close();
+        // 先销毁进程,避免写入线程阻塞在管道上
+        destroyProcess();
+        synchronized (this) {
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+        try {
+            stopped.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (assembler) {
+            assembler.release();
+        }
+        meters.forEach(meterRegistry::remove);
+        log.info("视频流管道 {} 已关闭", output);
+    }
+
+    private void destroyProcess() {
+        Process p = process;
+        if (p != null) {
+            try {
+                p.getOutputStream().close();
+            } catch (IOException ignored) {
+                // 进程已退出
+            }
+            p.destroy();
+            try {
+                p.waitFor(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
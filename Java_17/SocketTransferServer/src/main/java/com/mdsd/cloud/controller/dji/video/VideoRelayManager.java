@@ -0,0 +1,75 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 视频转发管理: 按云盒编号创建/关闭 VideoRelay,应用关闭时关闭全部转发
+ * <p>
+ * 全部转发共用一个写入线程池,FFmpeg 进程数受 env.video.max-processes 限制
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+@Slf4j
+@Component
+public class VideoRelayManager implements DisposableBean {
+
+    private final ConcurrentHashMap<String, VideoRelay> relays = new ConcurrentHashMap<>();
+
+    private final VideoRelayProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor;
+
+    private final Semaphore processes;
+
+    public VideoRelayManager(VideoRelayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "video-relay-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.processes = new Semaphore(Math.max(1, properties.getMaxProcesses()));
+    }
+
+    /**
+     * 获取或创建转发,未启用时返回 null
+     */
+    public VideoRelay open(String serialNumber) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        return relays.computeIfAbsent(serialNumber, k -> {
+            log.info("{} 开始视频转发", k);
+            return new VideoRelay(k, properties, PooledByteBufAllocator.DEFAULT, meterRegistry, executor, processes);
+        });
+    }
+
+    public void close(String serialNumber) {
+        VideoRelay relay = relays.remove(serialNumber);
+        if (relay != null) {
+            relay.close();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        relays.keySet().forEach(this::close);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,57 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 视频转发配置
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+@Getter
+@Component
+public class VideoRelayProperties {
+
+    /**
+     * 是否启用视频转发
+     */
+    @Value("${env.video.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * FFmpeg 输出地址, %s 为云盒编号 (例如 rtmp://192.168.0.221/live/%s, 本地调试可使用 out/%s.flv)
+     */
+    @Value("${env.video.output:rtmp://${env.ip.sts}/live/%s}")
+    private String output;
+
+    /**
+     * 同时运行的 FFmpeg 进程数上限,超出的飞行器等待空闲名额
+     */
+    @Value("${env.video.max-processes:16}")
+    private int maxProcesses;
+
+    /**
+     * 每架飞行器的缓冲区大小 (字节),超出后整 GOP 丢弃
+     */
+    @Value("${env.video.queue-bytes:4194304}")
+    private long queueBytes;
+
+    /**
+     * 单个 NAL 单元的最大字节数,超出视为数据损坏
+     */
+    @Value("${env.video.max-nal-bytes:2097152}")
+    private int maxNalBytes;
+
+    /**
+     * FFmpeg 重启的初始退避时间 (毫秒)
+     */
+    @Value("${env.video.restart-backoff-ms:1000}")
+    private long restartBackoffMs;
+
+    /**
+     * FFmpeg 重启的最大退避时间 (毫秒)
+     */
+    @Value("${env.video.max-restart-backoff-ms:30000}")
+    private long maxRestartBackoffMs;
+}
@@ -0,0 +1,59 @@
+package com.mdsd.cloud.controller.tyjw.client;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 通用机务 TCP 客户端配置
+ *
+ * @author WangYunwei [2025-06-26]
+ */
+@Getter
+@Component
+public class TyjwClientProperties {
+
+    /**
+     * 连接超时 (毫秒)
+     */
+    @Value("${env.tcp-client.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    /**
+     * 首次重连退避时间 (毫秒),每次失败翻倍
+     */
+    @Value("${env.tcp-client.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    /**
+     * 最大重连退避时间 (毫秒)
+     */
+    @Value("${env.tcp-client.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    /**
+     * 写空闲多少秒后发送心跳
+     */
+    @Value("${env.tcp-client.heartbeat-seconds:10}")
+    private int heartbeatSeconds;
+
+    /**
+     * 读空闲多少秒后断开重连
+     */
+    @Value("${env.tcp-client.reader-idle-seconds:30}")
+    private int readerIdleSeconds;
+
+    /**
+     * 重连期间缓存的指令数
+     */
+    @Value("${env.tcp-client.replay-capacity:256}")
+    private int replayCapacity;
+
+    /**
+     * 缓存指令的存活时间 (毫秒),超过后不再补发; 0 表示重连期间不缓存,指令直接返回失败
+     * <p>
+     * 飞行控制指令迟到执行是危险的,开启时应保持在 1~2 秒以内
+     */
+    @Value("${env.tcp-client.replay-ttl-ms:0}")
+    private long replayTtlMs;
+}
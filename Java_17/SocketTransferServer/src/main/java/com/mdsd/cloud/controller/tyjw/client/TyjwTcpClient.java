@@ -0,0 +1,280 @@
+package com.mdsd.cloud.controller.tyjw.client;
+
+import com.mdsd.cloud.controller.tyjw.codec.TyjwRequest;
+import com.mdsd.cloud.util.NettyTransport;
+import com.mdsd.cloud.util.SocketUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 通用机务 TCP 客户端 (自动重连)
+ * <p>
+ * 状态: DISCONNECTED -> CONNECTING -> CONNECTED -> (断开) -> BACKOFF -> CONNECTING ... -> CLOSED
+ * <p>
+ * - 连接成功后自动发送注册帧 (0x01),注册参数每次重新获取 (AccessToken 可能已刷新)
+ * - 断开或连接失败后按指数退避重连,退避时间带随机抖动 (base/2 ~ base),避免多实例同时重连
+ * - 写空闲时发送心跳 (0x02),读空闲超时视为连接失效,主动断开并重连
+ * - 重连期间的指令写入有界重放缓冲区,连接成功后在注册帧之后按顺序补发,超过存活时间的指令丢弃;
+ *   存活时间为 0 (默认) 时不缓存,重连期间的指令直接返回失败
+ * - 指标: sts.tyjw.reconnect.latency (断开到重新连接的耗时), sts.tyjw.reconnect.attempts, sts.tyjw.replay.pending, sts.tyjw.replay.dropped
+ *
+ * @author WangYunwei [2025-06-26]
+ */
+@Slf4j
+public class TyjwTcpClient {
+
+    public enum State {
+        DISCONNECTED,
+        CONNECTING,
+        CONNECTED,
+        BACKOFF,
+        CLOSED
+    }
+
+    private record Pending(TyjwRequest request, long enqueuedAt) {
+    }
+
+    private final String host;
+
+    private final int port;
+
+    private final Bootstrap bootstrap;
+
+    private final EventLoopGroup group;
+
+    private final Supplier<TyjwRequest> registration;
+
+    private final Supplier<TyjwRequest> heartbeat;
+
+    private final TyjwClientProperties properties;
+
+    private final Deque<Pending> replay = new ArrayDeque<>();
+
+    private final Timer reconnectLatency;
+
+    private final Counter reconnectAttempts;
+
+    private final Counter replayDropped;
+
+    @Getter
+    private volatile State state = State.DISCONNECTED;
+
+    private volatile Channel channel;
+
+    private ScheduledFuture<?> reconnectTask;
+
+    private long backoffMs;
+
+    /**
+     * 断开连接的时间,用于统计重连耗时
+     */
+    private long disconnectedAt;
+
+    public TyjwTcpClient(NettyTransport transport, String host, int port, ChannelHandler handler,
+                         Supplier<TyjwRequest> registration, Supplier<TyjwRequest> heartbeat,
+                         TyjwClientProperties properties, MeterRegistry meterRegistry) {
+        this.host = host;
+        this.port = port;
+        this.group = transport.getWorkerGroup();
+        this.registration = registration;
+        this.heartbeat = heartbeat;
+        this.properties = properties;
+        this.backoffMs = properties.getInitialBackoffMs();
+        this.bootstrap = SocketUtil.createTcpClient(transport, properties.getReaderIdleSeconds(), properties.getHeartbeatSeconds(), new Watchdog(), handler)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMs());
+        this.reconnectLatency = Timer.builder("sts.tyjw.reconnect.latency").register(meterRegistry);
+        this.reconnectAttempts = Counter.builder("sts.tyjw.reconnect.attempts").register(meterRegistry);
+        this.replayDropped = Counter.builder("sts.tyjw.replay.dropped").register(meterRegistry);
+        Gauge.builder("sts.tyjw.replay.pending", this, c -> c.pendingCount()).register(meterRegistry);
+        Gauge.builder("sts.tyjw.connected", this, c -> c.state == State.CONNECTED ? 1 : 0).register(meterRegistry);
+    }
+
+    /**
+     * 开始连接,连接失败时自动重连
+     */
+    public synchronized void start() {
+        if (state != State.DISCONNECTED) {
+            return;
+        }
+        disconnectedAt = System.nanoTime();
+        connect();
+    }
+
+    /**
+     * 是否接受指令 (已启动且未关闭,重连期间指令进入重放缓冲区)
+     */
+    public boolean isOpen() {
+        State s = state;
+        return s != State.DISCONNECTED && s != State.CLOSED;
+    }
+
+    /**
+     * 发送指令,未连接时写入重放缓冲区
+     *
+     * @return false 表示客户端未启动/已关闭、未开启重放或重放缓冲区已满,请求已被释放
+     */
+    public boolean send(TyjwRequest request) {
+        Channel ch;
+        synchronized (this) {
+            ch = channel;
+            if (state != State.CONNECTED || ch == null) {
+                if (!isOpen() || properties.getReplayTtlMs() <= 0 || replay.size() >= properties.getReplayCapacity()) {
+                    request.release();
+                    replayDropped.increment();
+                    return false;
+                }
+                replay.addLast(new Pending(request, System.nanoTime()));
+                log.info(">>> (缓存待重连) {}", request);
+                return true;
+            }
+        }
+        log.info(">>> {}", request);
+        ch.writeAndFlush(request);
+        return true;
+    }
+
+    public void close() {
+        Channel ch;
+        synchronized (this) {
+            state = State.CLOSED;
+            if (reconnectTask != null) {
+                reconnectTask.cancel(false);
+            }
+            releaseReplay();
+            ch = channel;
+        }
+        if (ch != null) {
+            ch.close().syncUninterruptibly();
+        }
+    }
+
+    private synchronized int pendingCount() {
+        return replay.size();
+    }
+
+    private synchronized void connect() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        state = State.CONNECTING;
+        reconnectAttempts.increment();
+        bootstrap.connect(host, port).addListener((ChannelFutureListener) f -> {
+            if (f.isSuccess()) {
+                log.info("TCP 客户端连接成功 -> {}:{}", host, port);
+                onConnected(f.channel());
+            } else {
+                log.error("TCP 客户端连接失败 -> {}", f.cause().getMessage());
+                scheduleReconnect();
+            }
+        });
+    }
+
+    /**
+     * 连接成功: 先写注册帧,再按顺序补发重放缓冲区中未过期的指令
+     */
+    private void onConnected(Channel ch) {
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                ch.close();
+                return;
+            }
+            channel = ch;
+            ch.write(registration.get());
+            long expired = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getReplayTtlMs());
+            Pending pending;
+            int replayed = 0;
+            int dropped = 0;
+            while ((pending = replay.pollFirst()) != null) {
+                if (pending.enqueuedAt - expired < 0) {
+                    pending.request.release();
+                    replayDropped.increment();
+                    dropped++;
+                } else {
+                    ch.write(pending.request);
+                    replayed++;
+                }
+            }
+            ch.flush();
+            state = State.CONNECTED;
+            backoffMs = properties.getInitialBackoffMs();
+            reconnectLatency.record(System.nanoTime() - disconnectedAt, TimeUnit.NANOSECONDS);
+            if (replayed > 0) {
+                log.info("TCP 重新连接后补发 {} 条指令", replayed);
+            }
+            if (dropped > 0) {
+                log.warn("TCP 重新连接后丢弃 {} 条过期指令", dropped);
+            }
+        }
+    }
+
+    private synchronized void onDisconnected(Channel ch) {
+        if (ch != channel || state == State.CLOSED) {
+            return;
+        }
+        channel = null;
+        disconnectedAt = System.nanoTime();
+        log.warn("TCP 连接断开 -> {}:{}", host, port);
+        scheduleReconnect();
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        state = State.BACKOFF;
+        long base = backoffMs;
+        long delay = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        backoffMs = Math.min(base * 2, properties.getMaxBackoffMs());
+        log.info("{} 毫秒后重新连接 -> {}:{}", delay, host, port);
+        reconnectTask = group.next().schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void releaseReplay() {
+        Pending pending;
+        while ((pending = replay.pollFirst()) != null) {
+            pending.request.release();
+        }
+    }
+
+    /**
+     * 连接状态监控: 断开重连、写空闲发送心跳、读空闲断开
+     */
+    @ChannelHandler.Sharable
+    class Watchdog extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            onDisconnected(ctx.channel());
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent event) {
+                if (event.state() == IdleState.WRITER_IDLE) {
+                    ctx.writeAndFlush(heartbeat.get());
+                } else if (event.state() == IdleState.READER_IDLE) {
+                    log.warn("TCP 连接 {} 秒未收到数据, 断开重连", properties.getReaderIdleSeconds());
+                    ctx.close();
+                }
+                return;
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 请求帧参数编码器,将 WEB SOCKET 指令中的参数写入 ByteBuf
+ *
+ * @author WangYunwei [2025-06-05]
+ */
+@FunctionalInterface
+public interface TyjwArgsEncoder {
+
+    TyjwArgsEncoder NONE = (buf, jsonNode) -> {
+    };
+
+    void encode(ByteBuf buf, JsonNode jsonNode);
+}
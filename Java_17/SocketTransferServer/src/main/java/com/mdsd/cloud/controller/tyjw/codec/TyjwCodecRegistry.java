@@ -0,0 +1,103 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.mdsd.cloud.enums.TyjwEnum;
+import com.mdsd.cloud.util.ByteUtil;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 指令动作 -> 编解码器 注册表
+ * <p>
+ * - 下标与 {@link TyjwEnum#index(int, int)} 一致,查找为一次数组访问
+ * - 参数编码器在构造时由 TyjwEnum.args ("名称-类型;") 预编译,发送指令时不再拆分字符串
+ *
+ * @author WangYunwei [2025-06-05]
+ */
+public class TyjwCodecRegistry {
+
+    private final TyjwFrameHandler[] decoders = new TyjwFrameHandler[0x10000];
+
+    private final TyjwArgsEncoder[] encoders = new TyjwArgsEncoder[0x10000];
+
+    public TyjwCodecRegistry() {
+        for (TyjwEnum anEnum : TyjwEnum.values()) {
+            if (anEnum.getInstruct() <= 0xFF && encoders[index(anEnum)] == null) {
+                encoders[index(anEnum)] = compile(anEnum.getArgs());
+            }
+        }
+    }
+
+    private static int index(TyjwEnum anEnum) {
+        return TyjwEnum.index(anEnum.getInstruct(), anEnum.getAction());
+    }
+
+    /**
+     * 注册回复帧处理器
+     */
+    public TyjwCodecRegistry decoder(TyjwFrameHandler handler, TyjwEnum... enums) {
+        for (TyjwEnum anEnum : enums) {
+            decoders[index(anEnum)] = handler;
+        }
+        return this;
+    }
+
+    /**
+     * 覆盖参数编码器
+     */
+    public TyjwCodecRegistry encoder(TyjwEnum anEnum, TyjwArgsEncoder encoder) {
+        encoders[index(anEnum)] = encoder;
+        return this;
+    }
+
+    /**
+     * 回复帧处理器,未注册时返回 null
+     */
+    public TyjwFrameHandler decoder(int instruct, int action) {
+        return decoders[TyjwEnum.index(instruct, action)];
+    }
+
+    public TyjwArgsEncoder encoder(TyjwEnum anEnum) {
+        TyjwArgsEncoder encoder = encoders[index(anEnum)];
+        return encoder == null ? TyjwArgsEncoder.NONE : encoder;
+    }
+
+    /**
+     * 预编译参数描述,例如: "俯仰-float;平移-float;横滚-float;"
+     */
+    static TyjwArgsEncoder compile(String args) {
+        if (args == null) {
+            return TyjwArgsEncoder.NONE;
+        }
+        List<TyjwArgsEncoder> list = new ArrayList<>();
+        for (String el : args.split(";")) {
+            String[] split = el.split("-");
+            if (split.length < 2) {
+                continue;
+            }
+            String name = split[0];
+            switch (split[1]) {
+                case "byte" -> list.add((buf, node) -> buf.writeByte(Byte.parseByte(node.get(name).asText())));
+                case "bytes" -> list.add((buf, node) -> buf.writeBytes(ByteUtil.stringToByte(node.get(name).asText())));
+                case "short" -> list.add((buf, node) -> buf.writeShort(Short.parseShort(node.get(name).asText())));
+                case "int" -> list.add((buf, node) -> buf.writeInt(Integer.parseInt(node.get(name).asText())));
+                case "long" -> list.add((buf, node) -> buf.writeLong(Long.parseLong(node.get(name).asText())));
+                case "float" -> list.add((buf, node) -> buf.writeFloat(Float.parseFloat(node.get(name).asText())));
+                case "double" -> list.add((buf, node) -> buf.writeDouble(Double.parseDouble(node.get(name).asText())));
+                case "base64" -> list.add((buf, node) -> buf.writeBytes(Base64.getDecoder().decode(node.get(name).asText())));
+                default -> {
+                }
+            }
+        }
+        if (list.isEmpty()) {
+            return TyjwArgsEncoder.NONE;
+        }
+        TyjwArgsEncoder[] array = list.toArray(new TyjwArgsEncoder[0]);
+        return (buf, node) -> {
+            for (TyjwArgsEncoder encoder : array) {
+                encoder.encode(buf, node);
+            }
+        };
+    }
+}
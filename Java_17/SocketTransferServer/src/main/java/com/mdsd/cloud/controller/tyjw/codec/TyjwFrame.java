@@ -0,0 +1,235 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+import io.netty.util.ReferenceCounted;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 通用机务 TCP 回复帧 (帧头 0x6A77)
+ * <p>
+ * 帧结构: 帧头(2) + 数据长度(2) + 指令编号(1) + 数据体(N)
+ * <p>
+ * - content 为数据体的 retainedSlice,直接引用解码器的累积缓冲区,不做任何拷贝
+ * - 对象本身通过 Recycler 复用,引用计数归零时自动回收
+ *
+ * @author WangYunwei [2025-06-03]
+ */
+public final class TyjwFrame implements ReferenceCounted {
+
+    /**
+     * 云盒编号长度
+     */
+    public static final int BOX_SN_LENGTH = 15;
+
+    private static final Recycler<TyjwFrame> RECYCLER = new Recycler<>() {
+        @Override
+        protected TyjwFrame newObject(Handle<TyjwFrame> handle) {
+            return new TyjwFrame(handle);
+        }
+    };
+
+    private final Recycler.Handle<TyjwFrame> handle;
+
+    private ByteBuf content;
+
+    private int instruct;
+
+    private int action;
+
+    private TyjwFrame(Recycler.Handle<TyjwFrame> handle) {
+        this.handle = handle;
+    }
+
+    static TyjwFrame newInstance(ByteBuf content, int instruct, int action) {
+        TyjwFrame frame = RECYCLER.get();
+        frame.content = content;
+        frame.instruct = instruct;
+        frame.action = action;
+        return frame;
+    }
+
+    /**
+     * 指令编号
+     */
+    public int instruct() {
+        return instruct;
+    }
+
+    /**
+     * 动作编号 (无动作的指令为 0)
+     */
+    public int action() {
+        return action;
+    }
+
+    /**
+     * 数据体 (不含帧头、数据长度、指令编号)
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    /**
+     * 从数据体的指定位置读取云盒编号,不移动读指针
+     */
+    public String boxSn(int index) {
+        return content.getCharSequence(content.readerIndex() + index, BOX_SN_LENGTH, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 读取数据体中的云盒编号并移动读指针
+     */
+    public String readBoxSn() {
+        return content.readCharSequence(BOX_SN_LENGTH, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 计算云盒编号的散列值,不移动读指针也不创建字符串
+     * <p>
+     * 算法与 String.hashCode() 一致 (云盒编号为 ASCII),便于与 WEB SOCKET 指令中的云盒编号路由到同一分区; 帧中没有云盒编号时返回 0
+     */
+    public int boxSnHash() {
+        int start = content.readerIndex();
+        int end = content.writerIndex();
+        return switch (instruct) {
+            case 0x09 -> hash(start + 33, end);// 加密标志 + 经度 + 纬度 + 时间戳 + 原图大小
+            case 0x0A -> hash(start + 1, end);// 状态
+            case 0x0C -> hash(start + 4, end);// 时间戳
+            case 0xA8 -> protoStringHash(6);// UavState.boxSn
+            case 0xA9 -> protoStringHash(15);// TelemetryData.boxSn
+            case 0x01, 0x02, 0xDC -> 0;
+            // 带动作编号的回复帧,云盒编号位于末尾
+            default -> action == 0xFF && instruct == 0xD2 ? 0 : hash(end - BOX_SN_LENGTH, end);
+        };
+    }
+
+    private int hash(int index, int end) {
+        if (index < content.readerIndex() || index + BOX_SN_LENGTH > end) {
+            return 0;
+        }
+        int h = 0;
+        for (int i = index; i < index + BOX_SN_LENGTH; i++) {
+            h = 31 * h + (content.getByte(i) & 0xFF);
+        }
+        return h;
+    }
+
+    /**
+     * 在 protobuf 数据体中查找指定编号的 string 字段并计算散列值
+     * <p>
+     * 每次读取前检查边界,数据体被截断或长度字段非法时返回 0,不抛出异常
+     */
+    private int protoStringHash(int fieldNumber) {
+        int i = content.readerIndex();
+        int end = content.writerIndex();
+        while (i < end) {
+            // tag
+            long tag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (i >= end || shift >= 64) {
+                    return 0;
+                }
+                b = content.getByte(i++);
+                tag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            switch ((int) (tag & 0x07)) {
+                case 0 -> {
+                    do {
+                        if (i >= end) {
+                            return 0;
+                        }
+                        b = content.getByte(i++);
+                    } while (b < 0);
+                }
+                case 1 -> i += 8;
+                case 5 -> i += 4;
+                case 2 -> {
+                    long length = 0;
+                    shift = 0;
+                    do {
+                        if (i >= end || shift >= 35) {
+                            return 0;
+                        }
+                        b = content.getByte(i++);
+                        length |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    if (length > end - i) {
+                        return 0;
+                    }
+                    if (tag >>> 3 == fieldNumber) {
+                        int h = 0;
+                        for (int j = i; j < i + length; j++) {
+                            h = 31 * h + (content.getByte(j) & 0xFF);
+                        }
+                        return h;
+                    }
+                    i += (int) length;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int refCnt() {
+        return content.refCnt();
+    }
+
+    @Override
+    public TyjwFrame retain() {
+        content.retain();
+        return this;
+    }
+
+    @Override
+    public TyjwFrame retain(int increment) {
+        content.retain(increment);
+        return this;
+    }
+
+    @Override
+    public TyjwFrame touch() {
+        content.touch();
+        return this;
+    }
+
+    @Override
+    public TyjwFrame touch(Object hint) {
+        content.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return recycleIfReleased(content.release());
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return recycleIfReleased(content.release(decrement));
+    }
+
+    private boolean recycleIfReleased(boolean released) {
+        if (released) {
+            content = null;
+            instruct = 0;
+            action = 0;
+            handle.recycle(this);
+        }
+        return released;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TyjwFrame(0x%02X_0x%02X, %s)", instruct, action, content);
+    }
+}
@@ -0,0 +1,85 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.mdsd.cloud.enums.TyjwEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * 通用机务 TCP 帧解码器,替代 LengthFieldBasedFrameDecoder + 手动拆包
+ * <p>
+ * - 按数据长度字段切帧,数据体以 retainedSlice 的形式交给 {@link TyjwFrame},不拷贝字节
+ * - 帧头不是 0x6A77 的整帧直接丢弃
+ * - 非共享处理器,每个 Channel 需要新建实例
+ *
+ * @author WangYunwei [2025-06-03]
+ */
+@Slf4j
+public class TyjwFrameDecoder extends ByteToMessageDecoder {
+
+    /**
+     * 帧头(2) + 数据长度(2)
+     */
+    private static final int HEADER_LENGTH = 4;
+
+    private static final int DEFAULT_MAX_FRAME_LENGTH = 10 * 1024;
+
+    /**
+     * 以下指令没有 加密标志/动作编号 字段
+     */
+    private static final boolean[] NO_ACTION = new boolean[256];
+
+    static {
+        for (TyjwEnum anEnum : new TyjwEnum[]{TyjwEnum.注册, TyjwEnum.心跳, TyjwEnum.状态通知_图片上传完成通知, TyjwEnum.状态通知_云盒开关机通知,
+                TyjwEnum.无人机实时数据_信道质量, TyjwEnum.无人机实时数据_状态数据, TyjwEnum.无人机实时数据_遥测数据, TyjwEnum.MOP数据透传}) {
+            NO_ACTION[anEnum.getInstruct()] = true;
+        }
+    }
+
+    private final int maxFrameLength;
+
+    public TyjwFrameDecoder() {
+        this(DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public TyjwFrameDecoder(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 指令是否带有动作编号
+     */
+    public static boolean hasAction(int instruct) {
+        return !NO_ACTION[instruct & 0xFF];
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (in.readableBytes() < HEADER_LENGTH) {
+            return;
+        }
+        int start = in.readerIndex();
+        int length = in.getUnsignedShort(start + 2);
+        if (length + HEADER_LENGTH > maxFrameLength) {
+            in.skipBytes(in.readableBytes());
+            throw new TooLongFrameException("帧长度超出限制: " + length);
+        }
+        if (in.readableBytes() < length + HEADER_LENGTH) {
+            return;
+        }
+        if (in.getUnsignedShort(start) != TyjwEnum.回复帧头.getInstruct() || length < 1) {
+            log.warn("丢弃无效帧: header=0x{}, length={}", Integer.toHexString(in.getUnsignedShort(start)), length);
+            in.skipBytes(length + HEADER_LENGTH);
+            return;
+        }
+        int instruct = in.getUnsignedByte(start + HEADER_LENGTH);
+        // 带动作编号的帧: 指令编号(1) + 加密标志(1) + 动作编号(1)
+        int action = hasAction(instruct) && length >= 3 ? in.getUnsignedByte(start + HEADER_LENGTH + 2) : 0;
+        out.add(TyjwFrame.newInstance(in.retainedSlice(start + HEADER_LENGTH + 1, length - 1), instruct, action));
+        in.skipBytes(length + HEADER_LENGTH);
+    }
+}
@@ -0,0 +1,45 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.mdsd.cloud.enums.TyjwEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+/**
+ * 通用机务 TCP 帧编码器
+ * <p>
+ * 先写入占位的数据长度,参数写完后回填,参数 ByteBuf 由 MessageToByteEncoder 自动释放
+ *
+ * @author WangYunwei [2025-06-03]
+ */
+@ChannelHandler.Sharable
+public class TyjwFrameEncoder extends MessageToByteEncoder<TyjwRequest> {
+
+    public static final TyjwFrameEncoder INSTANCE = new TyjwFrameEncoder();
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, TyjwRequest msg, ByteBuf out) {
+        int start = out.writerIndex();
+        out.writeShort(TyjwEnum.请求帧头.getInstruct());// 帧头
+        out.writeShort(0);// 数据长度,占位临时赋值为0
+        if (msg.getBoxSn() != null) {
+            ByteBufUtil.writeUtf8(out, msg.getBoxSn());// 云盒编号
+            out.writeByte(msg.getInstruct());// 指令编号
+            out.writeByte(msg.getEncrypt());// 加密标志
+            out.writeByte(msg.getAction());// 动作编号
+        } else {
+            out.writeByte(msg.getInstruct());// 指令编号
+        }
+        ByteBuf args = msg.content();
+        out.writeBytes(args, args.readerIndex(), args.readableBytes());// 参数
+        out.setShort(start + 2, out.writerIndex() - start - 4);// 重新计算数据长度
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, TyjwRequest msg, boolean preferDirect) {
+        int size = 4 + 3 + TyjwFrame.BOX_SN_LENGTH + msg.content().readableBytes();
+        return preferDirect ? ctx.alloc().ioBuffer(size) : ctx.alloc().heapBuffer(size);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+/**
+ * 回复帧处理器,解析数据体并写入推送消息
+ *
+ * @author WangYunwei [2025-06-05]
+ */
+@FunctionalInterface
+public interface TyjwFrameHandler {
+
+    /**
+     * @param frame   回复帧,数据体读指针位于指令编号之后
+     * @param message 推送消息,设置了推送目标时由调用方发送到 WEB SOCKET
+     */
+    void handle(TyjwFrame frame, TyjwMessage message);
+}
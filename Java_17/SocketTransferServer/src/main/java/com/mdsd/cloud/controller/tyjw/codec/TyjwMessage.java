@@ -0,0 +1,137 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.util.JsonFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 推送到 WEB SOCKET 的文本消息
+ * <p>
+ * 输出格式与 Map.toString() 保持一致 ({k1=v1, k2=v2}),直接追加到 StringBuilder,避免 HashMap 和基本类型装箱
+ *
+ * @author WangYunwei [2025-06-03]
+ */
+public final class TyjwMessage {
+
+    private final StringBuilder sb = new StringBuilder(256).append('{');
+
+    private boolean empty = true;
+
+    private String target;
+
+    private String action = "NEW_MESSAGE";
+
+    private StringBuilder key(String key) {
+        if (!empty) {
+            sb.append(", ");
+        }
+        empty = false;
+        return sb.append(key).append('=');
+    }
+
+    public TyjwMessage put(String key, CharSequence value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public TyjwMessage put(String key, Object value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public TyjwMessage put(String key, int value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public TyjwMessage put(String key, long value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public TyjwMessage put(String key, float value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public TyjwMessage put(String key, double value) {
+        key(key).append(value);
+        return this;
+    }
+
+    /**
+     * protobuf 数据按 JSON 直接写入,不生成中间字符串
+     */
+    public TyjwMessage putJson(String key, MessageOrBuilder value, JsonFormat.Printer printer) {
+        try {
+            printer.appendTo(value, key(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * 指令编码/动作编号 (0x%02X)
+     */
+    public TyjwMessage putHex(String key, int value) {
+        StringBuilder b = key(key).append("0x");
+        value &= 0xFF;
+        b.append(Character.toUpperCase(Character.forDigit(value >> 4, 16)));
+        b.append(Character.toUpperCase(Character.forDigit(value & 0x0F, 16)));
+        return this;
+    }
+
+    /**
+     * 云盒SN号,同时作为推送目标
+     */
+    public TyjwMessage putBoxSn(String boxSn) {
+        this.target = boxSn;
+        return put("云盒SN号", boxSn);
+    }
+
+    /**
+     * 推送目标云盒编号
+     */
+    public TyjwMessage target(String target) {
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * 消息类型 (NEW_MESSAGE/ERROR_MESSAGE),在 toString() 时追加到末尾
+     */
+    public TyjwMessage action(String action) {
+        this.action = action;
+        return this;
+    }
+
+    /**
+     * 复制当前内容,用于同一帧按不同推送模式多次渲染
+     */
+    public TyjwMessage copy() {
+        TyjwMessage copy = new TyjwMessage();
+        copy.sb.setLength(0);
+        copy.sb.append(sb);
+        copy.empty = empty;
+        copy.target = target;
+        copy.action = action;
+        return copy;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        int length = sb.length();
+        boolean wasEmpty = empty;
+        String result = key("action").append(action).append('}').toString();
+        sb.setLength(length);
+        empty = wasEmpty;
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.mdsd.cloud.enums.TyjwEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+
+/**
+ * 通用机务 TCP 请求帧 (帧头 0x7479),由 {@link TyjwFrameEncoder} 负责写入帧头和数据长度
+ * <p>
+ * - 注册/心跳: 帧头 + 数据长度 + 指令编号 + 参数
+ * - 云盒指令: 帧头 + 数据长度 + 云盒编号 + 指令编号 + 加密标志 + 动作编号 + 参数
+ *
+ * @author WangYunwei [2025-06-03]
+ */
+@Getter
+public class TyjwRequest extends DefaultByteBufHolder {
+
+    private final int instruct;
+
+    private final int action;
+
+    private final int encrypt;
+
+    /**
+     * 为 null 时不写入云盒编号、加密标志和动作编号
+     */
+    private final String boxSn;
+
+    private TyjwRequest(int instruct, int action, int encrypt, String boxSn, ByteBuf args) {
+        super(args);
+        this.instruct = instruct;
+        this.action = action;
+        this.encrypt = encrypt;
+        this.boxSn = boxSn;
+    }
+
+    /**
+     * 注册
+     */
+    public static TyjwRequest register(ByteBuf args) {
+        return new TyjwRequest(TyjwEnum.注册.getInstruct(), 0, 0, null, args);
+    }
+
+    /**
+     * 心跳
+     */
+    public static TyjwRequest heartbeat(ByteBuf args) {
+        return new TyjwRequest(TyjwEnum.心跳.getInstruct(), 0, 0, null, args);
+    }
+
+    /**
+     * 云盒指令
+     */
+    public static TyjwRequest command(TyjwEnum anEnum, String boxSn, int encrypt, ByteBuf args) {
+        return new TyjwRequest(anEnum.getInstruct(), anEnum.getAction(), encrypt, boxSn, args == null ? Unpooled.EMPTY_BUFFER : args);
+    }
+
+    @Override
+    public TyjwRequest replace(ByteBuf content) {
+        return new TyjwRequest(instruct, action, encrypt, boxSn, content);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TyjwRequest(%s, 0x%02X_0x%02X, %s)", boxSn, instruct, action, content());
+    }
+}
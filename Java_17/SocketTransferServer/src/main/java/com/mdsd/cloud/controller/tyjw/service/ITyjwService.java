@@ -2,8 +2,8 @@ package com.mdsd.cloud.controller.tyjw.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.mdsd.cloud.controller.tyjw.codec.TyjwFrame;
 import com.mdsd.cloud.controller.tyjw.dto.*;
-import io.netty.buffer.ByteBuf;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -27,7 +27,7 @@ public interface ITyjwService {
     /**
      * 处理 TCP SOCKET
      */
-    void handleTcpClient(ByteBuf buf);
+    void handleTcpClient(TyjwFrame frame);
 
     /**
      * 获取 AccessToken
@@ -5,6 +5,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
+import com.mdsd.cloud.controller.tyjw.client.TyjwClientProperties;
+import com.mdsd.cloud.controller.tyjw.client.TyjwTcpClient;
+import com.mdsd.cloud.controller.tyjw.codec.*;
 import com.mdsd.cloud.controller.tyjw.dto.*;
 import com.mdsd.cloud.controller.tyjw.service.ITyjwService;
 import com.mdsd.cloud.controller.websocket.dto.WsChannelDetails;
@@ -18,20 +21,21 @@ import com.mdsd.cloud.feign.EApiFeign;
 import com.mdsd.cloud.response.BusinessException;
 import com.mdsd.cloud.response.ResponseTy;
 import com.mdsd.cloud.util.*;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
-import io.netty.handler.timeout.IdleStateEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Supplier;
 
@@ -43,7 +47,7 @@ import static java.lang.String.valueOf;
  */
 @Slf4j
 @Service
-public class TyjwServiceImpl implements ITyjwService {
+public class TyjwServiceImpl implements ITyjwService, DisposableBean {
 
     @Value("${env.ip.tyjw}")
     private String host;
@@ -51,7 +55,7 @@ public class TyjwServiceImpl implements ITyjwService {
     @Value("${env.port.tyjw.tcp}")
     private int port;
 
-    private Channel tcpChannel;
+    private volatile TyjwTcpClient tcpClient;
 
     private final AuthSingleton auth = AuthSingleton.getInstance();
 
@@ -65,15 +69,41 @@ public class TyjwServiceImpl implements ITyjwService {
     private final ApplicationEventPublisher publisher;
     private final IWebSocketService webSocketService;
 
-    public TyjwServiceImpl(EApiFeign feign, ApplicationEventPublisher publisher, IWebSocketService webSocketService) {
+    private final TyjwCodecRegistry registry;
+
+    private final NettyTransport transport;
+
+    private final TyjwClientProperties clientProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    public TyjwServiceImpl(EApiFeign feign, ApplicationEventPublisher publisher, IWebSocketService webSocketService, NettyTransport transport,
+                           TyjwClientProperties clientProperties, MeterRegistry meterRegistry) {
         this.feign = feign;
         this.publisher = publisher;
         this.webSocketService = webSocketService;
-    }
-
-    @FunctionalInterface
-    private interface WebSocketFunction<T1, T2, T3> {
-        void dataHandle(T1 arg1, T2 arg2, T3 arg3);
+        this.transport = transport;
+        this.clientProperties = clientProperties;
+        this.meterRegistry = meterRegistry;
+        this.registry = new TyjwCodecRegistry()
+                .decoder(this::decodePhotoUploaded, TyjwEnum.状态通知_图片上传完成通知)
+                .decoder(this::decodePowerSwitch, TyjwEnum.状态通知_云盒开关机通知)
+                .decoder(this::decodeSignalInfo, TyjwEnum.无人机实时数据_信道质量)
+                .decoder(this::decodeUavState, TyjwEnum.无人机实时数据_状态数据)
+                .decoder(this::decodeTelemetry, TyjwEnum.无人机实时数据_遥测数据)
+                .decoder(this::decodeResult, TyjwEnum.航线飞行_航线规划, TyjwEnum.手动飞行_起飞, TyjwEnum.手动飞行_返航, TyjwEnum.手动飞行_取消返航,
+                        TyjwEnum.手动飞行_降落, TyjwEnum.手动飞行_取消降落, TyjwEnum.航线飞行_开始航线, TyjwEnum.航线飞行_暂停航线, TyjwEnum.航线飞行_恢复航线,
+                        TyjwEnum.航线飞行_结束航线, TyjwEnum.无人机设置_设置返航高度, TyjwEnum.相机_设置相机模式, TyjwEnum.相机_拍照, TyjwEnum.相机_开始录像,
+                        TyjwEnum.相机_停止录像, TyjwEnum.手动飞行_强制降落, TyjwEnum.状态通知_航线结束通知, TyjwEnum.无人机设置_设置返航点, TyjwEnum.手动飞行_紧急制动,
+                        TyjwEnum.无人机设置_水平避障设置, TyjwEnum.无人机设置_上避障设置, TyjwEnum.无人机设置_下避障设置, TyjwEnum.手动飞行_指点飞行,
+                        TyjwEnum.手动飞行_返航到指定机场, TyjwEnum.相机_格式化存储卡, TyjwEnum.无人机设置_设置视频码流, TyjwEnum.无人机设置_切换SIM卡)
+                .decoder(this::decodeLaserRanging, TyjwEnum.相机_实时激光测距, TyjwEnum.相机_手动激光测距)
+                .decoder(this::decodePointTemperature, TyjwEnum.相机_打开单点测温)
+                .decoder(this::decodeAreaTemperature, TyjwEnum.相机_打开区域测温)
+                .decoder(this::decodeUavReady, TyjwEnum.状态通知_无人机准备完成通知)
+                .decoder(this::decodeReturnCode, TyjwEnum.返回码)
+                .decoder(this::decodeTaskFinished, TyjwEnum.状态通知_机场任务完成通知)
+                .encoder(TyjwEnum.航线飞行_航线规划, this::encodePlanLine);
     }
 
     private <T> T handleAuth(Supplier<T> supplier) {
@@ -92,24 +122,29 @@ public class TyjwServiceImpl implements ITyjwService {
         }
     }
 
-    private void sendMessage(ByteBuf byteBuf) {
-        if (tcpChannel == null || !tcpChannel.isActive()) {
+    /**
+     * 发送指令,重连期间按配置写入重放缓冲区,连接成功后补发; 发送失败时抛出 BusinessException,由 handleWebSocket 回复给调用方
+     */
+    private void sendMessage(TyjwRequest request) {
+        TyjwTcpClient client = tcpClient;
+        if (client == null) {
+            request.release();
             throw new BusinessException("TCP 连接不存在!");
         }
-        tcpChannel.writeAndFlush(byteBuf);
-        log.info(">>> {}", byteBuf);
+        if (!client.send(request)) {
+            throw new BusinessException(client.isOpen() ? "TCP 重连中, 指令未发送!" : "TCP 连接不存在!");
+        }
     }
 
-    private void sendByteBuf(ByteBuf buf, TyjwEnum anEnum, JsonNode jsonNode, TyjwServiceImpl.WebSocketFunction<ByteBuf, String, JsonNode> fun) {
-        buf.writeShort(TyjwEnum.请求帧头.getInstruct());// 帧头
-        buf.writeShort(0);// 数据长度,占位临时赋值为0
-        buf.writeBytes(ByteUtil.stringToByte(jsonNode.get("云盒编号").asText()));// 云盒编号
-        buf.writeByte(anEnum.getInstruct());// 指令编号
-        buf.writeByte(Byte.parseByte(jsonNode.get("加密标志").asText()));// 加密标志
-        buf.writeByte(anEnum.getAction());// 动作编号
-        fun.dataHandle(buf, anEnum.getArgs(), jsonNode);// 参数处理
-        buf.setShort(2, buf.readableBytes() - 4);// 重新计算数据长度
-        sendMessage(buf);
+    private void sendByteBuf(ByteBuf buf, TyjwEnum anEnum, JsonNode jsonNode, TyjwArgsEncoder encoder) {
+        try {
+            encoder.encode(buf, jsonNode);// 参数处理
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+        // 帧头、数据长度、云盒编号、指令编号、加密标志、动作编号由 TyjwFrameEncoder 写入
+        sendMessage(TyjwRequest.command(anEnum, jsonNode.get("云盒编号").asText(), Byte.parseByte(jsonNode.get("加密标志").asText()), buf));
     }
 
     @Override
@@ -121,57 +156,36 @@ public class TyjwServiceImpl implements ITyjwService {
             webSocketService.sendMessage(boxNumber, String.format(WebSocketServiceImpl.errorMessage, "指令编号或动作编号不能为空!"));
         }
         TyjwEnum anEnum = TyjwEnum.getEnum(Integer.parseInt(instruct, 16), Integer.parseInt(action, 16));
-        if (null != tcpChannel && tcpChannel.isActive()) {
+        if (null != tcpClient && tcpClient.isOpen()) {
             log.info(anEnum.name());
-            switch (anEnum) {
-                case 航线飞行_航线规划 -> sendByteBuf(aDefault.buffer(), anEnum, jsonNode, (arg1, arg2, arg3) -> {
-                    try {
-                        PlanLineDataDTO planLineDataDto = obm.readValue(jsonNode.get("航线数据").asText(), PlanLineDataDTO.class);
-                        TyjwProtoBuf.PlanLineData planLineData = TyjwParameterMapping.getPlanLineData(planLineDataDto);
-                        arg1.writeBytes(planLineData.toByteArray());
-                    } catch (JsonProcessingException e) {
-                        throw new RuntimeException(e);
+            try {
+                switch (anEnum) {
+                    case 手动飞行_切换无人机控制权 -> {
+                        WsChannelDetails wsChannelDetails = webSocketService.getWsChannels().get(boxNumber);
+                        if (wsChannelDetails != null) {
+                            String userId = jsonNode.get("用户ID").asText();
+                            wsChannelDetails.setControlPower(userId);
+                            log.info("修改 {} 的控制权为 {}", boxNumber, userId);
+                            sendByteBuf(aDefault.buffer(), anEnum, jsonNode, registry.encoder(anEnum));
+                        }
                     }
-                });
-                case 手动飞行_切换无人机控制权 -> {
-                    WsChannelDetails wsChannelDetails = webSocketService.getWsChannels().get(boxNumber);
-                    if (wsChannelDetails != null) {
-                        String userId = jsonNode.get("用户ID").asText();
-                        wsChannelDetails.setControlPower(userId);
-                        log.info("修改 {} 的控制权为 {}", boxNumber, userId);
-                        sendByteBuf(aDefault.buffer(), anEnum, jsonNode, (arg1, arg2, arg3) -> arg1.writeByte(Byte.parseByte(arg3.get("数据").asText())));
+                    case 喊话器_实时喊话 -> {
+                        // TODO 暂不支持
+                        byte[] inData = Base64.getDecoder().decode(jsonNode.get("音频数据").asText());
+                        List<byte[]> bytes = ByteUtil.splitByteArray(inData, 110);
+                        for (byte[] by : bytes) {
+                            sendByteBuf(aDefault.buffer(), anEnum, jsonNode, (buf, node) -> buf.writeBytes(by));
+                        }
                     }
-                }
-                case 喊话器_实时喊话 -> {
-                    // TODO 暂不支持
-                    byte[] inData = Base64.getDecoder().decode(jsonNode.get("音频数据").asText());
-                    List<byte[]> bytes = ByteUtil.splitByteArray(inData, 110);
-                    for (byte[] by : bytes) {
-                        sendByteBuf(aDefault.buffer(), anEnum, jsonNode, (arg1, arg2, arg3) -> arg1.writeBytes(by));
+                    case MOP数据透传 -> {
+                        // TODO 暂未使用
                     }
+                    default -> sendByteBuf(aDefault.buffer(), anEnum, jsonNode, registry.encoder(anEnum));
                 }
-                case MOP数据透传 -> {
-                    // TODO 暂未使用
-                }
-                default -> sendByteBuf(aDefault.buffer(), anEnum, jsonNode, (arg1, arg2, arg3) -> {
-                    if (null != arg2) {
-                        String[] split = arg2.split(";");
-                        Arrays.stream(split).forEach(el -> {
-                            String[] split1 = el.split("-");
-                            switch (split1[1]) {
-                                case "byte" -> arg1.writeByte(Byte.parseByte(arg3.get(split1[0]).asText()));
-                                case "bytes" -> arg1.writeBytes(ByteUtil.stringToByte(arg3.get(split1[0]).asText()));
-                                case "short" -> arg1.writeShort(Short.parseShort(arg3.get(split1[0]).asText()));
-                                case "int" -> arg1.writeInt(Integer.parseInt(arg3.get(split1[0]).asText()));
-                                case "long" -> arg1.writeLong(Long.parseLong(arg3.get(split1[0]).asText()));
-                                case "float" -> arg1.writeFloat(Float.parseFloat(arg3.get(split1[0]).asText()));
-                                case "double" -> arg1.writeDouble(Double.parseDouble(arg3.get(split1[0]).asText()));
-                                case "base64" ->
-                                        arg1.writeBytes(Base64.getDecoder().decode(arg3.get(split1[0]).asText()));
-                            }
-                        });
-                    }
-                });
+            } catch (BusinessException e) {
+                // 指令在当前 (事件分发) 线程上发送失败时, 把原因回复给发起指令的 WebSocket 客户端
+                webSocketService.sendMessage(boxNumber, String.format(WebSocketServiceImpl.errorMessage, e.getMessage()));
+                return;
             }
             // 记录操作日志到 MQTT
             MQClient.publish(format(MQClient.taskTopic, boxNumber, jsonNode.get("任务ID").asText()), jsonNode.toString().getBytes(), 1, false);
@@ -181,23 +195,16 @@ public class TyjwServiceImpl implements ITyjwService {
     }
 
     @ChannelHandler.Sharable
-    class TyjwChannelInboundHandler extends SimpleChannelInboundHandler<ByteBuf> {
-        @Override
-        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
-            publisher.publishEvent(new CommonEvent(CommonEnum.TCP_TO_TYJW, msg));
+    class TyjwChannelInboundHandler extends SimpleChannelInboundHandler<TyjwFrame> {
+
+        TyjwChannelInboundHandler() {
+            // 帧的所有权转交给 EventDispatcher,由其在处理完成或丢弃时释放
+            super(false);
         }
 
         @Override
-        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
-            // 发送心跳
-            if (evt instanceof IdleStateEvent) {
-                ByteBuf buf = Unpooled.buffer();
-                buf.writeShort(TyjwEnum.请求帧头.getInstruct());
-                buf.writeShort(0x09);
-                buf.writeByte(TyjwEnum.心跳.getInstruct());
-                buf.writeLong(System.currentTimeMillis());
-                ctx.writeAndFlush(buf);
-            }
+        protected void channelRead0(ChannelHandlerContext ctx, TyjwFrame msg) {
+            publisher.publishEvent(new CommonEvent(CommonEnum.TCP_TO_TYJW, msg));
         }
 
         @Override
@@ -207,244 +214,266 @@ public class TyjwServiceImpl implements ITyjwService {
     }
 
     @Override
-    public void startTcpConnect() {
-        ChannelFuture tcpClient = SocketUtil.createTcpClient(new TyjwChannelInboundHandler(), host, port);
-        if(null != tcpClient){
-            tcpChannel = tcpClient.channel();
-            ByteBuf buf = Unpooled.buffer();
-            byte[] bytes = AuthSingleton.getInstance().getAccessToken().getBytes();
-            buf.writeShort(TyjwEnum.请求帧头.getInstruct());
-            buf.writeShort(bytes.length + 5);
-            buf.writeByte(TyjwEnum.注册.getInstruct());
-            buf.writeInt(AuthSingleton.getInstance().getCompanyId());
-            buf.writeBytes(bytes);
-            tcpChannel.writeAndFlush(buf);
+    public synchronized void startTcpConnect() {
+        if (null == tcpClient) {
+            tcpClient = new TyjwTcpClient(transport, host, port, new TyjwChannelInboundHandler(), this::registerRequest, () -> {
+                // 心跳参数: 当前时间戳
+                ByteBuf buf = aDefault.buffer(8);
+                buf.writeLong(System.currentTimeMillis());
+                return TyjwRequest.heartbeat(buf);
+            }, clientProperties, meterRegistry);
         }
+        tcpClient.start();
+    }
+
+    /**
+     * 注册帧,每次连接时按当前的 AccessToken 重新生成
+     */
+    private TyjwRequest registerRequest() {
+        ByteBuf buf = aDefault.buffer();
+        buf.writeInt(auth.getCompanyId() == null ? 0 : auth.getCompanyId());
+        buf.writeBytes(StringUtils.defaultString(auth.getAccessToken()).getBytes());
+        return TyjwRequest.register(buf);
     }
 
     @Override
-    public void handleTcpClient(ByteBuf buf) {
-        if (buf.getShort(0) == 0x6A77) {
-            int instruct = buf.getByte(4) & 0xFF;
-            TyjwEnum anEnum;
-            // 指令过滤, 以下项没有 action
-            if (instruct == TyjwEnum.注册.getInstruct() || instruct == TyjwEnum.心跳.getInstruct() || instruct == TyjwEnum.状态通知_图片上传完成通知.getInstruct() || instruct == TyjwEnum.状态通知_云盒开关机通知.getInstruct() || instruct == TyjwEnum.无人机实时数据_信道质量.getInstruct() || instruct == TyjwEnum.无人机实时数据_状态数据.getInstruct() || instruct == TyjwEnum.无人机实时数据_遥测数据.getInstruct() || instruct == TyjwEnum.MOP数据透传.getInstruct()) {
-                anEnum = TyjwEnum.getEnum(instruct, 0);
-                if (instruct == TyjwEnum.注册.getInstruct()) {
-                    log.info("<<< {}:{} {}成功!", host, port, anEnum.name());
-                    return;
-                }
-                if (instruct == TyjwEnum.心跳.getInstruct()) {
-//                    log.info("<<< TCP: {}", anEnum.name());
-                    return;
-                }
-            } else {
-                anEnum = TyjwEnum.getEnum(instruct, buf.getByte(6) & 0xFF);
+    public void destroy() {
+        if (null != tcpClient) {
+            tcpClient.close();
+        }
+    }
+
+    @Override
+    public void handleTcpClient(TyjwFrame frame) {
+        int instruct = frame.instruct();
+        if (instruct == TyjwEnum.注册.getInstruct()) {
+            log.info("<<< {}:{} {}成功!", host, port, TyjwEnum.注册.name());
+            return;
+        }
+        if (instruct == TyjwEnum.心跳.getInstruct()) {
+            return;
+        }
+        TyjwFrameHandler handler = registry.decoder(instruct, frame.action());
+        if (null == handler) {
+            if (null == TyjwEnum.find(instruct, frame.action())) {
+                log.warn("未知指令动作: 0x{}_0x{}", Integer.toHexString(instruct), Integer.toHexString(frame.action()));
             }
-            if (null != anEnum) {
-                buf.skipBytes(5);// 跳过 帧头、数据长度、指令编号
-                Map<String, Object> wsReturnMap = new HashMap<>();
-                wsReturnMap.put("指令编码", format("0x%02X", anEnum.getInstruct()));
-                wsReturnMap.put("action", "NEW_MESSAGE");
-                byte[] boxSnByte = new byte[15];// 云盒编号
-                byte[] contentByte;// buffer中的内容
-                byte isSuccess;// 是否成功
-                switch (anEnum) {
-                    case 状态通知_图片上传完成通知:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("经度", buf.readDouble());
-                        wsReturnMap.put("纬度", buf.readDouble());
-                        wsReturnMap.put("时间戳", buf.readLong());
-                        wsReturnMap.put("原图大小", buf.readLong());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        contentByte = new byte[buf.readableBytes()];
-                        buf.readBytes(contentByte);
-                        wsReturnMap.put("原图地址", ByteUtil.bytesToStringUTF8(contentByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 状态通知_云盒开关机通知:
-                        byte isShutdown = buf.readByte();
-                        wsReturnMap.put("状态", isShutdown);
-                        buf.readBytes(boxSnByte);
-                        String boxNumber = ByteUtil.bytesToStringUTF8(boxSnByte);
-                        wsReturnMap.put("云盒SN号", boxNumber);
-                        webSocketService.sendMessage(boxNumber, wsReturnMap.toString());
-                        // 云盒关机后判断此次任务结束
-                        if (isShutdown != 1) {
-                            WsChannelDetails wsChannelDetails = webSocketService.getWsChannels().get(wsReturnMap.get("云盒SN号").toString());
-                            if (null != wsChannelDetails.getTaskId()) {
-                                log.info("云盒 {} 即将关机,任务 {} 执行完成!", boxNumber, wsChannelDetails.getTaskId());
-                                // 记录操作日志到 MQTT
-                                MQClient.publish(format(MQClient.taskTopic, boxNumber, wsChannelDetails.getTaskId()), "{\"missionStatus\":0}".getBytes(), 1, false);
-                                wsChannelDetails.setTaskId(null);// 任务置空
-                                wsChannelDetails.setControlPower(null);// 控制权置空
-                            }
-                        }
-                        // TODO 当收到关机通知后5分钟,判断是否需要执行充电(暂不启用) if(isShutdown == -1){chargingUav();}
-                        break;
-                    case 无人机实时数据_信道质量:
-                        wsReturnMap.put("时间戳", buf.readUnsignedInt());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        contentByte = new byte[buf.readableBytes()];
-                        buf.readBytes(contentByte);
-                        try {
-                            TyjwProtoBuf.SignalInfo signalInfo = TyjwProtoBuf.SignalInfo.parseFrom(contentByte);
-                            wsReturnMap.put("数据", printer.print(signalInfo));
-                        } catch (InvalidProtocolBufferException e) {
-                            throw new RuntimeException(e);
-                        }
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 无人机实时数据_状态数据:
-                    case 无人机实时数据_遥测数据:
-                        contentByte = new byte[buf.readableBytes()];
-                        buf.readBytes(contentByte);
-                        try {
-                            if (anEnum.getInstruct() == 0xA8) {
-                                TyjwProtoBuf.UavState uavState = TyjwProtoBuf.UavState.parseFrom(contentByte);
-                                wsReturnMap.put("云盒SN号", uavState.getBoxSn());
-                                wsReturnMap.put("数据", printer.print(uavState));
-                                wsReturnMap.put("用户ID", webSocketService.getWsChannels().get(uavState.getBoxSn()));
-//                                batteryPower = uavState.getBatteryState().getBatteryPower(); //不断获取电池电量
-                            } else {
-                                TyjwProtoBuf.TelemetryData telemetryData = TyjwProtoBuf.TelemetryData.parseFrom(contentByte);
-                                wsReturnMap.put("云盒SN号", telemetryData.getBoxSn());
-                                wsReturnMap.put("数据", printer.print(telemetryData));
-                            }
-                        } catch (InvalidProtocolBufferException e) {
-                            throw new RuntimeException(e);
-                        }
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 航线飞行_航线规划:
-                    case 手动飞行_起飞:
-                    case 手动飞行_返航:
-                    case 手动飞行_取消返航:
-                    case 手动飞行_降落:
-                    case 手动飞行_取消降落:
-                    case 航线飞行_开始航线:
-                    case 航线飞行_暂停航线:
-                    case 航线飞行_恢复航线:
-                    case 航线飞行_结束航线:
-                    case 无人机设置_设置返航高度:
-                    case 相机_设置相机模式:
-                    case 相机_拍照:
-                    case 相机_开始录像:
-                    case 相机_停止录像:
-                    case 手动飞行_强制降落:
-                    case 状态通知_航线结束通知:
-                    case 无人机设置_设置返航点:
-                    case 手动飞行_紧急制动:
-                    case 无人机设置_水平避障设置:
-                    case 无人机设置_上避障设置:
-                    case 无人机设置_下避障设置:
-                    case 手动飞行_指点飞行:
-                    case 手动飞行_返航到指定机场:
-                    case 相机_格式化存储卡:
-                    case 无人机设置_设置视频码流:
-                    case 无人机设置_切换SIM卡:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        isSuccess = buf.readByte();
-                        wsReturnMap.put("执行结果", isSuccess);
-                        if (isSuccess == 0) {
-                            wsReturnMap.put("action", "ERROR_MESSAGE");
-                        }
-                        wsReturnMap.put("错误码", buf.readInt());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 相机_实时激光测距:
-                    case 相机_手动激光测距:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        isSuccess = buf.readByte();
-                        wsReturnMap.put("执行结果", isSuccess);
-                        if (isSuccess == 0) {
-                            wsReturnMap.put("action", "ERROR_MESSAGE");
-                        }
-                        wsReturnMap.put("经度", buf.readDouble());
-                        wsReturnMap.put("纬度", buf.readDouble());
-                        wsReturnMap.put("海拔高度", buf.readFloat());
-                        wsReturnMap.put("距离", buf.readFloat());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 相机_打开单点测温:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        isSuccess = buf.readByte();
-                        wsReturnMap.put("执行结果", isSuccess);
-                        if (isSuccess == 0) {
-                            wsReturnMap.put("action", "ERROR_MESSAGE");
-                        }
-                        wsReturnMap.put("X点坐标", buf.readFloat());
-                        wsReturnMap.put("Y点坐标", buf.readFloat());
-                        wsReturnMap.put("温度", buf.readFloat());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 相机_打开区域测温:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        isSuccess = buf.readByte();
-                        wsReturnMap.put("执行结果", isSuccess);
-                        if (isSuccess == 0) {
-                            wsReturnMap.put("action", "ERROR_MESSAGE");
-                        }
-                        wsReturnMap.put("X1点坐标", buf.readFloat());
-                        wsReturnMap.put("Y1点坐标", buf.readFloat());
-                        wsReturnMap.put("X2点坐标", buf.readFloat());
-                        wsReturnMap.put("Y2点坐标", buf.readFloat());
-                        wsReturnMap.put("平均温度", buf.readFloat());
-                        wsReturnMap.put("最低温度", buf.readFloat());
-                        wsReturnMap.put("最高温度", buf.readFloat());
-                        wsReturnMap.put("最低温度x坐标", buf.readFloat());
-                        wsReturnMap.put("最低温度y坐标", buf.readFloat());
-                        wsReturnMap.put("最高温度x坐标", buf.readFloat());
-                        wsReturnMap.put("最高温度y坐标", buf.readFloat());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 状态通知_无人机准备完成通知:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        wsReturnMap.put("电池电量", buf.readByte());
-                        wsReturnMap.put("经度", buf.readDouble());
-                        wsReturnMap.put("纬度", buf.readDouble());
-                        wsReturnMap.put("海拔高度", buf.readInt());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    case 返回码:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        int returnCode = buf.readInt();
-                        wsReturnMap.put("action", "ERROR_MESSAGE");
-                        wsReturnMap.put("code", returnCode);
-                        wsReturnMap.put("message", TyjwReturnCodeEnum.getMsg(returnCode));
-                        webSocketService.sendMessage("M13220230801135", wsReturnMap.toString());
-                        break;
-                    case 状态通知_机场任务完成通知:
-                        wsReturnMap.put("加密标志", buf.readByte());
-                        wsReturnMap.put("动作编号", format("0x%02X", buf.readByte()));
-                        wsReturnMap.put("媒体文件数量", buf.readShort());
-                        buf.readBytes(boxSnByte);
-                        wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
-                        webSocketService.sendMessage(wsReturnMap.get("云盒SN号").toString(), wsReturnMap.toString());
-                        break;
-                    default:
-                        break;
-                }
+            return;
+        }
+        TyjwMessage message = new TyjwMessage();
+        message.putHex("指令编码", instruct);
+        handler.handle(frame, message);
+        if (null != message.getTarget()) {
+            webSocketService.sendMessage(message.getTarget(), message.toString());
+        }
+    }
+
+    /**
+     * 状态通知_图片上传完成通知
+     */
+    private void decodePhotoUploaded(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        message.put("加密标志", buf.readByte());
+        message.put("经度", buf.readDouble());
+        message.put("纬度", buf.readDouble());
+        message.put("时间戳", buf.readLong());
+        message.put("原图大小", buf.readLong());
+        message.putBoxSn(frame.readBoxSn());
+        message.put("原图地址", buf.readCharSequence(buf.readableBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 状态通知_云盒开关机通知
+     */
+    private void decodePowerSwitch(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        byte isShutdown = buf.readByte();
+        message.put("状态", isShutdown);
+        String boxNumber = frame.readBoxSn();
+        message.put("云盒SN号", boxNumber);
+        // 先推送再清理任务,任务置空后将不再推送
+        webSocketService.sendMessage(boxNumber, message.toString());
+        // 云盒关机后判断此次任务结束
+        if (isShutdown != 1) {
+            WsChannelDetails wsChannelDetails = webSocketService.getWsChannels().get(boxNumber);
+            if (null != wsChannelDetails && null != wsChannelDetails.getTaskId()) {
+                log.info("云盒 {} 即将关机,任务 {} 执行完成!", boxNumber, wsChannelDetails.getTaskId());
+                // 记录操作日志到 MQTT
+                MQClient.publish(format(MQClient.taskTopic, boxNumber, wsChannelDetails.getTaskId()), "{\"missionStatus\":0}".getBytes(), 1, false);
+                wsChannelDetails.setTaskId(null);// 任务置空
+                wsChannelDetails.setControlPower(null);// 控制权置空
             }
         }
+        // TODO 当收到关机通知后5分钟,判断是否需要执行充电(暂不启用) if(isShutdown == -1){chargingUav();}
+    }
+
+    /**
+     * 无人机实时数据_信道质量
+     */
+    private void decodeSignalInfo(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        message.put("时间戳", buf.readUnsignedInt());
+        message.putBoxSn(frame.readBoxSn());
+        try {
+            message.putJson("数据", TyjwProtoBuf.SignalInfo.parseFrom(buf.nioBuffer()), printer);
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 无人机实时数据_状态数据
+     * <p>
+     * 不设置推送目标,由 sendTelemetry 按订阅者的推送模式限频/增量后推送
+     */
+    private void decodeUavState(TyjwFrame frame, TyjwMessage message) {
+        try {
+            TyjwProtoBuf.UavState uavState = TyjwProtoBuf.UavState.parseFrom(frame.content().nioBuffer());
+            message.put("云盒SN号", uavState.getBoxSn());
+            message.put("用户ID", webSocketService.getWsChannels().get(uavState.getBoxSn()));
+            webSocketService.sendTelemetry(uavState.getBoxSn(), frame.instruct(), uavState, frame.content(), (json, delta) -> renderTelemetry(message, json, delta));
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 无人机实时数据_遥测数据
+     */
+    private void decodeTelemetry(TyjwFrame frame, TyjwMessage message) {
+        try {
+            TyjwProtoBuf.TelemetryData telemetryData = TyjwProtoBuf.TelemetryData.parseFrom(frame.content().nioBuffer());
+            message.put("云盒SN号", telemetryData.getBoxSn());
+            webSocketService.sendTelemetry(telemetryData.getBoxSn(), frame.instruct(), telemetryData, frame.content(), (json, delta) -> renderTelemetry(message, json, delta));
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String renderTelemetry(TyjwMessage message, String json, boolean delta) {
+        TyjwMessage copy = message.copy().put("数据", json);
+        if (delta) {
+            copy.put("增量", true);
+        }
+        return copy.toString();
+    }
+
+    /**
+     * 加密标志、动作编号、执行结果
+     */
+    private static ByteBuf readResult(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        message.put("加密标志", buf.readByte());
+        message.putHex("动作编号", buf.readByte());
+        byte isSuccess = buf.readByte();
+        message.put("执行结果", isSuccess);
+        if (isSuccess == 0) {
+            message.action("ERROR_MESSAGE");
+        }
+        return buf;
+    }
+
+    /**
+     * 指令执行结果
+     */
+    private void decodeResult(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = readResult(frame, message);
+        message.put("错误码", buf.readInt());
+        message.putBoxSn(frame.readBoxSn());
+    }
+
+    /**
+     * 相机_实时激光测距、相机_手动激光测距
+     */
+    private void decodeLaserRanging(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = readResult(frame, message);
+        message.put("经度", buf.readDouble());
+        message.put("纬度", buf.readDouble());
+        message.put("海拔高度", buf.readFloat());
+        message.put("距离", buf.readFloat());
+        message.putBoxSn(frame.readBoxSn());
+    }
+
+    /**
+     * 相机_打开单点测温
+     */
+    private void decodePointTemperature(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = readResult(frame, message);
+        message.put("X点坐标", buf.readFloat());
+        message.put("Y点坐标", buf.readFloat());
+        message.put("温度", buf.readFloat());
+        message.putBoxSn(frame.readBoxSn());
+    }
+
+    /**
+     * 相机_打开区域测温
+     */
+    private void decodeAreaTemperature(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = readResult(frame, message);
+        message.put("X1点坐标", buf.readFloat());
+        message.put("Y1点坐标", buf.readFloat());
+        message.put("X2点坐标", buf.readFloat());
+        message.put("Y2点坐标", buf.readFloat());
+        message.put("平均温度", buf.readFloat());
+        message.put("最低温度", buf.readFloat());
+        message.put("最高温度", buf.readFloat());
+        message.put("最低温度x坐标", buf.readFloat());
+        message.put("最低温度y坐标", buf.readFloat());
+        message.put("最高温度x坐标", buf.readFloat());
+        message.put("最高温度y坐标", buf.readFloat());
+        message.putBoxSn(frame.readBoxSn());
+    }
+
+    /**
+     * 状态通知_无人机准备完成通知
+     */
+    private void decodeUavReady(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        message.put("加密标志", buf.readByte());
+        message.putHex("动作编号", buf.readByte());
+        message.put("电池电量", buf.readByte());
+        message.put("经度", buf.readDouble());
+        message.put("纬度", buf.readDouble());
+        message.put("海拔高度", buf.readInt());
+        message.putBoxSn(frame.readBoxSn());
+    }
+
+    /**
+     * 返回码
+     */
+    private void decodeReturnCode(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        message.put("加密标志", buf.readByte());
+        message.putHex("动作编号", buf.readByte());
+        int returnCode = buf.readInt();
+        message.action("ERROR_MESSAGE");
+        message.put("code", returnCode);
+        message.put("message", TyjwReturnCodeEnum.getMsg(returnCode));
+        message.target("M13220230801135");
+    }
+
+    /**
+     * 状态通知_机场任务完成通知
+     */
+    private void decodeTaskFinished(TyjwFrame frame, TyjwMessage message) {
+        ByteBuf buf = frame.content();
+        message.put("加密标志", buf.readByte());
+        message.putHex("动作编号", buf.readByte());
+        message.put("媒体文件数量", buf.readShort());
+        message.putBoxSn(frame.readBoxSn());
+    }
+
+    /**
+     * 航线飞行_航线规划
+     */
+    private void encodePlanLine(ByteBuf buf, JsonNode jsonNode) {
+        try {
+            PlanLineDataDTO planLineDataDto = obm.readValue(jsonNode.get("航线数据").asText(), PlanLineDataDTO.class);
+            TyjwProtoBuf.PlanLineData planLineData = TyjwParameterMapping.getPlanLineData(planLineDataDto);
+            buf.writeBytes(planLineData.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
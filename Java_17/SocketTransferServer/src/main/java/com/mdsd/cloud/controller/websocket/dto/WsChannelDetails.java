@@ -1,6 +1,9 @@
 package com.mdsd.cloud.controller.websocket.dto;
 
 import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
@@ -8,6 +11,7 @@ import lombok.ToString;
 import lombok.experimental.Accessors;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author WangYunwei [2024-11-15]
@@ -22,5 +26,20 @@ public class WsChannelDetails {
 
     private String controlPower;
 
-    private Map<String, Channel> channels;
+    /**
+     * 订阅者, key: 用户ID
+     */
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * 推送组,与 channels 中的 channel 一致,channel 关闭时自动移除; 广播时只编码一次
+     */
+    @ToString.Exclude
+    private final ChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    /**
+     * 遥测推送状态, key: 数据类型/推送模式
+     */
+    @ToString.Exclude
+    private final Map<String, WsStreamState> streams = new ConcurrentHashMap<>();
 }
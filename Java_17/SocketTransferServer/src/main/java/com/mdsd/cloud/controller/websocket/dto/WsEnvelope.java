@@ -0,0 +1,45 @@
+package com.mdsd.cloud.controller.websocket.dto;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * 二进制 WEB SOCKET 推送 (子协议 sts.proto.v1) 的信封
+ * <p>
+ * 帧结构: 版本(1) + 指令编号(1) + 保留(1) + 云盒编号长度(1) + 云盒编号(N, UTF-8) + protobuf 数据(M)
+ * <p>
+ * - 指令编号 0xA8 为 UavState, 0xA9 为 TelemetryData, 客户端按指令编号选择 protobuf 类型解析
+ * - protobuf 数据为云盒上报的原始字节,不做任何转换
+ *
+ * @author WangYunwei [2025-06-19]
+ */
+public final class WsEnvelope {
+
+    /**
+     * WEB SOCKET 子协议
+     */
+    public static final String SUBPROTOCOL = "sts.proto.v1";
+
+    public static final int VERSION = 1;
+
+    private WsEnvelope() {
+    }
+
+    /**
+     * 组装信封,数据部分以 retainedSlice 的方式引用,不拷贝
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, int instruct, String boxSn, ByteBuf payload) {
+        int length = ByteBufUtil.utf8Bytes(boxSn);
+        ByteBuf header = alloc.buffer(4 + length);
+        header.writeByte(VERSION);
+        header.writeByte(instruct);
+        header.writeByte(0);
+        header.writeByte(length);
+        ByteBufUtil.writeUtf8(header, boxSn);
+        CompositeByteBuf envelope = alloc.compositeBuffer(2);
+        envelope.addComponents(true, header, payload.retainedSlice());
+        return envelope;
+    }
+}
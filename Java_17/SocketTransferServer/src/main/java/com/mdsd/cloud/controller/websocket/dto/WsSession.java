@@ -0,0 +1,27 @@
+package com.mdsd.cloud.controller.websocket.dto;
+
+import io.netty.util.AttributeKey;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WEB SOCKET 连接的注册信息,绑定在 Channel 的属性上
+ * <p>
+ * 记录该连接以哪个用户注册到了哪些云盒,断开时据此直接从对应的 WsChannelDetails 中移除,无需遍历全部云盒
+ *
+ * @author WangYunwei [2025-07-07]
+ */
+@Getter
+@ToString
+public class WsSession {
+
+    public static final AttributeKey<WsSession> KEY = AttributeKey.valueOf("wsSession");
+
+    /**
+     * key: 云盒编号, value: 用户ID
+     */
+    private final Map<String, String> boxes = new ConcurrentHashMap<>();
+}
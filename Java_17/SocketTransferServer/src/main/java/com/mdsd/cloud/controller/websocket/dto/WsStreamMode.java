@@ -0,0 +1,61 @@
+package com.mdsd.cloud.controller.websocket.dto;
+
+import io.netty.util.AttributeKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * WEB SOCKET 订阅者的遥测推送模式,绑定在 Channel 的属性上
+ * <p>
+ * - maxRate: 最大推送频率 (Hz), 0 表示按无人机原始频率推送
+ * - delta: 只推送与上一帧相比发生变化的字段
+ * - binary: 握手时协商了子协议 sts.proto.v1,推送原始 protobuf 字节 (BinaryWebSocketFrame),忽略 delta
+ * <p>
+ * 注册时可携带 {"maxRate":2,"format":"delta"},例如大屏使用 2Hz 增量,飞手使用原始频率全量
+ *
+ * @author WangYunwei [2025-06-16]
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class WsStreamMode {
+
+    public static final AttributeKey<WsStreamMode> KEY = AttributeKey.valueOf("wsStreamMode");
+
+    public static final WsStreamMode NATIVE = new WsStreamMode(0, false, false);
+
+    private final double maxRate;
+
+    private final boolean delta;
+
+    private final boolean binary;
+
+    @EqualsAndHashCode.Exclude
+    private final long minIntervalNanos;
+
+    private WsStreamMode(double maxRate, boolean delta, boolean binary) {
+        this.maxRate = maxRate;
+        this.delta = delta && !binary;
+        this.binary = binary;
+        this.minIntervalNanos = maxRate > 0 ? (long) (1_000_000_000L / maxRate) : 0;
+    }
+
+    public static WsStreamMode of(double maxRate, boolean delta) {
+        return of(maxRate, delta, false);
+    }
+
+    public static WsStreamMode of(double maxRate, boolean delta, boolean binary) {
+        if (maxRate <= 0 && !delta && !binary) {
+            return NATIVE;
+        }
+        return new WsStreamMode(Math.max(0, maxRate), delta, binary);
+    }
+
+    /**
+     * 分组键,同一分组的订阅者共享同一份序列化结果
+     */
+    public String key() {
+        return maxRate + (binary ? "/proto" : delta ? "/delta" : "/full");
+    }
+}
@@ -0,0 +1,73 @@
+package com.mdsd.cloud.controller.websocket.dto;
+
+import com.google.protobuf.Message;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 某个云盒的某类遥测数据在某个推送模式下的发送状态
+ *
+ * @author WangYunwei [2025-06-16]
+ */
+@Getter
+public class WsStreamState {
+
+    /**
+     * 增量模式下强制发送全量关键帧的间隔
+     */
+    private static final long KEYFRAME_INTERVAL_NANOS = 5_000_000_000L;
+
+    private long lastSentNanos;
+
+    private long lastKeyframeNanos;
+
+    /**
+     * 收到过关键帧的订阅者
+     */
+    private Set<ChannelId> subscribers = Set.of();
+
+    /**
+     * 上一次发送的完整数据,增量模式下作为比较基准
+     */
+    private Message last;
+
+    /**
+     * 是否达到发送间隔
+     */
+    public boolean isDue(long now, long minIntervalNanos) {
+        return last == null || now - lastSentNanos >= minIntervalNanos;
+    }
+
+    /**
+     * 是否可以只发送增量: 已有基准、每个订阅者都收到过关键帧 (新加入或切换模式的订阅者需要全量)、未到关键帧间隔
+     */
+    public boolean isDeltaAllowed(long now, List<Channel> channels) {
+        if (last == null || now - lastKeyframeNanos >= KEYFRAME_INTERVAL_NANOS) {
+            return false;
+        }
+        for (Channel channel : channels) {
+            if (!subscribers.contains(channel.id())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void sent(long now, Message data, List<Channel> channels, boolean keyframe) {
+        this.lastSentNanos = now;
+        this.last = data;
+        if (keyframe) {
+            this.lastKeyframeNanos = now;
+            Set<ChannelId> ids = new HashSet<>(channels.size() * 2);
+            for (Channel channel : channels) {
+                ids.add(channel.id());
+            }
+            this.subscribers = ids;
+        }
+    }
+}
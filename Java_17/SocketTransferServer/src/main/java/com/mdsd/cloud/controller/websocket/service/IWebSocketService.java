@@ -1,8 +1,11 @@
 package com.mdsd.cloud.controller.websocket.service;
 
+import com.google.protobuf.Message;
 import com.mdsd.cloud.controller.websocket.dto.WsChannelDetails;
+import io.netty.buffer.ByteBuf;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 /**
  * @author WangYunwei [2025-03-04]
@@ -14,5 +17,14 @@ public interface IWebSocketService {
 
     void sendMessage(String key, String data);
 
+    /**
+     * 推送遥测数据,按订阅者的推送模式 (频率/增量) 分组,每组只序列化一次
+     *
+     * @param instruct 指令编号,写入二进制推送的信封
+     * @param raw      原始 protobuf 字节,原样推送给协商了 sts.proto.v1 子协议的订阅者 (不转移所有权)
+     * @param render   将数据 JSON 渲染为最终文本, 第二个参数表示是否为增量
+     */
+    void sendTelemetry(String key, int instruct, Message data, ByteBuf raw, BiFunction<String, Boolean, String> render);
+
     ConcurrentHashMap<String, WsChannelDetails> getWsChannels();
 }
@@ -3,29 +3,46 @@ package com.mdsd.cloud.controller.websocket.service.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
 import com.mdsd.cloud.controller.websocket.dto.WsChannelDetails;
+import com.mdsd.cloud.controller.websocket.dto.WsEnvelope;
+import com.mdsd.cloud.controller.websocket.dto.WsSession;
+import com.mdsd.cloud.controller.websocket.dto.WsStreamMode;
+import com.mdsd.cloud.controller.websocket.dto.WsStreamState;
 import com.mdsd.cloud.controller.websocket.service.IWebSocketService;
 import com.mdsd.cloud.enums.CommonEnum;
 import com.mdsd.cloud.event.CommonEvent;
 import com.mdsd.cloud.util.MQClient;
+import com.mdsd.cloud.util.NettyTransport;
+import com.mdsd.cloud.util.ProtoDelta;
 import com.mdsd.cloud.util.SocketUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.group.ChannelMatcher;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import static java.lang.String.format;
 
@@ -39,10 +56,21 @@ public class WebSocketServiceImpl implements IWebSocketService {
     @Value("${env.port.sts.web_socket_server}")
     private int port;
 
+    @Value("${env.websocket.compression:true}")
+    private boolean compression;
+
+    @Value("${env.websocket.write-buffer-low:32768}")
+    private int writeBufferLow;
+
+    @Value("${env.websocket.write-buffer-high:262144}")
+    private int writeBufferHigh;
+
     private final ConcurrentHashMap<String, WsChannelDetails> wsMap = new ConcurrentHashMap<>();
 
     private final ObjectMapper obm = new ObjectMapper();
 
+    private final JsonFormat.Printer printer = JsonFormat.printer();
+
     private static final String pongMessage = "{\"message\":\"PONG_MESSAGE\"}";
 
     private static final String readyMessage = "{\"message\":\"READY_MESSAGE\"}";
@@ -51,8 +79,24 @@ public class WebSocketServiceImpl implements IWebSocketService {
 
     private final ApplicationEventPublisher publisher;
 
-    public WebSocketServiceImpl(ApplicationEventPublisher publisher) {
+    private final NettyTransport transport;
+
+    /**
+     * 写缓冲区未超过高水位的 channel,不可写的 channel 丢弃本条消息 (遥测数据下一帧会覆盖)
+     */
+    private final ChannelMatcher writable;
+
+    public WebSocketServiceImpl(ApplicationEventPublisher publisher, NettyTransport transport, MeterRegistry meterRegistry) {
         this.publisher = publisher;
+        this.transport = transport;
+        Counter dropped = Counter.builder("sts.websocket.dropped").register(meterRegistry);
+        this.writable = ch -> {
+            if (ch.isWritable()) {
+                return true;
+            }
+            dropped.increment();
+            return false;
+        };
     }
 
     @ChannelHandler.Sharable
@@ -67,6 +111,13 @@ public class WebSocketServiceImpl implements IWebSocketService {
                 } catch (JsonProcessingException e) {
                     throw new RuntimeException(e);
                 }
+                // 遥测推送模式 (可选): {"maxRate":2,"format":"delta"}
+                if (null != jsonNode.get("maxRate") || null != jsonNode.get("format")) {
+                    WsStreamMode current = ctx.channel().attr(WsStreamMode.KEY).get();
+                    WsStreamMode mode = WsStreamMode.of(jsonNode.path("maxRate").asDouble(0), "delta".equals(jsonNode.path("format").asText()), current != null && current.isBinary());
+                    ctx.channel().attr(WsStreamMode.KEY).set(mode);
+                    log.info("channel {} 推送模式: {}", ctx.channel().id(), mode);
+                }
                 if (null != jsonNode.get("heartbeat")) {
                     // 心跳数据直接回复
                     ctx.writeAndFlush(new TextWebSocketFrame(pongMessage));
@@ -75,27 +126,39 @@ public class WebSocketServiceImpl implements IWebSocketService {
                         String serialNumber = jsonNode.get("serialNumber").asText();
                         String taskId = jsonNode.get("taskId").asText();
                         String userId = jsonNode.get("userId").asText();
-                        // 判断云盒是否已经注册
-                        if (wsMap.containsKey(serialNumber)) {
-                            WsChannelDetails wsChannelDetails = wsMap.get(serialNumber);
+                        // 判断云盒是否已经注册,未注册时注册云盒并绑定任务及用户
+                        boolean[] created = {false};
+                        WsChannelDetails wsChannelDetails = wsMap.computeIfAbsent(serialNumber, k -> {
+                            created[0] = true;
+                            WsChannelDetails details = new WsChannelDetails().setTaskId(taskId).setControlPower(userId);
+                            details.getChannels().put(userId, ctx.channel());
+                            return details;
+                        });
+                        if (created[0]) {
+                            bind(wsChannelDetails, ctx.channel(), serialNumber, userId);
+                            log.info("云盒 {} 未注册,已注册云盒并绑定任务 {} 及用户 {}", serialNumber, taskId, userId);
+                            // 记录操作日志到 MQTT
+                            if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
+                                MQClient.publish(MQClient.userTopic, format(MQClient.userContent, userId, Boolean.TRUE).getBytes(), 1, false);
+                            }
+                        } else {
                             // 云盒已经注册,判断任务是否注册
                             if (null != wsChannelDetails.getTaskId()) {
                                 // 任务已经注册,判断用户是否注册
                                 Map<String, Channel> channels = wsChannelDetails.getChannels();
-                                if (channels.containsKey(userId)) {
-                                    // 用户已注册,判断 channel 是否活跃
-                                    Channel wsChannel = channels.get(userId);
-                                    if (wsChannel == null || !wsChannel.isActive()) {
-                                        log.info("用户 {} 已经注册,无活跃的channel,替换为当前的channel", userId);
-                                        channels.put(userId, ctx.channel());
-                                    }
-                                } else {
+                                Channel wsChannel = channels.putIfAbsent(userId, ctx.channel());
+                                if (wsChannel == null) {
+                                    bind(wsChannelDetails, ctx.channel(), serialNumber, userId);
                                     log.info("用户 {} 未注册,执行注册到 {}", userId, serialNumber);
-                                    channels.put(userId, ctx.channel());
                                     // 记录操作日志到 MQTT
                                     if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
                                         MQClient.publish(MQClient.userTopic, format(MQClient.userContent, userId, Boolean.TRUE).getBytes(), 1, false);
                                     }
+                                } else if (wsChannel != ctx.channel() && !wsChannel.isActive() && channels.replace(userId, wsChannel, ctx.channel())) {
+                                    wsChannelDetails.getGroup().remove(wsChannel);
+                                    // 用户已注册,无活跃的 channel 时替换为当前的 channel
+                                    bind(wsChannelDetails, ctx.channel(), serialNumber, userId);
+                                    log.info("用户 {} 已经注册,无活跃的channel,替换为当前的channel", userId);
                                 }
                             } else {
                                 // 任务未注册,开始注册任务
@@ -109,18 +172,6 @@ public class WebSocketServiceImpl implements IWebSocketService {
 //                                }
                                 publisher.publishEvent(new CommonEvent(CommonEnum.getEnumByDesc(jsonNode.get("platform").asText()), jsonNode));
                             }
-                        } else {
-                            log.info("云盒 {} 未注册,开始注册云盒并绑定任务及用户!", serialNumber);
-                            synchronized (wsMap) {
-                                wsMap.put(serialNumber, new WsChannelDetails().setTaskId(taskId).setControlPower(userId).setChannels(new HashMap<>() {{
-                                    put(userId, ctx.channel());
-                                }}));
-                                log.info("已注册信息: {}", wsMap);
-                                // 记录操作日志到 MQTT
-                                if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
-                                    MQClient.publish(MQClient.userTopic, format(MQClient.userContent, userId, Boolean.TRUE).getBytes(), 1, false);
-                                }
-                            }
                         }
                     }
                 }
@@ -134,36 +185,46 @@ public class WebSocketServiceImpl implements IWebSocketService {
             }, 1, TimeUnit.SECONDS);
         }
 
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            // 握手时协商了二进制子协议,遥测数据改为推送原始 protobuf
+            if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete handshake && WsEnvelope.SUBPROTOCOL.equals(handshake.selectedSubprotocol())) {
+                ctx.channel().attr(WsStreamMode.KEY).set(WsStreamMode.of(0, false, true));
+                log.info("channel {} 使用子协议 {}", ctx.channel().id(), WsEnvelope.SUBPROTOCOL);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
         @Override
         public void channelInactive(ChannelHandlerContext ctx) {
-            ArrayList<String> keysToRemove = new ArrayList<>();
-            wsMap.forEach((key, value) -> {
-                Map<String, Channel> channels = value.getChannels();
-                Optional.ofNullable(channels).ifPresent(m -> m.forEach((k, v) -> {
-                    if (!v.isActive()) {
-                        log.info("用户 {} 断开连接", k);
+            // 只处理当前 channel 注册过的云盒
+            WsSession session = ctx.channel().attr(WsSession.KEY).getAndSet(null);
+            if (session == null) {
+                return;
+            }
+            session.getBoxes().forEach((key, userId) -> {
+                WsChannelDetails value = wsMap.get(key);
+                if (value == null || !value.getChannels().remove(userId, ctx.channel())) {
+                    return;
+                }
+                value.getGroup().remove(ctx.channel());
+                log.info("用户 {} 断开连接", userId);
+                // 记录操作日志到 MQTT
+                MQClient.publish(MQClient.userTopic, format(MQClient.userContent, userId, Boolean.FALSE).getBytes(), 1, false);
+                // 判断任务是否为NULL
+                if (null == value.getTaskId()) {
+                    // 任务执行完成
+                    wsMap.remove(key, value);
+                } else {
+                    // 特殊处理: 判断断开连接的用户是否拥有当前飞控任务的控制权,如果有则按任务无法正常执行完成处理
+                    if (userId.equals(value.getControlPower()) && wsMap.remove(key, value)) {
                         // 记录操作日志到 MQTT
-                        MQClient.publish(MQClient.userTopic, format(MQClient.userContent, k, Boolean.FALSE).getBytes(), 1, false);
-                        // 判断任务是否为NULL
-                        if (null == value.getTaskId()) {
-                            // 任务执行完成
-                            keysToRemove.add(key);
-                        } else {
-                            // 特殊处理: 判断断开连接的用户是否拥有当前飞控任务的控制权,如果有则按任务无法正常执行完成处理
-                            if (k.equals(value.getControlPower())) {
-                                keysToRemove.add(key);
-                                // 记录操作日志到 MQTT
-                                if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
-                                    MQClient.publish(format(MQClient.taskTopic, key, value.getTaskId()), "{\"missionStatus\":1}".getBytes(), 1, false);
-                                }
-                            }
+                        if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
+                            MQClient.publish(format(MQClient.taskTopic, key, value.getTaskId()), "{\"missionStatus\":1}".getBytes(), 1, false);
                         }
                     }
-                }));
+                }
             });
-            if (!keysToRemove.isEmpty()) {
-                keysToRemove.forEach(wsMap::remove);
-            }
         }
 
         @Override
@@ -173,9 +234,25 @@ public class WebSocketServiceImpl implements IWebSocketService {
 
     }
 
+    /**
+     * 加入云盒的推送组,并在 channel 上记录注册信息,断开时据此清理
+     */
+    private static void bind(WsChannelDetails wsChannelDetails, Channel channel, String serialNumber, String userId) {
+        wsChannelDetails.getGroup().add(channel);
+        WsSession session = channel.attr(WsSession.KEY).get();
+        if (session == null) {
+            WsSession created = new WsSession();
+            session = channel.attr(WsSession.KEY).setIfAbsent(created);
+            if (session == null) {
+                session = created;
+            }
+        }
+        session.getBoxes().put(serialNumber, userId);
+    }
+
     @Override
     public void startWebListening() {
-        SocketUtil.createWebSocketServer(new WebChannelInboundHandler(), port);
+        SocketUtil.createWebSocketServer(transport, new WebChannelInboundHandler(), port, compression, new WriteBufferWaterMark(writeBufferLow, writeBufferHigh));
     }
 
     @Override
@@ -183,16 +260,102 @@ public class WebSocketServiceImpl implements IWebSocketService {
         if (!StringUtils.isEmpty(key)) {
             WsChannelDetails wsChannelDetails = wsMap.get(key);
             if (wsChannelDetails != null && StringUtils.isNoneBlank(wsChannelDetails.getTaskId())) {
-                Map<String, Channel> channels = wsChannelDetails.getChannels();
                 // 记录操作日志到 MQTT
                 if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
                     MQClient.publish(format(MQClient.taskTopic, key, wsChannelDetails.getTaskId()), data.getBytes(), 1, false);
                 }
-                channels.forEach((k, v) -> {
-                    if (v.isActive()) {
-                        v.writeAndFlush(new TextWebSocketFrame(data));
+                broadcast(wsChannelDetails, data, writable);
+            }
+        }
+    }
+
+    /**
+     * 只编码一次,推送组内每个 channel 写入共享内存的 retainedDuplicate; 写缓冲区超过高水位的 channel 丢弃本条消息
+     */
+    private void broadcast(WsChannelDetails wsChannelDetails, String text, ChannelMatcher matcher) {
+        ByteBuf buf = ByteBufUtil.writeUtf8(PooledByteBufAllocator.DEFAULT, text);
+        wsChannelDetails.getGroup().writeAndFlush(new TextWebSocketFrame(buf), matcher, true);
+    }
+
+    /**
+     * 推送模式匹配且可写的 channel
+     */
+    private ChannelMatcher writable(WsStreamMode mode) {
+        return ch -> mode.equals(modeOf(ch)) && writable.matches(ch);
+    }
+
+    private static WsStreamMode modeOf(Channel channel) {
+        WsStreamMode mode = channel.attr(WsStreamMode.KEY).get();
+        return mode == null ? WsStreamMode.NATIVE : mode;
+    }
+
+    @Override
+    public void sendTelemetry(String key, int instruct, Message data, ByteBuf raw, BiFunction<String, Boolean, String> render) {
+        if (StringUtils.isEmpty(key)) {
+            return;
+        }
+        WsChannelDetails wsChannelDetails = wsMap.get(key);
+        if (wsChannelDetails == null || !StringUtils.isNoneBlank(wsChannelDetails.getTaskId())) {
+            return;
+        }
+        ByteBuf fullUtf8 = null;
+        ByteBuf binary = null;
+        try {
+            // 按推送模式分组
+            Map<WsStreamMode, List<Channel>> groups = new HashMap<>(4);
+            for (Channel channel : wsChannelDetails.getGroup()) {
+                groups.computeIfAbsent(modeOf(channel), m -> new ArrayList<>()).add(channel);
+            }
+            long now = System.nanoTime();
+            String type = data.getDescriptorForType().getName();
+            String full = null;
+            for (Map.Entry<WsStreamMode, List<Channel>> group : groups.entrySet()) {
+                WsStreamMode mode = group.getKey();
+                List<Channel> subscribers = group.getValue();
+                WsStreamState state = wsChannelDetails.getStreams().computeIfAbsent(type + '/' + mode.key(), m -> new WsStreamState());
+                if (!state.isDue(now, mode.getMinIntervalNanos())) {
+                    continue;
+                }
+                if (mode.isBinary()) {
+                    if (binary == null) {
+                        binary = WsEnvelope.encode(PooledByteBufAllocator.DEFAULT, instruct, key, raw);
                     }
-                });
+                    state.sent(now, data, subscribers, true);
+                    wsChannelDetails.getGroup().writeAndFlush(new BinaryWebSocketFrame(binary.retainedDuplicate()), writable(mode), true);
+                    continue;
+                }
+                if (mode.isDelta() && state.isDeltaAllowed(now, subscribers)) {
+                    Set<Descriptors.FieldDescriptor> changed = new HashSet<>();
+                    Message delta = ProtoDelta.diff(state.getLast(), data, changed);
+                    state.sent(now, data, subscribers, false);
+                    if (changed.isEmpty()) {
+                        continue;
+                    }
+                    broadcast(wsChannelDetails, render.apply(printer.includingDefaultValueFields(changed).print(delta), Boolean.TRUE), writable(mode));
+                } else {
+                    if (full == null) {
+                        full = render.apply(printer.print(data), Boolean.FALSE);
+                        fullUtf8 = ByteBufUtil.writeUtf8(PooledByteBufAllocator.DEFAULT, full);
+                    }
+                    state.sent(now, data, subscribers, true);
+                    wsChannelDetails.getGroup().writeAndFlush(new TextWebSocketFrame(fullUtf8.retainedDuplicate()), writable(mode), true);
+                }
+            }
+            // 记录操作日志到 MQTT (原始频率、全量)
+            if ("Linux".equals(System.getProperties().getProperty("os.name"))) {
+                if (full == null) {
+                    full = render.apply(printer.print(data), Boolean.FALSE);
+                }
+                MQClient.publish(format(MQClient.taskTopic, key, wsChannelDetails.getTaskId()), full.getBytes(), 1, false);
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (fullUtf8 != null) {
+                fullUtf8.release();
+            }
+            if (binary != null) {
+                binary.release();
             }
         }
     }
@@ -3,6 +3,8 @@ package com.mdsd.cloud.enums;
 import com.mdsd.cloud.response.BusinessException;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author WangYunwei [2025-01-23]
@@ -22,7 +24,13 @@ public enum CommonEnum {
         this.value = value;
     }
 
+    private static final Map<String, CommonEnum> BY_DESC = Arrays.stream(CommonEnum.values()).filter(el -> el.value != null).collect(Collectors.toUnmodifiableMap(el -> el.value, el -> el));
+
     public static CommonEnum getEnumByDesc(String desc) {
-        return Arrays.stream(CommonEnum.values()).filter(el -> desc.equals(el.value)).findFirst().orElseThrow(() -> new BusinessException("未知平台!"));
+        CommonEnum result = desc == null ? null : BY_DESC.get(desc);
+        if (result == null) {
+            throw new BusinessException("未知平台!");
+        }
+        return result;
     }
 }
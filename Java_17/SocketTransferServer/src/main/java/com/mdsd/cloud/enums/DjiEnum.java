@@ -3,8 +3,6 @@ package com.mdsd.cloud.enums;
 import com.mdsd.cloud.response.BusinessException;
 import lombok.Getter;
 
-import java.util.Arrays;
-
 /**
  * @author WangYunwei [2025-03-26]
  */
@@ -107,7 +105,45 @@ public enum DjiEnum {
         this.arguments = arguments;
     }
 
+    /**
+     * 模块查找表 (指令为 0x00),下标为模块编号
+     */
+    private static final DjiEnum[] MODULES = new DjiEnum[0x100];
+
+    /**
+     * 指令查找表,下标为指令编号 (指令编号的高字节即模块编号)
+     */
+    private static final DjiEnum[] DIRECTIVES = new DjiEnum[0x10000];
+
+    static {
+        for (DjiEnum el : values()) {
+            if (el.directive == 0x00) {
+                MODULES[el.module] = el;
+            } else {
+                DIRECTIVES[el.directive] = el;
+            }
+        }
+    }
+
+    /**
+     * 查找模块指令,未知时返回 null
+     */
+    public static DjiEnum find(int module, int directive) {
+        if ((module & ~0xFF) != 0 || (directive & ~0xFFFF) != 0) {
+            return null;
+        }
+        if (directive == 0x00) {
+            return MODULES[module];
+        }
+        DjiEnum result = DIRECTIVES[directive];
+        return result != null && result.module == module ? result : null;
+    }
+
     public static DjiEnum getEnum(int module, int directive) {
-        return Arrays.stream(DjiEnum.values()).filter(el -> module == el.module && directive == el.directive).findFirst().orElseThrow(() -> new BusinessException(String.format("未知指令动作: 0x%02X_0x%02X", module, directive)));
+        DjiEnum result = find(module, directive);
+        if (result == null) {
+            throw new BusinessException(String.format("未知指令动作: 0x%02X_0x%02X", module, directive));
+        }
+        return result;
     }
 }
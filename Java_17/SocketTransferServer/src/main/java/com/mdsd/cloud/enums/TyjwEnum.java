@@ -131,8 +131,40 @@ public enum TyjwEnum {
         this.args = args;
     }
 
+    /**
+     * 指令动作查找表,下标为 (指令编号 << 8) | 动作编号
+     */
+    private static final TyjwEnum[] TABLE = new TyjwEnum[0x10000];
+
+    static {
+        for (TyjwEnum el : values()) {
+            // 帧头不参与查找; 指令动作重复时保留先声明的枚举
+            if (el.instruct <= 0xFF && TABLE[index(el.instruct, el.action)] == null) {
+                TABLE[index(el.instruct, el.action)] = el;
+            }
+        }
+    }
+
+    public static int index(int instruct, int action) {
+        return (instruct & 0xFF) << 8 | (action & 0xFF);
+    }
+
+    /**
+     * 查找指令动作,未知时返回 null
+     */
+    public static TyjwEnum find(int instruct, int action) {
+        if ((instruct & ~0xFF) != 0 || (action & ~0xFF) != 0) {
+            return Arrays.stream(TyjwEnum.values()).filter(el -> instruct == el.instruct && action == el.action).findFirst().orElse(null);
+        }
+        return TABLE[index(instruct, action)];
+    }
+
     public static TyjwEnum getEnum(int instruct, int action) {
-        return Arrays.stream(TyjwEnum.values()).filter(el -> instruct == el.instruct && action == el.action).findFirst().orElseThrow(() -> new BusinessException(String.format("未知指令动作: 0x%02X_0x%02X", instruct, action)));
+        TyjwEnum result = find(instruct, action);
+        if (result == null) {
+            throw new BusinessException(String.format("未知指令动作: 0x%02X_0x%02X", instruct, action));
+        }
+        return result;
     }
 }
 
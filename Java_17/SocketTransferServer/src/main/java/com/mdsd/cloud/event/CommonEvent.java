@@ -1,8 +1,8 @@
 package com.mdsd.cloud.event;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.mdsd.cloud.controller.tyjw.codec.TyjwFrame;
 import com.mdsd.cloud.enums.CommonEnum;
-import io.netty.buffer.ByteBuf;
 import lombok.Getter;
 import org.springframework.context.ApplicationEvent;
 
@@ -16,7 +16,7 @@ public class CommonEvent extends ApplicationEvent {
 
     private JsonNode jsonNode;
 
-    private ByteBuf byteBuf;
+    private TyjwFrame frame;
 
     public CommonEvent(CommonEnum source, JsonNode jsonNode) {
         super(source);
@@ -24,9 +24,9 @@ public class CommonEvent extends ApplicationEvent {
         this.jsonNode = jsonNode;
     }
 
-    public CommonEvent(CommonEnum source, ByteBuf byteBuf) {
+    public CommonEvent(CommonEnum source, TyjwFrame frame) {
         super(source);
         this.source = source;
-        this.byteBuf = byteBuf;
+        this.frame = frame;
     }
 }
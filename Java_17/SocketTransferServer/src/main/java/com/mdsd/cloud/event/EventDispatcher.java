@@ -0,0 +1,176 @@
+package com.mdsd.cloud.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 事件分发器
+ * <p>
+ * 将 Netty I/O 线程上收到的事件转交给独立的分区线程处理 (protobuf 解析、JSON 打印、MQTT 发布、WEB SOCKET 推送)
+ * <p>
+ * - 按云盒编号散列到固定分区,同一设备的事件严格有序
+ * - 每个分区为有界队列,队列满时: 遥测数据直接丢弃, WEB SOCKET 指令等待 offer-timeout 后丢弃;
+ *   在 Netty I/O 线程上发布的事件从不等待 (否则一个慢分区会卡住该线程上的所有 channel),队列满时直接丢弃
+ * - 事件中的 TyjwFrame 由分发器负责释放 (处理完成或被丢弃时)
+ * - 指标: sts.dispatch.queue.depth (分区队列深度), sts.dispatch.events{result=accepted|dropped}
+ *
+ * @author WangYunwei [2025-06-09]
+ */
+@Slf4j
+@Component
+public class EventDispatcher implements DisposableBean {
+
+    public enum OverflowPolicy {
+        /**
+         * 队列满时立即丢弃
+         */
+        DROP,
+        /**
+         * 队列满时阻塞等待,超时后丢弃 (仅限非 Netty I/O 线程)
+         */
+        BLOCK
+    }
+
+    private final Partition[] partitions;
+
+    private final long offerTimeoutMs;
+
+    private final Counter accepted;
+
+    private final Counter dropped;
+
+    private volatile boolean running = true;
+
+    public EventDispatcher(@Value("${env.dispatch.partitions:4}") int partitionCount,
+                           @Value("${env.dispatch.queue-capacity:2048}") int queueCapacity,
+                           @Value("${env.dispatch.offer-timeout-ms:200}") long offerTimeoutMs,
+                           MeterRegistry meterRegistry) {
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.partitions = new Partition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+            Gauge.builder("sts.dispatch.queue.depth", partitions[i].queue, BlockingQueue::size)
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.accepted = Counter.builder("sts.dispatch.events").tag("result", "accepted").register(meterRegistry);
+        this.dropped = Counter.builder("sts.dispatch.events").tag("result", "dropped").register(meterRegistry);
+    }
+
+    /**
+     * 分发事件,返回 false 表示事件已被丢弃
+     */
+    public boolean dispatch(CommonEvent event, Consumer<CommonEvent> handler) {
+        OverflowPolicy policy = switch (event.getSource()) {
+            case TCP_TO_TYJW, UDP_TO_DJI -> OverflowPolicy.DROP;
+            default -> OverflowPolicy.BLOCK;
+        };
+        Partition partition = partitions[(partitionKey(event) & Integer.MAX_VALUE) % partitions.length];
+        Runnable task = () -> {
+            try {
+                handler.accept(event);
+            } finally {
+                ReferenceCountUtil.release(event.getFrame());
+            }
+        };
+        boolean offered = false;
+        if (running) {
+            if (policy == OverflowPolicy.DROP || onEventLoop()) {
+                offered = partition.queue.offer(task);
+            } else {
+                try {
+                    offered = partition.queue.offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (offered) {
+            accepted.increment();
+        } else {
+            dropped.increment();
+            ReferenceCountUtil.release(event.getFrame());
+            log.warn("事件分区 {} 队列已满, 丢弃 {} 事件", partition.index, event.getSource());
+        }
+        return offered;
+    }
+
+    /**
+     * 当前线程是否为 Netty I/O 线程 (NettyTransport 的事件循环线程均由 DefaultThreadFactory 创建)
+     */
+    private static boolean onEventLoop() {
+        return Thread.currentThread() instanceof FastThreadLocalThread;
+    }
+
+    /**
+     * 分区键: 云盒编号的 hashCode,与 TyjwFrame.boxSnHash() 保持一致
+     */
+    private static int partitionKey(CommonEvent event) {
+        if (event.getFrame() != null) {
+            return event.getFrame().boxSnHash();
+        }
+        JsonNode jsonNode = event.getJsonNode();
+        if (jsonNode != null) {
+            JsonNode key = jsonNode.has("serialNumber") ? jsonNode.get("serialNumber") : jsonNode.get("云盒编号");
+            if (key != null) {
+                return key.asText().hashCode();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Partition partition : partitions) {
+            partition.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private final class Partition implements Runnable {
+
+        private final int index;
+
+        private final BlockingQueue<Runnable> queue;
+
+        private final Thread thread;
+
+        Partition(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "event-dispatch-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Runnable task = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        task.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("事件处理失败 -> {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.mdsd.cloud.event;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.mdsd.cloud.controller.dji.service.IDjiService;
 import com.mdsd.cloud.controller.tyjw.service.ITyjwService;
+import com.mdsd.cloud.controller.websocket.service.IWebSocketService;
+import com.mdsd.cloud.controller.websocket.service.impl.WebSocketServiceImpl;
+import com.mdsd.cloud.enums.CommonEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -18,19 +22,43 @@ public class EventMonitor {
 
     final IDjiService djiService;
 
-    public EventMonitor(ITyjwService tyjwService, IDjiService djiService) {
+    final EventDispatcher dispatcher;
+
+    final IWebSocketService webSocketService;
+
+    public EventMonitor(ITyjwService tyjwService, IDjiService djiService, EventDispatcher dispatcher, IWebSocketService webSocketService) {
         this.tyjwService = tyjwService;
         this.djiService = djiService;
+        this.dispatcher = dispatcher;
+        this.webSocketService = webSocketService;
     }
 
+    /**
+     * 发布线程 (Netty I/O 线程) 只负责入队,实际处理由 EventDispatcher 的分区线程执行
+     */
     @EventListener
-    public void listen(CommonEvent param) throws JsonProcessingException {
-        switch (param.getSource()) {
-            case WEB_SOCKET_TYJW -> tyjwService.handleWebSocket(param.getJsonNode());
-            case WEB_SOCKET_DJI -> djiService.handleWebSocket(param.getJsonNode());
-            case TCP_TO_TYJW -> tyjwService.handleTcpClient(param.getByteBuf());
-            case UDP_TO_DJI -> djiService.handleUdpSocket(param.getJsonNode());
-            default -> log.error("未知平台指令!");
+    public void listen(CommonEvent param) {
+        if (!dispatcher.dispatch(param, this::handle) && param.getJsonNode() != null
+                && (param.getSource() == CommonEnum.WEB_SOCKET_TYJW || param.getSource() == CommonEnum.WEB_SOCKET_DJI)) {
+            // 指令被丢弃时告知发起方,而不是静默丢失
+            JsonNode key = param.getJsonNode().has("serialNumber") ? param.getJsonNode().get("serialNumber") : param.getJsonNode().get("云盒编号");
+            if (key != null) {
+                webSocketService.sendMessage(key.asText(), String.format(WebSocketServiceImpl.errorMessage, "服务繁忙, 指令未执行!"));
+            }
+        }
+    }
+
+    private void handle(CommonEvent param) {
+        try {
+            switch (param.getSource()) {
+                case WEB_SOCKET_TYJW -> tyjwService.handleWebSocket(param.getJsonNode());
+                case WEB_SOCKET_DJI -> djiService.handleWebSocket(param.getJsonNode());
+                case TCP_TO_TYJW -> tyjwService.handleTcpClient(param.getFrame());
+                case UDP_TO_DJI -> djiService.handleUdpSocket(param.getJsonNode());
+                default -> log.error("未知平台指令!");
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
         }
     }
 }
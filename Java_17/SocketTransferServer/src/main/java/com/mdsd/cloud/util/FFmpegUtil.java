@@ -30,6 +30,7 @@ public class FFmpegUtil {
                 streamPth // SRS服务器地址和流路径
         );
         pb.redirectErrorStream(true); // 合并错误输出到标准输出
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD); // 丢弃输出,避免输出管道写满后 FFmpeg 阻塞
         try {
             result = pb.start();
         } catch (IOException e) {
@@ -0,0 +1,344 @@
+package com.mdsd.cloud.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttActionListener;
+import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MQTT 异步发布器 (操作日志)
+ * <p>
+ * - publish() 只写入有界发件箱,不等待 Broker 应答,遥测链路不会因为 Broker 往返而阻塞
+ * - 发送线程批量取出消息; 开启 coalesce 时同一主题的多条消息合并为一条 (按行分隔, 用户属性 count 为条数),
+ *   会改变消息格式,需要订阅方支持,默认关闭
+ * - 同时在途的消息数受 inflight 窗口限制,窗口已满时发送线程等待,保持消息顺序
+ * - Broker 不可达、发件箱已满、发送失败或关闭时,消息追加写入本地文件; 重新连接后自动补发, 格式错误的行跳过
+ *
+ * @author WangYunwei [2025-06-12]
+ */
+@Slf4j
+public class MQAsyncPublisher {
+
+    /**
+     * @param replayed 从落盘文件读出的消息, 再次落盘时不重复计数
+     */
+    private record Record(String topic, byte[] payload, int qos, boolean retained, boolean replayed) {
+    }
+
+    private final MqttAsyncClient client;
+
+    private final BlockingQueue<Record> outbox;
+
+    private final Semaphore inflight;
+
+    private final int batchSize;
+
+    private final boolean coalesce;
+
+    private final Path spillPath;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong acked = new AtomicLong();
+
+    private final AtomicLong spilled = new AtomicLong();
+
+    private final Thread sender;
+
+    private volatile boolean running = true;
+
+    private volatile boolean replayRequested;
+
+    /**
+     * 落盘文件写入器, 首次落盘时打开, 补发前和关闭时关闭
+     */
+    private BufferedWriter spillWriter;
+
+    public MQAsyncPublisher(MqttAsyncClient client, int capacity, int inflightWindow, int batchSize, boolean coalesce, Path spillPath) {
+        this.client = client;
+        this.outbox = new ArrayBlockingQueue<>(capacity);
+        this.inflight = new Semaphore(inflightWindow);
+        this.batchSize = batchSize;
+        this.coalesce = coalesce;
+        this.spillPath = spillPath;
+        this.replayRequested = Files.exists(spillPath) || Files.exists(spillPath.resolveSibling(spillPath.getFileName() + ".replaying"));
+        this.sender = new Thread(this::run, "mqtt-publisher");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    /**
+     * 写入发件箱,发件箱已满时直接落盘
+     */
+    public void publish(String topic, byte[] payload, int qos, boolean retained) {
+        Record record = new Record(topic, payload, qos, retained, false);
+        if (running && outbox.offer(record)) {
+            pending.incrementAndGet();
+        } else {
+            spill(List.of(record));
+        }
+    }
+
+    /**
+     * 重新连接成功后补发落盘的消息
+     */
+    public void requestReplay() {
+        replayRequested = true;
+    }
+
+    public long getPending() {
+        return pending.get();
+    }
+
+    public long getAcked() {
+        return acked.get();
+    }
+
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    public void close() {
+        running = false;
+        try {
+            sender.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 未发送的消息全部落盘
+        List<Record> rest = new ArrayList<>();
+        outbox.drainTo(rest);
+        pending.addAndGet(-rest.size());
+        spill(rest);
+        synchronized (this) {
+            closeSpillWriter();
+        }
+    }
+
+    private void run() {
+        List<Record> batch = new ArrayList<>(batchSize);
+        while (running || !outbox.isEmpty()) {
+            try {
+                if (replayRequested && client.isConnected()) {
+                    replayRequested = false;
+                    replay();
+                }
+                Record first = outbox.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outbox.drainTo(batch, batchSize - 1);
+                pending.addAndGet(-batch.size());
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("MQTT 发布失败 -> {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Record> batch) throws InterruptedException {
+        if (!client.isConnected()) {
+            spill(batch);
+            return;
+        }
+        if (!coalesce) {
+            for (Record record : batch) {
+                send(record.topic, record.payload, record.qos, record.retained, 1, List.of(record));
+            }
+            return;
+        }
+        // 按主题合并,保持主题内的先后顺序
+        Map<String, List<Record>> byTopic = new LinkedHashMap<>();
+        for (Record record : batch) {
+            byTopic.computeIfAbsent(record.topic, k -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<String, List<Record>> entry : byTopic.entrySet()) {
+            List<Record> records = entry.getValue();
+            Record head = records.get(0);
+            if (records.size() == 1) {
+                send(head.topic, head.payload, head.qos, head.retained, 1, records);
+                continue;
+            }
+            int length = records.size() - 1;
+            int qos = 0;
+            for (Record record : records) {
+                length += record.payload.length;
+                qos = Math.max(qos, record.qos);
+            }
+            byte[] payload = new byte[length];
+            int offset = 0;
+            for (Record record : records) {
+                if (offset > 0) {
+                    payload[offset++] = '\n';
+                }
+                System.arraycopy(record.payload, 0, payload, offset, record.payload.length);
+                offset += record.payload.length;
+            }
+            send(entry.getKey(), payload, qos, head.retained, records.size(), records);
+        }
+    }
+
+    private void send(String topic, byte[] payload, int qos, boolean retained, int count, List<Record> records) throws InterruptedException {
+        // 在途窗口已满时在发送线程上等待, 断开连接或关闭时才落盘
+        try {
+            while (!inflight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (!running || !client.isConnected()) {
+                    spill(records);
+                    replayRequested = true;
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            spill(records);
+            throw e;
+        }
+        MqttMessage message = new MqttMessage(payload, qos, retained, null);
+        if (count > 1) {
+            MqttProperties properties = new MqttProperties();
+            properties.setUserProperties(List.of(new UserProperty("count", String.valueOf(count))));
+            message.setProperties(properties);
+        }
+        try {
+            client.publish(topic, message, null, new MqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken asyncActionToken) {
+                    inflight.release();
+                    acked.addAndGet(count);
+                }
+
+                @Override
+                public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                    inflight.release();
+                    log.warn("发布消息到主题 {} 失败, 写入本地文件 -> {}", topic, exception.getMessage());
+                    spill(records);
+                }
+            });
+        } catch (MqttException e) {
+            inflight.release();
+            spill(records);
+        }
+    }
+
+    /**
+     * 追加写入本地文件,每行: topic \t qos \t retained \t base64(payload)
+     */
+    private synchronized void spill(List<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            if (spillWriter == null) {
+                Path parent = spillPath.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                spillWriter = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            Base64.Encoder encoder = Base64.getEncoder();
+            int count = 0;
+            for (Record record : records) {
+                spillWriter.write(record.topic);
+                spillWriter.write('\t');
+                spillWriter.write(String.valueOf(record.qos));
+                spillWriter.write('\t');
+                spillWriter.write(String.valueOf(record.retained));
+                spillWriter.write('\t');
+                spillWriter.write(encoder.encodeToString(record.payload));
+                spillWriter.newLine();
+                if (!record.replayed) {
+                    count++;
+                }
+            }
+            spillWriter.flush();
+            spilled.addAndGet(count);
+        } catch (IOException e) {
+            log.error("MQTT 消息落盘失败, 丢弃 {} 条 -> {}", records.size(), e.getMessage());
+            closeSpillWriter();
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            log.warn("关闭 MQTT 落盘文件失败 -> {}", e.getMessage());
+        }
+        spillWriter = null;
+    }
+
+    /**
+     * 补发落盘的消息,补发期间新落盘的消息写入新文件
+     */
+    private void replay() throws InterruptedException {
+        Path replaying = spillPath.resolveSibling(spillPath.getFileName() + ".replaying");
+        try {
+            synchronized (this) {
+                // 上次补发未完成时先补发遗留文件
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(spillPath)) {
+                        return;
+                    }
+                    closeSpillWriter();
+                    Files.move(spillPath, replaying, StandardCopyOption.ATOMIC_MOVE);
+                } else if (Files.exists(spillPath)) {
+                    replayRequested = true;
+                }
+            }
+            log.info("开始补发落盘的 MQTT 消息: {}", replaying);
+            List<Record> batch = new ArrayList<>(batchSize);
+            Base64.Decoder decoder = Base64.getDecoder();
+            try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] split = line.split("\t", 4);
+                    if (split.length < 4) {
+                        log.warn("跳过格式错误的落盘消息: {}", line);
+                        continue;
+                    }
+                    try {
+                        batch.add(new Record(split[0], decoder.decode(split[3]), Integer.parseInt(split[1]), Boolean.parseBoolean(split[2]), true));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("跳过格式错误的落盘消息 -> {}", e.getMessage());
+                        continue;
+                    }
+                    if (batch.size() >= batchSize) {
+                        send(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            send(batch);
+            Files.delete(replaying);
+        } catch (IOException e) {
+            log.error("补发 MQTT 消息失败 -> {}", e.getMessage());
+        }
+    }
+}
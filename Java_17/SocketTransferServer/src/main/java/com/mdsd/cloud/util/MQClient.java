@@ -1,21 +1,30 @@
 package com.mdsd.cloud.util;
 
 import com.mdsd.cloud.response.BusinessException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.mqttv5.client.*;
 import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
 import org.eclipse.paho.mqttv5.common.MqttException;
 import org.eclipse.paho.mqttv5.common.MqttMessage;
 import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author WangYunwei [2024-09-10]
  */
 @Slf4j
 @Component
-public class MQClient {
+public class MQClient implements DisposableBean {
 
     @Value("tcp://${env.ip.sts}:${env.port.sts.mqtt}")
     private String serverURI;
@@ -23,23 +32,60 @@ public class MQClient {
     @Value("${spring.application.name}")
     private String clientId;
 
+    @Value("${env.mqtt.outbox-capacity:10000}")
+    private int outboxCapacity;
+
+    @Value("${env.mqtt.inflight:64}")
+    private int inflight;
+
+    @Value("${env.mqtt.batch-size:256}")
+    private int batchSize;
+
+    @Value("${env.mqtt.coalesce:false}")
+    private boolean coalesce;
+
+    @Value("${env.mqtt.connect-retry-ms:5000}")
+    private long connectRetryMs;
+
+    @Value("${env.mqtt.spill-path:spill/mqtt-outbox.log}")
+    private String spillPath;
+
     public static final String taskTopic = "STS/%s/PUBLISH/%s";
 
     public static final String userTopic = "STS_PUBLISH/USER";
 
     public static final String userContent = "{\"userId\":\"%s\",\"isConnect\":%b}";
 
-    private static MqttClient mqClient;
+    private static MqttAsyncClient mqClient;
+
+    private static MQAsyncPublisher publisher;
 
     /**
-     * 发布
+     * 首次连接失败后的重试 (连接成功后由 Paho 自动重连)
+     */
+    private final ScheduledExecutorService connectRetry = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mqtt-connect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MQClient(MeterRegistry meterRegistry) {
+        Gauge.builder("sts.mqtt.pending", () -> publisher == null ? 0 : publisher.getPending()).register(meterRegistry);
+        FunctionCounter.builder("sts.mqtt.acked", this, c -> publisher == null ? 0 : publisher.getAcked()).register(meterRegistry);
+        FunctionCounter.builder("sts.mqtt.spilled", this, c -> publisher == null ? 0 : publisher.getSpilled()).register(meterRegistry);
+    }
+
+    /**
+     * 发布 (异步)
+     * <p>
+     * 只写入发件箱后立即返回,由 MQAsyncPublisher 批量发送,Broker 不可达时落盘
      */
     public static void publish(String topic, byte[] payload, int qos, boolean retained) {
-        try {
-            mqClient.publish(topic, payload, qos, retained);
-        } catch (MqttException e) {
-            throw new BusinessException("发布消息到主题 %s 失败!".formatted(topic));
+        if (publisher == null) {
+            log.debug("MQTTClient 未创建, 忽略主题 {} 的消息", topic);
+            return;
         }
+        publisher.publish(topic, payload, qos, retained);
     }
 
     /**
@@ -47,7 +93,7 @@ public class MQClient {
      */
     public static void subscribe(String topicFilter, int qos) {
         try {
-            mqClient.subscribe(topicFilter, qos);
+            mqClient.subscribe(topicFilter, qos).waitForCompletion();
         } catch (MqttException e) {
             throw new BusinessException("订阅主题 %s 失败!".formatted(topicFilter));
         }
@@ -62,7 +108,7 @@ public class MQClient {
      */
     public static void main(String[] args) {
         try {
-            mqClient = new MqttClient("tcp://192.168.0.221:1883", "STS_MAIN", new MemoryPersistence());
+            mqClient = new MqttAsyncClient("tcp://192.168.0.221:1883", "STS_MAIN", new MemoryPersistence());
             // 设置连接选项
             MqttConnectionOptions connOpts = new MqttConnectionOptions();
             connOpts.setUserName("mdsd");
@@ -71,11 +117,13 @@ public class MQClient {
             // 设置回调函数
             mqClient.setCallback(new MqttCallbackImpl());
             // 建立连接
-            mqClient.connect(connOpts);
+            mqClient.connect(connOpts).waitForCompletion();
+            publisher = new MQAsyncPublisher(mqClient, 1000, 16, 64, true, Path.of("spill/mqtt-outbox.log"));
             // 订阅
             subscribe(userTopic, 0);
             // 发布
             publish(userTopic, String.format(userContent, "1850816877849214976", Boolean.FALSE).getBytes(), 1, false);
+            publisher.close();
         } catch (MqttException e) {
             throw new RuntimeException(e);
         }
@@ -83,20 +131,66 @@ public class MQClient {
     }
 
     public void createMqClient() {
+        MqttConnectionOptions connOpts;
         try {
-            mqClient = new MqttClient(serverURI, clientId, new MemoryPersistence());
+            mqClient = new MqttAsyncClient(serverURI, clientId, new MemoryPersistence());
             // 设置连接选项
-            MqttConnectionOptions connOpts = new MqttConnectionOptions();
+            connOpts = new MqttConnectionOptions();
             connOpts.setUserName("mdsd");
             connOpts.setPassword("mdsd@123".getBytes());
             connOpts.setAutomaticReconnect(true);
             // 设置回调函数
             mqClient.setCallback(new MqttCallbackImpl());
-            // 建立连接
-            mqClient.connect(connOpts);
+            // 先创建发布器: Broker 不可达期间的消息落盘,连接成功后补发
+            publisher = new MQAsyncPublisher(mqClient, outboxCapacity, inflight, batchSize, coalesce, Path.of(spillPath));
         } catch (MqttException e) {
             throw new BusinessException("创建MQTTClient失败!");
         }
+        // 建立连接
+        connect(connOpts);
+    }
+
+    /**
+     * 异步连接,首次连接失败时按固定间隔重试,不阻塞启动
+     */
+    private void connect(MqttConnectionOptions connOpts) {
+        try {
+            mqClient.connect(connOpts, null, new MqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken asyncActionToken) {
+                }
+
+                @Override
+                public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                    retryConnect(connOpts, exception);
+                }
+            });
+        } catch (MqttException e) {
+            retryConnect(connOpts, e);
+        }
+    }
+
+    private void retryConnect(MqttConnectionOptions connOpts, Throwable cause) {
+        if (connectRetry.isShutdown()) {
+            return;
+        }
+        log.warn("连接 MQTT Broker 失败, {} 毫秒后重试 -> {}", connectRetryMs, cause.getMessage());
+        connectRetry.schedule(() -> connect(connOpts), connectRetryMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        connectRetry.shutdownNow();
+        if (publisher != null) {
+            publisher.close();
+        }
+        if (mqClient != null && mqClient.isConnected()) {
+            try {
+                mqClient.disconnect().waitForCompletion(3000);
+            } catch (MqttException e) {
+                log.warn("断开 MQTTClient 失败 -> {}", e.getMessage());
+            }
+        }
     }
 
     static class MqttCallbackImpl implements MqttCallback {
@@ -110,6 +204,10 @@ public class MQClient {
         @Override
         public void connectComplete(boolean reconnect, String serverURI) {
             log.info("connectComplete --------- {}", serverURI);
+            // 连接 (含首次连接和自动重连) 成功后补发落盘的消息
+            if (publisher != null) {
+                publisher.requestReplay();
+            }
         }
 
         @Override
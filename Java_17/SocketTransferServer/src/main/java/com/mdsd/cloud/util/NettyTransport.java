@@ -0,0 +1,104 @@
+package com.mdsd.cloud.util;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.NettyRuntime;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Netty 传输层 (所有服务共享)
+ * <p>
+ * - Linux 下优先使用 Epoll 原生传输,不可用时回退到 NIO
+ * - 全局共享一个 Boss 线程组和一个 Worker 线程组,线程数由配置决定 (0 表示 CPU 核数 * 2)
+ * - UDP 在 Epoll 下启用 SO_REUSEPORT,同一端口绑定多个通道,由内核把数据包分散到多个 Worker 线程
+ * - 应用关闭时优雅关闭线程组 (先关闭 Boss 停止接收新连接,再关闭 Worker)
+ *
+ * @author WangYunwei [2025-06-23]
+ */
+@Slf4j
+@Getter
+@Component
+public class NettyTransport implements DisposableBean {
+
+    private final boolean epoll;
+
+    private final EventLoopGroup bossGroup;
+
+    private final EventLoopGroup workerGroup;
+
+    /**
+     * TCP 服务端连接队列大小,受 Linux 的 /proc/sys/net/core/somaxconn 影响
+     */
+    private final int backlog;
+
+    /**
+     * UDP 同一端口绑定的通道数 (仅 Epoll 下大于 1)
+     */
+    private final int udpChannels;
+
+    private final long shutdownQuietMs;
+
+    private final long shutdownTimeoutMs;
+
+    public NettyTransport(@Value("${env.netty.native:true}") boolean useNative,
+                          @Value("${env.netty.worker-threads:0}") int workerThreads,
+                          @Value("${env.netty.backlog:1024}") int backlog,
+                          @Value("${env.netty.udp-channels:0}") int udpChannels,
+                          @Value("${env.netty.shutdown-quiet-ms:200}") long shutdownQuietMs,
+                          @Value("${env.netty.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.epoll = useNative && Epoll.isAvailable();
+        int workers = workerThreads > 0 ? workerThreads : NettyRuntime.availableProcessors() * 2;
+        if (epoll) {
+            this.bossGroup = new EpollEventLoopGroup(1, new DefaultThreadFactory("netty-boss"));
+            this.workerGroup = new EpollEventLoopGroup(workers, new DefaultThreadFactory("netty-worker"));
+        } else {
+            this.bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("netty-boss"));
+            this.workerGroup = new NioEventLoopGroup(workers, new DefaultThreadFactory("netty-worker"));
+        }
+        this.backlog = backlog;
+        this.udpChannels = epoll ? Math.min(workers, udpChannels > 0 ? udpChannels : NettyRuntime.availableProcessors()) : 1;
+        this.shutdownQuietMs = shutdownQuietMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        log.info("Netty 传输层: {}, Worker 线程数: {}, UDP 通道数: {}", epoll ? "Epoll" : "NIO", workers, this.udpChannels);
+        if (useNative && !epoll) {
+            log.info("Epoll 不可用, 回退到 NIO -> {}", Epoll.unavailabilityCause() == null ? "" : Epoll.unavailabilityCause().getMessage());
+        }
+    }
+
+    public Class<? extends ServerSocketChannel> serverSocketChannel() {
+        return epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public Class<? extends SocketChannel> socketChannel() {
+        return epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    public Class<? extends DatagramChannel> datagramChannel() {
+        return epoll ? EpollDatagramChannel.class : NioDatagramChannel.class;
+    }
+
+    @Override
+    public void destroy() {
+        bossGroup.shutdownGracefully(shutdownQuietMs, shutdownTimeoutMs, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        workerGroup.shutdownGracefully(shutdownQuietMs, shutdownTimeoutMs, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        log.info("Netty 线程组已关闭");
+    }
+}
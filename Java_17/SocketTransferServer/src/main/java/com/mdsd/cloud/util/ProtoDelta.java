@@ -0,0 +1,33 @@
+package com.mdsd.cloud.util;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+import java.util.Set;
+
+/**
+ * protobuf 增量计算
+ *
+ * @author WangYunwei [2025-06-16]
+ */
+public class ProtoDelta {
+
+    /**
+     * 返回只包含发生变化的顶层字段的消息 (嵌套消息变化时整体下发)
+     *
+     * @param previous 上一帧,为 null 时返回全部字段
+     * @param current  当前帧
+     * @param changed  输出发生变化的字段,用于打印 JSON 时保留默认值 (例如速度变为 0)
+     */
+    public static Message diff(Message previous, Message current, Set<Descriptors.FieldDescriptor> changed) {
+        Message.Builder builder = current.newBuilderForType();
+        for (Descriptors.FieldDescriptor field : current.getDescriptorForType().getFields()) {
+            Object value = current.getField(field);
+            if (previous == null || !value.equals(previous.getField(field))) {
+                builder.setField(field, value);
+                changed.add(field);
+            }
+        }
+        return builder.build();
+    }
+}
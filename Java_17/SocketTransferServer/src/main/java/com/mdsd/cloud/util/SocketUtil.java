@@ -1,23 +1,22 @@
 package com.mdsd.cloud.util;
 
+import com.mdsd.cloud.controller.tyjw.codec.TyjwFrameDecoder;
+import com.mdsd.cloud.controller.tyjw.codec.TyjwFrameEncoder;
+import com.mdsd.cloud.controller.websocket.dto.WsEnvelope;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioDatagramChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 import lombok.extern.slf4j.Slf4j;
 
-import java.net.InetSocketAddress;
-
 /**
  * @author WangYunwei [2025-03-05]
  */
@@ -56,25 +55,38 @@ public class SocketUtil {
      * 调整缓冲区大小：根据业务需求调整 SO_RCVBUF 和 SO_SNDBUF 提升吞吐量
      * 多线程处理：WorkerGroup 的线程数应根据CPU核心数和负载调整
      */
-    public static void createWebSocketServer(ChannelHandler handler, int port) {
+    public static void createWebSocketServer(NettyTransport transport, ChannelHandler handler, int port) {
+        createWebSocketServer(transport, handler, port, false, WriteBufferWaterMark.DEFAULT);
+    }
+
+    /**
+     * @param compression 是否启用 permessage-deflate 压缩 (仅在客户端握手时请求该扩展才生效)
+     * @param waterMark   写缓冲区高低水位,超过高水位后 channel.isWritable() 为 false,推送时丢弃
+     */
+    public static void createWebSocketServer(NettyTransport transport, ChannelHandler handler, int port, boolean compression, WriteBufferWaterMark waterMark) {
         // 创建服务端启动引导器, 配置线程模型  EventLoop 等于 Thread
         ServerBootstrap serverBootstrap = new ServerBootstrap()
-                .group(new NioEventLoopGroup(1), new NioEventLoopGroup()) // Boss线程组(监听连接), Worker线程组 (处理I/O)
-                .channel(NioServerSocketChannel.class) // 使用NIO服务器通道
-                .option(ChannelOption.SO_BACKLOG, 32) // 设置线程队列连接个数, 受Linux的 /proc/sys/net/core/somaxconn 影响
+                .group(transport.getBossGroup(), transport.getWorkerGroup()) // Boss线程组(监听连接), Worker线程组 (处理I/O), 全局共享
+                .channel(transport.serverSocketChannel()) // Epoll 或 NIO 服务器通道
+                .option(ChannelOption.SO_BACKLOG, transport.getBacklog()) // 设置线程队列连接个数, 受Linux的 /proc/sys/net/core/somaxconn 影响
                 .option(ChannelOption.SO_REUSEADDR, true) // 允许地址复用
                 .childOption(ChannelOption.SO_RCVBUF, 128 * 1024) // 接收缓冲区大小
                 .childOption(ChannelOption.SO_SNDBUF, 128 * 1024) // 发送缓冲区大小
-                .childHandler(new ChannelInitializer<NioSocketChannel>() { // 添加一个 ChannelInitializer 来初始化每一个新的Channel
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark) // 写缓冲区高低水位
+                .childHandler(new ChannelInitializer<SocketChannel>() { // 添加一个 ChannelInitializer 来初始化每一个新的Channel
                     @Override
-                    protected void initChannel(NioSocketChannel ch) {
+                    protected void initChannel(SocketChannel ch) {
                         ch.pipeline()
                                 .addLast(new HttpServerCodec()) // 1.HTTP 编解码器
                                 .addLast(new ChunkedWriteHandler()) // 2.支持大文件分块写入
-                                .addLast(new HttpObjectAggregator(64 * 1024)) // 3.聚合HTTP消息(将多个 HttpContent 合并为 FullHttpRequest)
+                                .addLast(new HttpObjectAggregator(64 * 1024)); // 3.聚合HTTP消息(将多个 HttpContent 合并为 FullHttpRequest)
+                        if (compression) {
+                            ch.pipeline().addLast(new WebSocketServerCompressionHandler()); // permessage-deflate 压缩扩展
+                        }
+                        ch.pipeline()
                                 .addLast(new WebSocketServerProtocolHandler(
                                         "/websocket", // WebSocket路径
-                                        null, // 子协议 (可选)
+                                        WsEnvelope.SUBPROTOCOL, // 子协议 (可选), 未请求子协议的客户端仍按文本推送
                                         true, // 是否允许复用 (允许多个WebSocket连接复用同一个Channel)
                                         65536 // 最大帧大小 (64KB)
                                 )) //  4.WebSocket协议处理器 (处理握手、消息升级)
@@ -88,7 +100,6 @@ public class SocketUtil {
                     log.info("WEB SOCKET 服务启动成功, 监听端口: {}", port);
                 } else {
                     log.error("WEB SOCKET 服务启动失败 -> {}", f.cause().getMessage());
-//                    group.shutdownGracefully(); // 启动失败也要释放资源
                 }
             }).sync();
         } catch (InterruptedException e) {
@@ -113,10 +124,16 @@ public class SocketUtil {
      * - 启用 TCP_NODELAY 选项
      * - 禁用 Nagle 算法
      * - 允许立即发送小数据包,无需等待前面的数据被确认
+     * <p>
+     * 只创建引导器,不发起连接,由调用方负责连接与重连 (见 TyjwTcpClient)
+     *
+     * @param readerIdleSeconds 读空闲时间,触发 IdleStateEvent(READER_IDLE)
+     * @param writerIdleSeconds 写空闲时间,触发 IdleStateEvent(WRITER_IDLE)
+     * @param handlers          按顺序添加到编解码器之后
      */
-    public static ChannelFuture createTcpClient(ChannelHandler handler, String host, int port) {
-        Bootstrap bootstrap = new Bootstrap().group(new NioEventLoopGroup())
-                .channel(NioSocketChannel.class)
+    public static Bootstrap createTcpClient(NettyTransport transport, int readerIdleSeconds, int writerIdleSeconds, ChannelHandler... handlers) {
+        return new Bootstrap().group(transport.getWorkerGroup())
+                .channel(transport.socketChannel())
                 .option(ChannelOption.SO_SNDBUF, 64 * 1024)
                 .option(ChannelOption.SO_RCVBUF, 64 * 1024)
                 .option(ChannelOption.TCP_NODELAY, true) // 禁用Nagle算法,减少小数据包的延迟
@@ -124,26 +141,12 @@ public class SocketUtil {
                     @Override
                     protected void initChannel(SocketChannel ch) {
                         ch.pipeline()
-                                .addLast(new LengthFieldBasedFrameDecoder(10 * 1024, 2, 2, 0, 0)) // 自定义协议解码器
-                                .addLast(handler);
+                                .addLast(new IdleStateHandler(readerIdleSeconds, writerIdleSeconds, 0)) // 空闲检测 (心跳、断线检测)
+                                .addLast(new TyjwFrameDecoder()) // 自定义协议解码器 (按数据长度切帧,零拷贝)
+                                .addLast(TyjwFrameEncoder.INSTANCE) // 自定义协议编码器
+                                .addLast(handlers);
                     }
                 });
-        return bootstrap.connect(new InetSocketAddress(host, port)).addListener((ChannelFutureListener) f -> {
-            if (f.isSuccess()) {
-                log.info("TCP 客户端连接成功 -> {}:{}", host, port);
-            } else {
-                log.error("TCP 客户端连接失败 -> {}", f.cause().getMessage());
-                f.channel().close();
-            }
-        }).syncUninterruptibly(); // 调用 syncUninterruptibly() 当前线程会阻塞,直到该异步操作完成
-        /*
-         * 1.同步等待异步操作完成
-         * Netty 的 I/O 操作（如 connect()、bind()、close() 等）都是异步非阻塞的，返回的是一个 ChannelFuture 对象。你可以通过监听或同步等待的方式判断操作是否完成
-         *
-         * 2.不抛出 InterruptedException
-         * - 与 sync() 不同 syncUninterruptibly() 在等待期间忽略中断信号,即使有其他线程调用了当前线程的 interrupt(),它也不会抛出 InterruptedException
-         * - 更加 "安静" 地等待,适合你不关心中断信号的场景
-         */
     }
 
     /**
@@ -164,28 +167,41 @@ public class SocketUtil {
      * - Netty 中的 DatagramPacket 默认有一个较小的缓冲区大小（如 2048 字节），这是由 ByteBufAllocator 配置决定的
      * - 如果你需要处理更大的 UDP 数据包,应该通过配置 RecvByteBufAllocator 来调整 Netty 的接收缓冲区大小,而不是仅仅依赖于 SO_RCVBUF 的设置
      * <p>
+     * .option(EpollChannelOption.SO_REUSEPORT, true)
+     * 释义: 多个通道绑定同一端口,由内核按四元组散列把数据包分配到不同通道 (不同 Worker 线程),仅 Epoll 支持
+     * 注: 返回第一个通道,用于向无人机回发数据 (各通道绑定的是同一地址,任选其一即可)
+     * <p>
      * bootstrap.disableResolver() 的作用是:
      * - 告诉 Netty 在连接远程主机时不使用内置的 DNS 解析机制（如解析域名到 IP），而是直接使用你传入的地址（必须是 IP 地址或已解析好的地址）
      */
-    public static Channel createUdpServer(ChannelHandler handler, int port) {
-        Bootstrap bootstrap = new Bootstrap().group(new NioEventLoopGroup())
-                .channel(NioDatagramChannel.class)
+    public static Channel createUdpServer(NettyTransport transport, ChannelHandler handler, int port) {
+        Bootstrap bootstrap = new Bootstrap().group(transport.getWorkerGroup())
+                .channel(transport.datagramChannel())
                 .option(ChannelOption.SO_SNDBUF, 128 * 1024)
                 .option(ChannelOption.SO_RCVBUF, 128 * 1024)
                 .option(ChannelOption.SO_REUSEADDR, true) // 启用地址重用
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT) // 使用池化缓冲区分配器
                 .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(64 * 1024)) // 设置固定接收缓冲区大小
                 .handler(handler);
+        if (transport.getUdpChannels() > 1) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true); // 同一端口绑定多个通道
+        }
         try {
-            return bootstrap.bind(port).addListener((ChannelFutureListener) f -> {
-                if (f.isSuccess()) {
-                    log.info("UDP 服务启动成功, 监听端口: {}", port);
-                } else {
-                    log.error("UDP 服务启动失败 -> {}", f.cause().getMessage());
-                    bootstrap.disableResolver();// 禁用解析器
-//                    group.shutdownGracefully(); // 启动失败也要释放资源
+            Channel first = null;
+            for (int i = 0; i < transport.getUdpChannels(); i++) {
+                Channel channel = bootstrap.bind(port).addListener((ChannelFutureListener) f -> {
+                    if (f.isSuccess()) {
+                        log.info("UDP 服务启动成功, 监听端口: {}, 通道: {}", port, f.channel().id());
+                    } else {
+                        log.error("UDP 服务启动失败 -> {}", f.cause().getMessage());
+                        bootstrap.disableResolver();// 禁用解析器
+                    }
+                }).sync().channel();
+                if (first == null) {
+                    first = channel;
                 }
-            }).sync().channel();
+            }
+            return first;
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,53 @@
+package com.mdsd.cloud;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 基准测试工具: 预热后多轮执行,取最快一轮的每次操作耗时和分配字节数
+ * <p>
+ * 基准测试默认不执行,需要 mvn test -Dbenchmark=true
+ *
+ * @author WangYunwei [2025-07-10]
+ */
+@Slf4j
+public final class BenchmarkSupport {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int ROUNDS = 5;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param nsPerOp    每次操作耗时 (纳秒)
+     * @param bytesPerOp 每次操作在当前线程上分配的字节数
+     */
+    public record Result(String name, double nsPerOp, double bytesPerOp) {
+    }
+
+    public static Result measure(String name, int warmup, int iterations, Runnable op) {
+        for (int i = 0; i < warmup; i++) {
+            op.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        double bestNs = Double.MAX_VALUE;
+        double bestBytes = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                op.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            bytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - bytes;
+            bestNs = Math.min(bestNs, (double) elapsed / iterations);
+            bestBytes = Math.min(bestBytes, (double) bytes / iterations);
+        }
+        Result result = new Result(name, bestNs, bestBytes);
+        log.info("{}: {} ns/op, {} B/op", name, String.format("%.1f", bestNs), String.format("%.1f", bestBytes));
+        return result;
+    }
+}
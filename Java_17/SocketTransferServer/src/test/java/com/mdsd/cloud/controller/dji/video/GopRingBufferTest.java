@@ -0,0 +1,114 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GOP 缓冲区: 超出容量时整 GOP 丢弃,写出的数据总是从 GOP 起点开始
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+public class GopRingBufferTest {
+
+    @Test
+    public void testWaitForGopStart() throws InterruptedException {
+        GopRingBuffer buffer = new GopRingBuffer(100);
+        H264Nal p = nal(1, 10);
+        assertFalse(buffer.offer(p));
+        assertEquals(0, p.content().refCnt());
+        assertTrue(buffer.offer(nal(H264Nal.TYPE_SPS, 10)));
+        assertTrue(buffer.offer(nal(1, 10)));
+        assertEquals(List.of(H264Nal.TYPE_SPS, 1), drain(buffer));
+        assertEquals(1, buffer.getDropped());
+    }
+
+    @Test
+    public void testContinueAfterDrained() throws InterruptedException {
+        GopRingBuffer buffer = new GopRingBuffer(100);
+        assertTrue(buffer.offer(nal(H264Nal.TYPE_SPS, 10)));
+        assertEquals(List.of(H264Nal.TYPE_SPS), drain(buffer));
+        // 队列被取空后,同一 GOP 的后续 NAL 单元照常写入
+        assertTrue(buffer.offer(nal(H264Nal.TYPE_PPS, 10)));
+        assertTrue(buffer.offer(nal(H264Nal.TYPE_IDR, 10)));
+        assertEquals(List.of(H264Nal.TYPE_PPS, H264Nal.TYPE_IDR), drain(buffer));
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    public void testDropHeadGop() throws InterruptedException {
+        GopRingBuffer buffer = new GopRingBuffer(100);
+        List<H264Nal> first = List.of(nal(H264Nal.TYPE_SPS, 10), nal(H264Nal.TYPE_IDR, 30));
+        first.forEach(buffer::offer);
+        buffer.offer(nal(H264Nal.TYPE_SPS, 11));
+        buffer.offer(nal(1, 31));
+        buffer.offer(nal(H264Nal.TYPE_SPS, 12));
+        // 超出容量,丢弃队首的整个 GOP
+        assertTrue(buffer.offer(nal(1, 32)));
+        assertEquals(86, buffer.getBytes());
+        assertEquals(2, buffer.getDropped());
+        first.forEach(nal -> assertEquals(0, nal.content().refCnt()));
+        assertEquals(List.of(11, 31, 12, 32), drainSizes(buffer));
+        assertEquals(0, buffer.getBytes());
+    }
+
+    @Test
+    public void testDropCurrentGop() throws InterruptedException {
+        GopRingBuffer buffer = new GopRingBuffer(50);
+        buffer.offer(nal(H264Nal.TYPE_SPS, 10));
+        buffer.offer(nal(1, 30));
+        // 正在接收的 GOP 超出容量: 整个 GOP 丢弃,之后的 NAL 单元丢弃到下一个 GOP 起点
+        assertFalse(buffer.offer(nal(1, 30)));
+        assertFalse(buffer.offer(nal(1, 5)));
+        assertEquals(0, buffer.getBytes());
+        assertTrue(buffer.offer(nal(H264Nal.TYPE_SPS, 10)));
+        assertTrue(buffer.offer(nal(1, 5)));
+        assertEquals(List.of(10, 5), drainSizes(buffer));
+        assertEquals(4, buffer.getDropped());
+    }
+
+    @Test
+    public void testResyncAndClose() throws InterruptedException {
+        GopRingBuffer buffer = new GopRingBuffer(100);
+        H264Nal sps = nal(H264Nal.TYPE_SPS, 10);
+        buffer.offer(sps);
+        buffer.resync();
+        assertEquals(0, sps.content().refCnt());
+        assertFalse(buffer.offer(nal(1, 10)));
+        assertTrue(buffer.offer(nal(H264Nal.TYPE_SPS, 10)));
+
+        buffer.close();
+        assertEquals(0, buffer.getBytes());
+        assertFalse(buffer.offer(nal(H264Nal.TYPE_SPS, 10)));
+        assertNull(buffer.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    private static H264Nal nal(int type, int size) {
+        return new H264Nal(Unpooled.buffer(size).writeZero(size), type, type == H264Nal.TYPE_SPS, System.nanoTime());
+    }
+
+    private static List<Integer> drain(GopRingBuffer buffer) throws InterruptedException {
+        List<Integer> types = new ArrayList<>();
+        H264Nal nal;
+        while ((nal = buffer.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            types.add(nal.type());
+            nal.content().release();
+        }
+        return types;
+    }
+
+    private static List<Integer> drainSizes(GopRingBuffer buffer) throws InterruptedException {
+        List<Integer> sizes = new ArrayList<>();
+        H264Nal nal;
+        while ((nal = buffer.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            sizes.add(nal.size());
+            nal.content().release();
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,102 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * NAL 单元重组: 起始码 (3/4 字节) 落在分片的任意位置时都能切分出完整的 NAL 单元,且不泄漏分片
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+public class H264NalAssemblerTest {
+
+    private static final byte[] SPS = {0, 0, 0, 1, 0x67, 0x42, (byte) 0xC0, 0x1E, (byte) 0xDA};
+
+    private static final byte[] PPS = {0, 0, 0, 1, 0x68, (byte) 0xCE, 0x3C, (byte) 0x80};
+
+    private static final byte[] IDR = {0, 0, 1, 0x65, (byte) 0x88, (byte) 0x84, 0x21, 0x00, 0x00, 0x03, 0x7F};
+
+    private static final byte[] SLICE = {0, 0, 0, 1, 0x41, (byte) 0x9A, 0x02, 0x03, 0x04, 0x05};
+
+    private final List<ByteBuf> fragments = new ArrayList<>();
+
+    @Test
+    public void testSplitAtEveryPosition() {
+        // 第一个起始码之前的数据丢弃; 最后一个 SPS 在下一个起始码到达前不输出
+        byte[] stream = concat(new byte[]{0x11, 0x22}, SPS, PPS, IDR, SLICE, SPS);
+        List<byte[]> expected = List.of(SPS, PPS, IDR, SLICE);
+        for (int chunk = 1; chunk <= stream.length; chunk++) {
+            List<H264Nal> nals = assemble(stream, chunk, 1024);
+            assertEquals(expected.size(), nals.size(), "分片大小: " + chunk);
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), ByteBufUtil.getBytes(nals.get(i).content()), "分片大小: " + chunk + ", NAL: " + i);
+            }
+            assertEquals(List.of(H264Nal.TYPE_SPS, H264Nal.TYPE_PPS, H264Nal.TYPE_IDR, 1), nals.stream().map(H264Nal::type).toList());
+            // SPS/PPS 之后的 IDR 与 SPS 属于同一个 GOP
+            assertEquals(List.of(true, false, false, false), nals.stream().map(H264Nal::gopStart).toList());
+            release(nals);
+        }
+    }
+
+    @Test
+    public void testIdrWithoutParameterSetStartsGop() {
+        List<H264Nal> nals = assemble(concat(SLICE, IDR, SLICE, SPS), 3, 1024);
+        assertEquals(List.of(false, true, false), nals.stream().map(H264Nal::gopStart).toList());
+        release(nals);
+    }
+
+    @Test
+    public void testOversizedNalDropped() {
+        byte[] oversized = new byte[64];
+        Arrays.fill(oversized, (byte) 0x55);
+        System.arraycopy(new byte[]{0, 0, 0, 1, 0x41}, 0, oversized, 0, 5);
+        List<H264Nal> nals = assemble(concat(oversized, SPS, PPS), 7, 32);
+        assertEquals(1, nals.size());
+        assertArrayEquals(SPS, ByteBufUtil.getBytes(nals.get(0).content()));
+        release(nals);
+    }
+
+    /**
+     * 按固定大小分片写入
+     */
+    private List<H264Nal> assemble(byte[] stream, int chunk, int maxNalBytes) {
+        H264NalAssembler assembler = new H264NalAssembler(PooledByteBufAllocator.DEFAULT, maxNalBytes);
+        List<H264Nal> nals = new ArrayList<>();
+        for (int offset = 0; offset < stream.length; offset += chunk) {
+            // 与 UDP 接收一致使用池化的直接内存,retainedSlice 得到的是独立计数的 PooledSlicedByteBuf
+            ByteBuf fragment = PooledByteBufAllocator.DEFAULT.directBuffer(chunk).writeBytes(stream, offset, Math.min(chunk, stream.length - offset));
+            fragments.add(fragment);
+            assembler.feed(fragment, System.nanoTime(), nals::add);
+        }
+        assembler.release();
+        return nals;
+    }
+
+    /**
+     * 释放 NAL 单元后,分片只剩调用方持有的引用
+     */
+    private void release(List<H264Nal> nals) {
+        nals.forEach(nal -> nal.content().release());
+        fragments.forEach(fragment -> assertEquals(1, fragment.refCnt()));
+        fragments.forEach(ByteBuf::release);
+        fragments.clear();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
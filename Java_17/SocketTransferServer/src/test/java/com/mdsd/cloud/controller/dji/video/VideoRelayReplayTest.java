@@ -0,0 +1,209 @@
+package com.mdsd.cloud.controller.dji.video;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.DatagramSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 视频转发回放测试: 本机 UDP 发送 .h264 码流,经 NAL 重组、GOP 缓冲区写入进程标准输入
+ * <p>
+ * 用 cat 代替 FFmpeg 把标准输入原样写入文件,比较写出的码流与发送的码流
+ *
+ * @author WangYunwei [2025-07-03]
+ */
+@EnabledOnOs(OS.LINUX)
+public class VideoRelayReplayTest {
+
+    private static final String SERIAL_NUMBER = "1581F5FHD232800D0000";
+
+    private static final int DATAGRAM_BYTES = 1400;
+
+    @TempDir
+    Path dir;
+
+    private final VideoRelayProperties properties = new VideoRelayProperties();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private EventLoopGroup group;
+
+    @BeforeEach
+    public void setUp() throws ReflectiveOperationException {
+        set("enabled", true);
+        set("output", dir.resolve("%s.h264").toString());
+        set("maxProcesses", 1);
+        set("queueBytes", 4L * 1024 * 1024);
+        set("maxNalBytes", 2 * 1024 * 1024);
+        set("restartBackoffMs", 100L);
+        set("maxRestartBackoffMs", 1000L);
+        group = new NioEventLoopGroup(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        group.shutdownGracefully().syncUninterruptibly();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReplayOverUdp() throws Exception {
+        byte[] stream = h264(3, 10);
+        Path file = dir.resolve("sample.h264");
+        Files.write(file, stream);
+
+        CountDownLatch started = new CountDownLatch(1);
+        VideoRelay relay = new VideoRelay(SERIAL_NUMBER, properties, PooledByteBufAllocator.DEFAULT, new SimpleMeterRegistry(), executor, new Semaphore(1), output -> {
+            started.countDown();
+            return cat(output);
+        });
+        Channel server = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        relay.feed(packet.content());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        try {
+            // 进程启动后才开始发送,启动前收到的数据会在 resync 时丢弃
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            byte[] replay = Files.readAllBytes(file);
+            try (DatagramSocket socket = new DatagramSocket()) {
+                socket.connect(server.localAddress());
+                for (int offset = 0, n = 0; offset < replay.length; offset += DATAGRAM_BYTES, n++) {
+                    socket.send(new java.net.DatagramPacket(replay, offset, Math.min(DATAGRAM_BYTES, replay.length - offset)));
+                    if (n % 16 == 15) {
+                        Thread.sleep(1);
+                    }
+                }
+            }
+            // 最后一个 SPS 在下一个起始码到达前不会输出
+            byte[] expected = Arrays.copyOf(stream, stream.length - sps().length);
+            Path output = dir.resolve(SERIAL_NUMBER + ".h264");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (Files.size(output) < expected.length && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            relay.close();
+            assertArrayEquals(expected, Files.readAllBytes(output));
+        } finally {
+            relay.close();
+            server.close().sync();
+        }
+    }
+
+    @Test
+    public void testProcessPoolBound() throws Exception {
+        AtomicInteger launched = new AtomicInteger();
+        Semaphore processes = new Semaphore(1);
+        Function<String, Process> launcher = output -> {
+            launched.incrementAndGet();
+            return cat(output);
+        };
+        VideoRelay first = new VideoRelay("A", properties, PooledByteBufAllocator.DEFAULT, new SimpleMeterRegistry(), executor, processes, launcher);
+        VideoRelay second = new VideoRelay("B", properties, PooledByteBufAllocator.DEFAULT, new SimpleMeterRegistry(), executor, processes, launcher);
+        try {
+            awaitLaunched(launched, 1);
+            Thread.sleep(300);
+            // 名额用完,第二个转发等待
+            assertEquals(1, launched.get());
+            first.close();
+            awaitLaunched(launched, 2);
+        } finally {
+            first.close();
+            second.close();
+        }
+        assertEquals(1, processes.availablePermits());
+    }
+
+    private static void awaitLaunched(AtomicInteger launched, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (launched.get() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "进程未启动");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Process cat(String output) {
+        try {
+            return new ProcessBuilder("cat").redirectOutput(new File(output)).start();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 生成 H.264 码流: 每个 GOP 为 SPS、PPS、IDR 和若干 P 帧,末尾追加一个 SPS 作为结束
+     */
+    private static byte[] h264(int gops, int slices) {
+        Random random = new Random(20250703);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int gop = 0; gop < gops; gop++) {
+            out.writeBytes(sps());
+            out.writeBytes(new byte[]{0, 0, 0, 1, 0x68, (byte) 0xCE, 0x3C, (byte) 0x80});
+            out.writeBytes(nal(random, 0x65, 8000));
+            for (int i = 0; i < slices; i++) {
+                out.writeBytes(nal(random, 0x41, 1500));
+            }
+        }
+        out.writeBytes(sps());
+        return out.toByteArray();
+    }
+
+    private static byte[] sps() {
+        return new byte[]{0, 0, 0, 1, 0x67, 0x42, (byte) 0xC0, 0x1E, (byte) 0xDA};
+    }
+
+    /**
+     * 数据部分不含 0x00,不会出现起始码
+     */
+    private static byte[] nal(Random random, int header, int size) {
+        byte[] nal = new byte[size];
+        for (int i = 5; i < size; i++) {
+            nal[i] = (byte) (1 + random.nextInt(255));
+        }
+        nal[3] = 1;
+        nal[4] = (byte) header;
+        return nal;
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = VideoRelayProperties.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(properties, value);
+    }
+}
@@ -0,0 +1,225 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import com.mdsd.cloud.BenchmarkSupport;
+import com.mdsd.cloud.controller.tyjw.dto.TyjwProtoBuf;
+import com.mdsd.cloud.controller.tyjw.service.impl.TyjwServiceImpl;
+import com.mdsd.cloud.controller.websocket.dto.WsChannelDetails;
+import com.mdsd.cloud.controller.websocket.service.IWebSocketService;
+import com.mdsd.cloud.enums.TyjwEnum;
+import com.mdsd.cloud.util.ByteUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 回复帧解码基准: TyjwFrameDecoder + handleTcpClient 对比原先的 LengthFieldBasedFrameDecoder + HashMap 解码
+ * <p>
+ * 原先的解码按改造前 handleTcpClient 的实现保留在本类中,两条路径输入相同的帧,对比每帧耗时和分配字节数
+ *
+ * @author WangYunwei [2025-07-10]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TyjwFrameDecoderBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+
+    private static final int ITERATIONS = 500_000;
+
+    /**
+     * 带 protobuf 数据的帧,耗时主要在两条路径共用的 JsonFormat 打印上,解码器节省的只是拷贝和装箱,耗时按 10% 的误差比较
+     */
+    private static final double TIME_TOLERANCE = 1.1;
+
+    private static final String BOX_SN = "TYJW20250603001";
+
+    private final JsonFormat.Printer printer = JsonFormat.printer();
+
+    /**
+     * 推送到 WEB SOCKET 的最后一条消息
+     */
+    private String lastMessage;
+
+    private final TyjwServiceImpl tyjwService = new TyjwServiceImpl(null, event -> {
+    }, new IWebSocketService() {
+        @Override
+        public void startWebListening() {
+        }
+
+        @Override
+        public void sendMessage(String key, String data) {
+            lastMessage = data;
+        }
+
+        @Override
+        public void sendTelemetry(String key, int instruct, Message data, ByteBuf raw, BiFunction<String, Boolean, String> render) {
+        }
+
+        @Override
+        public ConcurrentHashMap<String, WsChannelDetails> getWsChannels() {
+            return new ConcurrentHashMap<>();
+        }
+    }, null, null, new SimpleMeterRegistry());
+
+    private final EmbeddedChannel codecChannel = new EmbeddedChannel(new TyjwFrameDecoder(), new ChannelInboundHandlerAdapter() {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                tyjwService.handleTcpClient((TyjwFrame) msg);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+    });
+
+    private final EmbeddedChannel legacyChannel = new EmbeddedChannel(new LengthFieldBasedFrameDecoder(10 * 1024, 2, 2, 0, 0), new ChannelInboundHandlerAdapter() {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            try {
+                legacyDecode(buf);
+            } finally {
+                buf.release();
+            }
+        }
+    });
+
+    @AfterEach
+    public void close() {
+        codecChannel.finishAndReleaseAll();
+        legacyChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void benchmarkPhotoUploaded() {
+        byte[] frame = photoUploadedFrame();
+
+        // 两条路径推送的内容一致 (HashMap 的字段顺序不同,按字段比较)
+        codecChannel.writeInbound(copy(frame));
+        String codecMessage = lastMessage;
+        legacyChannel.writeInbound(copy(frame));
+        assertEquals(fields(lastMessage), fields(codecMessage));
+
+        compare("状态通知_图片上传完成通知", frame);
+    }
+
+    @Test
+    public void benchmarkSignalInfo() {
+        compare("无人机实时数据_信道质量", signalInfoFrame());
+    }
+
+    private void compare(String name, byte[] frame) {
+        BenchmarkSupport.Result legacy = BenchmarkSupport.measure(name + " HashMap解码", WARMUP, ITERATIONS, () -> legacyChannel.writeInbound(copy(frame)));
+        BenchmarkSupport.Result codec = BenchmarkSupport.measure(name + " TyjwFrameDecoder", WARMUP, ITERATIONS, () -> codecChannel.writeInbound(copy(frame)));
+        assertTrue(codec.bytesPerOp() < legacy.bytesPerOp(), () -> format("%s: 解码器分配 %.1f B/op, 原解码分配 %.1f B/op", name, codec.bytesPerOp(), legacy.bytesPerOp()));
+        assertTrue(codec.nsPerOp() <= legacy.nsPerOp() * TIME_TOLERANCE, () -> format("%s: 解码器 %.1f ns/op, 原解码 %.1f ns/op", name, codec.nsPerOp(), legacy.nsPerOp()));
+    }
+
+    private static ByteBuf copy(byte[] frame) {
+        return PooledByteBufAllocator.DEFAULT.buffer(frame.length).writeBytes(frame);
+    }
+
+    private static Set<String> fields(String message) {
+        return new HashSet<>(Arrays.asList(message.substring(1, message.length() - 1).split(", ")));
+    }
+
+    private static byte[] photoUploadedFrame() {
+        return frame(TyjwEnum.状态通知_图片上传完成通知, body -> body
+                .writeByte(0)
+                .writeDouble(114.057868)
+                .writeDouble(22.543099)
+                .writeLong(1751990400000L)
+                .writeLong(8_388_608L)
+                .writeBytes(BOX_SN.getBytes(StandardCharsets.UTF_8))
+                .writeBytes("https://oss.example.com/tyjw/TYJW20250603001/DJI_20250708_0001.JPG".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] signalInfoFrame() {
+        TyjwProtoBuf.SignalInfo signalInfo = TyjwProtoBuf.SignalInfo.newBuilder().setMode("NR5G-SA").setMcc("460").setMnc("00").setPcid("1021").setRsrp("-86").setRsrq("-11").setSinr("18").build();
+        return frame(TyjwEnum.无人机实时数据_信道质量, body -> body
+                .writeInt((int) (1751990400000L / 1000))
+                .writeBytes(BOX_SN.getBytes(StandardCharsets.UTF_8))
+                .writeBytes(signalInfo.toByteArray()));
+    }
+
+    private static byte[] frame(TyjwEnum anEnum, Consumer<ByteBuf> body) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            buf.writeShort(TyjwEnum.回复帧头.getInstruct()).writeShort(0).writeByte(anEnum.getInstruct());
+            body.accept(buf);
+            buf.setShort(2, buf.readableBytes() - 4);
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * 改造前 handleTcpClient 中对应指令的解码
+     */
+    private void legacyDecode(ByteBuf buf) {
+        if (buf.getShort(0) != 0x6A77) {
+            return;
+        }
+        TyjwEnum anEnum = TyjwEnum.getEnum(buf.getByte(4) & 0xFF, 0);
+        buf.skipBytes(5);// 跳过 帧头、数据长度、指令编号
+        Map<String, Object> wsReturnMap = new HashMap<>();
+        wsReturnMap.put("指令编码", format("0x%02X", anEnum.getInstruct()));
+        wsReturnMap.put("action", "NEW_MESSAGE");
+        byte[] boxSnByte = new byte[15];// 云盒编号
+        byte[] contentByte;// buffer中的内容
+        switch (anEnum) {
+            case 状态通知_图片上传完成通知 -> {
+                wsReturnMap.put("加密标志", buf.readByte());
+                wsReturnMap.put("经度", buf.readDouble());
+                wsReturnMap.put("纬度", buf.readDouble());
+                wsReturnMap.put("时间戳", buf.readLong());
+                wsReturnMap.put("原图大小", buf.readLong());
+                buf.readBytes(boxSnByte);
+                wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
+                contentByte = new byte[buf.readableBytes()];
+                buf.readBytes(contentByte);
+                wsReturnMap.put("原图地址", ByteUtil.bytesToStringUTF8(contentByte));
+            }
+            case 无人机实时数据_信道质量 -> {
+                wsReturnMap.put("时间戳", buf.readUnsignedInt());
+                buf.readBytes(boxSnByte);
+                wsReturnMap.put("云盒SN号", ByteUtil.bytesToStringUTF8(boxSnByte));
+                contentByte = new byte[buf.readableBytes()];
+                buf.readBytes(contentByte);
+                try {
+                    wsReturnMap.put("数据", printer.print(TyjwProtoBuf.SignalInfo.parseFrom(contentByte)));
+                } catch (InvalidProtocolBufferException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            default -> throw new IllegalArgumentException(anEnum.name());
+        }
+        lastMessage = wsReturnMap.toString();
+    }
+}
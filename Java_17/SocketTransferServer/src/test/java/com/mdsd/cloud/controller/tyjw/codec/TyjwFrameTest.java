@@ -0,0 +1,64 @@
+package com.mdsd.cloud.controller.tyjw.codec;
+
+import com.mdsd.cloud.controller.tyjw.dto.TyjwProtoBuf;
+import com.mdsd.cloud.enums.TyjwEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 回复帧云盒编号散列: 与 String.hashCode() 一致,数据体被截断或损坏时返回 0
+ *
+ * @author WangYunwei [2025-06-04]
+ */
+public class TyjwFrameTest {
+
+    private static final String BOX_SN = "TYJW20250603001";
+
+    @Test
+    public void testProtoBoxSnHash() {
+        byte[] telemetry = TyjwProtoBuf.TelemetryData.newBuilder().setLat(22.543099).setLng(114.057868).setBoxSn(BOX_SN).build().toByteArray();
+        byte[] uavState = TyjwProtoBuf.UavState.newBuilder().setBoxSn(BOX_SN).build().toByteArray();
+        assertEquals(BOX_SN.hashCode(), boxSnHash(TyjwEnum.无人机实时数据_遥测数据, telemetry));
+        assertEquals(BOX_SN.hashCode(), boxSnHash(TyjwEnum.无人机实时数据_状态数据, uavState));
+    }
+
+    @Test
+    public void testTruncatedProtoBody() {
+        byte[] telemetry = TyjwProtoBuf.TelemetryData.newBuilder().setLat(22.543099).setLng(114.057868).setBoxSn(BOX_SN).build().toByteArray();
+        byte[] uavState = TyjwProtoBuf.UavState.newBuilder().setBoxSn(BOX_SN).build().toByteArray();
+        // 从每个位置截断,包括正好截断在 tag、长度字段之后
+        for (int length = 0; length < telemetry.length; length++) {
+            assertEquals(0, boxSnHash(TyjwEnum.无人机实时数据_遥测数据, Arrays.copyOf(telemetry, length)), "截断长度: " + length);
+        }
+        for (int length = 0; length < uavState.length; length++) {
+            assertEquals(0, boxSnHash(TyjwEnum.无人机实时数据_状态数据, Arrays.copyOf(uavState, length)), "截断长度: " + length);
+        }
+    }
+
+    @Test
+    public void testCorruptProtoBody() {
+        // varint 字段只有续位字节
+        assertEquals(0, boxSnHash(TyjwEnum.无人机实时数据_遥测数据, new byte[]{0x08, (byte) 0x80, (byte) 0x80}));
+        // 5 字节长度字段解出负数
+        assertEquals(0, boxSnHash(TyjwEnum.无人机实时数据_遥测数据, new byte[]{0x0A, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0x41, 0x41}));
+        // 长度超出数据体
+        assertEquals(0, boxSnHash(TyjwEnum.无人机实时数据_状态数据, new byte[]{0x32, 0x20, 0x41, 0x41}));
+        // tag 只有续位字节
+        assertEquals(0, boxSnHash(TyjwEnum.无人机实时数据_状态数据, new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80}));
+    }
+
+    private static int boxSnHash(TyjwEnum anEnum, byte[] body) {
+        ByteBuf content = Unpooled.wrappedBuffer(body);
+        TyjwFrame frame = TyjwFrame.newInstance(content, anEnum.getInstruct(), 0);
+        try {
+            return frame.boxSnHash();
+        } finally {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.mdsd.cloud.controller.websocket.dto;
+
+import com.google.protobuf.Message;
+import com.mdsd.cloud.controller.tyjw.dto.TyjwProtoBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 增量推送: 每个新订阅者先收到关键帧
+ *
+ * @author WangYunwei [2025-06-16]
+ */
+public class WsStreamStateTest {
+
+    private final Message data = TyjwProtoBuf.UavState.newBuilder().setBoxSn("TYJW20250603001").build();
+
+    @Test
+    public void testDeltaAfterKeyframe() {
+        WsStreamState state = new WsStreamState();
+        List<Channel> channels = List.of(channel(), channel());
+        assertFalse(state.isDeltaAllowed(0, channels));
+        state.sent(0, data, channels, true);
+        assertTrue(state.isDeltaAllowed(1_000_000_000L, channels));
+        // 订阅者离开不影响增量
+        assertTrue(state.isDeltaAllowed(1_000_000_000L, channels.subList(0, 1)));
+        // 到达关键帧间隔
+        assertFalse(state.isDeltaAllowed(5_000_000_000L, channels));
+    }
+
+    @Test
+    public void testReplacedSubscriberGetsKeyframe() {
+        WsStreamState state = new WsStreamState();
+        Channel stay = channel();
+        state.sent(0, data, List.of(stay, channel()), true);
+        // 一个订阅者离开、另一个加入,订阅者数量不变
+        List<Channel> replaced = List.of(stay, channel());
+        assertFalse(state.isDeltaAllowed(1_000_000_000L, replaced));
+        state.sent(1_000_000_000L, data, replaced, true);
+        assertTrue(state.isDeltaAllowed(2_000_000_000L, replaced));
+    }
+
+    private static Channel channel() {
+        // EmbeddedChannel 默认共用同一个 id
+        return new EmbeddedChannel(DefaultChannelId.newInstance());
+    }
+}
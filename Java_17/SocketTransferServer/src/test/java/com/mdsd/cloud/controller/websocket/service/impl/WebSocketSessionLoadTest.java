@@ -0,0 +1,227 @@
+package com.mdsd.cloud.controller.websocket.service.impl;
+
+import com.mdsd.cloud.controller.websocket.dto.WsChannelDetails;
+import com.mdsd.cloud.util.NettyTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Field;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * WEB SOCKET 会话压力测试: 数千个客户端反复连接、注册到云盒、接收推送、断开
+ * <p>
+ * 断开阶段同时持续向全部云盒推送,验证推送与注册/清理并发时不出错,且每轮结束后云盒注册信息全部清理
+ * <p>
+ * 客户端数和云盒数可通过 -Dws.clients、-Dws.boxes 调整
+ *
+ * @author WangYunwei [2025-07-10]
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class WebSocketSessionLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("ws.clients", 2000);
+
+    private static final int BOXES = Integer.getInteger("ws.boxes", 200);
+
+    private static final int ROUNDS = 3;
+
+    private static final long TIMEOUT_MS = 60_000;
+
+    private static final String BROADCAST = "{\"message\":\"LOAD_TEST\"}";
+
+    private NettyTransport transport;
+
+    private EventLoopGroup clientGroup;
+
+    private WebSocketServiceImpl webSocketService;
+
+    private URI uri;
+
+    /**
+     * 客户端收到的推送条数
+     */
+    private final AtomicInteger received = new AtomicInteger();
+
+    @BeforeEach
+    public void start() throws Exception {
+        transport = new NettyTransport(false, 0, 4096, 0, 0, 5000);
+        clientGroup = new NioEventLoopGroup(4);
+        webSocketService = new WebSocketServiceImpl(event -> {
+        }, transport, new SimpleMeterRegistry());
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        set("port", port);
+        set("compression", false);
+        set("writeBufferLow", 32 * 1024);
+        set("writeBufferHigh", 256 * 1024);
+        webSocketService.startWebListening();
+        uri = URI.create("ws://127.0.0.1:" + port + "/websocket");
+    }
+
+    @AfterEach
+    public void stop() {
+        clientGroup.shutdownGracefully().syncUninterruptibly();
+        transport.destroy();
+    }
+
+    @Test
+    public void testConnectBroadcastDisconnect() throws Exception {
+        for (int round = 1; round <= ROUNDS; round++) {
+            received.set(0);
+            long start = System.nanoTime();
+            List<Channel> clients = connect();
+            awaitTrue("注册", () -> registered() == CLIENTS);
+            long connected = System.nanoTime();
+            assertEquals(BOXES, webSocketService.getWsChannels().size());
+
+            for (int box = 0; box < BOXES; box++) {
+                webSocketService.sendMessage(boxSn(box), BROADCAST);
+            }
+            awaitTrue("推送", () -> received.get() == CLIENTS);
+            long broadcasted = System.nanoTime();
+
+            // 断开的同时持续推送
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger errors = new AtomicInteger();
+            Thread sender = new Thread(() -> {
+                while (running.get()) {
+                    for (int box = 0; box < BOXES; box++) {
+                        try {
+                            webSocketService.sendMessage(boxSn(box), BROADCAST);
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                            log.error("推送失败", e);
+                        }
+                    }
+                }
+            }, "ws-load-sender");
+            sender.start();
+            long closing = System.nanoTime();
+            for (Channel client : clients) {
+                client.close();
+            }
+            try {
+                awaitTrue("清理", () -> webSocketService.getWsChannels().isEmpty());
+            } finally {
+                running.set(false);
+                sender.join();
+            }
+            long closed = System.nanoTime();
+            assertEquals(0, errors.get());
+
+            log.info("第{}轮 {}个客户端/{}个云盒: 连接注册 {}ms, 推送 {}ms, 断开清理 {}ms", round, CLIENTS, BOXES,
+                    (connected - start) / 1_000_000, (broadcasted - connected) / 1_000_000, (closed - closing) / 1_000_000);
+        }
+    }
+
+    private List<Channel> connect() throws InterruptedException {
+        List<Channel> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            String register = String.format("{\"serialNumber\":\"%s\",\"userId\":\"user-%d\",\"taskId\":\"task-%d\"}", boxSn(i % BOXES), i, i % BOXES);
+            clients.add(new Bootstrap()
+                    .group(clientGroup)
+                    .channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline()
+                                    .addLast(new HttpClientCodec())
+                                    .addLast(new HttpObjectAggregator(64 * 1024))
+                                    .addLast(new WebSocketClientProtocolHandler(uri, WebSocketVersion.V13, null, false, new DefaultHttpHeaders(), 65536))
+                                    .addLast(new Client(register));
+                        }
+                    })
+                    .connect(uri.getHost(), uri.getPort())
+                    .sync()
+                    .channel());
+        }
+        return clients;
+    }
+
+    /**
+     * 握手完成后注册到云盒,统计收到的推送
+     */
+    private class Client extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+
+        private final String register;
+
+        Client(String register) {
+            this.register = register;
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                ctx.writeAndFlush(new TextWebSocketFrame(register));
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame frame) {
+            if (BROADCAST.equals(frame.text())) {
+                received.incrementAndGet();
+            }
+        }
+    }
+
+    private int registered() {
+        int count = 0;
+        for (WsChannelDetails details : webSocketService.getWsChannels().values()) {
+            count += details.getGroup().size();
+        }
+        return count;
+    }
+
+    private static String boxSn(int box) {
+        return String.format("TYJW%011d", box);
+    }
+
+    private static void awaitTrue(String phase, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(phase + "超时");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = WebSocketServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(webSocketService, value);
+    }
+}
@@ -0,0 +1,111 @@
+package com.mdsd.cloud.enums;
+
+import com.mdsd.cloud.BenchmarkSupport;
+import com.mdsd.cloud.controller.tyjw.codec.TyjwCodecRegistry;
+import com.mdsd.cloud.controller.tyjw.codec.TyjwFrameHandler;
+import com.mdsd.cloud.response.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 指令查找基准: TyjwEnum/DjiEnum/CommonEnum 查找表及回复帧处理器注册表,对比原先遍历 values() 的查找
+ * <p>
+ * 查找表的命中路径不应分配任何对象
+ *
+ * @author WangYunwei [2025-07-10]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class EnumLookupBenchmarkTest {
+
+    private static final int WARMUP = 2_000_000;
+
+    private static final int ITERATIONS = 5_000_000;
+
+    private static final TyjwEnum[] TYJW = Arrays.stream(TyjwEnum.values()).filter(el -> el.getInstruct() <= 0xFF).toArray(TyjwEnum[]::new);
+
+    private static final DjiEnum[] DJI = DjiEnum.values();
+
+    private static final String[] PLATFORMS = {"TYJW", "DJI"};
+
+    /**
+     * 查找结果累加到此处,避免查找被 JIT 消除
+     */
+    private long sink;
+
+    private int i;
+
+    @Test
+    public void benchmarkTyjwEnum() {
+        for (TyjwEnum el : TYJW) {
+            assertSame(legacyTyjw(el.getInstruct(), el.getAction()), TyjwEnum.getEnum(el.getInstruct(), el.getAction()));
+        }
+        BenchmarkSupport.measure("TyjwEnum 遍历values()", WARMUP / 10, ITERATIONS / 10, () -> {
+            TyjwEnum el = TYJW[i++ % TYJW.length];
+            sink += legacyTyjw(el.getInstruct(), el.getAction()).ordinal();
+        });
+        assertZeroAllocation(BenchmarkSupport.measure("TyjwEnum.getEnum", WARMUP, ITERATIONS, () -> {
+            TyjwEnum el = TYJW[i++ % TYJW.length];
+            sink += TyjwEnum.getEnum(el.getInstruct(), el.getAction()).ordinal();
+        }));
+    }
+
+    @Test
+    public void benchmarkDjiEnum() {
+        for (DjiEnum el : DJI) {
+            assertSame(legacyDji(el.getModule(), el.getDirective()), DjiEnum.getEnum(el.getModule(), el.getDirective()));
+        }
+        BenchmarkSupport.measure("DjiEnum 遍历values()", WARMUP / 10, ITERATIONS / 10, () -> {
+            DjiEnum el = DJI[i++ % DJI.length];
+            sink += legacyDji(el.getModule(), el.getDirective()).ordinal();
+        });
+        assertZeroAllocation(BenchmarkSupport.measure("DjiEnum.getEnum", WARMUP, ITERATIONS, () -> {
+            DjiEnum el = DJI[i++ % DJI.length];
+            sink += DjiEnum.getEnum(el.getModule(), el.getDirective()).ordinal();
+        }));
+    }
+
+    @Test
+    public void benchmarkCommonEnum() {
+        assertZeroAllocation(BenchmarkSupport.measure("CommonEnum.getEnumByDesc", WARMUP, ITERATIONS, () -> {
+            sink += CommonEnum.getEnumByDesc(PLATFORMS[i++ & 1]).ordinal();
+        }));
+    }
+
+    @Test
+    public void benchmarkCodecRegistry() {
+        TyjwFrameHandler handler = (frame, message) -> {
+        };
+        TyjwCodecRegistry registry = new TyjwCodecRegistry().decoder(handler, TYJW);
+        assertZeroAllocation(BenchmarkSupport.measure("TyjwCodecRegistry.decoder", WARMUP, ITERATIONS, () -> {
+            TyjwEnum el = TYJW[i++ % TYJW.length];
+            sink += registry.decoder(el.getInstruct(), el.getAction()) == handler ? 1 : 0;
+        }));
+        assertZeroAllocation(BenchmarkSupport.measure("TyjwCodecRegistry.encoder", WARMUP, ITERATIONS, () -> {
+            sink += registry.encoder(TYJW[i++ % TYJW.length]).hashCode();
+        }));
+    }
+
+    private static void assertZeroAllocation(BenchmarkSupport.Result result) {
+        // 计量本身的误差远小于 1 字节/次
+        assertTrue(result.bytesPerOp() < 1, () -> String.format("%s 分配了 %.2f B/op", result.name(), result.bytesPerOp()));
+    }
+
+    /**
+     * 改造前的 TyjwEnum.getEnum
+     */
+    private static TyjwEnum legacyTyjw(int instruct, int action) {
+        return Arrays.stream(TyjwEnum.values()).filter(el -> instruct == el.getInstruct() && action == el.getAction()).findFirst().orElseThrow(() -> new BusinessException(String.format("未知指令动作: 0x%02X_0x%02X", instruct, action)));
+    }
+
+    /**
+     * 改造前的 DjiEnum.getEnum
+     */
+    private static DjiEnum legacyDji(int module, int directive) {
+        return Arrays.stream(DjiEnum.values()).filter(el -> module == el.getModule() && directive == el.getDirective()).findFirst().orElseThrow(() -> new BusinessException(String.format("未知指令动作: 0x%02X_0x%02X", module, directive)));
+    }
+}
@@ -13,6 +13,13 @@ public class RedisKeys {
         return "sys:params";
     }
 
+    /**
+     * 系统参数变更通知频道
+     */
+    public static String getSysParamsChannelKey() {
+        return "sys:params:changed";
+    }
+
     /**
      * 验证码Key
      */
@@ -69,6 +76,13 @@ public class RedisKeys {
         return "agent:device:lastConnected:" + id;
     }
 
+    /**
+     * 设备变更通知频道
+     */
+    public static String getDeviceChangedChannelKey() {
+        return "device:changed";
+    }
+
     /**
      * 获取系统配置缓存key
      */
@@ -98,10 +112,10 @@ public class RedisKeys {
     }
 
     /**
-     * OTA固件下载次数的Key
+     * OTA固件已下载字节数的Key
      */
-    public static String getOtaDownloadCountKey(String uuid) {
-        return "ota:download:count:" + uuid;
+    public static String getOtaDownloadBytesKey(String uuid) {
+        return "ota:download:bytes:" + uuid;
     }
 
     /**
@@ -118,6 +132,13 @@ public class RedisKeys {
         return "agent:audio:id:" + uuid;
     }
 
+    /**
+     * 获取智能体音频播放链接已播放标记的key
+     */
+    public static String getAgentAudioPlayedKey(String uuid) {
+        return "agent:audio:played:" + uuid;
+    }
+
     /**
      * 获取短信验证码的缓存key
      */
@@ -166,4 +187,88 @@ public class RedisKeys {
     public static String getTmpRegisterMacKey(String deviceId) {
         return "tmp_register_mac:" + deviceId;
     }
+
+    /**
+     * 知识库数据版本号缓存key（hash，field为datasetId）
+     */
+    public static String getKnowledgeDatasetVersionKey() {
+        return "knowledge:dataset:version";
+    }
+
+    /**
+     * 知识库召回结果缓存key
+     */
+    public static String getKnowledgeRetrievalKey(String digest) {
+        return "knowledge:retrieval:" + digest;
+    }
+
+    /**
+     * 文档解析状态跟踪中的知识库key（hash，field为datasetId）
+     */
+    public static String getKnowledgeParsingDatasetsKey() {
+        return "knowledge:document:parsing";
+    }
+
+    /**
+     * 知识库文档解析状态key（hash，field为documentId）
+     */
+    public static String getKnowledgeDocumentStatusKey(String datasetId) {
+        return "knowledge:document:status:" + datasetId;
+    }
+
+    /**
+     * 文档解析状态同步任务锁key
+     */
+    public static String getKnowledgeParseSyncLockKey() {
+        return "knowledge:document:sync:lock";
+    }
+
+    /**
+     * 知识库文档分片上传会话key
+     */
+    public static String getKnowledgeUploadSessionKey(String uploadId) {
+        return "knowledge:upload:" + uploadId;
+    }
+
+    /**
+     * 聊天记录总结任务队列key（有序集合，分数为可执行时间）
+     */
+    public static String getAgentSummaryQueueKey() {
+        return "agent:summary:queue";
+    }
+
+    /**
+     * 执行中的聊天记录总结任务key（有序集合，分数为租约到期时间）
+     */
+    public static String getAgentSummaryProcessingKey() {
+        return "agent:summary:processing";
+    }
+
+    /**
+     * 聊天记录总结任务失败次数key
+     */
+    public static String getAgentSummaryAttemptsKey() {
+        return "agent:summary:attempts";
+    }
+
+    /**
+     * 会话已总结到的聊天记录ID key
+     */
+    public static String getAgentSummaryCursorKey(String sessionId) {
+        return "agent:summary:cursor:" + sessionId;
+    }
+
+    /**
+     * 智能体配置快照版本号key（hash，field为agentId，全局版本号field为_all）
+     */
+    public static String getAgentConfigVersionKey() {
+        return "agent:config:version";
+    }
+
+    /**
+     * 智能体配置快照key
+     */
+    public static String getAgentConfigSnapshotKey(String agentId, long globalVersion, long agentVersion) {
+        return "agent:config:snapshot:" + agentId + ":" + globalVersion + ":" + agentVersion;
+    }
 }
@@ -1,14 +1,21 @@
 package mdtg.common.redis;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
@@ -32,6 +39,11 @@ public class RedisUtils {
      * 默认过期时长为24小时，单位：秒
      */
     public final static long DEFAULT_EXPIRE = 60 * 60 * 24L;
+
+    /**
+     * 已加载的Lua脚本，按文件名缓存，执行时使用EVALSHA
+     */
+    private final Map<String, DefaultRedisScript<Long>> scripts = new ConcurrentHashMap<>();
     /**
      * 过期时长为1小时，单位：秒
      */
@@ -53,6 +65,14 @@ public class RedisUtils {
         return increment;
     }
 
+    public Long increment(String key, long delta, long expire) {
+        Long increment = redisTemplate.opsForValue().increment(key, delta);
+        if (expire != NOT_EXPIRE) {
+            expire(key, expire);
+        }
+        return increment;
+    }
+
     public Long increment(String key) {
         return redisTemplate.opsForValue().increment(key, 1L);
     }
@@ -86,6 +106,49 @@ public class RedisUtils {
         return get(key, NOT_EXPIRE);
     }
 
+    /**
+     * 批量获取多个key的值（MGET），一次往返完成
+     * @param keys key列表
+     * @return 与keys顺序一致的值列表，不存在的key对应null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        return values != null ? values : new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+
+    /**
+     * 通过管道批量写入多个key，一次往返完成
+     * @param values key和值
+     * @param expire 过期时长（秒），NOT_EXPIRE表示不过期
+     */
+    @SuppressWarnings("unchecked")
+    public void setAll(Map<String, Object> values, long expire) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                values.forEach((key, value) -> {
+                    if (expire != NOT_EXPIRE) {
+                        ops.opsForValue().set(key, value, expire, TimeUnit.SECONDS);
+                    } else {
+                        ops.opsForValue().set(key, value);
+                    }
+                });
+                return null;
+            }
+        });
+    }
+
+    public void setAll(Map<String, Object> values) {
+        setAll(values, DEFAULT_EXPIRE);
+    }
+
     public void delete(String key) {
         redisTemplate.delete(key);
     }
@@ -103,6 +166,36 @@ public class RedisUtils {
         return hashOperations.entries(key);
     }
 
+    /**
+     * 通过管道批量获取多个hash的全部字段，一次往返完成
+     * @param keys hash的key列表
+     * @return key到字段的映射，顺序与keys一致，不存在的hash对应空Map
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Object>> hGetAll(Collection<String> keys) {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return result;
+        }
+        List<Object> values = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (String key : keys) {
+                    ops.opsForHash().entries(key);
+                }
+                return null;
+            }
+        });
+        int i = 0;
+        for (String key : keys) {
+            Object value = i < values.size() ? values.get(i) : null;
+            result.put(key, value instanceof Map ? (Map<String, Object>) value : new LinkedHashMap<>());
+            i++;
+        }
+        return result;
+    }
+
     public void hMSet(String key, Map<String, Object> map) {
         hMSet(key, map, DEFAULT_EXPIRE);
     }
@@ -131,10 +224,33 @@ public class RedisUtils {
         redisTemplate.expire(key, expire, TimeUnit.SECONDS);
     }
 
+    public List<Object> hMultiGet(String key, Collection<String> fields) {
+        HashOperations<String, String, Object> hashOperations = redisTemplate.opsForHash();
+        return hashOperations.multiGet(key, fields);
+    }
+
+    public Long hIncrement(String key, String field) {
+        return redisTemplate.opsForHash().increment(key, field, 1L);
+    }
+
     public void hDel(String key, Object... fields) {
         redisTemplate.opsForHash().delete(key, fields);
     }
 
+    /**
+     * 向频道发布消息，消息使用值序列化器编码
+     */
+    public void publish(String channel, Object message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    /**
+     * 按值序列化器解码收到的频道消息
+     */
+    public Object deserialize(byte[] body) {
+        return redisTemplate.getValueSerializer().deserialize(body);
+    }
+
     public void leftPush(String key, Object value) {
         leftPush(key, value, DEFAULT_EXPIRE);
     }
@@ -151,6 +267,61 @@ public class RedisUtils {
         return redisTemplate.opsForList().rightPop(key);
     }
 
+    public Boolean zAdd(String key, Object value, double score) {
+        return redisTemplate.opsForZSet().add(key, value, score);
+    }
+
+    /**
+     * 成员不存在时才添加，已存在时保留原分数
+     */
+    public Boolean zAddIfAbsent(String key, Object value, double score) {
+        return redisTemplate.opsForZSet().addIfAbsent(key, value, score);
+    }
+
+    /**
+     * 按分数从小到大获取[min, max]范围内的最多count个成员
+     */
+    public Set<Object> zRangeByScore(String key, double min, double max, long count) {
+        return redisTemplate.opsForZSet().rangeByScore(key, min, max, 0, count);
+    }
+
+    public Long zRemove(String key, Object... values) {
+        return redisTemplate.opsForZSet().remove(key, values);
+    }
+
+    /**
+     * 将成员从一个有序集合原子地转移到另一个有序集合
+     * @param fromKey 源有序集合
+     * @param toKey 目标有序集合
+     * @param value 成员
+     * @param score 在目标有序集合中的分数
+     * @return 成员已在目标集合中或不在源集合中时返回false
+     */
+    public boolean zClaim(String fromKey, String toKey, Object value, double score) {
+        Long result = redisTemplate.execute(script("lua/claimZSetMember.lua"), Arrays.asList(fromKey, toKey), value,
+                (long) score);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 成员仍在有序集合中时更新其分数
+     * @return 成员已不在集合中时返回false
+     */
+    public boolean zRenew(String key, Object value, double score) {
+        Long result = redisTemplate.execute(script("lua/renewZSetMember.lua"), Collections.singletonList(key), value,
+                (long) score);
+        return result != null && result == 1L;
+    }
+
+    private DefaultRedisScript<Long> script(String fileName) {
+        return scripts.computeIfAbsent(fileName, name -> {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptText(resourceUtils.loadString(name));
+            redisScript.setResultType(Long.class);
+            return redisScript;
+        });
+    }
+
 
     /**
      * 清空所有 Redis 数据库中的所有键
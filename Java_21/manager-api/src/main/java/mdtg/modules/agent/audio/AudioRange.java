@@ -0,0 +1,52 @@
+package mdtg.modules.agent.audio;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpRange;
+
+/**
+ * 音频播放请求的读取范围
+ *
+ * @param offset  起始偏移
+ * @param length  读取长度
+ * @param partial 是否为范围请求
+ */
+public record AudioRange(long offset, long length, boolean partial) {
+
+    /**
+     * 按Range请求头计算读取范围，只取第一个范围
+     *
+     * @param rangeHeader Range请求头，为空时读取整个音频
+     * @param size        音频大小
+     * @return 读取范围，请求头无法解析或范围超出音频大小时返回null
+     */
+    public static AudioRange resolve(String rangeHeader, long size) {
+        if (StringUtils.isBlank(rangeHeader)) {
+            return new AudioRange(0, size, false);
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            if (ranges.isEmpty()) {
+                return null;
+            }
+            HttpRange range = ranges.get(0);
+            // getRangeStart不校验起始位置是否超出音频大小
+            long offset = range.getRangeStart(size);
+            long length = range.getRangeEnd(size) - offset + 1;
+            if (offset >= size || length <= 0) {
+                return null;
+            }
+            return new AudioRange(offset, length, true);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Content-Range响应头的值
+     */
+    public String contentRange(long size) {
+        return "bytes " + offset + "-" + (offset + length - 1) + "/" + size;
+    }
+}
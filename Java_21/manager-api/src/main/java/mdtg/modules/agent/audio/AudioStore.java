@@ -0,0 +1,36 @@
+package mdtg.modules.agent.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 聊天音频存储
+ * 音频按内容SHA-256寻址，数据库中只记录存储类型和位置；
+ * 相同内容的音频由调用方按摘要查到已有位置后复用，不重复写入
+ */
+public interface AudioStore {
+
+    /**
+     * 存储类型，记录在音频表的storage字段
+     */
+    String getType();
+
+    /**
+     * 写入音频
+     *
+     * @param contentHash 音频内容的SHA-256（十六进制小写）
+     * @param data        音频数据
+     * @return 音频在存储中的位置
+     */
+    String put(String contentHash, byte[] data) throws IOException;
+
+    /**
+     * 读取音频的一段
+     *
+     * @param location 写入时返回的位置
+     * @param offset   起始偏移
+     * @param length   读取长度，调用方保证不超过音频大小
+     * @return 音频数据流，由调用方关闭
+     */
+    InputStream open(String location, long offset, long length) throws IOException;
+}
@@ -0,0 +1,131 @@
+package mdtg.modules.agent.audio.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.google.common.io.ByteStreams;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mdtg.modules.agent.audio.AudioStore;
+
+/**
+ * 本地分段追加文件存储
+ * 音频依次追加到当前分段文件末尾，分段达到上限后切换到新文件，位置格式为"分段号:偏移:长度"。
+ * 已写入的数据不会修改或删除。分段文件只能由一个进程追加，多节点部署时应改用S3存储
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "agent.audio-store.type", havingValue = "local", matchIfMissing = true)
+public class LocalAudioStore implements AudioStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final boolean fsync;
+
+    private final Object writeLock = new Object();
+
+    private FileChannel segment;
+
+    private int segmentNo;
+
+    public LocalAudioStore(@Value("${agent.audio-store.local.path:audiostore}") String path,
+            @Value("${agent.audio-store.local.segment-size:268435456}") long segmentSize,
+            @Value("${agent.audio-store.local.fsync:false}") boolean fsync) throws IOException {
+        this.directory = Paths.get(path).toAbsolutePath();
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        // 从最后一个分段继续追加
+        try (Stream<Path> files = Files.list(directory)) {
+            this.segmentNo = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .mapToInt(name -> Integer.parseInt(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .max()
+                    .orElse(1);
+        }
+        this.segment = openSegment(segmentNo);
+        log.info("本地音频存储目录: {}, 当前分段: {}", directory, segmentNo);
+    }
+
+    @Override
+    public String getType() {
+        return "local";
+    }
+
+    @Override
+    public String put(String contentHash, byte[] data) throws IOException {
+        synchronized (writeLock) {
+            long offset = segment.size();
+            if (offset > 0 && offset + data.length > segmentSize) {
+                segment.close();
+                segmentNo++;
+                segment = openSegment(segmentNo);
+                offset = segment.size();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            if (fsync) {
+                segment.force(false);
+            }
+            return segmentNo + ":" + offset + ":" + data.length;
+        }
+    }
+
+    @Override
+    public InputStream open(String location, long offset, long length) throws IOException {
+        String[] parts = location.split(":");
+        if (parts.length != 3) {
+            throw new IOException("无效的音频位置: " + location);
+        }
+        long start = Long.parseLong(parts[1]);
+        long size = Long.parseLong(parts[2]);
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IOException("读取范围超出音频大小: " + location);
+        }
+        FileChannel channel = FileChannel.open(segmentPath(Integer.parseInt(parts[0])), StandardOpenOption.READ);
+        try {
+            channel.position(start + offset);
+            return ByteStreams.limit(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        synchronized (writeLock) {
+            segment.close();
+        }
+    }
+
+    private FileChannel openSegment(int no) throws IOException {
+        return FileChannel.open(segmentPath(no), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(int no) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, no, SEGMENT_SUFFIX));
+    }
+}
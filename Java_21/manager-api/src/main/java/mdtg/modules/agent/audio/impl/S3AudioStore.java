@@ -0,0 +1,155 @@
+package mdtg.modules.agent.audio.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import mdtg.modules.agent.audio.AudioStore;
+
+/**
+ * S3兼容对象存储（AWS S3、MinIO等）
+ * 对象key为前缀加内容摘要，使用路径风格地址和AWS Signature V4签名，位置即对象key
+ */
+@Component
+@ConditionalOnProperty(name = "agent.audio-store.type", havingValue = "s3")
+public class S3AudioStore implements AudioStore {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final String prefix;
+    private final long timeout;
+
+    public S3AudioStore(@Value("${agent.audio-store.s3.endpoint}") String endpoint,
+            @Value("${agent.audio-store.s3.region:us-east-1}") String region,
+            @Value("${agent.audio-store.s3.bucket}") String bucket,
+            @Value("${agent.audio-store.s3.access-key}") String accessKey,
+            @Value("${agent.audio-store.s3.secret-key}") String secretKey,
+            @Value("${agent.audio-store.s3.prefix:audio/}") String prefix,
+            @Value("${agent.audio-store.s3.timeout:30000}") long timeout) {
+        this.endpoint = URI.create(StringUtils.removeEnd(endpoint, "/"));
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeout))
+                .build();
+    }
+
+    @Override
+    public String getType() {
+        return "s3";
+    }
+
+    @Override
+    public String put(String contentHash, byte[] data) throws IOException {
+        String key = prefix + contentHash.substring(0, 2) + "/" + contentHash;
+        HttpRequest request = signedRequest("PUT", key, contentHash)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(data))
+                .build();
+        HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("上传音频失败，状态码：" + response.statusCode() + "，响应：" + response.body());
+        }
+        return key;
+    }
+
+    @Override
+    public InputStream open(String location, long offset, long length) throws IOException {
+        HttpRequest.Builder builder = signedRequest("GET", location, EMPTY_SHA256);
+        if (length > 0) {
+            builder.header("Range", "bytes=" + offset + "-" + (offset + length - 1));
+        }
+        HttpResponse<InputStream> response = send(builder.GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status != 200 && status != 206) {
+            response.body().close();
+            throw new IOException("读取音频失败，状态码：" + status + "，key：" + location);
+        }
+        return response.body();
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("请求对象存储被中断", e);
+        }
+    }
+
+    /**
+     * 构建带AWS Signature V4签名的请求，签名头为host、x-amz-content-sha256和x-amz-date
+     */
+    private HttpRequest.Builder signedRequest(String method, String key, String payloadHash) throws IOException {
+        String path = endpoint.getPath() + "/" + bucket + "/" + key;
+        URI uri = endpoint.resolve(path);
+        String host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = now.format(AMZ_DATE);
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+
+        // 对象key由十六进制摘要组成，不含需要编码的字符
+        String canonicalRequest = method + "\n" + path + "\n\n"
+                + "host:" + host + "\n"
+                + "x-amz-content-sha256:" + payloadHash + "\n"
+                + "x-amz-date:" + amzDate + "\n\n"
+                + signedHeaders + "\n" + payloadHash;
+        try {
+            String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                    + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                            .digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+            byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+            signingKey = hmac(signingKey, region);
+            signingKey = hmac(signingKey, "s3");
+            signingKey = hmac(signingKey, "aws4_request");
+            String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+            return HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(timeout))
+                    .header("x-amz-content-sha256", payloadHash)
+                    .header("x-amz-date", amzDate)
+                    .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                            + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("对象存储请求签名失败", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+}
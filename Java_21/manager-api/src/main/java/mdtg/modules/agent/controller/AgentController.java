@@ -6,7 +6,10 @@ import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,6 +18,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -34,12 +38,14 @@ import mdtg.common.redis.RedisUtils;
 import mdtg.common.user.UserDetail;
 import mdtg.common.utils.Result;
 import mdtg.common.utils.ResultUtils;
+import mdtg.modules.agent.audio.AudioRange;
 import mdtg.modules.agent.dto.AgentChatHistoryDTO;
 import mdtg.modules.agent.dto.AgentChatSessionDTO;
 import mdtg.modules.agent.dto.AgentCreateDTO;
 import mdtg.modules.agent.dto.AgentDTO;
 import mdtg.modules.agent.dto.AgentMemoryDTO;
 import mdtg.modules.agent.dto.AgentUpdateDTO;
+import mdtg.modules.agent.entity.AgentChatAudioEntity;
 import mdtg.modules.agent.entity.AgentEntity;
 import mdtg.modules.agent.entity.AgentTemplateEntity;
 import mdtg.modules.agent.service.AgentChatAudioService;
@@ -60,6 +66,15 @@ import mdtg.modules.security.user.SecurityUser;
 @RestController
 @RequestMapping("/agent")
 public class AgentController {
+    /**
+     * 播放链接未播放时的有效期（秒）
+     */
+    private static final long AUDIO_LINK_EXPIRE = 60 * 10L;
+    /**
+     * 播放链接首次播放后的有效期（秒），不随后续请求续期
+     */
+    private static final long AUDIO_PLAY_EXPIRE = 60 * 5L;
+
     private final AgentService agentService;
     private final AgentTemplateService agentTemplateService;
     private final DeviceService deviceService;
@@ -124,22 +139,9 @@ public class AgentController {
     @PostMapping("/chat-summary/{sessionId}/save")
     @Operation(summary = "根据会话ID生成聊天记录总结并保存（异步执行）")
     public Result<Void> generateAndSaveChatSummary(@PathVariable String sessionId) {
-        try {
-            // 异步执行总结生成任务，立即返回成功响应
-            new Thread(() -> {
-                try {
-                    agentChatSummaryService.generateAndSaveChatSummary(sessionId);
-                    System.out.println("异步执行会话 " + sessionId + " 的聊天记录总结完成");
-                } catch (Exception e) {
-                    System.err.println("异步执行会话 " + sessionId + " 的聊天记录总结失败: " + e.getMessage());
-                }
-            }).start();
-
-            // 立即返回成功响应，不等待总结生成完成
-            return new Result<Void>().ok(null);
-        } catch (Exception e) {
-            return new Result<Void>().error("启动异步总结生成任务失败: " + e.getMessage());
-        }
+        // 提交到总结任务队列后立即返回，不等待总结生成完成
+        agentChatSummaryService.submitChatSummary(sessionId);
+        return new Result<Void>().ok(null);
     }
 
     @PutMapping("/{id}")
@@ -242,33 +244,56 @@ public class AgentController {
     @Operation(summary = "获取音频下载ID")
     @RequiresPermissions("sys:role:normal")
     public Result<String> getAudioId(@PathVariable("audioId") String audioId) {
-        byte[] audioData = agentChatAudioService.getAudio(audioId);
-        if (audioData == null) {
+        if (agentChatAudioService.getAudioInfo(audioId) == null) {
             return new Result<String>().error("音频不存在");
         }
         String uuid = UUID.randomUUID().toString();
-        redisUtils.set(RedisKeys.getAgentAudioIdKey(uuid), audioId);
+        redisUtils.set(RedisKeys.getAgentAudioIdKey(uuid), audioId, AUDIO_LINK_EXPIRE);
         return new Result<String>().ok(uuid);
     }
 
     @GetMapping("/play/{uuid}")
     @Operation(summary = "播放音频")
-    public ResponseEntity<byte[]> playAudio(@PathVariable("uuid") String uuid) {
+    public ResponseEntity<Resource> playAudio(@PathVariable("uuid") String uuid,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
 
         String audioId = (String) redisUtils.get(RedisKeys.getAgentAudioIdKey(uuid));
         if (StringUtils.isBlank(audioId)) {
             return ResponseEntity.notFound().build();
         }
 
-        byte[] audioData = agentChatAudioService.getAudio(audioId);
-        if (audioData == null) {
+        AgentChatAudioEntity audio = agentChatAudioService.getAudioInfo(audioId);
+        if (audio == null) {
             return ResponseEntity.notFound().build();
         }
-        redisUtils.delete(RedisKeys.getAgentAudioIdKey(uuid));
-        return ResponseEntity.ok()
+        // 播放器拖动进度时会继续发送范围请求，首次播放时把链接有效期缩短为固定时长，之后的请求不再续期
+        if (redisUtils.getKeyOrCreate(RedisKeys.getAgentAudioPlayedKey(uuid), "1", AUDIO_PLAY_EXPIRE) == null) {
+            redisUtils.expire(RedisKeys.getAgentAudioIdKey(uuid), AUDIO_PLAY_EXPIRE);
+        }
+
+        long size = audio.getSize() != null ? audio.getSize() : 0;
+        AudioRange range = AudioRange.resolve(rangeHeader, size);
+        if (range == null) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        long offset = range.offset();
+        long length = range.length();
+        HttpStatus status = HttpStatus.OK;
+        HttpHeaders headers = new HttpHeaders();
+        if (range.partial()) {
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, range.contentRange(size));
+        }
+
+        return ResponseEntity.status(status)
+                .headers(headers)
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"play.wav\"")
-                .body(audioData);
+                .body(new InputStreamResource(agentChatAudioService.openAudio(audio, offset, length)));
     }
 
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package mdtg.modules.agent.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -18,6 +22,14 @@ public interface AgentDao extends BaseDao<AgentEntity> {
      */
     Integer getDeviceCountByAgentId(@Param("agentId") String agentId);
 
+    /**
+     * 批量获取智能体的设备数量
+     * 
+     * @param agentIds 智能体ID
+     * @return 每行包含agentId和deviceCount，没有设备的智能体不返回
+     */
+    List<Map<String, Object>> getDeviceCountsByAgentIds(@Param("agentIds") Collection<String> agentIds);
+
     /**
      * 根据设备MAC地址查询对应设备的默认智能体信息
      *
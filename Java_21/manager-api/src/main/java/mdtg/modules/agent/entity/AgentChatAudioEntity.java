@@ -23,7 +23,27 @@ public class AgentChatAudioEntity {
     private String id;
 
     /**
-     * 音频opus数据
+     * 音频opus数据，迁移到音频存储后为空
      */
     private byte[] audio;
+
+    /**
+     * 音频内容SHA-256
+     */
+    private String contentHash;
+
+    /**
+     * 音频大小（字节）
+     */
+    private Long size;
+
+    /**
+     * 存储类型（local/s3），为空表示音频仍在audio字段
+     */
+    private String storage;
+
+    /**
+     * 音频在存储中的位置
+     */
+    private String location;
 }
\ No newline at end of file
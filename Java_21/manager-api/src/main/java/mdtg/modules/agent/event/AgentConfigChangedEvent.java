@@ -0,0 +1,18 @@
+package mdtg.modules.agent.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 智能体运行配置变更事件（智能体、插件、声纹、音色、知识库等影响设备连接配置的数据变更后发布）
+ * 监听方据此淘汰已编译的智能体配置快照
+ */
+@Getter
+@AllArgsConstructor
+public class AgentConfigChangedEvent {
+
+    /**
+     * 智能体ID，为空表示影响所有智能体
+     */
+    private final String agentId;
+}
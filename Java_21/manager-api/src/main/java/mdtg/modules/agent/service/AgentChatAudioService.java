@@ -1,5 +1,7 @@
 package mdtg.modules.agent.service;
 
+import java.io.InputStream;
+
 import com.baomidou.mybatisplus.extension.service.IService;
 
 import mdtg.modules.agent.entity.AgentChatAudioEntity;
@@ -27,4 +29,22 @@ public interface AgentChatAudioService extends IService<AgentChatAudioEntity> {
      * @return 音频数据
      */
     byte[] getAudio(String audioId);
+
+    /**
+     * 获取音频信息，不读取音频数据
+     *
+     * @param audioId 音频ID
+     * @return 音频信息，size总是有值；音频不存在时返回null
+     */
+    AgentChatAudioEntity getAudioInfo(String audioId);
+
+    /**
+     * 读取音频的一段
+     *
+     * @param audio  {@link #getAudioInfo}返回的音频信息
+     * @param offset 起始偏移
+     * @param length 读取长度
+     * @return 音频数据流，由调用方关闭
+     */
+    InputStream openAudio(AgentChatAudioEntity audio, long offset, long length);
 }
@@ -5,11 +5,20 @@ package mdtg.modules.agent.service;
  */
 public interface AgentChatSummaryService {
 
+    /**
+     * 提交会话总结任务，由后台任务队列异步执行
+     * 同一会话在排队期间只保留一个任务
+     * 
+     * @param sessionId 会话ID
+     */
+    void submitChatSummary(String sessionId);
+
     /**
      * 根据会话ID生成聊天记录总结并保存到智能体记忆
+     * 只总结上次总结之后的新消息，并与智能体当前的总结记忆合并
      * 
      * @param sessionId 会话ID
-     * @return 保存结果
+     * @throws IllegalStateException LLM生成总结失败时抛出，任务队列据此重试
      */
-    boolean generateAndSaveChatSummary(String sessionId);
-}
\ No newline at end of file
+    void generateAndSaveChatSummary(String sessionId);
+}
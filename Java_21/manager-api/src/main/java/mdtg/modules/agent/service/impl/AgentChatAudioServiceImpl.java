@@ -1,34 +1,198 @@
 package mdtg.modules.agent.service.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.exception.RenException;
+import mdtg.modules.agent.audio.AudioStore;
 import mdtg.modules.agent.dao.AiAgentChatAudioDao;
 import mdtg.modules.agent.entity.AgentChatAudioEntity;
 import mdtg.modules.agent.service.AgentChatAudioService;
 
 /**
  * 智能体聊天音频数据表处理service {@link AgentChatAudioService} impl
+ * 音频数据写入{@link AudioStore}，表中只记录内容摘要、大小和存储位置；
+ * 仍存放在audio字段的历史音频由定时任务分批迁出
  *
  * @author Goody
  * @version 1.0, 2025/5/8
  * @since 1.0.0
  */
+@Slf4j
 @Service
 public class AgentChatAudioServiceImpl extends ServiceImpl<AiAgentChatAudioDao, AgentChatAudioEntity>
         implements AgentChatAudioService {
+
+    /**
+     * 不含audio字段的查询列，历史音频的大小按audio字段长度计算
+     */
+    private static final String[] INFO_COLUMNS = { "id", "content_hash", "IFNULL(size, LENGTH(audio)) AS size",
+            "storage", "location" };
+
+    private final AudioStore audioStore;
+
+    private final boolean migrateEnabled;
+
+    private final int migrateBatchSize;
+
+    /**
+     * 迁移游标，记录本轮已处理到的最大id，迁移失败的记录不会阻塞后续批次
+     */
+    private String migrateCursor = "";
+
+    public AgentChatAudioServiceImpl(AudioStore audioStore,
+            @Value("${agent.audio-store.migrate.enabled:true}") boolean migrateEnabled,
+            @Value("${agent.audio-store.migrate.batch-size:100}") int migrateBatchSize) {
+        this.audioStore = audioStore;
+        this.migrateEnabled = migrateEnabled;
+        this.migrateBatchSize = Math.max(1, migrateBatchSize);
+    }
+
     @Override
     public String saveAudio(byte[] audioData) {
         AgentChatAudioEntity entity = new AgentChatAudioEntity();
-        entity.setAudio(audioData);
+        store(entity, audioData);
         save(entity);
         return entity.getId();
     }
 
     @Override
     public byte[] getAudio(String audioId) {
-        AgentChatAudioEntity entity = getById(audioId);
-        return entity != null ? entity.getAudio() : null;
+        AgentChatAudioEntity audio = getAudioInfo(audioId);
+        if (audio == null) {
+            return null;
+        }
+        if (audio.getStorage() == null) {
+            AgentChatAudioEntity entity = getById(audioId);
+            return entity != null ? entity.getAudio() : null;
+        }
+        try (InputStream in = openAudio(audio, 0, audio.getSize())) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RenException("音频读取失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public AgentChatAudioEntity getAudioInfo(String audioId) {
+        AgentChatAudioEntity audio = getOne(new QueryWrapper<AgentChatAudioEntity>().select(INFO_COLUMNS)
+                .eq("id", audioId), false);
+        if (audio != null && audio.getSize() == null) {
+            audio.setSize(0L);
+        }
+        return audio;
+    }
+
+    @Override
+    public InputStream openAudio(AgentChatAudioEntity audio, long offset, long length) {
+        if (audio.getStorage() == null) {
+            AgentChatAudioEntity entity = getById(audio.getId());
+            if (entity == null) {
+                throw new RenException("音频不存在");
+            }
+            byte[] data = entity.getAudio() != null ? entity.getAudio() : new byte[0];
+            return new ByteArrayInputStream(data, (int) offset, (int) length);
+        }
+        if (!audioStore.getType().equals(audio.getStorage())) {
+            throw new RenException("音频存放在" + audio.getStorage() + "存储中，当前配置的存储为" + audioStore.getType());
+        }
+        try {
+            return audioStore.open(audio.getLocation(), offset, length);
+        } catch (IOException e) {
+            throw new RenException("音频读取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分批把仍存放在audio字段的历史音频迁移到音频存储，按id顺序推进游标，
+     * 迁移失败的记录跳过，扫描到末尾后从头开始重试
+     */
+    @Scheduled(fixedDelayString = "${agent.audio-store.migrate.interval:10000}")
+    public synchronized void migrate() {
+        if (!migrateEnabled) {
+            return;
+        }
+        List<Object> ids = listObjs(new QueryWrapper<AgentChatAudioEntity>().select("id").isNull("storage")
+                .gt("id", migrateCursor).orderByAsc("id").last("LIMIT " + migrateBatchSize));
+        if (ids.isEmpty()) {
+            migrateCursor = "";
+            return;
+        }
+        migrateCursor = (String) ids.get(ids.size() - 1);
+        int migrated = 0;
+        for (Object id : ids) {
+            try {
+                // 逐条读取，避免一次把整批音频读入内存
+                AgentChatAudioEntity entity = getById((String) id);
+                if (entity == null || entity.getStorage() != null) {
+                    continue;
+                }
+                store(entity, entity.getAudio() != null ? entity.getAudio() : new byte[0]);
+                // 其他节点已迁移的记录不再覆盖
+                UpdateWrapper<AgentChatAudioEntity> wrapper = new UpdateWrapper<>();
+                wrapper.eq("id", entity.getId())
+                        .isNull("storage")
+                        .set("content_hash", entity.getContentHash())
+                        .set("size", entity.getSize())
+                        .set("storage", entity.getStorage())
+                        .set("location", entity.getLocation())
+                        .set("audio", null);
+                if (update(wrapper)) {
+                    migrated++;
+                }
+            } catch (Exception e) {
+                log.error("迁移音频失败，audioId={}: {}", id, e.getMessage());
+            }
+        }
+        log.info("本轮迁移历史音频{}条", migrated);
+    }
+
+    /**
+     * 写入音频存储并填充摘要、大小和位置，相同内容已存储过时复用已有位置
+     */
+    private void store(AgentChatAudioEntity entity, byte[] audioData) {
+        String contentHash = sha256(audioData);
+        AgentChatAudioEntity existing = getOne(new QueryWrapper<AgentChatAudioEntity>()
+                .select(INFO_COLUMNS)
+                .eq("content_hash", contentHash)
+                .eq("storage", audioStore.getType())
+                .last("LIMIT 1"), false);
+        String location;
+        if (existing != null) {
+            location = existing.getLocation();
+        } else {
+            try {
+                location = audioStore.put(contentHash, audioData);
+            } catch (IOException e) {
+                throw new RenException("音频存储失败: " + e.getMessage());
+            }
+        }
+        entity.setAudio(null);
+        entity.setContentHash(contentHash);
+        entity.setSize((long) audioData.length);
+        entity.setStorage(audioStore.getType());
+        entity.setLocation(location);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -3,28 +3,31 @@ package mdtg.modules.agent.service.impl;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 
-import lombok.RequiredArgsConstructor;
-import mdtg.modules.agent.dto.AgentChatHistoryDTO;
-import mdtg.modules.agent.dto.AgentChatSummaryDTO;
-import mdtg.modules.agent.dto.AgentMemoryDTO;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
 import mdtg.modules.agent.dto.AgentUpdateDTO;
 import mdtg.modules.agent.entity.AgentChatHistoryEntity;
 import mdtg.modules.agent.service.AgentChatHistoryService;
 import mdtg.modules.agent.service.AgentChatSummaryService;
 import mdtg.modules.agent.service.AgentService;
 import mdtg.modules.agent.vo.AgentInfoVO;
-import mdtg.modules.device.entity.DeviceEntity;
-import mdtg.modules.device.service.DeviceService;
 import mdtg.modules.llm.service.LLMService;
 import mdtg.modules.model.entity.ModelConfigEntity;
 import mdtg.modules.model.service.ModelConfigService;
@@ -32,154 +35,218 @@ import mdtg.modules.model.service.ModelConfigService;
 /**
  * 智能体聊天记录总结服务实现类
  * 实现Python端mem_local_short.py中的总结逻辑
+ * - 总结任务记录在Redis有序集合中，同一会话排队期间只保留一个任务，服务重启不丢失
+ * - 各实例定时领取到期任务，在虚拟线程上执行，按总结所用模型限制并发
+ * - 执行中（含等待模型并发许可）的任务每次轮询时续租，租约只在实例宕机等情况下到期
+ * - 增量总结：只把上次总结之后的新消息和智能体当前的总结记忆交给模型
  */
 @Service
-@RequiredArgsConstructor
 public class AgentChatSummaryServiceImpl implements AgentChatSummaryService {
 
     private static final Logger log = LoggerFactory.getLogger(AgentChatSummaryServiceImpl.class);
 
     private final AgentChatHistoryService agentChatHistoryService;
     private final AgentService agentService;
-    private final DeviceService deviceService;
     private final LLMService llmService;
     private final ModelConfigService modelConfigService;
+    private final RedisUtils redisUtils;
+
+    private final int maxConcurrencyPerModel;
+    private final long lease;
+    private final int maxAttempts;
+    private final long retryDelay;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // 本实例同时执行的任务数，领取任务时不超过空闲数量
+    private final Semaphore inFlight;
+    // 按模型ID限制并发，未配置模型的智能体共用默认键
+    private final Map<String, Semaphore> modelPermits = new ConcurrentHashMap<>();
+    // 本实例领取且租约仍有效的会话
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
 
     // 总结规则常量
     private static final int MAX_SUMMARY_LENGTH = 1800; // 最大总结长度
+    private static final String DEFAULT_MODEL_KEY = "";
+    // LLMService生成失败时返回的提示语
+    private static final Set<String> LLM_FAILURES = Set.of("LLM服务不可用，无法生成总结", "生成总结失败，请稍后重试");
+    private static final long CURSOR_EXPIRE = 7 * RedisUtils.DEFAULT_EXPIRE;
     private static final Pattern JSON_PATTERN = Pattern.compile("\\{.*?\\}", Pattern.DOTALL);
+    private static final Pattern CONTENT_PATTERN = Pattern.compile("\"content\"\\s*:\\s*\"([^\"]*)\"");
     private static final Pattern DEVICE_CONTROL_PATTERN = Pattern.compile("设备控制|设备操作|控制设备|设备状态",
             Pattern.CASE_INSENSITIVE);
     private static final Pattern WEATHER_PATTERN = Pattern.compile("天气|温度|湿度|降雨|气象", Pattern.CASE_INSENSITIVE);
     private static final Pattern DATE_PATTERN = Pattern.compile("日期|时间|星期|月份|年份", Pattern.CASE_INSENSITIVE);
 
-    private AgentChatSummaryDTO generateChatSummary(String sessionId) {
-        try {
-            System.out.println("开始生成会话 " + sessionId + " 的聊天记录总结");
-
-            // 1. 根据sessionId获取聊天记录
-            List<AgentChatHistoryDTO> chatHistory = getChatHistoryBySessionId(sessionId);
-            if (chatHistory == null || chatHistory.isEmpty()) {
-                return new AgentChatSummaryDTO(sessionId, "未找到该会话的聊天记录");
-            }
-
-            // 2. 获取智能体信息
-            String agentId = getAgentIdFromSession(sessionId, chatHistory);
-            if (StringUtils.isBlank(agentId)) {
-                return new AgentChatSummaryDTO(sessionId, "无法获取智能体信息");
-            }
-
-            // 3. 提取关键对话内容
-            List<String> meaningfulMessages = extractMeaningfulMessages(chatHistory);
-            if (meaningfulMessages.isEmpty()) {
-                return new AgentChatSummaryDTO(sessionId, "没有有效的对话内容可总结");
-            }
-
-            // 4. 生成总结（generateSummaryFromMessages方法已包含长度限制逻辑）
-            String summary = generateSummaryFromMessages(meaningfulMessages, agentId);
-
-            System.out.println("成功生成会话 " + sessionId + " 的聊天记录总结，长度: " + summary.length() + " 字符");
-            return new AgentChatSummaryDTO(sessionId, agentId, summary);
+    public AgentChatSummaryServiceImpl(AgentChatHistoryService agentChatHistoryService, AgentService agentService,
+            LLMService llmService, ModelConfigService modelConfigService, RedisUtils redisUtils,
+            @Value("${agent.summary.max-in-flight:32}") int maxInFlight,
+            @Value("${agent.summary.max-concurrency-per-model:2}") int maxConcurrencyPerModel,
+            @Value("${agent.summary.lease:300000}") long lease,
+            @Value("${agent.summary.max-attempts:3}") int maxAttempts,
+            @Value("${agent.summary.retry-delay:30000}") long retryDelay) {
+        this.agentChatHistoryService = agentChatHistoryService;
+        this.agentService = agentService;
+        this.llmService = llmService;
+        this.modelConfigService = modelConfigService;
+        this.redisUtils = redisUtils;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.maxConcurrencyPerModel = Math.max(1, maxConcurrencyPerModel);
+        this.lease = lease;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+    }
 
-        } catch (Exception e) {
-            System.err.println("生成会话 " + sessionId + " 的聊天记录总结时发生错误: " + e.getMessage());
-            return new AgentChatSummaryDTO(sessionId, "生成总结时发生错误: " + e.getMessage());
+    @Override
+    public void submitChatSummary(String sessionId) {
+        if (StringUtils.isBlank(sessionId)) {
+            return;
         }
+        // 已在排队的会话不重复添加，执行时会读取到最新的消息
+        redisUtils.zAddIfAbsent(RedisKeys.getAgentSummaryQueueKey(), sessionId, System.currentTimeMillis());
     }
 
-    @Override
-    public boolean generateAndSaveChatSummary(String sessionId) {
+    /**
+     * 定时领取到期的总结任务
+     */
+    @Scheduled(fixedDelayString = "${agent.summary.poll-interval:1000}")
+    public void pollChatSummaryJobs() {
         try {
-            // 1. 生成总结
-            AgentChatSummaryDTO summaryDTO = generateChatSummary(sessionId);
-            if (!summaryDTO.isSuccess()) {
-                System.err.println("生成总结失败: " + summaryDTO.getErrorMessage());
-                return false;
-            }
+            long now = System.currentTimeMillis();
+            renewLeases(now);
+            recoverExpiredJobs(now);
 
-            // 2. 获取设备信息（通过会话关联的设备）
-            DeviceEntity device = getDeviceBySessionId(sessionId);
-            if (device == null) {
-                System.err.println("未找到与会话 " + sessionId + " 关联的设备");
-                return false;
+            int free = inFlight.availablePermits();
+            if (free <= 0) {
+                return;
+            }
+            Set<Object> due = redisUtils.zRangeByScore(RedisKeys.getAgentSummaryQueueKey(), 0, now, free);
+            if (due == null) {
+                return;
+            }
+            for (Object member : due) {
+                String sessionId = (String) member;
+                // 同一会话正在执行时留在队列中，等执行结束后再领取
+                if (!redisUtils.zClaim(RedisKeys.getAgentSummaryQueueKey(), RedisKeys.getAgentSummaryProcessingKey(),
+                        sessionId, now + lease)) {
+                    continue;
+                }
+                inFlight.acquireUninterruptibly();
+                running.add(sessionId);
+                executor.execute(() -> runJob(sessionId));
             }
-
-            // 3. 更新智能体记忆
-            AgentMemoryDTO memoryDTO = new AgentMemoryDTO();
-            memoryDTO.setSummaryMemory(summaryDTO.getSummary());
-
-            // 调用现有接口更新记忆
-            agentService.updateAgentById(device.getAgentId(),
-                    new AgentUpdateDTO() {
-                        {
-                            setSummaryMemory(summaryDTO.getSummary());
-                        }
-                    });
-
-            System.out.println("成功保存会话 " + sessionId + " 的聊天记录总结到智能体 " + device.getAgentId());
-            return true;
-
         } catch (Exception e) {
-            System.err.println("保存会话 " + sessionId + " 的聊天记录总结时发生错误: " + e.getMessage());
-            return false;
+            log.error("领取聊天记录总结任务失败: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * 根据会话ID获取聊天记录
+     * 为本实例执行中的任务续租，任务排队等待模型并发许可期间租约不会到期
      */
-    private List<AgentChatHistoryDTO> getChatHistoryBySessionId(String sessionId) {
-        try {
-            // 这里需要根据sessionId获取聊天记录
-            // 由于现有接口需要agentId，我们需要先找到关联的agentId
-            String agentId = findAgentIdBySessionId(sessionId);
-            if (StringUtils.isBlank(agentId)) {
-                return null;
+    private void renewLeases(long now) {
+        for (String sessionId : running) {
+            if (!redisUtils.zRenew(RedisKeys.getAgentSummaryProcessingKey(), sessionId, now + lease)) {
+                // 租约已到期并被重新排队，结束时不再删除其他实例的执行记录
+                running.remove(sessionId);
+                log.warn("聊天记录总结任务租约已失效，sessionId: {}", sessionId);
             }
-            return agentChatHistoryService.getChatHistoryBySessionId(agentId, sessionId);
-        } catch (Exception e) {
-            System.err.println("获取会话 " + sessionId + " 的聊天记录失败: " + e.getMessage());
-            return null;
         }
     }
 
     /**
-     * 根据会话ID查找关联的智能体ID
+     * 租约到期仍未完成的任务（实例宕机等）放回队列
      */
-    private String findAgentIdBySessionId(String sessionId) {
+    private void recoverExpiredJobs(long now) {
+        Set<Object> expired = redisUtils.zRangeByScore(RedisKeys.getAgentSummaryProcessingKey(), 0, now, 100);
+        if (expired == null) {
+            return;
+        }
+        for (Object sessionId : expired) {
+            if (redisUtils.zRemove(RedisKeys.getAgentSummaryProcessingKey(), sessionId) > 0) {
+                redisUtils.zAddIfAbsent(RedisKeys.getAgentSummaryQueueKey(), sessionId, now);
+                log.warn("聊天记录总结任务租约到期，重新排队，sessionId: {}", sessionId);
+            }
+        }
+    }
+
+    private void runJob(String sessionId) {
         try {
-            // 查询该会话的第一条记录获取agentId
-            QueryWrapper<AgentChatHistoryEntity> wrapper = new QueryWrapper<>();
-            wrapper.select("agent_id")
-                    .eq("session_id", sessionId)
-                    .last("LIMIT 1");
-
-            AgentChatHistoryEntity entity = agentChatHistoryService.getOne(wrapper);
-            return entity != null ? entity.getAgentId() : null;
+            generateAndSaveChatSummary(sessionId);
+            redisUtils.hDel(RedisKeys.getAgentSummaryAttemptsKey(), sessionId);
         } catch (Exception e) {
-            System.err.println("根据会话ID " + sessionId + " 查找智能体ID失败: " + e.getMessage());
-            return null;
+            long attempts = redisUtils.hIncrement(RedisKeys.getAgentSummaryAttemptsKey(), sessionId);
+            if (attempts < maxAttempts) {
+                log.warn("会话 {} 的聊天记录总结失败（第{}次），稍后重试: {}", sessionId, attempts, e.getMessage());
+                redisUtils.zAddIfAbsent(RedisKeys.getAgentSummaryQueueKey(), sessionId,
+                        System.currentTimeMillis() + retryDelay * attempts);
+            } else {
+                log.error("会话 {} 的聊天记录总结失败，已放弃: {}", sessionId, e.getMessage());
+                redisUtils.hDel(RedisKeys.getAgentSummaryAttemptsKey(), sessionId);
+            }
+        } finally {
+            if (running.remove(sessionId)) {
+                redisUtils.zRemove(RedisKeys.getAgentSummaryProcessingKey(), sessionId);
+            }
+            inFlight.release();
         }
     }
 
-    /**
-     * 从会话中获取智能体ID
-     */
-    private String getAgentIdFromSession(String sessionId, List<AgentChatHistoryDTO> chatHistory) {
-        // 直接从数据库查询智能体ID
-        return findAgentIdBySessionId(sessionId);
+    @Override
+    public void generateAndSaveChatSummary(String sessionId) {
+        // 1. 只读取上次总结之后的聊天记录
+        String cursorKey = RedisKeys.getAgentSummaryCursorKey(sessionId);
+        Object cursor = redisUtils.get(cursorKey);
+        long lastId = cursor instanceof Number ? ((Number) cursor).longValue() : 0L;
+        List<AgentChatHistoryEntity> chatHistory = agentChatHistoryService.list(new QueryWrapper<AgentChatHistoryEntity>()
+                .select("id", "agent_id", "chat_type", "content")
+                .eq("session_id", sessionId)
+                .gt(lastId > 0, "id", lastId)
+                .orderByAsc("id"));
+        if (chatHistory.isEmpty()) {
+            log.info("会话 {} 没有新的聊天记录，无需总结", sessionId);
+            return;
+        }
+        long newLastId = chatHistory.get(chatHistory.size() - 1).getId();
+
+        // 2. 获取智能体信息（当前总结记忆和记忆总结模型）
+        String agentId = chatHistory.get(0).getAgentId();
+        AgentInfoVO agentInfo = StringUtils.isNotBlank(agentId) ? agentService.getAgentById(agentId) : null;
+        if (agentInfo == null) {
+            log.warn("会话 {} 无法获取智能体信息，agentId: {}", sessionId, agentId);
+            return;
+        }
+
+        // 3. 提取关键对话内容
+        List<String> meaningfulMessages = extractMeaningfulMessages(chatHistory);
+        if (meaningfulMessages.isEmpty()) {
+            log.info("会话 {} 没有有效的对话内容可总结", sessionId);
+            redisUtils.set(cursorKey, newLastId, CURSOR_EXPIRE);
+            return;
+        }
+
+        // 4. 合并历史记忆生成总结
+        String modelId = getMemorySummaryModelId(agentInfo);
+        String summary = generateSummaryFromMessages(meaningfulMessages, agentInfo.getSummaryMemory(), modelId);
+
+        // 5. 更新智能体记忆并推进游标
+        AgentUpdateDTO updateDTO = new AgentUpdateDTO();
+        updateDTO.setSummaryMemory(summary);
+        agentService.updateAgentById(agentId, updateDTO);
+        redisUtils.set(cursorKey, newLastId, CURSOR_EXPIRE);
+
+        log.info("成功保存会话 {} 的聊天记录总结到智能体 {}，新消息: {} 条，长度: {} 字符", sessionId, agentId,
+                chatHistory.size(), summary.length());
     }
 
     /**
      * 提取有意义的对话内容（只提取用户消息，排除AI回复）
      */
-    private List<String> extractMeaningfulMessages(List<AgentChatHistoryDTO> chatHistory) {
+    private List<String> extractMeaningfulMessages(List<AgentChatHistoryEntity> chatHistory) {
         List<String> meaningfulMessages = new ArrayList<>();
 
-        for (AgentChatHistoryDTO message : chatHistory) {
+        for (AgentChatHistoryEntity message : chatHistory) {
             // 只处理用户消息（chatType = 1）
             if (message.getChatType() != null && message.getChatType() == 1) {
-                String content = extractContentFromMessage(message);
+                String content = extractContentFromMessage(message.getContent());
                 if (isMeaningfulMessage(content)) {
                     meaningfulMessages.add(content);
                 }
@@ -192,8 +259,7 @@ public class AgentChatSummaryServiceImpl implements AgentChatSummaryService {
     /**
      * 从消息中提取内容（处理JSON格式）
      */
-    private String extractContentFromMessage(AgentChatHistoryDTO message) {
-        String content = message.getContent();
+    private String extractContentFromMessage(String content) {
         if (StringUtils.isBlank(content)) {
             return "";
         }
@@ -202,26 +268,14 @@ public class AgentChatSummaryServiceImpl implements AgentChatSummaryService {
         Matcher matcher = JSON_PATTERN.matcher(content);
         if (matcher.find()) {
             String jsonContent = matcher.group();
-            // 简化处理：提取JSON中的文本内容
-            return extractTextFromJson(jsonContent);
+            // 简化处理：提取"content"字段的值
+            Matcher contentMatcher = CONTENT_PATTERN.matcher(jsonContent);
+            return contentMatcher.find() ? contentMatcher.group(1) : jsonContent;
         }
 
         return content;
     }
 
-    /**
-     * 从JSON中提取文本内容
-     */
-    private String extractTextFromJson(String jsonContent) {
-        // 简化处理：提取"content"字段的值
-        Pattern contentPattern = Pattern.compile("\"content\"\s*:\s*\"([^\"]*)\"");
-        Matcher matcher = contentPattern.matcher(jsonContent);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return jsonContent;
-    }
-
     /**
      * 判断是否为有意义的消息
      */
@@ -245,132 +299,42 @@ public class AgentChatSummaryServiceImpl implements AgentChatSummaryService {
     }
 
     /**
-     * 从消息生成总结
+     * 从新消息和历史记忆生成总结，同一模型的并发数受限
      */
-    private String generateSummaryFromMessages(List<String> messages, String agentId) {
-        if (messages.isEmpty()) {
-            return "本次对话内容较少，没有需要总结的重要信息。";
-        }
-
+    private String generateSummaryFromMessages(List<String> messages, String historyMemory, String modelId) {
         // 构建完整的对话内容
         StringBuilder conversation = new StringBuilder();
         for (int i = 0; i < messages.size(); i++) {
             conversation.append("消息").append(i + 1).append(": ").append(messages.get(i)).append("\n");
         }
 
+        Semaphore permits = modelPermits.computeIfAbsent(StringUtils.defaultString(modelId, DEFAULT_MODEL_KEY),
+                k -> new Semaphore(maxConcurrencyPerModel));
+        permits.acquireUninterruptibly();
+        String summary;
         try {
-            // 获取当前智能体的历史记忆
-            String historyMemory = getCurrentAgentMemory(agentId);
-
-            // 调用LLM服务进行智能总结，传递agentId以获取正确的模型配置
-            String summary = callJavaLLMForSummaryWithHistory(conversation.toString(), historyMemory, agentId);
-
-            // 应用总结规则：限制最大长度
-            if (summary.length() > MAX_SUMMARY_LENGTH) {
-                summary = summary.substring(0, MAX_SUMMARY_LENGTH) + "...";
-            }
-
-            return summary;
-        } catch (Exception e) {
-            System.err.println("调用Java端LLM服务失败: " + e.getMessage());
-            throw new RuntimeException("LLM服务不可用，无法生成聊天总结");
+            summary = llmService.generateSummaryWithHistory(conversation.toString(), historyMemory, null,
+                    StringUtils.isBlank(modelId) ? null : modelId);
+        } finally {
+            permits.release();
         }
-    }
 
-    /**
-     * 获取当前智能体的历史记忆
-     */
-    private String getCurrentAgentMemory(String agentId) {
-        try {
-            if (StringUtils.isBlank(agentId)) {
-                return null;
-            }
-
-            // 获取智能体信息
-            AgentInfoVO agentInfo = agentService.getAgentById(agentId);
-            if (agentInfo == null) {
-                return null;
-            }
-
-            // 返回智能体的当前总结记忆
-            return agentInfo.getSummaryMemory();
-        } catch (Exception e) {
-            System.err.println("获取智能体历史记忆失败，agentId: " + agentId + ", 错误: " + e.getMessage());
-            return null;
+        if (StringUtils.isBlank(summary) || LLM_FAILURES.contains(summary)) {
+            throw new IllegalStateException("LLM服务返回异常: " + summary);
         }
-    }
-
-    /**
-     * 调用Java端LLM服务进行智能总结（支持历史记忆合并）
-     */
-    private String callJavaLLMForSummaryWithHistory(String conversation, String historyMemory, String agentId) {
-        try {
-            // 获取智能体配置，从中提取记忆总结的模型ID
-            String modelId = getMemorySummaryModelId(agentId);
-
-            if (StringUtils.isBlank(modelId)) {
-                System.out.println("未找到记忆总结的LLM模型配置，使用默认LLM服务");
-                return llmService.generateSummaryWithHistory(conversation, historyMemory, null, null);
-            }
 
-            // 使用指定的模型ID调用LLM服务（支持历史记忆合并）
-            String summary = llmService.generateSummaryWithHistory(conversation, historyMemory, null, modelId);
-
-            if (StringUtils.isNotBlank(summary) && !summary.equals("服务暂不可用") && !summary.equals("总结生成失败")) {
-                return summary;
-            }
-
-            throw new RuntimeException("Java端LLM服务返回异常: " + summary);
-
-        } catch (Exception e) {
-            System.err.println("调用Java端LLM服务异常，agentId: " + agentId + ", 错误: " + e.getMessage());
-            throw e;
-        }
-    }
-
-    /**
-     * 调用Java端LLM服务进行智能总结
-     */
-    private String callJavaLLMForSummary(String conversation, String agentId) {
-        try {
-            // 获取智能体配置，从中提取记忆总结的模型ID
-            String modelId = getMemorySummaryModelId(agentId);
-
-            if (StringUtils.isBlank(modelId)) {
-                System.out.println("未找到记忆总结的LLM模型配置，使用默认LLM服务");
-                return llmService.generateSummary(conversation);
-            }
-
-            // 使用指定的模型ID调用LLM服务
-            String summary = llmService.generateSummaryWithModel(conversation, modelId);
-
-            if (StringUtils.isNotBlank(summary) && !summary.equals("服务暂不可用") && !summary.equals("总结生成失败")) {
-                return summary;
-            }
-
-            throw new RuntimeException("Java端LLM服务返回异常: " + summary);
-
-        } catch (Exception e) {
-            System.err.println("调用Java端LLM服务异常，agentId: " + agentId + ", 错误: " + e.getMessage());
-            throw e;
+        // 应用总结规则：限制最大长度
+        if (summary.length() > MAX_SUMMARY_LENGTH) {
+            summary = summary.substring(0, MAX_SUMMARY_LENGTH) + "...";
         }
+        return summary;
     }
 
     /**
      * 获取记忆总结的LLM模型ID
      */
-    private String getMemorySummaryModelId(String agentId) {
+    private String getMemorySummaryModelId(AgentInfoVO agentInfo) {
         try {
-            if (StringUtils.isBlank(agentId)) {
-                return null;
-            }
-
-            // 获取智能体信息
-            AgentInfoVO agentInfo = agentService.getAgentById(agentId);
-            if (agentInfo == null) {
-                return null;
-            }
-
             // 获取智能体的记忆模型ID
             String memModelId = agentInfo.getMemModelId();
             if (StringUtils.isBlank(memModelId)) {
@@ -384,8 +348,7 @@ public class AgentChatSummaryServiceImpl implements AgentChatSummaryService {
             }
 
             // 从记忆模型配置中提取对应的LLM模型ID
-            Map<String, Object> configMap = memModelConfig.getConfigJson();
-            String llmModelId = (String) configMap.get("llm");
+            String llmModelId = memModelConfig.getConfigJson().getStr("llm");
 
             if (StringUtils.isBlank(llmModelId)) {
                 // 如果记忆模型没有配置独立的LLM，则使用智能体的默认LLM模型
@@ -394,30 +357,8 @@ public class AgentChatSummaryServiceImpl implements AgentChatSummaryService {
 
             return llmModelId;
         } catch (Exception e) {
-            System.err.println("获取记忆总结LLM模型ID失败，agentId: " + agentId + ", 错误: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * 根据会话ID获取设备信息
-     */
-    private DeviceEntity getDeviceBySessionId(String sessionId) {
-        try {
-            // 查询该会话的第一条记录获取macAddress
-            QueryWrapper<AgentChatHistoryEntity> wrapper = new QueryWrapper<>();
-            wrapper.select("mac_address")
-                    .eq("session_id", sessionId)
-                    .last("LIMIT 1");
-
-            AgentChatHistoryEntity entity = agentChatHistoryService.getOne(wrapper);
-            if (entity != null && StringUtils.isNotBlank(entity.getMacAddress())) {
-                return deviceService.getDeviceByMacAddress(entity.getMacAddress());
-            }
-            return null;
-        } catch (Exception e) {
-            System.err.println("根据会话ID " + sessionId + " 查找设备信息失败: " + e.getMessage());
+            log.warn("获取记忆总结LLM模型ID失败，agentId: {}, 错误: {}", agentInfo.getId(), e.getMessage());
             return null;
         }
     }
-}
\ No newline at end of file
+}
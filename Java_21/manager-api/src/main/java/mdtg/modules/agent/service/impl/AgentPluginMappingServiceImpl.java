@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
@@ -16,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import mdtg.common.utils.JsonUtils;
 import mdtg.modules.agent.dao.AgentPluginMappingMapper;
 import mdtg.modules.agent.entity.AgentPluginMapping;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.agent.service.AgentPluginMappingService;
 import mdtg.modules.knowledge.entity.KnowledgeBaseEntity;
 import mdtg.modules.knowledge.service.KnowledgeBaseService;
@@ -34,6 +36,7 @@ public class AgentPluginMappingServiceImpl extends ServiceImpl<AgentPluginMappin
     private final AgentPluginMappingMapper agentPluginMappingMapper;
     private final KnowledgeBaseService knowledgeBaseService;
     private final ModelConfigService modelConfigService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<AgentPluginMapping> agentPluginParamsByAgentId(String agentId) {
@@ -102,6 +105,7 @@ public class AgentPluginMappingServiceImpl extends ServiceImpl<AgentPluginMappin
         UpdateWrapper<AgentPluginMapping> updateWrapper = new UpdateWrapper<>();
         updateWrapper.eq("agent_id", agentId);
         agentPluginMappingMapper.delete(updateWrapper);
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(agentId));
     }
 
 }
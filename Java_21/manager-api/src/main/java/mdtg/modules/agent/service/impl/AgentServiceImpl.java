@@ -10,6 +10,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +37,7 @@ import mdtg.modules.agent.entity.AgentContextProviderEntity;
 import mdtg.modules.agent.entity.AgentEntity;
 import mdtg.modules.agent.entity.AgentPluginMapping;
 import mdtg.modules.agent.entity.AgentTemplateEntity;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.agent.service.AgentChatHistoryService;
 import mdtg.modules.agent.service.AgentContextProviderService;
 import mdtg.modules.agent.service.AgentPluginMappingService;
@@ -65,6 +67,7 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
     private final AgentTemplateService agentTemplateService;
     private final ModelProviderService modelProviderService;
     private final AgentContextProviderService agentContextProviderService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PageData<AgentEntity> adminAgentList(Map<String, Object> params) {
@@ -124,6 +127,7 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
         UpdateWrapper<AgentEntity> wrapper = new UpdateWrapper<>();
         wrapper.eq("user_id", userId);
         baseDao.delete(wrapper);
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
     }
 
     @Override
@@ -131,6 +135,26 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
         QueryWrapper<AgentEntity> wrapper = new QueryWrapper<>();
         wrapper.eq("user_id", userId);
         List<AgentEntity> agents = agentDao.selectList(wrapper);
+        if (agents.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 按列表批量获取模型名称、音色名称、最后连接时间和设备数量，避免每个智能体逐个访问缓存
+        List<String> modelIds = new ArrayList<>();
+        List<String> voiceIds = new ArrayList<>();
+        List<String> agentIds = new ArrayList<>();
+        for (AgentEntity agent : agents) {
+            modelIds.add(agent.getTtsModelId());
+            modelIds.add(agent.getLlmModelId());
+            modelIds.add(agent.getVllmModelId());
+            voiceIds.add(agent.getTtsVoiceId());
+            agentIds.add(agent.getId());
+        }
+        Map<String, String> modelNames = modelConfigService.getModelNamesByIds(modelIds);
+        Map<String, String> voiceNames = timbreModelService.getTimbreNamesByIds(voiceIds);
+        Map<String, Date> lastConnectedAts = deviceService.getLatestLastConnectionTimes(agentIds);
+        Map<String, Integer> deviceCounts = getDeviceCountsByAgentIds(agentIds);
+
         return agents.stream().map(agent -> {
             AgentDTO dto = new AgentDTO();
             dto.setId(agent.getId());
@@ -138,29 +162,64 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
             dto.setSystemPrompt(agent.getSystemPrompt());
 
             // 获取 TTS 模型名称
-            dto.setTtsModelName(modelConfigService.getModelNameById(agent.getTtsModelId()));
+            dto.setTtsModelName(getName(modelNames, agent.getTtsModelId()));
 
             // 获取 LLM 模型名称
-            dto.setLlmModelName(modelConfigService.getModelNameById(agent.getLlmModelId()));
+            dto.setLlmModelName(getName(modelNames, agent.getLlmModelId()));
 
             // 获取 VLLM 模型名称
-            dto.setVllmModelName(modelConfigService.getModelNameById(agent.getVllmModelId()));
+            dto.setVllmModelName(getName(modelNames, agent.getVllmModelId()));
 
             // 获取记忆模型名称
             dto.setMemModelId(agent.getMemModelId());
 
             // 获取 TTS 音色名称
-            dto.setTtsVoiceName(timbreModelService.getTimbreNameById(agent.getTtsVoiceId()));
+            dto.setTtsVoiceName(getName(voiceNames, agent.getTtsVoiceId()));
 
             // 获取智能体最近的最后连接时长
-            dto.setLastConnectedAt(deviceService.getLatestLastConnectionTime(agent.getId()));
+            dto.setLastConnectedAt(lastConnectedAts.get(agent.getId()));
 
             // 获取设备数量
-            dto.setDeviceCount(getDeviceCountByAgentId(agent.getId()));
+            dto.setDeviceCount(deviceCounts.getOrDefault(agent.getId(), 0));
             return dto;
         }).collect(Collectors.toList());
     }
 
+    private static String getName(Map<String, String> names, String id) {
+        return id != null ? names.get(id) : null;
+    }
+
+    /**
+     * 批量获取智能体的设备数量，缓存一次批量读取，未命中的一次查库
+     */
+    private Map<String, Integer> getDeviceCountsByAgentIds(List<String> agentIds) {
+        Map<String, Integer> counts = new HashMap<>();
+        List<Object> cachedCounts = redisUtils
+                .multiGet(agentIds.stream().map(RedisKeys::getAgentDeviceCountById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < agentIds.size(); i++) {
+            if (cachedCounts.get(i) instanceof Number) {
+                counts.put(agentIds.get(i), ((Number) cachedCounts.get(i)).intValue());
+            } else {
+                missingIds.add(agentIds.get(i));
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            Map<String, Integer> dbCounts = new HashMap<>();
+            for (Map<String, Object> row : agentDao.getDeviceCountsByAgentIds(missingIds)) {
+                dbCounts.put((String) row.get("agentId"), ((Number) row.get("deviceCount")).intValue());
+            }
+            Map<String, Object> toCache = new HashMap<>();
+            for (String agentId : missingIds) {
+                int count = dbCounts.getOrDefault(agentId, 0);
+                counts.put(agentId, count);
+                toCache.put(RedisKeys.getAgentDeviceCountById(agentId), count);
+            }
+            redisUtils.setAll(toCache, 60);
+        }
+        return counts;
+    }
+
     @Override
     public Integer getDeviceCountByAgentId(String agentId) {
         if (StringUtils.isBlank(agentId)) {
@@ -354,6 +413,7 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
             throw new RenException(ErrorCode.LLM_INTENT_PARAMS_MISMATCH);
         }
         this.updateById(existingEntity);
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(agentId));
     }
 
     /**
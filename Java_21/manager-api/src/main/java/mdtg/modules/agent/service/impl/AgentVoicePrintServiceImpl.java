@@ -8,6 +8,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -35,6 +36,7 @@ import mdtg.modules.agent.dto.AgentVoicePrintSaveDTO;
 import mdtg.modules.agent.dto.AgentVoicePrintUpdateDTO;
 import mdtg.modules.agent.dto.IdentifyVoicePrintResponse;
 import mdtg.modules.agent.entity.AgentVoicePrintEntity;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.agent.service.AgentChatAudioService;
 import mdtg.modules.agent.service.AgentChatHistoryService;
 import mdtg.modules.agent.service.AgentVoicePrintService;
@@ -57,16 +59,19 @@ public class AgentVoicePrintServiceImpl extends ServiceImpl<AgentVoicePrintDao,
     // 识别度
     private final Double RECOGNITION = 0.5;
     private final Executor taskExecutor;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AgentVoicePrintServiceImpl(AgentChatAudioService agentChatAudioService, RestTemplate restTemplate,
                                       SysParamsService sysParamsService, AgentChatHistoryService agentChatHistoryService,
-                                      TransactionTemplate transactionTemplate, @Qualifier("taskExecutor") Executor taskExecutor) {
+                                      TransactionTemplate transactionTemplate, @Qualifier("taskExecutor") Executor taskExecutor,
+                                      ApplicationEventPublisher eventPublisher) {
         this.agentChatAudioService = agentChatAudioService;
         this.restTemplate = restTemplate;
         this.sysParamsService = sysParamsService;
         this.agentChatHistoryService = agentChatHistoryService;
         this.transactionTemplate = transactionTemplate;
         this.taskExecutor = taskExecutor;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -83,7 +88,7 @@ public class AgentVoicePrintServiceImpl extends ServiceImpl<AgentVoicePrintDao,
         }
         AgentVoicePrintEntity entity = ConvertUtils.sourceToTarget(dto, AgentVoicePrintEntity.class);
         // 开启事务
-        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+        boolean saved = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
             try {
                 // 保存声纹信息
                 int row = baseMapper.insert(entity);
@@ -104,10 +109,15 @@ public class AgentVoicePrintServiceImpl extends ServiceImpl<AgentVoicePrintDao,
                 throw new RenException(ErrorCode.VOICE_PRINT_SAVE_ERROR);
             }
         }));
+        if (saved) {
+            eventPublisher.publishEvent(new AgentConfigChangedEvent(dto.getAgentId()));
+        }
+        return saved;
     }
 
     @Override
     public boolean delete(Long userId, String voicePrintId) {
+        AgentVoicePrintEntity voicePrint = baseMapper.selectById(voicePrintId);
         // 开启事务
         boolean b = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
             try {
@@ -129,6 +139,7 @@ public class AgentVoicePrintServiceImpl extends ServiceImpl<AgentVoicePrintDao,
         }));
         // 数据库声纹数据删除成功才继续执行删除声纹服务的数据
         if(b){
+            eventPublisher.publishEvent(new AgentConfigChangedEvent(voicePrint != null ? voicePrint.getAgentId() : null));
             taskExecutor.execute(()-> {
                 try {
                     cancelVoicePrint(voicePrintId);
@@ -187,7 +198,7 @@ public class AgentVoicePrintServiceImpl extends ServiceImpl<AgentVoicePrintDao,
             resource = null;
         }
         // 开启事务
-        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+        boolean updated = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
             try {
                 AgentVoicePrintEntity entity = ConvertUtils.sourceToTarget(dto, AgentVoicePrintEntity.class);
                 int row = baseMapper.updateById(entity);
@@ -212,6 +223,10 @@ public class AgentVoicePrintServiceImpl extends ServiceImpl<AgentVoicePrintDao,
                 throw new RenException(ErrorCode.VOICEPRINT_UPDATE_ADMIN_ERROR);
             }
         }));
+        if (updated) {
+            eventPublisher.publishEvent(new AgentConfigChangedEvent(agentId));
+        }
+        return updated;
     }
 
     /**
@@ -0,0 +1,164 @@
+package mdtg.modules.config.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.exception.RenException;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
+import mdtg.modules.model.event.ModelConfigChangedEvent;
+import mdtg.modules.sys.event.SysParamsChangedEvent;
+
+/**
+ * 智能体运行配置快照缓存
+ * 设备连接时下发的配置（模型、插件、声纹、上下文源等）按智能体编译一次并序列化为字节，
+ * 一级为进程内Caffeine缓存，二级为Redis；同一智能体并发未命中时每个进程只编译一次。
+ * Redis中的快照key包含全局和智能体版本号，相关数据变更后版本号递增，旧快照自然失效；
+ * 其他节点的进程内快照依靠较短的过期时间淘汰
+ */
+@Slf4j
+@Component
+public class AgentConfigCache {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * 全局版本号在版本hash中的field
+     */
+    private static final String GLOBAL_VERSION_FIELD = "_all";
+
+    private final RedisUtils redisUtils;
+
+    private final Cache<String, byte[]> localCache;
+
+    private final long redisExpire;
+
+    private final boolean enabled;
+
+    public AgentConfigCache(RedisUtils redisUtils,
+            @Value("${agent.config-cache.enabled:true}") boolean enabled,
+            @Value("${agent.config-cache.local-size:10000}") long localSize,
+            @Value("${agent.config-cache.local-expire:30}") long localExpire,
+            @Value("${agent.config-cache.redis-expire:86400}") long redisExpire) {
+        this.redisUtils = redisUtils;
+        this.enabled = enabled;
+        this.redisExpire = redisExpire;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(Duration.ofSeconds(localExpire))
+                .build();
+    }
+
+    /**
+     * 获取智能体配置快照，两级缓存都未命中时调用builder编译并回填
+     *
+     * @param agentId 智能体ID
+     * @param builder 编译完整配置
+     * @return 配置的独立副本，调用方可以修改
+     */
+    public Map<String, Object> get(String agentId, Supplier<Map<String, Object>> builder) {
+        if (!enabled) {
+            return builder.get();
+        }
+        byte[] snapshot = localCache.get(agentId, id -> load(id, builder));
+        try {
+            return objectMapper.readValue(snapshot, MAP_TYPE);
+        } catch (IOException e) {
+            localCache.invalidate(agentId);
+            throw new RenException("智能体配置快照解析失败: " + e.getMessage());
+        }
+    }
+
+    private byte[] load(String agentId, Supplier<Map<String, Object>> builder) {
+        // 先读取版本号再编译，编译期间发生的变更会递增版本号，不会被旧快照覆盖
+        String redisKey = null;
+        try {
+            List<Object> versions = redisUtils.hMultiGet(RedisKeys.getAgentConfigVersionKey(),
+                    List.of(GLOBAL_VERSION_FIELD, agentId));
+            redisKey = RedisKeys.getAgentConfigSnapshotKey(agentId, toLong(versions.get(0)),
+                    toLong(versions.get(1)));
+            Object cached = redisUtils.get(redisKey);
+            if (cached instanceof String) {
+                return ((String) cached).getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (Exception e) {
+            log.warn("读取智能体配置快照失败: agentId={}, {}", agentId, e.getMessage());
+        }
+
+        byte[] snapshot;
+        try {
+            snapshot = objectMapper.writeValueAsBytes(builder.get());
+        } catch (IOException e) {
+            throw new RenException("智能体配置快照序列化失败: " + e.getMessage());
+        }
+        if (redisKey != null) {
+            try {
+                redisUtils.set(redisKey, new String(snapshot, StandardCharsets.UTF_8), redisExpire);
+            } catch (Exception e) {
+                log.warn("写入智能体配置快照失败: agentId={}, {}", agentId, e.getMessage());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 淘汰智能体配置快照
+     *
+     * @param agentId 智能体ID，为空时淘汰所有智能体
+     */
+    public void evict(String agentId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisUtils.hIncrement(RedisKeys.getAgentConfigVersionKey(),
+                    agentId != null ? agentId : GLOBAL_VERSION_FIELD);
+        } catch (Exception e) {
+            // 版本号无法递增时Redis中的旧快照依靠过期时间淘汰
+            log.error("智能体配置版本号递增失败: agentId={}, {}", agentId, e.getMessage());
+        }
+        if (agentId != null) {
+            localCache.invalidate(agentId);
+        } else {
+            localCache.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAgentConfigChanged(AgentConfigChangedEvent event) {
+        evict(event.getAgentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onModelConfigChanged(ModelConfigChangedEvent event) {
+        // 模型可能被任意智能体引用，也可能是知识库插件使用的RAG模型
+        evict(null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSysParamsChanged(SysParamsChangedEvent event) {
+        evict(null);
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -36,6 +36,7 @@ public class SystemInitConfig {
         }
 
         sysParamsService.initServerSecret();
+        sysParamsService.initLocalCache();
         configService.getConfig(false);
     }
 }
\ No newline at end of file
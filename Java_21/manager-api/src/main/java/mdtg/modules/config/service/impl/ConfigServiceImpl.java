@@ -1,6 +1,7 @@
 package mdtg.modules.config.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,7 @@ import mdtg.modules.agent.service.AgentPluginMappingService;
 import mdtg.modules.agent.service.AgentService;
 import mdtg.modules.agent.service.AgentTemplateService;
 import mdtg.modules.agent.vo.AgentVoicePrintVO;
+import mdtg.modules.config.cache.AgentConfigCache;
 import mdtg.modules.config.service.ConfigService;
 import mdtg.modules.device.entity.DeviceEntity;
 import mdtg.modules.device.service.DeviceService;
@@ -58,6 +60,7 @@ public class ConfigServiceImpl implements ConfigService {
     private final AgentContextProviderService agentContextProviderService;
     private final VoiceCloneService cloneVoiceService;
     private final AgentVoicePrintDao agentVoicePrintDao;
+    private final AgentConfigCache agentConfigCache;
 
     @Override
     public Object getConfig(Boolean isCache) {
@@ -126,8 +129,43 @@ public class ConfigServiceImpl implements ConfigService {
             throw new RenException(ErrorCode.OTA_DEVICE_NOT_FOUND);
         }
 
+        // 智能体配置按快照缓存，相关数据变更后由事件淘汰
+        Map<String, Object> result = agentConfigCache.get(device.getAgentId(),
+                () -> buildAgentConfig(device.getAgentId()));
+
+        // 如果客户端已实例化模型，则不返回
+        removeSelectedModule(result, selectedModule, "VAD");
+        removeSelectedModule(result, selectedModule, "ASR");
+        return result;
+    }
+
+    /**
+     * 如果客户端已实例化与智能体相同的模型，则不再下发该模块配置
+     */
+    @SuppressWarnings("unchecked")
+    private void removeSelectedModule(Map<String, Object> result, Map<String, String> clientSelected,
+            String modelType) {
+        if (clientSelected == null) {
+            return;
+        }
+        String alreadySelectedModelId = clientSelected.get(modelType);
+        Map<String, Object> selected = (Map<String, Object>) result.get("selected_module");
+        if (alreadySelectedModelId != null && selected != null
+                && alreadySelectedModelId.equals(selected.get(modelType))) {
+            selected.remove(modelType);
+            result.remove(modelType);
+        }
+    }
+
+    /**
+     * 编译智能体的完整连接配置，不区分客户端已实例化的模型
+     *
+     * @param agentId 智能体ID
+     * @return 配置信息
+     */
+    private Map<String, Object> buildAgentConfig(String agentId) {
         // 获取智能体信息
-        AgentEntity agent = agentService.getAgentById(device.getAgentId());
+        AgentEntity agent = agentService.getAgentById(agentId);
         if (agent == null) {
             throw new RenException(ErrorCode.AGENT_NOT_FOUND);
         }
@@ -162,19 +200,8 @@ public class ConfigServiceImpl implements ConfigService {
             chatHistoryConf = Constant.ChatHistoryConfEnum.RECORD_TEXT_AUDIO.getCode();
         }
         result.put("chat_history_conf", chatHistoryConf);
-        // 如果客户端已实例化模型，则不返回
-        String alreadySelectedVadModelId = (String) selectedModule.get("VAD");
-        if (alreadySelectedVadModelId != null && alreadySelectedVadModelId.equals(agent.getVadModelId())) {
-            agent.setVadModelId(null);
-        }
-        String alreadySelectedAsrModelId = (String) selectedModule.get("ASR");
-        if (alreadySelectedAsrModelId != null && alreadySelectedAsrModelId.equals(agent.getAsrModelId())) {
-            agent.setAsrModelId(null);
-        }
-
         // 添加函数调用参数信息
         if (!Objects.equals(agent.getIntentModelId(), "Intent_nointent")) {
-            String agentId = agent.getId();
             List<AgentPluginMapping> pluginMappings = agentPluginMappingService.agentPluginParamsByAgentId(agentId);
             if (pluginMappings != null && !pluginMappings.isEmpty()) {
                 Map<String, Object> pluginParams = new HashMap<>();
@@ -402,13 +429,14 @@ public class ConfigServiceImpl implements ConfigService {
                 ragModelId };
         String intentLLMModelId = null;
         String memLocalShortLLMModelId = null;
+        // 一次批量读取所有模块的模型配置
+        Map<String, ModelConfigEntity> models = modelConfigService.getModelsByIdsFromCache(Arrays.asList(modelIds));
 
         for (int i = 0; i < modelIds.length; i++) {
             if (modelIds[i] == null) {
                 continue;
             }
-            // 关键：第三个参数传false，确保获取原始密钥
-            ModelConfigEntity model = modelConfigService.getModelByIdFromCache(modelIds[i]);
+            ModelConfigEntity model = models.get(modelIds[i]);
             if (model == null) {
                 continue;
             }
@@ -0,0 +1,136 @@
+package mdtg.modules.device.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.device.entity.DeviceEntity;
+import mdtg.modules.device.event.DeviceChangedEvent;
+
+/**
+ * 按MAC地址缓存的设备
+ * 设备每次开机都会请求OTA接口并随后建立连接，开机高峰时同一批MAC地址被反复查询。
+ * 未绑定的设备同样缓存，但过期时间较短，以便激活后尽快生效；
+ * 设备变更后通过Redis频道通知所有节点淘汰。最后连接时间、应用版本等连接信息不保证最新
+ */
+@Slf4j
+@Component
+public class DeviceMacCache implements MessageListener {
+
+    private final RedisUtils redisUtils;
+
+    private final boolean enabled;
+
+    private final Cache<String, Optional<DeviceEntity>> devices;
+
+    public DeviceMacCache(RedisUtils redisUtils, RedisMessageListenerContainer listenerContainer,
+            @Value("${device.mac-cache.enabled:true}") boolean enabled,
+            @Value("${device.mac-cache.local-size:100000}") long localSize,
+            @Value("${device.mac-cache.local-expire:60}") long localExpire,
+            @Value("${device.mac-cache.missing-expire:5}") long missingExpire) {
+        this.redisUtils = redisUtils;
+        this.enabled = enabled;
+        long presentNanos = Duration.ofSeconds(localExpire).toNanos();
+        long missingNanos = Duration.ofSeconds(missingExpire).toNanos();
+        this.devices = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfter(new Expiry<String, Optional<DeviceEntity>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<DeviceEntity> value, long currentTime) {
+                        return value.isPresent() ? presentNanos : missingNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<DeviceEntity> value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<DeviceEntity> value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getDeviceChangedChannelKey()));
+    }
+
+    /**
+     * 按MAC地址获取设备，未命中时调用loader查询并缓存
+     *
+     * @param macAddress MAC地址
+     * @param loader     从数据库查询设备
+     * @return 设备的副本，调用方可以修改；设备不存在时返回null
+     */
+    public DeviceEntity get(String macAddress, Function<String, DeviceEntity> loader) {
+        if (!enabled) {
+            return loader.apply(macAddress);
+        }
+        Optional<DeviceEntity> device = devices.get(macAddress, mac -> Optional.ofNullable(loader.apply(mac)));
+        if (device.isEmpty()) {
+            return null;
+        }
+        DeviceEntity copy = new DeviceEntity();
+        BeanUtils.copyProperties(device.get(), copy);
+        return copy;
+    }
+
+    /**
+     * 淘汰本节点缓存的设备
+     *
+     * @param macAddresses MAC地址，为空时淘汰全部
+     */
+    public void invalidate(Collection<String> macAddresses) {
+        if (macAddresses == null || macAddresses.isEmpty()) {
+            devices.invalidateAll();
+        } else {
+            devices.invalidateAll(macAddresses);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        invalidate(event.getMacAddresses());
+        try {
+            redisUtils.publish(RedisKeys.getDeviceChangedChannelKey(),
+                    event.getMacAddresses() != null ? new ArrayList<>(event.getMacAddresses()) : new ArrayList<>());
+        } catch (Exception e) {
+            // 其他节点依靠过期时间淘汰
+            log.error("发布设备变更通知失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisUtils.deserialize(message.getBody());
+            if (body instanceof Collection<?> macAddresses) {
+                invalidate(macAddresses.stream().map(String::valueOf).toList());
+            } else {
+                invalidate(null);
+            }
+        } catch (Exception e) {
+            log.warn("设备变更通知解析失败，淘汰全部设备: {}", e.getMessage());
+            invalidate(null);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package mdtg.modules.device.cache;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import mdtg.modules.device.event.OtaChangedEvent;
+
+/**
+ * 按板子类型和当前版本预先计算的固件升级结果
+ * 同一批设备的类型和版本组合很少，开机高峰时不再逐台查询最新固件和比较版本。
+ * 本节点的固件变更立即淘汰，其他节点依靠过期时间淘汰
+ */
+@Component
+public class FirmwareCache {
+
+    private final boolean enabled;
+
+    private final Cache<String, FirmwareAnswer> answers;
+
+    public FirmwareCache(@Value("${device.firmware-cache.enabled:true}") boolean enabled,
+            @Value("${device.firmware-cache.local-size:10000}") long localSize,
+            @Value("${device.firmware-cache.local-expire:60}") long localExpire) {
+        this.enabled = enabled;
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(Duration.ofSeconds(localExpire))
+                .build();
+    }
+
+    /**
+     * 获取固件升级结果
+     *
+     * @param type           板子类型
+     * @param currentVersion 设备当前版本
+     * @param resolver       未命中时计算升级结果
+     */
+    public FirmwareAnswer get(String type, String currentVersion, Supplier<FirmwareAnswer> resolver) {
+        if (!enabled) {
+            return resolver.get();
+        }
+        return answers.get(type + "@" + currentVersion, key -> resolver.get());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOtaChanged(OtaChangedEvent event) {
+        answers.invalidateAll();
+    }
+
+    /**
+     * 固件升级结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class FirmwareAnswer {
+
+        /**
+         * 返回给设备的固件版本
+         */
+        private final String version;
+
+        /**
+         * 需要升级时的固件ID，不需要升级时为空
+         */
+        private final String otaId;
+    }
+}
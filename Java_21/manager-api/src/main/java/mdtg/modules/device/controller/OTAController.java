@@ -1,8 +1,11 @@
 package mdtg.modules.device.controller;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,6 +31,7 @@ import mdtg.modules.device.dto.DeviceReportReqDTO;
 import mdtg.modules.device.dto.DeviceReportRespDTO;
 import mdtg.modules.device.entity.DeviceEntity;
 import mdtg.modules.device.service.DeviceService;
+import mdtg.modules.device.service.impl.OtaRequestLimiter;
 import mdtg.modules.sys.service.SysParamsService;
 
 @Tag(name = "设备管理", description = "OTA 相关接口")
@@ -36,8 +40,12 @@ import mdtg.modules.sys.service.SysParamsService;
 @RequiredArgsConstructor
 @RequestMapping("/ota/")
 public class OTAController {
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
     private final DeviceService deviceService;
     private final SysParamsService sysParamsService;
+    private final OtaRequestLimiter otaRequestLimiter;
 
     @Operation(summary = "OTA版本和设备激活状态检查")
     @PostMapping
@@ -56,7 +64,17 @@ public class OTAController {
         if (!macAddressValid) {
             return createResponse(DeviceReportRespDTO.createError("Invalid device ID"));
         }
-        return createResponse(deviceService.checkDeviceActive(deviceId, clientId, deviceReportReqDTO));
+        // 设备集中开机时超出处理能力的请求直接拒绝，设备稍后重试
+        if (!otaRequestLimiter.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(otaRequestLimiter.retryAfterSeconds()))
+                    .build();
+        }
+        try {
+            return createResponse(deviceService.checkDeviceActive(deviceId, clientId, deviceReportReqDTO));
+        } finally {
+            otaRequestLimiter.release();
+        }
     }
 
     @Operation(summary = "设备快速检查激活状态")
@@ -81,21 +99,19 @@ public class OTAController {
         if (StringUtils.isBlank(mqttUdpConfig)) {
             return ResponseEntity.ok("OTA接口不正常，缺少mqtt_gateway地址，请登录智控台，在参数管理找到【server.mqtt_gateway】配置");
         }
-        String wsUrl = sysParamsService.getValue(Constant.SERVER_WEBSOCKET, true);
-        if (StringUtils.isBlank(wsUrl) || wsUrl.equals("null")) {
+        List<String> wsUrls = sysParamsService.getValueList(Constant.SERVER_WEBSOCKET);
+        if (wsUrls.isEmpty()) {
             return ResponseEntity.ok("OTA接口不正常，缺少websocket地址，请登录智控台，在参数管理找到【server.websocket】配置");
         }
         String otaUrl = sysParamsService.getValue(Constant.SERVER_OTA, true);
         if (StringUtils.isBlank(otaUrl) || otaUrl.equals("null")) {
             return ResponseEntity.ok("OTA接口不正常，缺少ota地址，请登录智控台，在参数管理找到【server.ota】配置");
         }
-        return ResponseEntity.ok("OTA接口运行正常，websocket集群数量：" + wsUrl.split(";").length);
+        return ResponseEntity.ok("OTA接口运行正常，websocket集群数量：" + wsUrls.size());
     }
 
     @SneakyThrows
     private ResponseEntity<String> createResponse(DeviceReportRespDTO deviceReportRespDTO) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         String json = objectMapper.writeValueAsString(deviceReportRespDTO);
         byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
         return ResponseEntity
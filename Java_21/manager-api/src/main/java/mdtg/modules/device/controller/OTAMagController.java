@@ -2,19 +2,27 @@ package mdtg.modules.device.controller;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,9 +32,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -51,6 +61,10 @@ import mdtg.modules.device.service.OtaService;
 @RequestMapping("/otaMag")
 public class OTAMagController {
     private static final Logger logger = LoggerFactory.getLogger(OTAController.class);
+    /**
+     * 以MD5或SHA-256命名的固件文件
+     */
+    private static final Pattern DIGEST_NAME = Pattern.compile("[0-9a-f]{32}|[0-9a-f]{64}");
     private final OtaService otaService;
     private final RedisUtils redisUtils;
 
@@ -137,29 +151,14 @@ public class OTAMagController {
 
     @GetMapping("/download/{uuid}")
     @Operation(summary = "下载固件文件")
-    public ResponseEntity<byte[]> downloadFirmware(@PathVariable("uuid") String uuid) {
+    public ResponseEntity<Resource> downloadFirmware(@PathVariable("uuid") String uuid,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            ServletWebRequest webRequest) {
         String id = (String) redisUtils.get(RedisKeys.getOtaIdKey(uuid));
         if (StringUtils.isBlank(id)) {
             return ResponseEntity.notFound().build();
         }
 
-        // 检查下载次数
-        String downloadCountKey = RedisKeys.getOtaDownloadCountKey(uuid);
-        Integer downloadCount = (Integer) redisUtils.get(downloadCountKey);
-        if (downloadCount == null) {
-            downloadCount = 0;
-        }
-
-        // 如果下载次数超过3次，返回404
-        if (downloadCount >= 3) {
-            redisUtils.delete(downloadCountKey);
-            redisUtils.delete(RedisKeys.getOtaIdKey(uuid));
-            logger.warn("Download limit exceeded for UUID: {}", uuid);
-            return ResponseEntity.notFound().build();
-        }
-
-        redisUtils.set(downloadCountKey, downloadCount + 1);
-
         try {
             // 获取固件信息
             OtaEntity otaEntity = otaService.selectById(id);
@@ -168,39 +167,29 @@ public class OTAMagController {
                 return ResponseEntity.notFound().build();
             }
 
-            // 获取文件路径 - 确保路径是绝对路径或正确的相对路径
             String firmwarePath = otaEntity.getFirmwarePath();
-            Path path;
-
-            // 检查是否是绝对路径
-            if (Paths.get(firmwarePath).isAbsolute()) {
-                path = Paths.get(firmwarePath);
-            } else {
-                // 如果是相对路径，则从当前工作目录解析
-                path = Paths.get(System.getProperty("user.dir"), firmwarePath);
+            Path path = resolveFirmwarePath(firmwarePath);
+            if (path == null) {
+                return ResponseEntity.notFound().build();
             }
+            long size = Files.size(path);
+            String etag = buildETag(path, size);
 
-            logger.info("Attempting to download firmware for ID: {}, DB path: {}, resolved path: {}",
-                    id, firmwarePath, path.toAbsolutePath());
-
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
-                // 尝试直接从firmware目录下查找文件名
-                String fileName = new File(firmwarePath).getName();
-                Path altPath = Paths.get(System.getProperty("user.dir"), "firmware", fileName);
-
-                logger.info("File not found at primary path, trying alternative path: {}", altPath.toAbsolutePath());
-
-                if (Files.exists(altPath) && Files.isRegularFile(altPath)) {
-                    path = altPath;
-                } else {
-                    logger.error("Firmware file not found at either path: {} or {}",
-                            path.toAbsolutePath(), altPath.toAbsolutePath());
-                    return ResponseEntity.notFound().build();
-                }
+            // 设备已有相同固件时不计入下载次数
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
             }
 
-            // 读取文件内容
-            byte[] fileContent = Files.readAllBytes(path);
+            // 按实际返回的字节数计入下载量，最多允许下载3次完整固件；断点续传只计入续传部分
+            String downloadBytesKey = RedisKeys.getOtaDownloadBytesKey(uuid);
+            Long downloadBytes = redisUtils.increment(downloadBytesKey, requestedBytes(range, size),
+                    RedisUtils.DEFAULT_EXPIRE);
+            if (downloadBytes != null && downloadBytes > 3 * Math.max(size, 1)) {
+                redisUtils.delete(downloadBytesKey);
+                redisUtils.delete(RedisKeys.getOtaIdKey(uuid));
+                logger.warn("Download limit exceeded for UUID: {}", uuid);
+                return ResponseEntity.notFound().build();
+            }
 
             // 设置响应头
             String originalFilename = otaEntity.getType() + "_" + otaEntity.getVersion();
@@ -212,13 +201,16 @@ public class OTAMagController {
             // 清理文件名，移除不安全字符
             String safeFilename = originalFilename.replaceAll("[^a-zA-Z0-9._-]", "_");
 
-            logger.info("Providing download for firmware ID: {}, filename: {}, size: {} bytes",
-                    id, safeFilename, fileContent.length);
+            logger.info("Providing download for firmware ID: {}, filename: {}, size: {} bytes, range: {}",
+                    id, safeFilename, size, range);
 
+            // 文件内容由框架分块写出，带Range请求头时只返回请求的分段（206）
             return ResponseEntity.ok()
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + safeFilename + "\"")
-                    .body(fileContent);
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .eTag(etag)
+                    .body(new FileSystemResource(path));
         } catch (IOException e) {
             logger.error("Error reading firmware file for ID: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -228,6 +220,72 @@ public class OTAMagController {
         }
     }
 
+    /**
+     * 解析固件文件路径，数据库中的路径不存在时尝试从firmware目录下查找同名文件
+     *
+     * @return 文件不存在时返回null
+     */
+    private Path resolveFirmwarePath(String firmwarePath) {
+        Path path;
+
+        // 检查是否是绝对路径
+        if (Paths.get(firmwarePath).isAbsolute()) {
+            path = Paths.get(firmwarePath);
+        } else {
+            // 如果是相对路径，则从当前工作目录解析
+            path = Paths.get(System.getProperty("user.dir"), firmwarePath);
+        }
+        if (Files.isRegularFile(path)) {
+            return path;
+        }
+
+        // 尝试直接从firmware目录下查找文件名
+        String fileName = new File(firmwarePath).getName();
+        Path altPath = Paths.get(System.getProperty("user.dir"), "firmware", fileName);
+        logger.info("File not found at primary path, trying alternative path: {}", altPath.toAbsolutePath());
+        if (Files.isRegularFile(altPath)) {
+            return altPath;
+        }
+        logger.error("Firmware file not found at either path: {} or {}",
+                path.toAbsolutePath(), altPath.toAbsolutePath());
+        return null;
+    }
+
+    /**
+     * 上传的固件以内容摘要命名，直接用作ETag；其他文件使用大小和修改时间
+     */
+    private String buildETag(Path path, long size) throws IOException {
+        String fileName = path.getFileName().toString();
+        String baseName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf(".")) : fileName;
+        if (DIGEST_NAME.matcher(baseName).matches()) {
+            return "\"" + baseName + "\"";
+        }
+        return "\"" + Long.toHexString(size) + "-"
+                + Long.toHexString(Files.getLastModifiedTime(path).toMillis()) + "\"";
+    }
+
+    /**
+     * 本次请求将返回的字节数，无Range或Range无效时按整个文件计算
+     */
+    private static long requestedBytes(String range, long size) {
+        if (StringUtils.isBlank(range)) {
+            return size;
+        }
+        try {
+            long bytes = 0;
+            for (HttpRange httpRange : HttpRange.parseRanges(range)) {
+                long start = httpRange.getRangeStart(size);
+                long end = httpRange.getRangeEnd(size);
+                if (start < size && end >= start) {
+                    bytes += end - start + 1;
+                }
+            }
+            return bytes > 0 ? Math.min(bytes, size) : size;
+        } catch (IllegalArgumentException e) {
+            return size;
+        }
+    }
+
     @PostMapping("/upload")
     @Operation(summary = "上传固件文件")
     @RequiresPermissions("sys:role:superAdmin")
@@ -248,9 +306,6 @@ public class OTAMagController {
         }
 
         try {
-            // 计算文件的MD5值
-            String md5 = calculateMD5(file);
-
             // 设置存储路径
             String uploadDir = "uploadfile";
             Path uploadPath = Paths.get(uploadDir);
@@ -260,32 +315,28 @@ public class OTAMagController {
                 Files.createDirectories(uploadPath);
             }
 
-            // 使用MD5作为文件名，固定使用.bin扩展名
-            String uniqueFileName = md5 + extension;
-            Path filePath = uploadPath.resolve(uniqueFileName);
+            // 边写入临时文件边计算SHA-256，不把整个文件读入内存
+            Path tempPath = Files.createTempFile(uploadPath, "upload-", ".tmp");
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                    Files.copy(in, tempPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String sha256 = HexFormat.of().formatHex(digest.digest());
 
-            // 检查文件是否已存在
-            if (Files.exists(filePath)) {
+                // 使用SHA-256作为文件名，相同内容的固件只保存一份
+                Path filePath = uploadPath.resolve(sha256 + extension);
+                if (!Files.exists(filePath)) {
+                    Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+                }
+
+                // 返回文件路径
                 return new Result<String>().ok(filePath.toString());
+            } finally {
+                Files.deleteIfExists(tempPath);
             }
-
-            // 保存文件
-            Files.copy(file.getInputStream(), filePath);
-
-            // 返回文件路径
-            return new Result<String>().ok(filePath.toString());
         } catch (IOException | NoSuchAlgorithmException e) {
             return new Result<String>().error("文件上传失败：" + e.getMessage());
         }
     }
-
-    private String calculateMD5(MultipartFile file) throws IOException, NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        byte[] digest = md.digest(file.getBytes());
-        StringBuilder sb = new StringBuilder();
-        for (byte b : digest) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
-    }
 }
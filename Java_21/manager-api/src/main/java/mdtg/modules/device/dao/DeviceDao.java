@@ -1,8 +1,11 @@
 package mdtg.modules.device.dao;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
@@ -18,4 +21,20 @@ public interface DeviceDao extends BaseMapper<DeviceEntity> {
      */
     Date getAllLastConnectedAtByAgentId(String agentId);
 
+    /**
+     * 批量获取智能体全部设备的最后连接时间
+     * 
+     * @param agentIds 智能体id
+     * @return 只填充agentId和lastConnectedAt的设备列表，每个智能体一条
+     */
+    List<DeviceEntity> getLastConnectedAtByAgentIds(@Param("agentIds") Collection<String> agentIds);
+
+    /**
+     * 批量更新设备连接信息
+     * 
+     * @param devices 只需填充id、lastConnectedAt和appVersion，appVersion为空时保留原值
+     * @return 更新的行数
+     */
+    int updateConnectionInfoBatch(@Param("devices") Collection<DeviceEntity> devices);
+
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package mdtg.modules.device.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 设备变更事件（激活、绑定、解绑、删除、修改设备信息后发布）
+ * 监听方据此淘汰按MAC地址缓存的设备
+ */
+@Getter
+@AllArgsConstructor
+public class DeviceChangedEvent {
+
+    /**
+     * 变更设备的MAC地址，为空表示按用户或智能体批量变更
+     */
+    private final List<String> macAddresses;
+}
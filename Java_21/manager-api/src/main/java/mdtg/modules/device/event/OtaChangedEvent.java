@@ -0,0 +1,8 @@
+package mdtg.modules.device.event;
+
+/**
+ * OTA固件变更事件（新增、修改、删除固件后发布）
+ * 监听方据此淘汰预先计算的固件升级结果
+ */
+public class OtaChangedEvent {
+}
@@ -1,7 +1,9 @@
 package mdtg.modules.device.service;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import mdtg.common.page.PageData;
 import mdtg.common.service.BaseService;
@@ -88,6 +90,13 @@ public interface DeviceService extends BaseService<DeviceEntity> {
      */
     Date getLatestLastConnectionTime(String agentId);
 
+    /**
+     * 批量获取智能体设备的最近的最后连接时间
+     * @param agentIds 智能体id
+     * @return 智能体id到最后连接时间的映射，没有设备连接过的智能体不包含在内
+     */
+    Map<String, Date> getLatestLastConnectionTimes(Collection<String> agentIds);
+
     /**
      * 手动添加设备
      */
@@ -0,0 +1,125 @@
+package mdtg.modules.device.service.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.device.dao.DeviceDao;
+import mdtg.modules.device.entity.DeviceEntity;
+
+/**
+ * 设备连接信息写缓冲
+ * 设备开机请求OTA、上报聊天记录时都会更新最后连接时间，逐条异步更新在开机高峰时会占满异步线程池。
+ * 这里按设备合并，只保留最新一次的连接信息，定时批量写入数据库和智能体最后连接时间缓存
+ */
+@Slf4j
+@Component
+public class DeviceConnectionBuffer {
+
+    private final DeviceDao deviceDao;
+
+    private final RedisUtils redisUtils;
+
+    private final int batchSize;
+
+    /**
+     * 待写入的连接信息，key为设备ID
+     */
+    private final Map<String, DeviceEntity> pending = new ConcurrentHashMap<>();
+
+    public DeviceConnectionBuffer(DeviceDao deviceDao, RedisUtils redisUtils,
+            @Value("${device.connection-flush.batch-size:500}") int batchSize) {
+        this.deviceDao = deviceDao;
+        this.redisUtils = redisUtils;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 记录一次设备连接
+     *
+     * @param agentId    智能体ID
+     * @param deviceId   设备ID
+     * @param appVersion 应用版本，为空时不更新
+     */
+    public void record(String agentId, String deviceId, String appVersion) {
+        DeviceEntity device = new DeviceEntity();
+        device.setId(deviceId);
+        device.setAgentId(agentId);
+        device.setAppVersion(StringUtils.isNotBlank(appVersion) ? appVersion : null);
+        device.setLastConnectedAt(new Date());
+        pending.merge(deviceId, device, (previous, current) -> {
+            if (current.getAppVersion() == null) {
+                current.setAppVersion(previous.getAppVersion());
+            }
+            if (current.getAgentId() == null) {
+                current.setAgentId(previous.getAgentId());
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 当前待写入的设备数
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${device.connection-flush.interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 逐个取出，取出后新记录的连接信息留到下一轮写入
+        List<DeviceEntity> devices = new ArrayList<>(pending.size());
+        for (String deviceId : pending.keySet()) {
+            DeviceEntity device = pending.remove(deviceId);
+            if (device != null) {
+                devices.add(device);
+            }
+        }
+
+        for (int from = 0; from < devices.size(); from += batchSize) {
+            List<DeviceEntity> batch = devices.subList(from, Math.min(from + batchSize, devices.size()));
+            try {
+                deviceDao.updateConnectionInfoBatch(batch);
+            } catch (Exception e) {
+                log.error("批量更新设备连接信息失败，{}条记录留到下一轮写入: {}", batch.size(), e.getMessage());
+                // 期间有新的连接信息时以新的为准
+                batch.forEach(device -> pending.putIfAbsent(device.getId(), device));
+            }
+        }
+
+        Map<String, Object> lastConnectedAt = new HashMap<>();
+        for (DeviceEntity device : devices) {
+            if (StringUtils.isBlank(device.getAgentId())) {
+                continue;
+            }
+            lastConnectedAt.merge(RedisKeys.getAgentDeviceLastConnectedAtById(device.getAgentId()),
+                    device.getLastConnectedAt(),
+                    (previous, current) -> ((Date) previous).after((Date) current) ? previous : current);
+        }
+        try {
+            redisUtils.setAll(lastConnectedAt);
+        } catch (Exception e) {
+            log.error("更新智能体最后连接时间缓存失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+}
@@ -4,7 +4,9 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -16,8 +18,7 @@ import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.aop.framework.AopContext;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -40,6 +41,8 @@ import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.common.user.UserDetail;
 import mdtg.common.utils.ConvertUtils;
 import mdtg.common.utils.DateUtils;
+import mdtg.modules.device.cache.DeviceMacCache;
+import mdtg.modules.device.cache.FirmwareCache;
 import mdtg.modules.device.dao.DeviceDao;
 import mdtg.modules.device.dto.DeviceManualAddDTO;
 import mdtg.modules.device.dto.DevicePageUserDTO;
@@ -47,6 +50,7 @@ import mdtg.modules.device.dto.DeviceReportReqDTO;
 import mdtg.modules.device.dto.DeviceReportRespDTO;
 import mdtg.modules.device.entity.DeviceEntity;
 import mdtg.modules.device.entity.OtaEntity;
+import mdtg.modules.device.event.DeviceChangedEvent;
 import mdtg.modules.device.service.DeviceService;
 import mdtg.modules.device.service.OtaService;
 import mdtg.modules.device.vo.UserShowDeviceListVO;
@@ -64,23 +68,15 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
     private final SysParamsService sysParamsService;
     private final RedisUtils redisUtils;
     private final OtaService otaService;
+    private final DeviceMacCache deviceMacCache;
+    private final FirmwareCache firmwareCache;
+    private final DeviceConnectionBuffer deviceConnectionBuffer;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Async
+    @Override
     public void updateDeviceConnectionInfo(String agentId, String deviceId, String appVersion) {
-        try {
-            DeviceEntity device = new DeviceEntity();
-            device.setId(deviceId);
-            device.setLastConnectedAt(new Date());
-            if (StringUtils.isNotBlank(appVersion)) {
-                device.setAppVersion(appVersion);
-            }
-            deviceDao.updateById(device);
-            if (StringUtils.isNotBlank(agentId)) {
-                redisUtils.set(RedisKeys.getAgentDeviceLastConnectedAtById(agentId), new Date());
-            }
-        } catch (Exception e) {
-            log.error("异步更新设备连接信息失败", e);
-        }
+        // 合并后定时批量写入
+        deviceConnectionBuffer.record(agentId, deviceId, appVersion);
     }
 
     @Override
@@ -139,6 +135,7 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
 
         // 添加：清除智能体设备数量缓存
         redisUtils.delete(RedisKeys.getAgentDeviceCountById(agentId));
+        publishDeviceChanged(macAddress);
 
         return true;
     }
@@ -170,7 +167,7 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         // 添加WebSocket配置
         DeviceReportRespDTO.Websocket websocket = new DeviceReportRespDTO.Websocket();
         // 从系统参数获取WebSocket URL，如果未配置则使用默认值
-        String wsUrl = sysParamsService.getValue(Constant.SERVER_WEBSOCKET, true);
+        List<String> wsUrls = sysParamsService.getValueList(Constant.SERVER_WEBSOCKET);
 
         // 检查是否启用认证并生成token
         String authEnabled = sysParamsService.getValue(Constant.SERVER_AUTH_ENABLED, true);
@@ -187,19 +184,12 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
             websocket.setToken("");
         }
 
-        if (StringUtils.isBlank(wsUrl) || wsUrl.equals("null")) {
+        if (wsUrls.isEmpty()) {
             log.error("WebSocket地址未配置，请登录智控台，在参数管理找到【server.websocket】配置");
-            wsUrl = "ws://xiaozhi.server.com:8000/xiaozhi/v1/";
-            websocket.setUrl(wsUrl);
+            websocket.setUrl("ws://xiaozhi.server.com:8000/xiaozhi/v1/");
         } else {
-            String[] wsUrls = wsUrl.split("\\;");
-            if (wsUrls.length > 0) {
-                // 随机选择一个WebSocket URL
-                websocket.setUrl(wsUrls[RandomUtil.randomInt(0, wsUrls.length)]);
-            } else {
-                log.error("WebSocket地址未配置，请登录智控台，在参数管理找到【server.websocket】配置");
-                websocket.setUrl("ws://xiaozhi.server.com:8000/xiaozhi/v1/");
-            }
+            // 随机选择一个WebSocket URL
+            websocket.setUrl(wsUrls.get(RandomUtil.randomInt(0, wsUrls.size())));
         }
 
         response.setWebsocket(websocket);
@@ -222,12 +212,10 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         }
 
         if (deviceById != null) {
-            // 如果设备存在，则异步更新上次连接时间和版本信息
+            // 如果设备存在，则更新上次连接时间和版本信息
             String appVersion = deviceReport.getApplication() != null ? deviceReport.getApplication().getVersion()
                     : null;
-            // 通过Spring代理调用异步方法
-            ((DeviceServiceImpl) AopContext.currentProxy()).updateDeviceConnectionInfo(deviceById.getAgentId(),
-                    deviceById.getId(), appVersion);
+            updateDeviceConnectionInfo(deviceById.getAgentId(), deviceById.getId(), appVersion);
         } else {
             // 如果设备不存在，则生成激活码
             DeviceReportRespDTO.Activation code = buildActivation(macAddress, deviceReport);
@@ -261,6 +249,7 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         wrapper.eq("user_id", userId);
         wrapper.eq("id", deviceId);
         baseDao.delete(wrapper);
+        publishDeviceChanged(device.getMacAddress());
     }
 
     @Override
@@ -268,6 +257,7 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         UpdateWrapper<DeviceEntity> wrapper = new UpdateWrapper<>();
         wrapper.eq("user_id", userId);
         baseDao.delete(wrapper);
+        eventPublisher.publishEvent(new DeviceChangedEvent(null));
     }
 
     @Override
@@ -282,6 +272,22 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         UpdateWrapper<DeviceEntity> wrapper = new UpdateWrapper<>();
         wrapper.eq("agent_id", agentId);
         baseDao.delete(wrapper);
+        eventPublisher.publishEvent(new DeviceChangedEvent(null));
+    }
+
+    @Override
+    public boolean updateById(DeviceEntity entity) {
+        boolean updated = super.updateById(entity);
+        publishDeviceChanged(entity.getMacAddress());
+        return updated;
+    }
+
+    /**
+     * 通知设备变更，MAC地址未知时淘汰全部缓存的设备
+     */
+    private void publishDeviceChanged(String macAddress) {
+        eventPublisher.publishEvent(new DeviceChangedEvent(
+                StringUtils.isNotBlank(macAddress) ? List.of(macAddress) : null));
     }
 
     @Override
@@ -314,9 +320,11 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         if (StringUtils.isBlank(macAddress)) {
             return null;
         }
-        QueryWrapper<DeviceEntity> wrapper = new QueryWrapper<>();
-        wrapper.eq("mac_address", macAddress);
-        return baseDao.selectOne(wrapper);
+        return deviceMacCache.get(macAddress, mac -> {
+            QueryWrapper<DeviceEntity> wrapper = new QueryWrapper<>();
+            wrapper.eq("mac_address", mac);
+            return baseDao.selectOne(wrapper);
+        });
     }
 
     private DeviceReportRespDTO.ServerTime buildServerTime() {
@@ -354,6 +362,37 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         return maxDate;
     }
 
+    @Override
+    public Map<String, Date> getLatestLastConnectionTimes(Collection<String> agentIds) {
+        Map<String, Date> result = new HashMap<>();
+        List<String> ids = agentIds.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        List<Object> cachedDates = redisUtils
+                .multiGet(ids.stream().map(RedisKeys::getAgentDeviceLastConnectedAtById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (cachedDates.get(i) instanceof Date) {
+                result.put(ids.get(i), (Date) cachedDates.get(i));
+            } else {
+                missingIds.add(ids.get(i));
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            Map<String, Object> toCache = new HashMap<>();
+            for (DeviceEntity device : deviceDao.getLastConnectedAtByAgentIds(missingIds)) {
+                if (device.getLastConnectedAt() != null) {
+                    result.put(device.getAgentId(), device.getLastConnectedAt());
+                    toCache.put(RedisKeys.getAgentDeviceLastConnectedAtById(device.getAgentId()),
+                            device.getLastConnectedAt());
+                }
+            }
+            redisUtils.setAll(toCache);
+        }
+        return result;
+    }
+
     private String getDeviceCacheKey(String deviceId) {
         String safeDeviceId = deviceId.replace(":", "_").toLowerCase();
         String dataKey = String.format("ota:activation:data:%s", safeDeviceId);
@@ -406,34 +445,37 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         if (StringUtils.isBlank(type)) {
             return null;
         }
-        if (StringUtils.isBlank(currentVersion)) {
-            currentVersion = "0.0.0";
-        }
+        String deviceVersion = StringUtils.isBlank(currentVersion) ? "0.0.0" : currentVersion;
 
-        OtaEntity ota = otaService.getLatestOta(type);
+        FirmwareCache.FirmwareAnswer answer = firmwareCache.get(type, deviceVersion, () -> {
+            OtaEntity ota = otaService.getLatestOta(type);
+            if (ota == null) {
+                return new FirmwareCache.FirmwareAnswer(deviceVersion, null);
+            }
+            // 如果设备没有版本信息，或者OTA版本比设备版本新，则返回下载地址
+            boolean upgrade = compareVersions(ota.getVersion(), deviceVersion) > 0;
+            return new FirmwareCache.FirmwareAnswer(ota.getVersion(), upgrade ? ota.getId() : null);
+        });
         DeviceReportRespDTO.Firmware firmware = new DeviceReportRespDTO.Firmware();
         String downloadUrl = null;
 
-        if (ota != null) {
-            // 如果设备没有版本信息，或者OTA版本比设备版本新，则返回下载地址
-            if (compareVersions(ota.getVersion(), currentVersion) > 0) {
-                String otaUrl = sysParamsService.getValue(Constant.SERVER_OTA, true);
-                if (StringUtils.isBlank(otaUrl) || otaUrl.equals("null")) {
-                    log.error("OTA地址未配置，请登录智控台，在参数管理找到【server.ota】配置");
-                    // 尝试从请求中获取
-                    HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder
-                            .getRequestAttributes())
-                            .getRequest();
-                    otaUrl = request.getRequestURL().toString();
-                }
-                // 将URL中的/ota/替换为/otaMag/download/
-                String uuid = UUID.randomUUID().toString();
-                redisUtils.set(RedisKeys.getOtaIdKey(uuid), ota.getId());
-                downloadUrl = otaUrl.replace("/ota/", "/otaMag/download/") + uuid;
+        if (answer.getOtaId() != null) {
+            String otaUrl = sysParamsService.getValue(Constant.SERVER_OTA, true);
+            if (StringUtils.isBlank(otaUrl) || otaUrl.equals("null")) {
+                log.error("OTA地址未配置，请登录智控台，在参数管理找到【server.ota】配置");
+                // 尝试从请求中获取
+                HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder
+                        .getRequestAttributes())
+                        .getRequest();
+                otaUrl = request.getRequestURL().toString();
             }
+            // 将URL中的/ota/替换为/otaMag/download/，每台设备单独的下载链接，下载次数按链接限制
+            String uuid = UUID.randomUUID().toString();
+            redisUtils.set(RedisKeys.getOtaIdKey(uuid), answer.getOtaId());
+            downloadUrl = otaUrl.replace("/ota/", "/otaMag/download/") + uuid;
         }
 
-        firmware.setVersion(ota == null ? currentVersion : ota.getVersion());
+        firmware.setVersion(answer.getVersion());
         firmware.setUrl(downloadUrl == null ? Constant.INVALID_FIRMWARE_URL : downloadUrl);
         return firmware;
     }
@@ -494,18 +536,31 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
 
         // 添加：清除智能体设备数量缓存
         redisUtils.delete(RedisKeys.getAgentDeviceCountById(dto.getAgentId()));
+        publishDeviceChanged(dto.getMacAddress());
+    }
+
+    /**
+     * 获取参数对应的HMAC-SHA256密钥，参数值不变时复用同一个密钥对象
+     * 
+     * @param paramCode 参数编码
+     * @return 密钥，参数未配置时返回null
+     */
+    private SecretKeySpec getHmacKey(String paramCode) {
+        return sysParamsService.getParsedValue(paramCode, "hmac-sha256",
+                secretKey -> StringUtils.isBlank(secretKey) ? null
+                        : new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
     }
 
     /**
      * 生成MQTT密码签名
      * 
-     * @param content   签名内容 (clientId + '|' + username)
-     * @param secretKey 密钥
+     * @param content 签名内容 (clientId + '|' + username)
+     * @param keySpec 密钥
      * @return Base64编码的HMAC-SHA256签名
      */
-    private String generatePasswordSignature(String content, String secretKey) throws Exception {
+    private String generatePasswordSignature(String content, SecretKeySpec keySpec) throws Exception {
+        // Mac实例不是线程安全的，每次签名单独创建
         Mac hmac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
         hmac.init(keySpec);
         byte[] signature = hmac.doFinal(content.getBytes(StandardCharsets.UTF_8));
         return Base64.getEncoder().encodeToString(signature);
@@ -521,8 +576,8 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
     public String generateWebSocketToken(String clientId, String username)
             throws NoSuchAlgorithmException, InvalidKeyException {
         // 从系统参数获取密钥
-        String secretKey = sysParamsService.getValue(Constant.SERVER_SECRET, false);
-        if (StringUtils.isBlank(secretKey)) {
+        SecretKeySpec keySpec = getHmacKey(Constant.SERVER_SECRET);
+        if (keySpec == null) {
             throw new IllegalStateException("WebSocket认证密钥未配置(server.secret)");
         }
 
@@ -534,7 +589,6 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
 
         // 生成HMAC-SHA256签名
         Mac hmac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
         hmac.init(keySpec);
         byte[] signature = hmac.doFinal(content.getBytes(StandardCharsets.UTF_8));
 
@@ -555,8 +609,8 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
     private DeviceReportRespDTO.MQTT buildMqttConfig(String macAddress, String groupId)
             throws Exception {
         // 从环境变量或系统参数获取签名密钥
-        String signatureKey = sysParamsService.getValue("server.mqtt_signature_key", true);
-        if (StringUtils.isBlank(signatureKey)) {
+        SecretKeySpec signatureKey = getHmacKey("server.mqtt_signature_key");
+        if (signatureKey == null) {
             log.warn("缺少MQTT_SIGNATURE_KEY，跳过MQTT配置生成");
             return null;
         }
@@ -0,0 +1,73 @@
+package mdtg.modules.device.service.impl;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * OTA检查接口的并发限制
+ * 大批设备同时开机时，超出并发上限且短时间内等不到许可的请求直接拒绝，
+ * 由设备按随机的重试间隔稍后再来，避免请求堆积拖垮数据库和Redis
+ */
+@Component
+public class OtaRequestLimiter {
+
+    private final Semaphore permits;
+
+    private final long acquireTimeout;
+
+    private final int retryAfterMin;
+
+    private final int retryAfterMax;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OtaRequestLimiter(@Value("${device.ota.max-concurrency:200}") int maxConcurrency,
+            @Value("${device.ota.acquire-timeout:200}") long acquireTimeout,
+            @Value("${device.ota.retry-after-min:5}") int retryAfterMin,
+            @Value("${device.ota.retry-after-max:30}") int retryAfterMax) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.acquireTimeout = acquireTimeout;
+        this.retryAfterMin = Math.max(1, retryAfterMin);
+        this.retryAfterMax = Math.max(this.retryAfterMin, retryAfterMax);
+    }
+
+    /**
+     * 获取许可，获取成功后必须调用release
+     *
+     * @return 等待超时返回false
+     */
+    public boolean tryAcquire() {
+        try {
+            if (permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 被拒绝的请求建议的重试间隔（秒），随机分散设备的下一次请求
+     */
+    public int retryAfterSeconds() {
+        return ThreadLocalRandom.current().nextInt(retryAfterMin, retryAfterMax + 1);
+    }
+
+    /**
+     * 累计拒绝的请求数
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
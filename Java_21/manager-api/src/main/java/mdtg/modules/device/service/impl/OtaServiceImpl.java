@@ -5,20 +5,25 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import io.micrometer.common.util.StringUtils;
+import lombok.AllArgsConstructor;
 import mdtg.common.page.PageData;
 import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.modules.device.dao.OtaDao;
 import mdtg.modules.device.entity.OtaEntity;
+import mdtg.modules.device.event.OtaChangedEvent;
 import mdtg.modules.device.service.OtaService;
 
 @Service
+@AllArgsConstructor
 public class OtaServiceImpl extends BaseServiceImpl<OtaDao, OtaEntity> implements OtaService {
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PageData<OtaEntity> page(Map<String, Object> params) {
@@ -52,11 +57,13 @@ public class OtaServiceImpl extends BaseServiceImpl<OtaDao, OtaEntity> implement
 
         entity.setUpdateDate(new Date());
         baseDao.updateById(entity);
+        eventPublisher.publishEvent(new OtaChangedEvent());
     }
 
     @Override
     public void delete(String[] ids) {
         baseDao.deleteBatchIds(Arrays.asList(ids));
+        eventPublisher.publishEvent(new OtaChangedEvent());
     }
 
     @Override
@@ -69,9 +76,12 @@ public class OtaServiceImpl extends BaseServiceImpl<OtaDao, OtaEntity> implement
             OtaEntity otaBefore = otaList.getFirst();
             entity.setId(otaBefore.getId());
             baseDao.updateById(entity);
+            eventPublisher.publishEvent(new OtaChangedEvent());
             return true;
         }
-        return baseDao.insert(entity) > 0;
+        boolean inserted = baseDao.insert(entity) > 0;
+        eventPublisher.publishEvent(new OtaChangedEvent());
+        return inserted;
     }
 
     @Override
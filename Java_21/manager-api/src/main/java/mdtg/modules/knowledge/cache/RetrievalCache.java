@@ -0,0 +1,200 @@
+package mdtg.modules.knowledge.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+
+/**
+ * 知识库召回结果两级缓存
+ * 一级为进程内Caffeine缓存（W-TinyLFU淘汰），二级为Redis；
+ * 缓存key由规范化后的问题、检索参数和各数据集当前版本号计算得出，
+ * 数据集发生上传、删除、解析后版本号递增，旧结果自然失效
+ */
+@Slf4j
+@Component
+public class RetrievalCache {
+
+    private static final ObjectMapper KEY_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final RedisUtils redisUtils;
+
+    private final Cache<String, Map<String, Object>> localCache;
+
+    private final long redisExpire;
+
+    private final boolean enabled;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RetrievalCache(RedisUtils redisUtils,
+            @Value("${knowledge.retrieval-cache.enabled:true}") boolean enabled,
+            @Value("${knowledge.retrieval-cache.local-size:2000}") long localSize,
+            @Value("${knowledge.retrieval-cache.local-expire:300}") long localExpire,
+            @Value("${knowledge.retrieval-cache.redis-expire:1800}") long redisExpire) {
+        this.redisUtils = redisUtils;
+        this.enabled = enabled;
+        this.redisExpire = redisExpire;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(Duration.ofSeconds(localExpire))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 查询召回结果，两级缓存都未命中时调用loader并回填
+     *
+     * @param question    用户查询
+     * @param datasetIds  数据集ID列表
+     * @param documentIds 文档ID列表
+     * @param params      检索参数
+     * @param loader      实际的召回调用
+     * @return 召回结果
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> get(String question, List<String> datasetIds, List<String> documentIds,
+            Map<String, Object> params, Supplier<Map<String, Object>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String key;
+        try {
+            key = buildKey(question, datasetIds, documentIds, params);
+        } catch (Exception e) {
+            // 缓存不可用（如Redis异常）时直接调用，不影响召回
+            log.warn("召回缓存key计算失败，跳过缓存: {}", e.getMessage());
+            return loader.get();
+        }
+
+        Map<String, Object> result = localCache.getIfPresent(key);
+        if (result != null) {
+            localHits.increment();
+            return result;
+        }
+
+        String redisKey = RedisKeys.getKnowledgeRetrievalKey(key);
+        try {
+            Object cached = redisUtils.get(redisKey);
+            if (cached instanceof Map) {
+                result = (Map<String, Object>) cached;
+                localCache.put(key, result);
+                redisHits.increment();
+                return result;
+            }
+        } catch (Exception e) {
+            log.warn("读取召回缓存失败: {}", e.getMessage());
+        }
+
+        misses.increment();
+        result = loader.get();
+        if (result != null) {
+            localCache.put(key, result);
+            try {
+                redisUtils.set(redisKey, result, redisExpire);
+            } catch (Exception e) {
+                log.warn("写入召回缓存失败: {}", e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 数据集内容变更后递增版本号，使该数据集相关的召回缓存失效
+     *
+     * @param datasetId 数据集ID
+     */
+    public void bumpVersion(String datasetId) {
+        if (!enabled || datasetId == null) {
+            return;
+        }
+        try {
+            Long version = redisUtils.hIncrement(RedisKeys.getKnowledgeDatasetVersionKey(), datasetId);
+            log.debug("知识库数据版本号递增: datasetId={}, version={}", datasetId, version);
+        } catch (Exception e) {
+            // 版本号无法递增时清空本地缓存，Redis中的旧结果依靠过期时间淘汰
+            localCache.invalidateAll();
+            log.error("知识库数据版本号递增失败: datasetId={}, {}", datasetId, e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存命中率统计
+     */
+    public Map<String, Object> getStats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("requests", total);
+        stats.put("localHits", local);
+        stats.put("redisHits", redis);
+        stats.put("misses", miss);
+        stats.put("hitRate", total == 0 ? 0D : (double) (local + redis) / total);
+        stats.put("localHitRate", total == 0 ? 0D : (double) local / total);
+        stats.put("localSize", localCache.estimatedSize());
+        stats.put("localEvictions", localCache.stats().evictionCount());
+        return stats;
+    }
+
+    private String buildKey(String question, List<String> datasetIds, List<String> documentIds,
+            Map<String, Object> params) throws JsonProcessingException, NoSuchAlgorithmException {
+        List<String> datasets = datasetIds != null ? new ArrayList<>(new TreeSet<>(datasetIds)) : List.of();
+        List<Object> versions = datasets.isEmpty() ? List.of()
+                : redisUtils.hMultiGet(RedisKeys.getKnowledgeDatasetVersionKey(), datasets);
+
+        Map<String, Object> keyParts = new TreeMap<>();
+        keyParts.put("q", normalize(question));
+        keyParts.put("ds", datasets);
+        keyParts.put("v", versions);
+        keyParts.put("docs", documentIds != null ? new TreeSet<>(documentIds) : List.of());
+        Map<String, Object> sortedParams = params != null ? new TreeMap<>(params) : new TreeMap<>();
+        // 问题和ID列表已单独规范化，不重复参与计算
+        sortedParams.remove("question");
+        sortedParams.remove("datasetIds");
+        sortedParams.remove("documentIds");
+        keyParts.put("p", sortedParams);
+
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(KEY_MAPPER.writeValueAsBytes(keyParts));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    /**
+     * 规范化问题：去除首尾空白、合并连续空白、转小写
+     */
+    static String normalize(String question) {
+        if (question == null) {
+            return "";
+        }
+        return question.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+}
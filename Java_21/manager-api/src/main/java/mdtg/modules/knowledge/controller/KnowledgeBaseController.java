@@ -24,6 +24,7 @@ import mdtg.common.exception.ErrorCode;
 import mdtg.common.exception.RenException;
 import mdtg.common.page.PageData;
 import mdtg.common.utils.Result;
+import mdtg.modules.knowledge.cache.RetrievalCache;
 import mdtg.modules.knowledge.dto.KnowledgeBaseDTO;
 import mdtg.modules.knowledge.service.KnowledgeBaseService;
 import mdtg.modules.security.user.SecurityUser;
@@ -35,6 +36,7 @@ import mdtg.modules.security.user.SecurityUser;
 public class KnowledgeBaseController {
 
     private final KnowledgeBaseService knowledgeBaseService;
+    private final RetrievalCache retrievalCache;
 
     @GetMapping
     @Operation(summary = "分页查询知识库列表")
@@ -149,6 +151,13 @@ public class KnowledgeBaseController {
         return new Result<>();
     }
 
+    @GetMapping("/retrieval-cache/stats")
+    @Operation(summary = "召回缓存命中率统计")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<Map<String, Object>> getRetrievalCacheStats() {
+        return new Result<Map<String, Object>>().ok(retrievalCache.getStats());
+    }
+
     @GetMapping("/rag-models")
     @Operation(summary = "获取RAG模型列表")
     @RequiresPermissions("sys:role:normal")
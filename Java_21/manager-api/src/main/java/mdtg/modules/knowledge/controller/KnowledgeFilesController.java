@@ -1,11 +1,16 @@
 package mdtg.modules.knowledge.controller;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,6 +18,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import mdtg.common.exception.ErrorCode;
 import mdtg.common.exception.RenException;
@@ -20,8 +26,12 @@ import mdtg.common.page.PageData;
 import mdtg.common.utils.Result;
 import mdtg.modules.knowledge.dto.KnowledgeBaseDTO;
 import mdtg.modules.knowledge.dto.KnowledgeFilesDTO;
+import mdtg.modules.knowledge.dto.KnowledgeUploadResultDTO;
+import mdtg.modules.knowledge.dto.KnowledgeUploadSessionDTO;
+import mdtg.modules.knowledge.service.DocumentStatusSyncService;
 import mdtg.modules.knowledge.service.KnowledgeBaseService;
 import mdtg.modules.knowledge.service.KnowledgeFilesService;
+import mdtg.modules.knowledge.service.KnowledgeUploadService;
 import mdtg.modules.security.user.SecurityUser;
 
 @AllArgsConstructor
@@ -32,6 +42,8 @@ public class KnowledgeFilesController {
 
     private final KnowledgeFilesService knowledgeFilesService;
     private final KnowledgeBaseService knowledgeBaseService;
+    private final DocumentStatusSyncService documentStatusSyncService;
+    private final KnowledgeUploadService knowledgeUploadService;
 
     /**
      * 验证当前用户是否有权限操作指定知识库
@@ -92,6 +104,26 @@ public class KnowledgeFilesController {
         return new Result<PageData<KnowledgeFilesDTO>>().ok(pageData);
     }
 
+    @GetMapping("/documents/parse-status")
+    @Operation(summary = "获取文档解析状态")
+    @RequiresPermissions("sys:role:normal")
+    public Result<Map<String, String>> getParseStatuses(@PathVariable("dataset_id") String datasetId) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        return new Result<Map<String, String>>().ok(documentStatusSyncService.getStatuses(datasetId));
+    }
+
+    @GetMapping(value = "/documents/parse-status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅文档解析状态变化")
+    @RequiresPermissions("sys:role:normal")
+    public SseEmitter subscribeParseStatuses(@PathVariable("dataset_id") String datasetId) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        return documentStatusSyncService.subscribe(datasetId);
+    }
+
     @PostMapping("/documents")
     @Operation(summary = "上传文档到知识库")
     @RequiresPermissions("sys:role:normal")
@@ -113,6 +145,88 @@ public class KnowledgeFilesController {
         return new Result<KnowledgeFilesDTO>().ok(resp);
     }
 
+    @PostMapping("/documents/batch")
+    @Operation(summary = "批量上传文档到知识库")
+    @RequiresPermissions("sys:role:normal")
+    public Result<List<KnowledgeUploadResultDTO>> uploadDocuments(@PathVariable("dataset_id") String datasetId,
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(required = false) String chunkMethod) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        List<KnowledgeUploadResultDTO> results = knowledgeUploadService.uploadFiles(datasetId, files, chunkMethod);
+        return new Result<List<KnowledgeUploadResultDTO>>().ok(results);
+    }
+
+    @PutMapping(value = "/documents/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "流式上传文档（请求体为文件内容）")
+    @RequiresPermissions("sys:role:normal")
+    public Result<KnowledgeUploadResultDTO> uploadDocumentStream(@PathVariable("dataset_id") String datasetId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String chunkMethod,
+            HttpServletRequest request) throws IOException {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        KnowledgeUploadResultDTO result = knowledgeUploadService.uploadStream(datasetId, fileName,
+                request.getInputStream(), request.getContentLengthLong(), name, chunkMethod);
+        return new Result<KnowledgeUploadResultDTO>().ok(result);
+    }
+
+    @PostMapping("/documents/uploads")
+    @Operation(summary = "创建分片上传会话")
+    @RequiresPermissions("sys:role:normal")
+    public Result<KnowledgeUploadSessionDTO> createUploadSession(@PathVariable("dataset_id") String datasetId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam("size") Long size,
+            @RequestParam(required = false) String chunkMethod) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        KnowledgeUploadSessionDTO session = knowledgeUploadService.createSession(datasetId, fileName, size,
+                chunkMethod);
+        return new Result<KnowledgeUploadSessionDTO>().ok(session);
+    }
+
+    @GetMapping("/documents/uploads/{upload_id}")
+    @Operation(summary = "查询分片上传进度（断点续传）")
+    @RequiresPermissions("sys:role:normal")
+    public Result<KnowledgeUploadSessionDTO> getUploadSession(@PathVariable("dataset_id") String datasetId,
+            @PathVariable("upload_id") String uploadId) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        return new Result<KnowledgeUploadSessionDTO>().ok(knowledgeUploadService.getSession(datasetId, uploadId));
+    }
+
+    @PutMapping(value = "/documents/uploads/{upload_id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "上传分片（请求体为分片内容）")
+    @RequiresPermissions("sys:role:normal")
+    public Result<KnowledgeUploadSessionDTO> uploadChunk(@PathVariable("dataset_id") String datasetId,
+            @PathVariable("upload_id") String uploadId,
+            @RequestParam("offset") Long offset,
+            HttpServletRequest request) throws IOException {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        KnowledgeUploadSessionDTO session = knowledgeUploadService.appendChunk(datasetId, uploadId, offset,
+                request.getInputStream());
+        return new Result<KnowledgeUploadSessionDTO>().ok(session);
+    }
+
+    @DeleteMapping("/documents/uploads/{upload_id}")
+    @Operation(summary = "取消分片上传")
+    @RequiresPermissions("sys:role:normal")
+    public Result<Void> cancelUploadSession(@PathVariable("dataset_id") String datasetId,
+            @PathVariable("upload_id") String uploadId) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        knowledgeUploadService.cancelSession(datasetId, uploadId);
+        return new Result<>();
+    }
+
     @DeleteMapping("/documents/{document_id}")
     @Operation(summary = "删除单个文档")
     @Parameter(name = "document_id", description = "文档ID", required = true)
@@ -126,6 +240,29 @@ public class KnowledgeFilesController {
         return new Result<>();
     }
 
+    @DeleteMapping("/documents/batch")
+    @Operation(summary = "批量删除文档")
+    @Parameter(name = "ids", description = "文档ID列表，用逗号分隔", required = true)
+    @RequiresPermissions("sys:role:normal")
+    public Result<Void> deleteBatch(@PathVariable("dataset_id") String datasetId,
+            @RequestParam("ids") String ids) {
+        // 验证知识库权限
+        validateKnowledgeBasePermission(datasetId);
+
+        List<String> documentIds = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (StringUtils.isNotBlank(id)) {
+                documentIds.add(id.trim());
+            }
+        }
+        if (documentIds.isEmpty()) {
+            throw new RenException(ErrorCode.PARAMS_GET_ERROR);
+        }
+
+        knowledgeFilesService.deleteByDocumentIds(documentIds, datasetId);
+        return new Result<>();
+    }
+
     @PostMapping("/chunks")
     @Operation(summary = "解析文档（切块）")
     @RequiresPermissions("sys:role:normal")
@@ -0,0 +1,36 @@
+package mdtg.modules.knowledge.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "知识库文档上传结果")
+public class KnowledgeUploadResultDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "文件名")
+    private String fileName;
+
+    @Schema(description = "是否上传成功")
+    private boolean success;
+
+    @Schema(description = "失败原因")
+    private String error;
+
+    @Schema(description = "上传的文档信息")
+    private KnowledgeFilesDTO document;
+
+    @Schema(description = "上传字节数")
+    private long bytes;
+
+    @Schema(description = "上传耗时（毫秒）")
+    private long elapsedMs;
+
+    @Schema(description = "上传速率（字节/秒）")
+    private long bytesPerSecond;
+}
@@ -0,0 +1,36 @@
+package mdtg.modules.knowledge.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "知识库文档分片上传会话")
+public class KnowledgeUploadSessionDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "上传会话ID")
+    private String uploadId;
+
+    @Schema(description = "知识库ID")
+    private String datasetId;
+
+    @Schema(description = "文件名")
+    private String fileName;
+
+    @Schema(description = "文件总大小（字节）")
+    private long size;
+
+    @Schema(description = "已接收字节数，断点续传时从该位置继续上传")
+    private long offset;
+
+    @Schema(description = "分块方法")
+    private String chunkMethod;
+
+    @Schema(description = "全部分片接收完成后转发到知识库的结果")
+    private KnowledgeUploadResultDTO result;
+}
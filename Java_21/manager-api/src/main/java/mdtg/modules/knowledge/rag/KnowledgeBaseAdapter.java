@@ -1,7 +1,9 @@
 package mdtg.modules.knowledge.rag;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.web.multipart.MultipartFile;
 
@@ -76,6 +78,28 @@ public abstract class KnowledgeBaseAdapter {
                         String chunkMethod,
                         Map<String, Object> parserConfig);
 
+        /**
+         * 流式上传文档到知识库，文件内容直接从输入流转发，不在本地缓存
+         * 
+         * @param datasetId     知识库ID
+         * @param fileName      文件名
+         * @param content       文件内容
+         * @param contentLength 文件大小，未知时为-1
+         * @param name          文档名称
+         * @param metaFields    元数据字段
+         * @param chunkMethod   分块方法
+         * @param parserConfig  解析器配置
+         * @return 上传的文档信息
+         */
+        public abstract KnowledgeFilesDTO uploadDocumentStream(String datasetId,
+                        String fileName,
+                        InputStream content,
+                        long contentLength,
+                        String name,
+                        Map<String, Object> metaFields,
+                        String chunkMethod,
+                        Map<String, Object> parserConfig);
+
         /**
          * 根据状态分页查询文档列表
          * 
@@ -107,6 +131,73 @@ public abstract class KnowledgeBaseAdapter {
          */
         public abstract boolean parseDocuments(String datasetId, List<String> documentIds);
 
+        /**
+         * 批量删除文档
+         * 默认逐个调用deleteDocument，支持批量接口的适配器可覆盖为分批并发删除
+         * 
+         * @param datasetId   知识库ID
+         * @param documentIds 文档ID列表
+         */
+        public void deleteDocuments(String datasetId, List<String> documentIds) {
+                for (String documentId : documentIds) {
+                        deleteDocument(datasetId, documentId);
+                }
+        }
+
+        /**
+         * 异步删除文档
+         * 
+         * @param datasetId  知识库ID
+         * @param documentId 文档ID
+         * @return 删除完成的Future
+         */
+        public CompletableFuture<Void> deleteDocumentAsync(String datasetId, String documentId) {
+                return CompletableFuture.runAsync(() -> deleteDocument(datasetId, documentId),
+                                RagHttpClients.executor());
+        }
+
+        /**
+         * 异步批量删除文档
+         * 
+         * @param datasetId   知识库ID
+         * @param documentIds 文档ID列表
+         * @return 删除完成的Future
+         */
+        public CompletableFuture<Void> deleteDocumentsAsync(String datasetId, List<String> documentIds) {
+                return CompletableFuture.runAsync(() -> deleteDocuments(datasetId, documentIds),
+                                RagHttpClients.executor());
+        }
+
+        /**
+         * 异步解析文档（切块）
+         * 
+         * @param datasetId   知识库ID
+         * @param documentIds 文档ID列表
+         * @return 解析结果的Future
+         */
+        public CompletableFuture<Boolean> parseDocumentsAsync(String datasetId, List<String> documentIds) {
+                return CompletableFuture.supplyAsync(() -> parseDocuments(datasetId, documentIds),
+                                RagHttpClients.executor());
+        }
+
+        /**
+         * 异步召回测试
+         * 
+         * @param question        用户查询
+         * @param datasetIds      数据集ID列表
+         * @param documentIds     文档ID列表
+         * @param retrievalParams 检索参数
+         * @return 召回测试结果的Future
+         */
+        public CompletableFuture<Map<String, Object>> retrievalTestAsync(String question,
+                        List<String> datasetIds,
+                        List<String> documentIds,
+                        Map<String, Object> retrievalParams) {
+                return CompletableFuture.supplyAsync(
+                                () -> retrievalTest(question, datasetIds, documentIds, retrievalParams),
+                                RagHttpClients.executor());
+        }
+
         /**
          * 列出指定文档的切片
          * 
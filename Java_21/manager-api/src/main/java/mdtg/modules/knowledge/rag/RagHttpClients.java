@@ -0,0 +1,171 @@
+package mdtg.modules.knowledge.rag;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import mdtg.common.exception.ErrorCode;
+import mdtg.common.exception.RenException;
+
+/**
+ * 知识库适配器共享的HTTP客户端
+ * 所有适配器实例共用同一个JDK HttpClient（内置连接池，优先HTTP/2，服务端不支持时回退HTTP/1.1），
+ * 避免每个适配器各自创建RestTemplate导致连接无法复用；异步请求和批量操作在虚拟线程上执行
+ */
+public final class RagHttpClients {
+
+    /**
+     * 默认连接超时（毫秒）
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    /**
+     * 默认读取超时（毫秒）
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    /**
+     * 默认文档上传超时（毫秒）
+     */
+    public static final int DEFAULT_UPLOAD_TIMEOUT = 600000;
+
+    /**
+     * 批量操作默认并发数
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    /**
+     * 批量操作默认每批文档数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    // 按连接超时缓存HttpClient，相同配置的适配器共享连接池
+    private static final Map<Integer, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private RagHttpClients() {
+    }
+
+    /**
+     * 获取共享的HttpClient
+     *
+     * @param connectTimeout 连接超时（毫秒）
+     * @return HttpClient实例
+     */
+    public static HttpClient httpClient(int connectTimeout) {
+        return CLIENTS.computeIfAbsent(connectTimeout, timeout -> HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(timeout))
+                .executor(EXECUTOR)
+                .build());
+    }
+
+    /**
+     * 基于共享HttpClient创建RestTemplate
+     *
+     * @param connectTimeout 连接超时（毫秒）
+     * @param readTimeout    读取超时（毫秒）
+     * @return RestTemplate实例
+     */
+    public static RestTemplate restTemplate(int connectTimeout, int readTimeout) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient(connectTimeout), EXECUTOR);
+        factory.setReadTimeout(Duration.ofMillis(readTimeout));
+        return new RestTemplate(factory);
+    }
+
+    /**
+     * 异步请求使用的执行器
+     */
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * 从适配器配置中读取整数参数
+     *
+     * @param config       配置参数
+     * @param key          参数名
+     * @param defaultValue 默认值
+     * @return 参数值
+     */
+    public static int intConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config != null ? config.get(key) : null;
+        if (value instanceof Number) {
+            return ((Number) value).intValue() > 0 ? ((Number) value).intValue() : defaultValue;
+        }
+        if (value instanceof String && !((String) value).isBlank()) {
+            try {
+                int parsed = Integer.parseInt(((String) value).trim());
+                return parsed > 0 ? parsed : defaultValue;
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 将列表按批次拆分后并发执行，同时执行的批次数不超过maxConcurrency
+     *
+     * @param items          待处理列表
+     * @param batchSize      每批数量
+     * @param maxConcurrency 最大并发数
+     * @param action         每批的处理逻辑
+     * @return 按批次顺序排列的结果
+     */
+    public static <T, R> List<R> fanOut(List<T> items, int batchSize, int maxConcurrency,
+            Function<List<T>, R> action) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += batchSize) {
+            batches.add(items.subList(i, Math.min(i + batchSize, items.size())));
+        }
+        if (batches.size() == 1) {
+            return List.of(action.apply(batches.get(0)));
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<CompletableFuture<R>> futures = new ArrayList<>(batches.size());
+        for (List<T> batch : batches) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    return action.apply(batch);
+                } finally {
+                    permits.release();
+                }
+            }, EXECUTOR));
+        }
+
+        List<R> results = new ArrayList<>(futures.size());
+        RenException failure = null;
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                // 等待所有批次结束后再抛出第一个异常，避免后台请求仍在执行时调用方已返回
+                if (failure == null) {
+                    failure = e.getCause() instanceof RenException ? (RenException) e.getCause()
+                            : new RenException(ErrorCode.RAG_API_ERROR, String.valueOf(e.getCause().getMessage()));
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+}
@@ -1,23 +1,31 @@
 package mdtg.modules.knowledge.rag.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.io.AbstractResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -30,6 +38,11 @@ import mdtg.common.exception.RenException;
 import mdtg.common.page.PageData;
 import mdtg.modules.knowledge.dto.KnowledgeFilesDTO;
 import mdtg.modules.knowledge.rag.KnowledgeBaseAdapter;
+import mdtg.modules.knowledge.rag.RagHttpClients;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowChunk;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowDocument;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowPage;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowResponseReader;
 
 /**
  * RAGFlow知识库适配器实现
@@ -39,13 +52,20 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
 
     private static final String ADAPTER_TYPE = "ragflow";
 
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     private RestTemplate restTemplate;
-    private ObjectMapper objectMapper;
     private Map<String, Object> config;
+    // 批量操作每批文档数和最大并发批次数
+    private int batchSize = RagHttpClients.DEFAULT_BATCH_SIZE;
+    private int maxConcurrency = RagHttpClients.DEFAULT_MAX_CONCURRENCY;
+    // 流式上传直接使用共享HttpClient，上传超时覆盖整个文件的发送时间
+    private int connectTimeout = RagHttpClients.DEFAULT_CONNECT_TIMEOUT;
+    private int uploadTimeout = RagHttpClients.DEFAULT_UPLOAD_TIMEOUT;
 
     public RAGFlowAdapter() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+        this.restTemplate = RagHttpClients.restTemplate(RagHttpClients.DEFAULT_CONNECT_TIMEOUT,
+                RagHttpClients.DEFAULT_READ_TIMEOUT);
     }
 
     @Override
@@ -56,6 +76,14 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
     @Override
     public void initialize(Map<String, Object> config) {
         this.config = config;
+        this.connectTimeout = RagHttpClients.intConfig(config, "connect_timeout",
+                RagHttpClients.DEFAULT_CONNECT_TIMEOUT);
+        this.uploadTimeout = RagHttpClients.intConfig(config, "upload_timeout", RagHttpClients.DEFAULT_UPLOAD_TIMEOUT);
+        this.restTemplate = RagHttpClients.restTemplate(connectTimeout,
+                RagHttpClients.intConfig(config, "timeout", RagHttpClients.DEFAULT_READ_TIMEOUT));
+        this.batchSize = RagHttpClients.intConfig(config, "batch_size", RagHttpClients.DEFAULT_BATCH_SIZE);
+        this.maxConcurrency = RagHttpClients.intConfig(config, "max_concurrency",
+                RagHttpClients.DEFAULT_MAX_CONCURRENCY);
         log.info("RAGFlow适配器初始化完成，配置参数: {}", config.keySet());
     }
 
@@ -201,40 +229,18 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
             url = urlBuilder.toString();
             log.debug("RAGFlow API请求URL: {}", url);
 
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-
-            // 发送GET请求
+            // 发送GET请求，响应体直接流式解码
             log.info("发送GET请求到RAGFlow API获取文档列表...");
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, requestEntity, String.class);
-
-            log.info("RAGFlow API响应状态码: {}", response.getStatusCode());
+            RAGFlowPage<RAGFlowDocument> documents = restTemplate.execute(url, HttpMethod.GET,
+                    request -> request.getHeaders().set("Authorization", "Bearer " + apiKey),
+                    response -> RAGFlowResponseReader.readDocumentPage(response.getBody()));
 
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                log.error("RAGFlow API调用失败，状态码: {}", response.getStatusCode());
-                throw new RenException(ErrorCode.RAG_API_ERROR, response.getStatusCode().toString());
-            }
-
-            String responseBody = response.getBody();
-            log.debug("RAGFlow API原始响应: {}", responseBody);
-
-            Map<String, Object> responseMap = objectMapper.readValue(responseBody, Map.class);
-            Integer code = (Integer) responseMap.get("code");
-
-            if (code != null && code == 0) {
-                Object dataObj = responseMap.get("data");
-                log.debug("RAGFlow API返回的data字段: {}", dataObj);
-                return parseDocumentListResponse(dataObj, page, limit);
-            } else {
-                String apiMessage = (String) responseMap.get("message");
-                String errorDetail = apiMessage != null ? apiMessage : "无详细错误信息";
-                log.error("RAGFlow API调用失败，响应码: {}, 错误详情: {}", code, errorDetail);
-                throw new RenException(ErrorCode.RAG_API_ERROR, errorDetail);
+            List<KnowledgeFilesDTO> knowledgeFilesList = new ArrayList<>(documents.getItems().size());
+            for (RAGFlowDocument document : documents.getItems()) {
+                knowledgeFilesList.add(toKnowledgeFilesDTO(document));
             }
+            log.info("成功解析RAGFlow API响应，获取到{}个文档，总数: {}", knowledgeFilesList.size(), documents.getTotal());
+            return new PageData<KnowledgeFilesDTO>(knowledgeFilesList, documents.getTotal());
 
         } catch (Exception e) {
             log.error("RAGFlow适配器获取文档列表失败: {}", e.getMessage(), e);
@@ -258,6 +264,19 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
     public KnowledgeFilesDTO uploadDocument(String datasetId, MultipartFile file, String name,
             Map<String, Object> metaFields, String chunkMethod,
             Map<String, Object> parserConfig) {
+        try (InputStream content = file.getInputStream()) {
+            return uploadDocumentStream(datasetId, file.getOriginalFilename(), content, file.getSize(), name,
+                    metaFields, chunkMethod, parserConfig);
+        } catch (IOException e) {
+            log.error("读取上传文件失败: {}", e.getMessage(), e);
+            throw new RenException(ErrorCode.RAG_API_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public KnowledgeFilesDTO uploadDocumentStream(String datasetId, String fileName, InputStream content,
+            long contentLength, String name, Map<String, Object> metaFields, String chunkMethod,
+            Map<String, Object> parserConfig) {
         try {
             log.info("=== RAGFlow适配器开始文档上传操作 ===");
 
@@ -267,64 +286,68 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
 
             String url = baseUrl + "/api/v1/datasets/" + datasetId + "/documents";
 
-            // 构建多部分请求
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-
-            // 添加文件
-            body.add("file", new MultipartFileResource(file));
-
-            // 添加其他参数
+            // 手工拼装multipart请求体：表单字段 + 文件头 + 文件流 + 结束边界，文件内容直接从输入流转发
+            String boundary = "----RAGFlowBoundary" + UUID.randomUUID().toString().replace("-", "");
+            StringBuilder preamble = new StringBuilder();
             if (StringUtils.isNotBlank(name)) {
-                body.add("name", name);
+                appendFormField(preamble, boundary, "name", name);
             }
-
             if (metaFields != null && !metaFields.isEmpty()) {
-                body.add("meta", objectMapper.writeValueAsString(metaFields));
+                appendFormField(preamble, boundary, "meta", objectMapper.writeValueAsString(metaFields));
             }
-
             if (StringUtils.isNotBlank(chunkMethod)) {
-                body.add("chunk_method", chunkMethod);
+                appendFormField(preamble, boundary, "chunk_method", chunkMethod);
             }
-
             if (parserConfig != null && !parserConfig.isEmpty()) {
-                body.add("parser_config", objectMapper.writeValueAsString(parserConfig));
+                appendFormField(preamble, boundary, "parser_config", objectMapper.writeValueAsString(parserConfig));
             }
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+            preamble.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"file\"; filename=\"")
+                    .append(fileName.replace("\"", "%22")).append("\"\r\n")
+                    .append("Content-Type: application/octet-stream\r\n\r\n");
+            byte[] head = preamble.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+            // 文件流只能读取一次，请求体需要重发（如307/308重定向）时直接失败，避免发送截断的请求体
+            AtomicBoolean consumed = new AtomicBoolean();
+            Supplier<InputStream> body = () -> {
+                if (!consumed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("上传文件流不支持重发");
+                }
+                return new SequenceInputStream(Collections.enumeration(List.of(
+                        new ByteArrayInputStream(head), content, new ByteArrayInputStream(tail))));
+            };
+            HttpRequest.BodyPublisher publisher = contentLength >= 0
+                    ? HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(body),
+                            head.length + contentLength + tail.length)
+                    : HttpRequest.BodyPublishers.ofInputStream(body);
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofMillis(uploadTimeout))
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(publisher)
+                    .build();
 
             // 发送POST请求
             log.info("发送POST请求到RAGFlow API上传文档...");
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, requestEntity, String.class);
+            HttpResponse<InputStream> response = RagHttpClients.httpClient(connectTimeout).send(request,
+                    HttpResponse.BodyHandlers.ofInputStream());
 
-            log.info("RAGFlow API响应状态码: {}", response.getStatusCode());
+            log.info("RAGFlow API响应状态码: {}", response.statusCode());
 
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                log.error("RAGFlow API调用失败，状态码: {}", response.getStatusCode());
-                throw new RenException(ErrorCode.RAG_API_ERROR, response.getStatusCode().toString());
-            }
-
-            String responseBody = response.getBody();
-            log.debug("RAGFlow API获取文档数量原始响应: {}", responseBody);
-            Map<String, Object> responseMap = objectMapper.readValue(responseBody, Map.class);
-            Integer code = (Integer) responseMap.get("code");
-
-            log.debug("RAGFlow API获取文档数量响应码: {}, data字段: {}", code, responseMap.get("data"));
-
-            if (code != null && code == 0) {
-                Object dataObj = responseMap.get("data");
-                return parseUploadResponse(dataObj, datasetId, file);
-            } else {
-                String apiMessage = (String) responseMap.get("message");
-                String errorDetail = apiMessage != null ? apiMessage : "无详细错误信息";
-                log.error("RAGFlow API调用失败，响应码: {}, 错误详情: {}", code, errorDetail);
-                throw new RenException(ErrorCode.RAG_API_ERROR, errorDetail);
+            try (InputStream responseBody = response.body()) {
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    log.error("RAGFlow API调用失败，状态码: {}", response.statusCode());
+                    throw new RenException(ErrorCode.RAG_API_ERROR, String.valueOf(response.statusCode()));
+                }
+                List<RAGFlowDocument> documents = RAGFlowResponseReader.readDocuments(responseBody);
+                return parseUploadResponse(documents, datasetId, fileName, contentLength);
             }
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RenException(ErrorCode.RAG_API_ERROR, "上传被中断");
         } catch (Exception e) {
             log.error("RAGFlow适配器文档上传失败: {}", e.getMessage(), e);
             if (e instanceof RenException) {
@@ -336,6 +359,12 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
         }
     }
 
+    private static void appendFormField(StringBuilder builder, String boundary, String name, String value) {
+        builder.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n\r\n")
+                .append(value).append("\r\n");
+    }
+
     @Override
     public PageData<KnowledgeFilesDTO> getDocumentListByStatus(String datasetId, Integer status, Integer page,
             Integer limit) {
@@ -389,6 +418,24 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
 
     @Override
     public void deleteDocument(String datasetId, String documentId) {
+        List<String> documentIds = new ArrayList<>();
+        documentIds.add(documentId);
+        deleteDocumentBatch(datasetId, documentIds);
+    }
+
+    @Override
+    public void deleteDocuments(String datasetId, List<String> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return;
+        }
+        // RAGFlow删除接口支持一次传多个文档ID，按批拆分后并发请求
+        RagHttpClients.fanOut(documentIds, batchSize, maxConcurrency, batch -> {
+            deleteDocumentBatch(datasetId, batch);
+            return batch.size();
+        });
+    }
+
+    private void deleteDocumentBatch(String datasetId, List<String> documentIds) {
         try {
             log.info("=== RAGFlow适配器开始删除文档 ===");
 
@@ -405,8 +452,6 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
 
             // 构建请求体 - 根据API文档，需要传递文档ID列表
             Map<String, Object> requestBody = new HashMap<>();
-            List<String> documentIds = new ArrayList<>();
-            documentIds.add(documentId);
             requestBody.put("ids", documentIds);
 
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
@@ -428,7 +473,7 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
             Integer code = (Integer) responseMap.get("code");
 
             if (code != null && code == 0) {
-                log.info("文档删除成功: documentId={}, datasetId={}", documentId, datasetId);
+                log.info("文档删除成功: documentIds={}, datasetId={}", documentIds, datasetId);
             } else {
                 String apiMessage = (String) responseMap.get("message");
                 String errorDetail = apiMessage != null ? apiMessage : "无详细错误信息";
@@ -449,6 +494,13 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
 
     @Override
     public boolean parseDocuments(String datasetId, List<String> documentIds) {
+        // 文档较多时按批拆分后并发请求，所有批次都成功才返回true
+        List<Boolean> results = RagHttpClients.fanOut(documentIds, batchSize, maxConcurrency,
+                batch -> parseDocumentBatch(datasetId, batch));
+        return !results.contains(Boolean.FALSE);
+    }
+
+    private boolean parseDocumentBatch(String datasetId, List<String> documentIds) {
         try {
             log.info("=== RAGFlow适配器开始解析文档 ===");
 
@@ -536,50 +588,21 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
 
             String finalUrl = builder.toUriString();
 
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-
-            // 发送GET请求
+            // 发送GET请求，响应体直接流式解码
             log.info("发送GET请求到RAGFlow API列出切片...");
-            ResponseEntity<String> response = restTemplate.exchange(finalUrl, HttpMethod.GET, requestEntity,
-                    String.class);
-
-            log.info("RAGFlow API响应状态码: {}", response.getStatusCode());
+            RAGFlowPage<RAGFlowChunk> chunks = restTemplate.execute(finalUrl, HttpMethod.GET,
+                    request -> request.getHeaders().set("Authorization", "Bearer " + apiKey),
+                    response -> RAGFlowResponseReader.readChunkPage(response.getBody()));
 
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                log.error("RAGFlow API调用失败，状态码: {}", response.getStatusCode());
-                throw new RenException(ErrorCode.RAG_API_ERROR, response.getStatusCode().toString());
-            }
+            // 构建返回结果
+            Map<String, Object> result = new HashMap<>();
+            result.put("chunks", chunks.getItems());
+            result.put("document", chunks.getDocument());
+            result.put("total", chunks.getTotal());
 
-            String responseBody = response.getBody();
-            Map<String, Object> responseMap = objectMapper.readValue(responseBody, Map.class);
-            Integer code = (Integer) responseMap.get("code");
-
-            if (code != null && code == 0) {
-                Map<String, Object> data = (Map<String, Object>) responseMap.get("data");
-
-                // 解析切片数据
-                List<Map<String, Object>> chunks = (List<Map<String, Object>>) data.get("chunks");
-                Map<String, Object> doc = (Map<String, Object>) data.get("doc");
-                Integer total = (Integer) data.get("total");
-
-                // 构建返回结果
-                Map<String, Object> result = new HashMap<>();
-                result.put("chunks", chunks);
-                result.put("document", doc);
-                result.put("total", total);
-
-                log.info("切片列表获取成功: datasetId={}, documentId={}, 切片数量={}", datasetId, documentId, total);
-                return result;
-            } else {
-                String apiMessage = (String) responseMap.get("message");
-                String errorDetail = apiMessage != null ? apiMessage : "无详细错误信息";
-                log.error("RAGFlow API调用失败，响应码: {}, 错误详情: {}", code, errorDetail);
-                throw new RenException(ErrorCode.RAG_API_ERROR, errorDetail);
-            }
+            log.info("切片列表获取成功: datasetId={}, documentId={}, 切片数量={}", datasetId, documentId,
+                    chunks.getTotal());
+            return result;
 
         } catch (Exception e) {
             log.error("RAGFlow适配器列出切片失败: {}", e.getMessage(), e);
@@ -751,13 +774,21 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
         supportedConfig.put("base_url", "RAGFlow API基础URL");
         supportedConfig.put("api_key", "RAGFlow API密钥");
         supportedConfig.put("timeout", "请求超时时间（毫秒）");
+        supportedConfig.put("connect_timeout", "连接超时时间（毫秒）");
+        supportedConfig.put("upload_timeout", "文档上传超时时间（毫秒）");
+        supportedConfig.put("batch_size", "批量解析/删除时每次请求的文档数");
+        supportedConfig.put("max_concurrency", "批量解析/删除时的最大并发请求数");
         return supportedConfig;
     }
 
     @Override
     public Map<String, Object> getDefaultConfig() {
         Map<String, Object> defaultConfig = new HashMap<>();
-        defaultConfig.put("timeout", 30000);
+        defaultConfig.put("timeout", RagHttpClients.DEFAULT_READ_TIMEOUT);
+        defaultConfig.put("connect_timeout", RagHttpClients.DEFAULT_CONNECT_TIMEOUT);
+        defaultConfig.put("upload_timeout", RagHttpClients.DEFAULT_UPLOAD_TIMEOUT);
+        defaultConfig.put("batch_size", RagHttpClients.DEFAULT_BATCH_SIZE);
+        defaultConfig.put("max_concurrency", RagHttpClients.DEFAULT_MAX_CONCURRENCY);
         return defaultConfig;
     }
 
@@ -979,177 +1010,50 @@ public class RAGFlowAdapter extends KnowledgeBaseAdapter {
     }
 
     // 辅助方法
-    private PageData<KnowledgeFilesDTO> parseDocumentListResponse(Object dataObj, long curPage, long pageSize) {
-        try {
-            if (dataObj == null) {
-                log.warn("RAGFlow API返回的data字段为空");
-                return new PageData<KnowledgeFilesDTO>(new ArrayList<>(), 0);
-            }
-
-            log.debug("parseDocumentListResponse接收到的dataObj类型: {}", dataObj.getClass().getName());
-            log.debug("parseDocumentListResponse接收到的dataObj内容: {}", dataObj);
-
-            Map<String, Object> dataMap = (Map<String, Object>) dataObj;
-
-            // 解析文档列表 - 根据RAGFlow API文档，字段名是"docs"
-            List<Map<String, Object>> documents = (List<Map<String, Object>>) dataMap.get("docs");
-            if (documents == null || documents.isEmpty()) {
-                log.info("RAGFlow API返回的文档列表为空");
-                return new PageData<KnowledgeFilesDTO>(new ArrayList<>(), 0);
-            }
-
-            List<KnowledgeFilesDTO> knowledgeFilesList = new ArrayList<>();
-
-            for (Map<String, Object> doc : documents) {
-                KnowledgeFilesDTO knowledgeFile = new KnowledgeFilesDTO();
-
-                // 解析文档基本信息 - 根据RAGFlow API文档调整字段名
-                if (doc.containsKey("id")) {
-                    knowledgeFile.setId((String) doc.get("id"));
-                }
-                if (doc.containsKey("name")) {
-                    knowledgeFile.setName((String) doc.get("name"));
-                }
-                if (doc.containsKey("size")) {
-                    // 文件大小字段可能是字符串或数字类型
-                    Object sizeObj = doc.get("size");
-                    if (sizeObj instanceof Number) {
-                        knowledgeFile.setFileSize(((Number) sizeObj).longValue());
-                    } else if (sizeObj instanceof String) {
-                        try {
-                            knowledgeFile.setFileSize(Long.parseLong((String) sizeObj));
-                        } catch (NumberFormatException e) {
-                            log.warn("无法解析size字符串: {}", sizeObj);
-                            knowledgeFile.setFileSize(0L);
-                        }
-                    }
-                }
-                if (doc.containsKey("status")) {
-                    // 状态字段可能是字符串或数字类型
-                    Object statusObj = doc.get("status");
-                    if (statusObj instanceof Number) {
-                        knowledgeFile.setStatus(((Number) statusObj).intValue());
-                    } else if (statusObj instanceof String) {
-                        try {
-                            knowledgeFile.setStatus(Integer.parseInt((String) statusObj));
-                        } catch (NumberFormatException e) {
-                            log.warn("无法解析status字符串: {}", statusObj);
-                            knowledgeFile.setStatus(0);
-                        }
-                    }
-                }
-                if (doc.containsKey("create_time")) {
-                    // RAGFlow API返回的时间戳可能是字符串或数字类型
-                    Object createTimeObj = doc.get("create_time");
-                    Long createTime = null;
-
-                    if (createTimeObj instanceof Number) {
-                        createTime = ((Number) createTimeObj).longValue();
-                    } else if (createTimeObj instanceof String) {
-                        try {
-                            createTime = Long.parseLong((String) createTimeObj);
-                        } catch (NumberFormatException e) {
-                            log.warn("无法解析create_time字符串: {}", createTimeObj);
-                        }
-                    }
-
-                    if (createTime != null && createTime > 0) {
-                        knowledgeFile.setCreatedAt(new Date(createTime));
-                    } else {
-                        knowledgeFile.setCreatedAt(new Date());
-                    }
-                }
-                if (doc.containsKey("update_time")) {
-                    // RAGFlow API返回的时间戳可能是字符串或数字类型
-                    Object updateTimeObj = doc.get("update_time");
-                    Long updateTime = null;
-
-                    if (updateTimeObj instanceof Number) {
-                        updateTime = ((Number) updateTimeObj).longValue();
-                    } else if (updateTimeObj instanceof String) {
-                        try {
-                            updateTime = Long.parseLong((String) updateTimeObj);
-                        } catch (NumberFormatException e) {
-                            log.warn("无法解析update_time字符串: {}", updateTimeObj);
-                        }
-                    }
-
-                    if (updateTime != null && updateTime > 0) {
-                        knowledgeFile.setUpdatedAt(new Date(updateTime));
-                    } else {
-                        knowledgeFile.setUpdatedAt(new Date());
-                    }
-                }
-
-                // 处理文档解析状态字段 run
-                if (doc.containsKey("run")) {
-                    Object runObj = doc.get("run");
-                    if (runObj != null) {
-                        knowledgeFile.setRun(runObj.toString());
-                        log.debug("设置文档解析状态: documentId={}, run={}", knowledgeFile.getId(), runObj);
-                    }
-                }
-
-                knowledgeFilesList.add(knowledgeFile);
-            }
-
-            // 解析总记录数 - 根据RAGFlow API响应，字段名是"total"
-            long total = 0;
-            if (dataMap.containsKey("total")) {
-                total = ((Number) dataMap.get("total")).longValue();
-            }
-
-            log.info("成功解析RAGFlow API响应，获取到{}个文档，总数: {}", knowledgeFilesList.size(), total);
-            return new PageData<KnowledgeFilesDTO>(knowledgeFilesList, total);
-
-        } catch (Exception e) {
-            log.error("解析RAGFlow API文档列表响应失败: {}", e.getMessage(), e);
-            return new PageData<KnowledgeFilesDTO>(new ArrayList<>(), 0);
-        }
+    private KnowledgeFilesDTO toKnowledgeFilesDTO(RAGFlowDocument document) {
+        KnowledgeFilesDTO knowledgeFile = new KnowledgeFilesDTO();
+        knowledgeFile.setId(document.getId());
+        knowledgeFile.setDocumentId(document.getId());
+        knowledgeFile.setName(document.getName());
+        knowledgeFile.setDatasetId(document.getDatasetId());
+        knowledgeFile.setFileSize(document.getSize());
+        knowledgeFile.setStatus(document.getStatus());
+        knowledgeFile.setRun(document.getRun());
+        knowledgeFile.setChunkMethod(document.getChunkMethod());
+        knowledgeFile.setParserConfig(document.getParserConfig());
+        knowledgeFile.setMetaFields(document.getMetaFields());
+        // RAGFlow时间戳为毫秒
+        knowledgeFile.setCreatedAt(document.getCreateTime() != null && document.getCreateTime() > 0
+                ? new Date(document.getCreateTime())
+                : new Date());
+        knowledgeFile.setUpdatedAt(document.getUpdateTime() != null && document.getUpdateTime() > 0
+                ? new Date(document.getUpdateTime())
+                : new Date());
+        return knowledgeFile;
     }
 
-    private KnowledgeFilesDTO parseUploadResponse(Object dataObj, String datasetId, MultipartFile file) {
-        // 解析上传响应的逻辑
-        // 这里需要实现从RAGFlow API响应中解析上传结果
+    private KnowledgeFilesDTO parseUploadResponse(List<RAGFlowDocument> documents, String datasetId, String fileName,
+            long size) {
         KnowledgeFilesDTO result = new KnowledgeFilesDTO();
         result.setDatasetId(datasetId);
-        result.setName(file.getOriginalFilename());
-        result.setFileSize(file.getSize());
+        result.setName(fileName);
+        result.setFileSize(size >= 0 ? size : null);
         result.setStatus(1);
-        return result;
-    }
-
-    // MultipartFile资源包装类
-    private static class MultipartFileResource extends AbstractResource {
-        private final MultipartFile multipartFile;
-
-        public MultipartFileResource(MultipartFile multipartFile) {
-            this.multipartFile = multipartFile;
-        }
-
-        @Override
-        public String getDescription() {
-            return "MultipartFile resource [" + multipartFile.getOriginalFilename() + "]";
-        }
-
-        @Override
-        public String getFilename() {
-            return multipartFile.getOriginalFilename();
-        }
-
-        @Override
-        public InputStream getInputStream() throws IOException {
-            return multipartFile.getInputStream();
-        }
-
-        @Override
-        public long contentLength() throws IOException {
-            return multipartFile.getSize();
-        }
-
-        @Override
-        public boolean exists() {
-            return !multipartFile.isEmpty();
+        // RAGFlow返回上传成功的文档列表，单文件上传取第一个
+        if (!documents.isEmpty()) {
+            RAGFlowDocument document = documents.get(0);
+            result.setId(document.getId());
+            result.setDocumentId(document.getId());
+            if (document.getName() != null) {
+                result.setName(document.getName());
+            }
+            if (document.getSize() != null) {
+                result.setFileSize(document.getSize());
+            }
+            if (document.getRun() != null) {
+                result.setRun(document.getRun());
+            }
         }
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package mdtg.modules.knowledge.rag.impl.ragflow;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+/**
+ * RAGFlow切片
+ */
+@Data
+public class RAGFlowChunk {
+    private String id;
+    private String content;
+    @JsonProperty("document_id")
+    private String documentId;
+    @JsonProperty("docnm_kwd")
+    private String documentName;
+    @JsonProperty("dataset_id")
+    private String datasetId;
+    @JsonProperty("image_id")
+    private String imageId;
+    @JsonProperty("important_keywords")
+    private List<String> importantKeywords;
+    private List<String> questions;
+    private List<List<Number>> positions;
+    private Boolean available;
+    @JsonProperty("create_time")
+    private String createTime;
+    @JsonProperty("create_timestamp")
+    private Double createTimestamp;
+}
@@ -0,0 +1,45 @@
+package mdtg.modules.knowledge.rag.impl.ragflow;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+/**
+ * RAGFlow文档
+ */
+@Data
+public class RAGFlowDocument {
+    private String id;
+    private String name;
+    private String type;
+    private Long size;
+    /**
+     * 启用状态，RAGFlow返回字符串"1"/"0"
+     */
+    private Integer status;
+    /**
+     * 解析状态：UNSTART/RUNNING/CANCEL/DONE/FAIL
+     */
+    private String run;
+    private Double progress;
+    @JsonProperty("progress_msg")
+    private String progressMsg;
+    @JsonProperty("dataset_id")
+    private String datasetId;
+    @JsonProperty("chunk_method")
+    private String chunkMethod;
+    @JsonProperty("chunk_count")
+    private Long chunkCount;
+    @JsonProperty("token_count")
+    private Long tokenCount;
+    @JsonProperty("parser_config")
+    private Map<String, Object> parserConfig;
+    @JsonProperty("meta_fields")
+    private Map<String, Object> metaFields;
+    @JsonProperty("create_time")
+    private Long createTime;
+    @JsonProperty("update_time")
+    private Long updateTime;
+}
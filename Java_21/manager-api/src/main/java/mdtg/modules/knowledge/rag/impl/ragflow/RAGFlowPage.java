@@ -0,0 +1,19 @@
+package mdtg.modules.knowledge.rag.impl.ragflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * RAGFlow分页列表（文档列表的docs、切片列表的chunks）
+ */
+@Data
+public class RAGFlowPage<T> {
+    private List<T> items = new ArrayList<>();
+    private long total;
+    /**
+     * 切片列表所属的文档，文档列表中为空
+     */
+    private RAGFlowDocument document;
+}
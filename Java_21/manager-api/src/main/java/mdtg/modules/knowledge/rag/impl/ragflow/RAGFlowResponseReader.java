@@ -0,0 +1,376 @@
+package mdtg.modules.knowledge.rag.impl.ragflow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import mdtg.common.exception.ErrorCode;
+import mdtg.common.exception.RenException;
+
+/**
+ * RAGFlow响应解析
+ * 使用Jackson流式解析器直接把响应体解码为类型化对象，不再先转换为Map再逐条按候选字段名查找；
+ * 字段名按RAGFlow API固定，未知字段直接跳过，不会为其创建对象
+ */
+public final class RAGFlowResponseReader {
+
+    // parser_config、meta_fields等自由结构字段需要ObjectCodec解码为Map
+    private static final JsonFactory JSON_FACTORY = new ObjectMapper().getFactory();
+
+    private RAGFlowResponseReader() {
+    }
+
+    /**
+     * 解码data字段的处理逻辑
+     */
+    @FunctionalInterface
+    private interface ValueReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * 解析文档列表响应（GET /datasets/{id}/documents）
+     */
+    public static RAGFlowPage<RAGFlowDocument> readDocumentPage(InputStream in) throws IOException {
+        RAGFlowPage<RAGFlowDocument> page = readEnvelope(in,
+                parser -> readPage(parser, "docs", RAGFlowResponseReader::readDocument));
+        return page != null ? page : new RAGFlowPage<>();
+    }
+
+    /**
+     * 解析切片列表响应（GET /datasets/{id}/documents/{id}/chunks）
+     */
+    public static RAGFlowPage<RAGFlowChunk> readChunkPage(InputStream in) throws IOException {
+        RAGFlowPage<RAGFlowChunk> page = readEnvelope(in,
+                parser -> readPage(parser, "chunks", RAGFlowResponseReader::readChunk));
+        return page != null ? page : new RAGFlowPage<>();
+    }
+
+    /**
+     * 解析上传文档响应（POST /datasets/{id}/documents），data为上传成功的文档数组
+     */
+    public static List<RAGFlowDocument> readDocuments(InputStream in) throws IOException {
+        List<RAGFlowDocument> documents = readEnvelope(in,
+                parser -> readArray(parser, RAGFlowResponseReader::readDocument));
+        return documents != null ? documents : new ArrayList<>();
+    }
+
+    /**
+     * 解析外层{code, message, data}，code不为0时抛出RAGFlow返回的错误信息
+     */
+    private static <T> T readEnvelope(InputStream in, ValueReader<T> dataReader) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RenException(ErrorCode.RAG_API_ERROR, "RAGFlow响应格式错误");
+            }
+            Long code = null;
+            String message = null;
+            T data = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "code":
+                        code = readLong(parser);
+                        break;
+                    case "message":
+                        message = readString(parser);
+                        break;
+                    case "data":
+                        data = dataReader.read(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (code == null || code != 0) {
+                throw new RenException(ErrorCode.RAG_API_ERROR, message != null ? message : "无详细错误信息");
+            }
+            return data;
+        }
+    }
+
+    private static <T> RAGFlowPage<T> readPage(JsonParser parser, String itemsField, ValueReader<T> itemReader)
+            throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        RAGFlowPage<T> page = new RAGFlowPage<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (itemsField.equals(field)) {
+                List<T> items = readArray(parser, itemReader);
+                if (items != null) {
+                    page.setItems(items);
+                }
+            } else if ("total".equals(field)) {
+                Long total = readLong(parser);
+                page.setTotal(total != null ? total : 0);
+            } else if ("doc".equals(field)) {
+                page.setDocument(readDocument(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return page;
+    }
+
+    private static <T> List<T> readArray(JsonParser parser, ValueReader<T> itemReader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<T> items = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            T item = itemReader.read(parser);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private static RAGFlowDocument readDocument(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        RAGFlowDocument document = new RAGFlowDocument();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    document.setId(readString(parser));
+                    break;
+                case "name":
+                    document.setName(readString(parser));
+                    break;
+                case "type":
+                    document.setType(readString(parser));
+                    break;
+                case "size":
+                    document.setSize(readLong(parser));
+                    break;
+                case "status":
+                    Long status = readLong(parser);
+                    document.setStatus(status != null ? status.intValue() : null);
+                    break;
+                case "run":
+                    document.setRun(readString(parser));
+                    break;
+                case "progress":
+                    document.setProgress(readDouble(parser));
+                    break;
+                case "progress_msg":
+                    document.setProgressMsg(readString(parser));
+                    break;
+                case "dataset_id":
+                    document.setDatasetId(readString(parser));
+                    break;
+                case "chunk_method":
+                    document.setChunkMethod(readString(parser));
+                    break;
+                case "chunk_count":
+                    document.setChunkCount(readLong(parser));
+                    break;
+                case "token_count":
+                    document.setTokenCount(readLong(parser));
+                    break;
+                case "parser_config":
+                    document.setParserConfig(readMap(parser));
+                    break;
+                case "meta_fields":
+                    document.setMetaFields(readMap(parser));
+                    break;
+                case "create_time":
+                    document.setCreateTime(readLong(parser));
+                    break;
+                case "update_time":
+                    document.setUpdateTime(readLong(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return document;
+    }
+
+    private static RAGFlowChunk readChunk(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        RAGFlowChunk chunk = new RAGFlowChunk();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    chunk.setId(readString(parser));
+                    break;
+                case "content":
+                    chunk.setContent(readString(parser));
+                    break;
+                case "document_id":
+                    chunk.setDocumentId(readString(parser));
+                    break;
+                case "docnm_kwd":
+                    chunk.setDocumentName(readString(parser));
+                    break;
+                case "dataset_id":
+                    chunk.setDatasetId(readString(parser));
+                    break;
+                case "image_id":
+                    chunk.setImageId(readString(parser));
+                    break;
+                case "important_keywords":
+                    chunk.setImportantKeywords(readStringList(parser));
+                    break;
+                case "questions":
+                    chunk.setQuestions(readStringList(parser));
+                    break;
+                case "positions":
+                    chunk.setPositions(readPositions(parser));
+                    break;
+                case "available":
+                    chunk.setAvailable(readBoolean(parser));
+                    break;
+                case "create_time":
+                    chunk.setCreateTime(readString(parser));
+                    break;
+                case "create_timestamp":
+                    chunk.setCreateTimestamp(readDouble(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return chunk;
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != null && token.isScalarValue()) {
+            return token == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Long readLong(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return (long) parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != null && token.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Boolean readBoolean(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return token == JsonToken.VALUE_TRUE;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return Boolean.parseBoolean(parser.getText().trim());
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * 字符串数组，兼容逗号分隔的字符串
+     */
+    private static List<String> readStringList(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                String value = readString(parser);
+                if (StringUtils.isNotBlank(value)) {
+                    values.add(value);
+                }
+            }
+        } else if (token == JsonToken.VALUE_STRING) {
+            for (String part : parser.getText().split(",")) {
+                if (StringUtils.isNotBlank(part)) {
+                    values.add(part.trim());
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        return values;
+    }
+
+    private static List<List<Number>> readPositions(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<List<Number>> positions = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            List<Number> position = new ArrayList<>(5);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken().isNumeric()) {
+                    position.add(parser.getNumberValue());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMap(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.readValueAs(Map.class);
+    }
+}
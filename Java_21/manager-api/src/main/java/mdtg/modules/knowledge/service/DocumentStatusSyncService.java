@@ -0,0 +1,56 @@
+package mdtg.modules.knowledge.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import mdtg.modules.knowledge.dto.KnowledgeFilesDTO;
+
+/**
+ * 文档解析状态同步服务
+ * 后台定时按知识库批量拉取解析中的文档状态，状态变化只记录一次并推送给订阅的客户端，
+ * 读接口直接查询本地记录的状态，不再逐个文档访问RAG
+ */
+public interface DocumentStatusSyncService {
+
+        /**
+         * 开始跟踪知识库的文档解析状态（上传、解析文档后调用）
+         *
+         * @param datasetId 知识库ID
+         */
+        void watch(String datasetId);
+
+        /**
+         * 停止跟踪已删除的文档
+         *
+         * @param datasetId   知识库ID
+         * @param documentIds 文档ID列表
+         */
+        void forget(String datasetId, Collection<String> documentIds);
+
+        /**
+         * 获取知识库中已记录的文档解析状态
+         *
+         * @param datasetId 知识库ID
+         * @return 文档ID -> 解析状态（run）
+         */
+        Map<String, String> getStatuses(String datasetId);
+
+        /**
+         * 使用已记录的解析状态覆盖文档列表中的状态，发现解析中的文档时开始跟踪该知识库
+         *
+         * @param datasetId 知识库ID
+         * @param documents 文档列表
+         */
+        void applyStatuses(String datasetId, List<KnowledgeFilesDTO> documents);
+
+        /**
+         * 订阅知识库文档解析状态变化（SSE）
+         *
+         * @param datasetId 知识库ID
+         * @return SSE连接
+         */
+        SseEmitter subscribe(String datasetId);
+}
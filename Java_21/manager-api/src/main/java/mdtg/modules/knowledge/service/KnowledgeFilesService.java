@@ -66,6 +66,14 @@ public interface KnowledgeFilesService {
          */
         void deleteByDocumentId(String documentId, String datasetId);
 
+        /**
+         * 批量删除知识库中的文档
+         * 
+         * @param documentIds 文档ID列表
+         * @param datasetId   知识库ID
+         */
+        void deleteByDocumentIds(List<String> documentIds, String datasetId);
+
         /**
          * 获取RAG配置信息
          * 
@@ -0,0 +1,79 @@
+package mdtg.modules.knowledge.service;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import mdtg.modules.knowledge.dto.KnowledgeUploadResultDTO;
+import mdtg.modules.knowledge.dto.KnowledgeUploadSessionDTO;
+
+/**
+ * 知识库文档上传服务
+ * 支持请求体直接转发、多文件并行上传以及大文件分片断点续传
+ */
+public interface KnowledgeUploadService {
+
+        /**
+         * 流式上传单个文档，请求体直接转发到知识库
+         *
+         * @param datasetId     知识库ID
+         * @param fileName      文件名
+         * @param content       文件内容
+         * @param contentLength 文件大小，未知时为-1
+         * @param name          文档名称
+         * @param chunkMethod   分块方法
+         * @return 上传结果
+         */
+        KnowledgeUploadResultDTO uploadStream(String datasetId, String fileName, InputStream content,
+                        long contentLength, String name, String chunkMethod);
+
+        /**
+         * 多文件并行上传，单个文件失败不影响其他文件
+         *
+         * @param datasetId   知识库ID
+         * @param files       上传的文件
+         * @param chunkMethod 分块方法
+         * @return 每个文件的上传结果
+         */
+        List<KnowledgeUploadResultDTO> uploadFiles(String datasetId, List<MultipartFile> files, String chunkMethod);
+
+        /**
+         * 创建分片上传会话
+         *
+         * @param datasetId   知识库ID
+         * @param fileName    文件名
+         * @param size        文件总大小
+         * @param chunkMethod 分块方法
+         * @return 上传会话
+         */
+        KnowledgeUploadSessionDTO createSession(String datasetId, String fileName, long size, String chunkMethod);
+
+        /**
+         * 查询分片上传会话，断点续传时获取已接收的字节数
+         *
+         * @param datasetId 知识库ID
+         * @param uploadId  上传会话ID
+         * @return 上传会话
+         */
+        KnowledgeUploadSessionDTO getSession(String datasetId, String uploadId);
+
+        /**
+         * 追加分片，全部接收完成后转发到知识库
+         *
+         * @param datasetId 知识库ID
+         * @param uploadId  上传会话ID
+         * @param offset    分片在文件中的起始位置，必须等于已接收的字节数
+         * @param content   分片内容
+         * @return 上传会话
+         */
+        KnowledgeUploadSessionDTO appendChunk(String datasetId, String uploadId, long offset, InputStream content);
+
+        /**
+         * 取消分片上传并清理已接收的数据
+         *
+         * @param datasetId 知识库ID
+         * @param uploadId  上传会话ID
+         */
+        void cancelSession(String datasetId, String uploadId);
+}
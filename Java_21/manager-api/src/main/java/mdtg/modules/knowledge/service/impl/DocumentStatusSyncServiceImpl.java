@@ -0,0 +1,289 @@
+package mdtg.modules.knowledge.service.impl;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.exception.ErrorCode;
+import mdtg.common.exception.RenException;
+import mdtg.common.page.PageData;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.knowledge.cache.RetrievalCache;
+import mdtg.modules.knowledge.dto.KnowledgeFilesDTO;
+import mdtg.modules.knowledge.rag.KnowledgeBaseAdapter;
+import mdtg.modules.knowledge.rag.KnowledgeBaseAdapterFactory;
+import mdtg.modules.knowledge.service.DocumentStatusSyncService;
+import mdtg.modules.knowledge.service.KnowledgeBaseService;
+
+/**
+ * 文档解析状态同步服务实现
+ * - 跟踪中的知识库记录在Redis，多实例通过Redis锁保证同一时刻只有一个实例访问RAG
+ * - 每个知识库每轮分页查询全部解析中的文档，有文档结束解析时再分页查询已结束的文档，直到找全为止
+ * - 状态只在变化时写入Redis；各实例比对Redis中的状态，把变化推送给本实例的SSE订阅者
+ */
+@Slf4j
+@Service
+public class DocumentStatusSyncServiceImpl implements DocumentStatusSyncService {
+
+    private static final String RUNNING = "RUNNING";
+
+    private final KnowledgeBaseService knowledgeBaseService;
+    private final RetrievalCache retrievalCache;
+    private final RedisUtils redisUtils;
+
+    private final int pageSize;
+    private final long lockSeconds;
+    private final long emitterTimeout;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 本实例的SSE订阅者及最近一次推送的状态
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> pushed = new ConcurrentHashMap<>();
+
+    public DocumentStatusSyncServiceImpl(KnowledgeBaseService knowledgeBaseService, RetrievalCache retrievalCache,
+            RedisUtils redisUtils,
+            @Value("${knowledge.parse-sync.page-size:100}") int pageSize,
+            @Value("${knowledge.parse-sync.interval:5000}") long interval,
+            @Value("${knowledge.parse-sync.emitter-timeout:1800000}") long emitterTimeout) {
+        this.knowledgeBaseService = knowledgeBaseService;
+        this.retrievalCache = retrievalCache;
+        this.redisUtils = redisUtils;
+        this.pageSize = pageSize;
+        this.lockSeconds = Math.max(1, interval / 1000);
+        this.emitterTimeout = emitterTimeout;
+    }
+
+    @Override
+    public void watch(String datasetId) {
+        if (StringUtils.isNotBlank(datasetId)) {
+            redisUtils.hSet(RedisKeys.getKnowledgeParsingDatasetsKey(), datasetId, System.currentTimeMillis(),
+                    RedisUtils.NOT_EXPIRE);
+        }
+    }
+
+    @Override
+    public void forget(String datasetId, Collection<String> documentIds) {
+        if (StringUtils.isBlank(datasetId) || documentIds == null || documentIds.isEmpty()) {
+            return;
+        }
+        redisUtils.hDel(RedisKeys.getKnowledgeDocumentStatusKey(datasetId), documentIds.toArray());
+    }
+
+    @Override
+    public Map<String, String> getStatuses(String datasetId) {
+        Map<String, String> statuses = new HashMap<>();
+        redisUtils.hGetAll(RedisKeys.getKnowledgeDocumentStatusKey(datasetId))
+                .forEach((documentId, run) -> statuses.put(documentId, String.valueOf(run)));
+        return statuses;
+    }
+
+    @Override
+    public void applyStatuses(String datasetId, List<KnowledgeFilesDTO> documents) {
+        if (StringUtils.isBlank(datasetId) || documents == null || documents.isEmpty()) {
+            return;
+        }
+        Map<String, String> statuses = getStatuses(datasetId);
+        boolean running = false;
+        for (KnowledgeFilesDTO document : documents) {
+            String run = statuses.get(document.getId());
+            if (run != null) {
+                document.setRun(run);
+            } else if (RUNNING.equalsIgnoreCase(document.getRun())) {
+                running = true;
+            }
+        }
+        // 列表中出现尚未跟踪的解析中文档，交给后台同步
+        if (running) {
+            watch(datasetId);
+        }
+    }
+
+    @Override
+    public SseEmitter subscribe(String datasetId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Set<SseEmitter> subscribers = emitters.computeIfAbsent(datasetId, k -> new CopyOnWriteArraySet<>());
+        subscribers.add(emitter);
+        Runnable remove = () -> {
+            subscribers.remove(emitter);
+            if (subscribers.isEmpty()) {
+                emitters.remove(datasetId, subscribers);
+                pushed.remove(datasetId);
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // 订阅时先推送一次当前状态
+        Map<String, Object> current = redisUtils.hGetAll(RedisKeys.getKnowledgeDocumentStatusKey(datasetId));
+        pushed.putIfAbsent(datasetId, current);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(current));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * 定时同步：获得锁的实例访问RAG同步状态，所有实例推送本实例订阅者关心的变化
+     */
+    @Scheduled(fixedDelayString = "${knowledge.parse-sync.interval:5000}",
+            initialDelayString = "${knowledge.parse-sync.interval:5000}")
+    public void syncAll() {
+        try {
+            String owner = redisUtils.getKeyOrCreate(RedisKeys.getKnowledgeParseSyncLockKey(), instanceId,
+                    lockSeconds);
+            if (owner == null) {
+                Map<String, Object> datasets = redisUtils.hGetAll(RedisKeys.getKnowledgeParsingDatasetsKey());
+                for (String datasetId : datasets.keySet()) {
+                    syncDataset(datasetId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("文档解析状态同步失败: {}", e.getMessage(), e);
+        }
+
+        if (!emitters.isEmpty()) {
+            try {
+                // 一次管道读取所有被订阅知识库的状态
+                Map<String, String> statusKeys = new HashMap<>();
+                emitters.forEach((datasetId, subscribers) -> {
+                    if (!subscribers.isEmpty()) {
+                        statusKeys.put(RedisKeys.getKnowledgeDocumentStatusKey(datasetId), datasetId);
+                    }
+                });
+                redisUtils.hGetAll(statusKeys.keySet())
+                        .forEach((statusKey, current) -> pushChanges(statusKeys.get(statusKey), current));
+            } catch (Exception e) {
+                log.error("推送文档解析状态失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void syncDataset(String datasetId) {
+        try {
+            KnowledgeBaseAdapter adapter = getAdapter(datasetId);
+            String statusKey = RedisKeys.getKnowledgeDocumentStatusKey(datasetId);
+            Map<String, Object> known = redisUtils.hGetAll(statusKey);
+
+            // 分页读取全部解析中的文档，只读第一页会把后面的文档误判为已结束
+            Map<String, Object> changes = new HashMap<>();
+            Set<String> runningIds = new HashSet<>();
+            for (int page = 1;; page++) {
+                PageData<KnowledgeFilesDTO> running = adapter.getDocumentListByStatus(datasetId, 1, page, pageSize);
+                for (KnowledgeFilesDTO document : running.getList()) {
+                    runningIds.add(document.getId());
+                    if (!RUNNING.equals(known.get(document.getId()))) {
+                        changes.put(document.getId(), RUNNING);
+                    }
+                }
+                if (running.getList().size() < pageSize || (long) page * pageSize >= running.getTotal()) {
+                    break;
+                }
+            }
+
+            // 上一轮解析中、本轮不在解析中的文档，批量查询最终状态
+            Set<String> finished = new HashSet<>();
+            known.forEach((documentId, run) -> {
+                if (RUNNING.equals(run) && !runningIds.contains(documentId)) {
+                    finished.add(documentId);
+                }
+            });
+            boolean done = false;
+            if (!finished.isEmpty()) {
+                Map<String, Object> queryParams = new HashMap<>();
+                queryParams.put("run", List.of("DONE", "FAIL", "CANCEL"));
+                queryParams.put("orderby", "update_time");
+                queryParams.put("desc", true);
+                // 最近结束的文档排在前面，通常第一页即可找全；找不到的继续向后翻页，直到全部找到或没有更多文档
+                for (int page = 1; !finished.isEmpty(); page++) {
+                    PageData<KnowledgeFilesDTO> ended = adapter.getDocumentList(datasetId, queryParams, page,
+                            pageSize);
+                    for (KnowledgeFilesDTO document : ended.getList()) {
+                        if (finished.remove(document.getId()) && document.getRun() != null) {
+                            changes.put(document.getId(), document.getRun());
+                            done |= "DONE".equalsIgnoreCase(document.getRun());
+                        }
+                    }
+                    if (ended.getList().size() < pageSize || (long) page * pageSize >= ended.getTotal()) {
+                        break;
+                    }
+                }
+                // 既不在解析中也没有结束状态的文档（已删除或被重置），不再跟踪
+                if (!finished.isEmpty()) {
+                    redisUtils.hDel(statusKey, finished.toArray());
+                }
+            }
+
+            if (!changes.isEmpty()) {
+                redisUtils.hMSet(statusKey, changes, RedisUtils.DEFAULT_EXPIRE);
+                log.info("文档解析状态变化，datasetId: {}, 变化: {}", datasetId, changes);
+            }
+            if (done) {
+                // 新切片生效后使召回缓存失效
+                retrievalCache.bumpVersion(datasetId);
+            }
+            if (runningIds.isEmpty()) {
+                redisUtils.hDel(RedisKeys.getKnowledgeParsingDatasetsKey(), datasetId);
+            }
+        } catch (RenException e) {
+            if (e.getCode() == ErrorCode.Knowledge_Base_RECORD_NOT_EXISTS) {
+                // 知识库已删除
+                redisUtils.hDel(RedisKeys.getKnowledgeParsingDatasetsKey(), datasetId);
+            }
+            log.warn("同步知识库文档解析状态失败，datasetId: {}, 错误: {}", datasetId, e.getMsg());
+        } catch (Exception e) {
+            log.warn("同步知识库文档解析状态失败，datasetId: {}, 错误: {}", datasetId, e.getMessage());
+        }
+    }
+
+    private void pushChanges(String datasetId, Map<String, Object> current) {
+        Set<SseEmitter> subscribers = emitters.get(datasetId);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> last = pushed.getOrDefault(datasetId, Map.of());
+        Map<String, Object> changes = new HashMap<>();
+        current.forEach((documentId, run) -> {
+            if (!run.equals(last.get(documentId))) {
+                changes.put(documentId, run);
+            }
+        });
+        pushed.put(datasetId, current);
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(changes));
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private KnowledgeBaseAdapter getAdapter(String datasetId) {
+        Map<String, Object> ragConfig = knowledgeBaseService.getRAGConfigByDatasetId(datasetId);
+        String adapterType = (String) ragConfig.get("type");
+        if (StringUtils.isBlank(adapterType)) {
+            throw new RenException(ErrorCode.RAG_ADAPTER_TYPE_NOT_FOUND);
+        }
+        return KnowledgeBaseAdapterFactory.getAdapter(adapterType, ragConfig);
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -26,6 +27,7 @@ import mdtg.common.redis.RedisUtils;
 import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.common.utils.ConvertUtils;
 import mdtg.common.utils.MessageUtils;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.knowledge.dao.KnowledgeBaseDao;
 import mdtg.modules.knowledge.dto.KnowledgeBaseDTO;
 import mdtg.modules.knowledge.entity.KnowledgeBaseEntity;
@@ -47,6 +49,7 @@ public class KnowledgeBaseServiceImpl extends BaseServiceImpl<KnowledgeBaseDao,
     private final ModelConfigService modelConfigService;
     private final ModelConfigDao modelConfigDao;
     private final RedisUtils redisUtils;
+    private final ApplicationEventPublisher eventPublisher;
     private RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -243,6 +246,8 @@ public class KnowledgeBaseServiceImpl extends BaseServiceImpl<KnowledgeBaseDao,
         if (entity.getDatasetId() != null) {
             redisUtils.delete(RedisKeys.getKnowledgeBaseCacheKey(entity.getId()));
         }
+        // 知识库名称、描述和RAG模型会编译进引用它的智能体插件配置
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
 
         return ConvertUtils.sourceToTarget(entity, KnowledgeBaseDTO.class);
     }
@@ -318,6 +323,7 @@ public class KnowledgeBaseServiceImpl extends BaseServiceImpl<KnowledgeBaseDao,
 
             int deleteCount = knowledgeBaseDao.deleteById(entity.getId());
             log.info("本地数据库删除结果: {}", deleteCount > 0 ? "成功" : "失败");
+            eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
         }
 
         log.info("=== 通过datasetId删除操作结束 ===");
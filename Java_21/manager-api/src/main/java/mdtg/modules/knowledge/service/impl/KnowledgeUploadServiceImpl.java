@@ -0,0 +1,336 @@
+package mdtg.modules.knowledge.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.google.common.io.CountingInputStream;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.exception.ErrorCode;
+import mdtg.common.exception.RenException;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.knowledge.cache.RetrievalCache;
+import mdtg.modules.knowledge.dto.KnowledgeFilesDTO;
+import mdtg.modules.knowledge.dto.KnowledgeUploadResultDTO;
+import mdtg.modules.knowledge.dto.KnowledgeUploadSessionDTO;
+import mdtg.modules.knowledge.rag.KnowledgeBaseAdapter;
+import mdtg.modules.knowledge.rag.KnowledgeBaseAdapterFactory;
+import mdtg.modules.knowledge.rag.RagHttpClients;
+import mdtg.modules.knowledge.service.KnowledgeBaseService;
+import mdtg.modules.knowledge.service.KnowledgeUploadService;
+
+/**
+ * 知识库文档上传服务实现
+ * - 流式上传：请求体直接作为文件内容转发到知识库，不经过Spring的multipart临时文件
+ * - 多文件上传：按配置的并发数并行转发，每个文件单独统计速率和结果
+ * - 分片上传：分片按偏移量追加到本地临时文件，会话信息保存在Redis，
+ *   连接中断后客户端查询已接收的字节数继续上传；全部接收后再流式转发到知识库。
+ *   临时文件只在创建会话的节点上，多节点部署时同一会话的请求需要路由到同一节点（如按uploadId做会话保持），
+ *   其他节点收到续传请求时返回错误；会话过期后遗留的临时文件由定时任务清理
+ */
+@Slf4j
+@Service
+public class KnowledgeUploadServiceImpl implements KnowledgeUploadService {
+
+    private final KnowledgeBaseService knowledgeBaseService;
+    private final RetrievalCache retrievalCache;
+    private final RedisUtils redisUtils;
+
+    private final Path tempDir;
+    private final long maxChunkSize;
+    private final int maxConcurrency;
+
+    // 同一上传会话的分片串行写入，按uploadId哈希取固定数量的锁，不随会话数量增长
+    private final Object[] sessionLocks = new Object[64];
+
+    // 当前节点（主机名）标识，记录在会话中，用于识别路由到其他节点的续传请求
+    private static final String NODE_ID = StringUtils.substringAfter(ManagementFactory.getRuntimeMXBean().getName(), "@");
+
+    public KnowledgeUploadServiceImpl(KnowledgeBaseService knowledgeBaseService, RetrievalCache retrievalCache,
+            RedisUtils redisUtils,
+            @Value("${knowledge.upload.temp-dir:${java.io.tmpdir}/knowledge-uploads}") String tempDir,
+            @Value("${knowledge.upload.max-chunk-size:16777216}") long maxChunkSize,
+            @Value("${knowledge.upload.max-concurrency:4}") int maxConcurrency) {
+        this.knowledgeBaseService = knowledgeBaseService;
+        this.retrievalCache = retrievalCache;
+        this.redisUtils = redisUtils;
+        this.tempDir = Paths.get(tempDir);
+        this.maxChunkSize = maxChunkSize;
+        this.maxConcurrency = maxConcurrency;
+        for (int i = 0; i < sessionLocks.length; i++) {
+            sessionLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public KnowledgeUploadResultDTO uploadStream(String datasetId, String fileName, InputStream content,
+            long contentLength, String name, String chunkMethod) {
+        if (StringUtils.isBlank(datasetId) || content == null) {
+            throw new RenException(ErrorCode.PARAMS_GET_ERROR);
+        }
+        if (StringUtils.isBlank(fileName)) {
+            throw new RenException(ErrorCode.RAG_FILE_NAME_NOT_NULL);
+        }
+        if (contentLength == 0) {
+            throw new RenException(ErrorCode.RAG_FILE_CONTENT_EMPTY);
+        }
+
+        KnowledgeUploadResultDTO result = new KnowledgeUploadResultDTO();
+        result.setFileName(fileName);
+        CountingInputStream counting = new CountingInputStream(content);
+        long start = System.nanoTime();
+        try {
+            KnowledgeFilesDTO document = getAdapter(datasetId).uploadDocumentStream(datasetId, fileName, counting,
+                    contentLength, name, null, chunkMethod, null);
+            result.setSuccess(true);
+            result.setDocument(document);
+            retrievalCache.bumpVersion(datasetId);
+            return result;
+        } finally {
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+            result.setBytes(counting.getCount());
+            result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            result.setBytesPerSecond(counting.getCount() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+            log.info("文档上传{}: {}, 大小: {} bytes, 耗时: {} ms, 速率: {} KB/s", result.isSuccess() ? "完成" : "失败",
+                    fileName, result.getBytes(), result.getElapsedMs(), result.getBytesPerSecond() / 1024);
+        }
+    }
+
+    @Override
+    public List<KnowledgeUploadResultDTO> uploadFiles(String datasetId, List<MultipartFile> files,
+            String chunkMethod) {
+        if (StringUtils.isBlank(datasetId) || files == null || files.isEmpty()) {
+            throw new RenException(ErrorCode.PARAMS_GET_ERROR);
+        }
+        log.info("=== 开始多文件上传，datasetId: {}, 文件数量: {} ===", datasetId, files.size());
+
+        return RagHttpClients.fanOut(files, 1, maxConcurrency, batch -> {
+            MultipartFile file = batch.get(0);
+            try (InputStream content = file.getInputStream()) {
+                return uploadStream(datasetId, file.getOriginalFilename(), content, file.getSize(), null,
+                        chunkMethod);
+            } catch (Exception e) {
+                log.error("文件上传失败: {}, 错误: {}", file.getOriginalFilename(), e.getMessage());
+                KnowledgeUploadResultDTO failed = new KnowledgeUploadResultDTO();
+                failed.setFileName(file.getOriginalFilename());
+                failed.setError(e instanceof RenException ? ((RenException) e).getMsg() : e.getMessage());
+                return failed;
+            }
+        });
+    }
+
+    @Override
+    public KnowledgeUploadSessionDTO createSession(String datasetId, String fileName, long size,
+            String chunkMethod) {
+        if (StringUtils.isBlank(datasetId)) {
+            throw new RenException(ErrorCode.RAG_DATASET_ID_NOT_NULL);
+        }
+        if (StringUtils.isBlank(fileName)) {
+            throw new RenException(ErrorCode.RAG_FILE_NAME_NOT_NULL);
+        }
+        if (size <= 0) {
+            throw new RenException(ErrorCode.RAG_FILE_CONTENT_EMPTY);
+        }
+        // 校验知识库存在
+        knowledgeBaseService.getRAGConfigByDatasetId(datasetId);
+
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Map<String, Object> session = new HashMap<>();
+        session.put("datasetId", datasetId);
+        session.put("fileName", fileName);
+        session.put("size", size);
+        session.put("node", NODE_ID);
+        if (StringUtils.isNotBlank(chunkMethod)) {
+            session.put("chunkMethod", chunkMethod);
+        }
+        redisUtils.hMSet(RedisKeys.getKnowledgeUploadSessionKey(uploadId), session, RedisUtils.DEFAULT_EXPIRE);
+
+        try {
+            Files.createDirectories(tempDir);
+            Files.deleteIfExists(partPath(uploadId));
+            Files.createFile(partPath(uploadId));
+        } catch (IOException e) {
+            redisUtils.delete(RedisKeys.getKnowledgeUploadSessionKey(uploadId));
+            throw new RenException(ErrorCode.INTERNAL_SERVER_ERROR, e);
+        }
+        log.info("创建分片上传会话: {}, 文件: {}, 大小: {} bytes", uploadId, fileName, size);
+        return toSession(uploadId, session, 0);
+    }
+
+    @Override
+    public KnowledgeUploadSessionDTO getSession(String datasetId, String uploadId) {
+        Map<String, Object> session = loadSession(datasetId, uploadId);
+        return toSession(uploadId, session, receivedBytes(uploadId));
+    }
+
+    @Override
+    public KnowledgeUploadSessionDTO appendChunk(String datasetId, String uploadId, long offset,
+            InputStream content) {
+        Map<String, Object> session = loadSession(datasetId, uploadId);
+        long size = ((Number) session.get("size")).longValue();
+        Path part = partPath(uploadId);
+
+        synchronized (sessionLock(uploadId)) {
+            long received;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                received = channel.size();
+                if (offset != received) {
+                    throw new RenException("分片偏移量不匹配，已接收字节数: " + received);
+                }
+                long limit = Math.min(size - received, maxChunkSize);
+                ReadableByteChannel source = Channels.newChannel(content);
+                long written = 0;
+                // 连接中断时已写入的部分保留，客户端从新的偏移量继续上传
+                while (written < limit) {
+                    long n = channel.transferFrom(source, received + written, limit - written);
+                    if (n <= 0) {
+                        break;
+                    }
+                    written += n;
+                }
+                if (written == limit && content.read() != -1) {
+                    channel.truncate(received);
+                    throw new RenException("分片超过文件剩余大小或单个分片上限: " + maxChunkSize + " bytes");
+                }
+                received += written;
+            } catch (IOException e) {
+                log.warn("分片接收中断，uploadId: {}, 错误: {}", uploadId, e.getMessage());
+                return toSession(uploadId, session, receivedBytes(uploadId));
+            }
+
+            KnowledgeUploadSessionDTO dto = toSession(uploadId, session, received);
+            if (received < size) {
+                return dto;
+            }
+
+            // 全部分片接收完成，流式转发到知识库；转发失败时保留数据，客户端以offset=size重试
+            try (InputStream file = Files.newInputStream(part)) {
+                dto.setResult(uploadStream(datasetId, dto.getFileName(), file, size, null, dto.getChunkMethod()));
+            } catch (IOException e) {
+                throw new RenException(ErrorCode.INTERNAL_SERVER_ERROR, e);
+            }
+            removeSession(uploadId);
+            return dto;
+        }
+    }
+
+    @Override
+    public void cancelSession(String datasetId, String uploadId) {
+        loadSession(datasetId, uploadId);
+        synchronized (sessionLock(uploadId)) {
+            removeSession(uploadId);
+        }
+        log.info("取消分片上传会话: {}", uploadId);
+    }
+
+    private Map<String, Object> loadSession(String datasetId, String uploadId) {
+        if (StringUtils.isBlank(uploadId) || !uploadId.matches("[0-9a-f]{32}")) {
+            throw new RenException(ErrorCode.PARAMS_GET_ERROR);
+        }
+        Map<String, Object> session = redisUtils.hGetAll(RedisKeys.getKnowledgeUploadSessionKey(uploadId));
+        if (session == null || session.isEmpty() || !datasetId.equals(session.get("datasetId"))) {
+            throw new RenException("上传会话不存在或已过期: " + uploadId);
+        }
+        if (session.get("node") != null && !NODE_ID.equals(session.get("node"))) {
+            throw new RenException("上传会话不在当前节点，请重新创建上传会话: " + uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * 清理Redis会话已过期或已删除的分片临时文件
+     */
+    @Scheduled(fixedDelayString = "${knowledge.upload.cleanup-interval:3600000}")
+    public void cleanExpiredParts() {
+        if (!Files.isDirectory(tempDir)) {
+            return;
+        }
+        int removed = 0;
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(tempDir, "*.part")) {
+            for (Path part : parts) {
+                String fileName = part.getFileName().toString();
+                String uploadId = fileName.substring(0, fileName.length() - ".part".length());
+                if (redisUtils.hGet(RedisKeys.getKnowledgeUploadSessionKey(uploadId), "datasetId") != null) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(part);
+                    removed++;
+                } catch (IOException e) {
+                    log.warn("删除过期分片临时文件失败: {}, 错误: {}", part, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("扫描分片临时目录失败: {}, 错误: {}", tempDir, e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("清理过期分片临时文件{}个", removed);
+        }
+    }
+
+    private void removeSession(String uploadId) {
+        redisUtils.delete(RedisKeys.getKnowledgeUploadSessionKey(uploadId));
+        try {
+            Files.deleteIfExists(partPath(uploadId));
+        } catch (IOException e) {
+            log.warn("删除分片临时文件失败，uploadId: {}, 错误: {}", uploadId, e.getMessage());
+        }
+    }
+
+    private Object sessionLock(String uploadId) {
+        return sessionLocks[(uploadId.hashCode() & Integer.MAX_VALUE) % sessionLocks.length];
+    }
+
+    private long receivedBytes(String uploadId) {
+        try {
+            return Files.size(partPath(uploadId));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path partPath(String uploadId) {
+        return tempDir.resolve(uploadId + ".part");
+    }
+
+    private KnowledgeUploadSessionDTO toSession(String uploadId, Map<String, Object> session, long offset) {
+        KnowledgeUploadSessionDTO dto = new KnowledgeUploadSessionDTO();
+        dto.setUploadId(uploadId);
+        dto.setDatasetId((String) session.get("datasetId"));
+        dto.setFileName((String) session.get("fileName"));
+        dto.setSize(((Number) session.get("size")).longValue());
+        dto.setChunkMethod((String) session.get("chunkMethod"));
+        dto.setOffset(offset);
+        return dto;
+    }
+
+    private KnowledgeBaseAdapter getAdapter(String datasetId) {
+        Map<String, Object> ragConfig = knowledgeBaseService.getRAGConfigByDatasetId(datasetId);
+        String adapterType = (String) ragConfig.get("type");
+        if (StringUtils.isBlank(adapterType)) {
+            throw new RenException(ErrorCode.RAG_ADAPTER_TYPE_NOT_FOUND);
+        }
+        return KnowledgeBaseAdapterFactory.getAdapter(adapterType, ragConfig);
+    }
+}
@@ -0,0 +1,311 @@
+package mdtg.modules.llm.client;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.exception.RenException;
+
+/**
+ * OpenAI风格chat/completions接口的流式客户端
+ * - 所有模型共用一个JDK HttpClient（连接池、HTTP/2），请求在虚拟线程上执行
+ * - 以stream=true调用，逐段回调生成的内容，同时记录首字延迟和生成速度
+ * - 按模型限制并发数和每秒请求数，连接失败、429和5xx在收到内容前按指数退避重试，退避期间释放并发许可
+ * - HttpRequest的超时只覆盖等待响应头，响应体超过idle-timeout未收到数据时关闭连接，避免一直占用并发许可
+ */
+@Slf4j
+@Component
+public class LLMClient {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String DONE = "[DONE]";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService idleWatchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("llm-idle-watchdog").daemon().factory());
+    private final HttpClient httpClient;
+    private final LLMMetrics metrics;
+
+    private final long timeout;
+    private final long idleTimeout;
+    private final int maxConcurrency;
+    private final long acquireTimeout;
+    private final double rateLimit;
+    private final int maxRetries;
+    private final long retryBackoff;
+
+    // 按模型ID的并发许可和限流器
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    public LLMClient(LLMMetrics metrics,
+            @Value("${llm.connect-timeout:5000}") long connectTimeout,
+            @Value("${llm.timeout:60000}") long timeout,
+            @Value("${llm.idle-timeout:30000}") long idleTimeout,
+            @Value("${llm.max-concurrency:4}") int maxConcurrency,
+            @Value("${llm.acquire-timeout:30000}") long acquireTimeout,
+            @Value("${llm.rate-limit:0}") double rateLimit,
+            @Value("${llm.max-retries:2}") int maxRetries,
+            @Value("${llm.retry-backoff:500}") long retryBackoff) {
+        this.metrics = metrics;
+        this.timeout = timeout;
+        this.idleTimeout = Math.max(1, idleTimeout);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.acquireTimeout = acquireTimeout;
+        this.rateLimit = rateLimit;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoff = retryBackoff;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 执行流式调用的虚拟线程执行器
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * 调用chat/completions接口
+     *
+     * @param config      模型配置
+     * @param prompt      用户消息
+     * @param temperature 温度
+     * @param maxTokens   最大生成token数
+     * @param onToken     每收到一段内容时回调，可为空
+     * @return 完整的生成内容
+     */
+    public String chat(LLMModelConfig config, String prompt, double temperature, int maxTokens,
+            Consumer<String> onToken) {
+        Semaphore semaphore = permits.computeIfAbsent(config.getModelId(), k -> new Semaphore(maxConcurrency));
+        byte[] body;
+        try {
+            body = buildRequestBody(config, prompt, temperature, maxTokens);
+        } catch (IOException e) {
+            metrics.recordFailure(config);
+            throw new RenException("LLM请求构建失败: " + e.getMessage());
+        }
+
+        try {
+            for (int attempt = 0;; attempt++) {
+                StringBuilder content = new StringBuilder();
+                acquire(config, semaphore);
+                long backoff = retryBackoff << attempt;
+                try {
+                    return send(config, body, content, onToken);
+                } catch (IOException e) {
+                    // 已经向调用方输出过内容时不能重试，否则内容会重复
+                    if (attempt >= maxRetries || content.length() > 0) {
+                        metrics.recordFailure(config);
+                        throw new RenException("LLM调用失败: " + e.getMessage());
+                    }
+                    metrics.recordRetry(config);
+                    log.warn("LLM调用失败，{}ms后第{}次重试，modelId: {}, 错误: {}", backoff, attempt + 1,
+                            config.getModelId(), e.getMessage());
+                } catch (CallbackException e) {
+                    // 调用方（如SSE客户端已断开）中止读取，不计为模型失败
+                    metrics.recordCancelled(config);
+                    throw (RuntimeException) e.getCause();
+                } catch (RuntimeException e) {
+                    metrics.recordFailure(config);
+                    throw e;
+                } finally {
+                    semaphore.release();
+                }
+                // 退避期间不占用并发许可
+                Thread.sleep(backoff);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RenException("LLM请求被中断");
+        }
+    }
+
+    /**
+     * 获取模型的并发许可和限流许可，超时未获取到时拒绝请求
+     */
+    private void acquire(LLMModelConfig config, Semaphore semaphore) throws InterruptedException {
+        if (!semaphore.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+            metrics.recordRejected(config);
+            throw new RenException("LLM模型请求过多，请稍后重试");
+        }
+        if (rateLimit > 0 && !rateLimiters.computeIfAbsent(config.getModelId(), k -> RateLimiter.create(rateLimit))
+                .tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+            semaphore.release();
+            metrics.recordRejected(config);
+            throw new RenException("LLM模型请求过多，请稍后重试");
+        }
+    }
+
+    private byte[] buildRequestBody(LLMModelConfig config, String prompt, double temperature, int maxTokens)
+            throws IOException {
+        Map<String, Object> message = new HashMap<>();
+        message.put("role", "user");
+        message.put("content", prompt);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", config.getModel());
+        requestBody.put("messages", List.of(message));
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("stream", true);
+        return objectMapper.writeValueAsBytes(requestBody);
+    }
+
+    /**
+     * 发送一次请求并读取SSE流；连接失败、429和5xx以IOException抛出以便重试
+     */
+    private String send(LLMModelConfig config, byte[] body, StringBuilder content, Consumer<String> onToken)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(config.getUrl()))
+                .timeout(Duration.ofMillis(timeout))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .header("Authorization", "Bearer " + config.getApiKey())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        InputStream raw = response.body();
+        // 读取响应体期间超过idleTimeout未收到数据时关闭底层流，阻塞中的读取随即以IOException返回
+        AtomicLong lastRead = new AtomicLong(System.nanoTime());
+        AtomicBoolean idle = new AtomicBoolean();
+        long period = Math.min(idleTimeout, 1000);
+        ScheduledFuture<?> watchdog = idleWatchdog.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() - lastRead.get() > TimeUnit.MILLISECONDS.toNanos(idleTimeout)
+                    && idle.compareAndSet(false, true)) {
+                try {
+                    raw.close();
+                } catch (IOException ignored) {
+                    // 关闭失败时读取线程仍会在连接断开后返回
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8))) {
+            int status = response.statusCode();
+            if (status == 429 || status >= 500) {
+                throw new IOException("HTTP " + status);
+            }
+            if (status < 200 || status >= 300) {
+                String error = lines.lines().limit(20).collect(Collectors.joining("\n"));
+                log.error("LLM API调用失败，状态码：{}，响应：{}", status, error);
+                throw new RenException("LLM API调用失败，状态码：" + status);
+            }
+
+            boolean eventStream = response.headers().firstValue("Content-Type")
+                    .map(type -> type.contains("text/event-stream")).orElse(false);
+            if (!eventStream) {
+                // 不支持流式输出的服务直接返回完整JSON
+                // 无法区分首字和生成耗时，只计请求数，不计入首字延迟和生成速度
+                String text = readMessage(lines.lines().collect(Collectors.joining("\n")));
+                content.append(text);
+                if (!text.isEmpty()) {
+                    deliver(onToken, text);
+                }
+                metrics.recordSuccess(config, -1, 0, 0);
+                return text;
+            }
+
+            long firstToken = -1;
+            long tokens = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lastRead.set(System.nanoTime());
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if (DONE.equals(data)) {
+                    break;
+                }
+                if (data.isEmpty()) {
+                    continue;
+                }
+                JsonNode delta = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+                if (!delta.isTextual() || delta.asText().isEmpty()) {
+                    continue;
+                }
+                if (firstToken < 0) {
+                    firstToken = System.nanoTime();
+                }
+                tokens++;
+                content.append(delta.asText());
+                deliver(onToken, delta.asText());
+            }
+            long end = System.nanoTime();
+            metrics.recordSuccess(config, firstToken >= 0 ? firstToken - start : -1, tokens,
+                    firstToken >= 0 ? end - firstToken : 0);
+            return content.toString();
+        } catch (IOException e) {
+            if (idle.get()) {
+                throw new IOException("超过" + idleTimeout + "ms未收到响应数据", e);
+            }
+            throw e;
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    /**
+     * 回调调用方，回调抛出的异常包装为CallbackException，与模型调用失败区分
+     */
+    private static void deliver(Consumer<String> onToken, String token) {
+        if (onToken == null) {
+            return;
+        }
+        try {
+            onToken.accept(token);
+        } catch (RuntimeException e) {
+            throw new CallbackException(e);
+        }
+    }
+
+    private static class CallbackException extends RuntimeException {
+        CallbackException(RuntimeException cause) {
+            super(cause);
+        }
+    }
+
+    private static String readMessage(String responseBody) throws IOException {
+        JsonNode messageContent = objectMapper.readTree(responseBody).path("choices").path(0).path("message")
+                .path("content");
+        return messageContent.isTextual() ? messageContent.asText() : "";
+    }
+}
@@ -0,0 +1,109 @@
+package mdtg.modules.llm.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * LLM调用指标，按模型统计首字延迟（TTFT）和生成速度（tokens/s）
+ * 流式响应中每个内容增量计为一个token
+ */
+@Component
+public class LLMMetrics {
+
+    private final Map<String, ModelStats> stats = new ConcurrentHashMap<>();
+
+    private static class ModelStats {
+        private volatile String model;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder firstTokens = new LongAdder();
+        private final LongAdder ttftNanos = new LongAdder();
+        private final AtomicLong maxTtftNanos = new AtomicLong();
+        private final LongAdder tokens = new LongAdder();
+        private final LongAdder generateNanos = new LongAdder();
+    }
+
+    private ModelStats of(LLMModelConfig config) {
+        ModelStats modelStats = stats.computeIfAbsent(config.getModelId(), k -> new ModelStats());
+        modelStats.model = config.getModel();
+        return modelStats;
+    }
+
+    /**
+     * 记录一次成功的调用
+     *
+     * @param config     模型配置
+     * @param ttftNanos  请求发出到收到第一个token的耗时，未收到token时为-1
+     * @param tokens     收到的token数
+     * @param genNanos   第一个token到最后一个token的耗时
+     */
+    public void recordSuccess(LLMModelConfig config, long ttftNanos, long tokens, long genNanos) {
+        ModelStats modelStats = of(config);
+        modelStats.requests.increment();
+        if (ttftNanos >= 0) {
+            modelStats.firstTokens.increment();
+            modelStats.ttftNanos.add(ttftNanos);
+            modelStats.maxTtftNanos.accumulateAndGet(ttftNanos, Math::max);
+        }
+        modelStats.tokens.add(tokens);
+        modelStats.generateNanos.add(genNanos);
+    }
+
+    public void recordFailure(LLMModelConfig config) {
+        ModelStats modelStats = of(config);
+        modelStats.requests.increment();
+        modelStats.failures.increment();
+    }
+
+    public void recordRetry(LLMModelConfig config) {
+        of(config).retries.increment();
+    }
+
+    public void recordRejected(LLMModelConfig config) {
+        of(config).rejected.increment();
+    }
+
+    /**
+     * 记录调用方中止的调用（如流式输出的客户端已断开），不计入失败数
+     */
+    public void recordCancelled(LLMModelConfig config) {
+        ModelStats modelStats = of(config);
+        modelStats.requests.increment();
+        modelStats.cancelled.increment();
+    }
+
+    /**
+     * 获取各模型的统计
+     *
+     * @return 模型ID -> 统计数据
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        stats.forEach((modelId, modelStats) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            long firstTokens = modelStats.firstTokens.sum();
+            long generateNanos = modelStats.generateNanos.sum();
+            item.put("model", modelStats.model);
+            item.put("requests", modelStats.requests.sum());
+            item.put("failures", modelStats.failures.sum());
+            item.put("retries", modelStats.retries.sum());
+            item.put("rejected", modelStats.rejected.sum());
+            item.put("cancelled", modelStats.cancelled.sum());
+            item.put("avgTtftMs", firstTokens > 0 ? modelStats.ttftNanos.sum() / firstTokens / 1_000_000 : 0);
+            item.put("maxTtftMs", modelStats.maxTtftNanos.get() / 1_000_000);
+            item.put("tokens", modelStats.tokens.sum());
+            item.put("tokensPerSecond",
+                    generateNanos > 0 ? Math.round(modelStats.tokens.sum() * 1e9 / generateNanos * 10) / 10.0 : 0);
+            result.put(modelId, item);
+        });
+        return result;
+    }
+}
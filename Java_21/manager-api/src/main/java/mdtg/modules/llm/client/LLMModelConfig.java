@@ -0,0 +1,51 @@
+package mdtg.modules.llm.client;
+
+import org.apache.commons.lang3.StringUtils;
+
+import cn.hutool.json.JSONObject;
+import lombok.Data;
+import mdtg.modules.model.entity.ModelConfigEntity;
+
+/**
+ * 解析后的LLM模型配置
+ * 从模型配置的configJson中提取一次后缓存，调用时不再重复查询和解析
+ */
+@Data
+public class LLMModelConfig {
+
+    private static final String COMPLETIONS_PATH = "chat/completions";
+
+    private String modelId;
+    /**
+     * 完整的chat/completions地址
+     */
+    private String url;
+    private String model;
+    private String apiKey;
+    private Double temperature;
+    private Integer maxTokens;
+
+    public static LLMModelConfig from(ModelConfigEntity entity) {
+        JSONObject configJson = entity.getConfigJson();
+        LLMModelConfig config = new LLMModelConfig();
+        config.setModelId(entity.getId());
+        config.setModel(StringUtils.defaultIfBlank(configJson.getStr("model_name"), "gpt-3.5-turbo"));
+        config.setApiKey(configJson.getStr("api_key"));
+        config.setTemperature(configJson.getDouble("temperature"));
+        config.setMaxTokens(configJson.getInt("max_tokens"));
+
+        String baseUrl = configJson.getStr("base_url");
+        if (StringUtils.isNotBlank(baseUrl) && !baseUrl.endsWith("/" + COMPLETIONS_PATH)) {
+            baseUrl = (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/") + COMPLETIONS_PATH;
+        }
+        config.setUrl(baseUrl);
+        return config;
+    }
+
+    /**
+     * base_url和api_key均已配置
+     */
+    public boolean isComplete() {
+        return StringUtils.isNotBlank(url) && StringUtils.isNotBlank(apiKey);
+    }
+}
@@ -0,0 +1,46 @@
+package mdtg.modules.llm.controller;
+
+import java.util.Map;
+
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import mdtg.common.utils.Result;
+import mdtg.modules.llm.client.LLMMetrics;
+import mdtg.modules.llm.dto.LLMSummaryDTO;
+import mdtg.modules.llm.service.LLMService;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/llm")
+@Tag(name = "LLM服务")
+public class LLMController {
+
+    private final LLMService llmService;
+    private final LLMMetrics llmMetrics;
+
+    @PostMapping(value = "/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式生成聊天记录总结")
+    @RequiresPermissions("sys:role:normal")
+    public SseEmitter streamSummary(@RequestBody @Validated LLMSummaryDTO dto) {
+        return llmService.streamSummaryWithHistory(dto.getConversation(), dto.getHistoryMemory(), null,
+                dto.getModelId());
+    }
+
+    @GetMapping("/metrics")
+    @Operation(summary = "各模型调用指标（首字延迟、生成速度）")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<Map<String, Map<String, Object>>> getMetrics() {
+        return new Result<Map<String, Map<String, Object>>>().ok(llmMetrics.getStats());
+    }
+}
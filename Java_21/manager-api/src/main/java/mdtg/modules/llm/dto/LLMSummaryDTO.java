@@ -0,0 +1,26 @@
+package mdtg.modules.llm.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+@Schema(description = "生成总结请求")
+public class LLMSummaryDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @NotBlank
+    @Schema(description = "对话内容")
+    private String conversation;
+
+    @Schema(description = "历史记忆")
+    private String historyMemory;
+
+    @Schema(description = "模型ID，为空时使用默认LLM模型")
+    private String modelId;
+}
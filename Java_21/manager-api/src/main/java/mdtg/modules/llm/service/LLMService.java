@@ -1,5 +1,7 @@
 package mdtg.modules.llm.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 /**
  * LLM服务接口
  * 支持多种大模型调用
@@ -53,6 +55,19 @@ public interface LLMService {
      */
     String generateSummaryWithHistory(String conversation, String historyMemory, String promptTemplate, String modelId);
 
+    /**
+     * 流式生成聊天记录总结（包含历史记忆合并）
+     * 生成过程中推送token事件，结束时推送done事件（完整总结），失败时推送error事件
+     * 
+     * @param conversation   对话内容
+     * @param historyMemory  历史记忆
+     * @param promptTemplate 提示词模板
+     * @param modelId        模型ID
+     * @return SSE连接
+     */
+    SseEmitter streamSummaryWithHistory(String conversation, String historyMemory, String promptTemplate,
+            String modelId);
+
     /**
      * 检查服务是否可用
      * 
@@ -1,30 +1,32 @@
 package mdtg.modules.llm.service.impl;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
-import cn.hutool.json.JSONArray;
-import cn.hutool.json.JSONObject;
-import cn.hutool.json.JSONUtil;
 import lombok.extern.slf4j.Slf4j;
+import mdtg.common.exception.RenException;
+import mdtg.modules.llm.client.LLMClient;
+import mdtg.modules.llm.client.LLMModelConfig;
 import mdtg.modules.llm.service.LLMService;
 import mdtg.modules.model.entity.ModelConfigEntity;
+import mdtg.modules.model.event.ModelConfigChangedEvent;
 import mdtg.modules.model.service.ModelConfigService;
 
 /**
  * OpenAI风格API的LLM服务实现
  * 支持阿里云、DeepSeek、ChatGLM等兼容OpenAI API的模型
+ * 解析后的模型配置在本地缓存，模型配置变更时失效；请求通过LLMClient流式发送
  */
 @Slf4j
 @Service
@@ -33,7 +35,19 @@ public class OpenAIStyleLLMServiceImpl implements LLMService {
     @Autowired
     private ModelConfigService modelConfigService;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private LLMClient llmClient;
+
+    @Value("${llm.stream-timeout:300000}")
+    private long streamTimeout;
+
+    // 默认模型的缓存键
+    private static final String DEFAULT_MODEL_KEY = "";
+
+    private final Cache<String, LLMModelConfig> configCache = Caffeine.newBuilder()
+            .maximumSize(256)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
 
     private static final String DEFAULT_SUMMARY_PROMPT = "你是一个经验丰富的记忆总结者，擅长将对话内容进行总结摘要，遵循以下规则：\n1、总结用户的重要信息，以便在未来的对话中提供更个性化的服务\n2、不要重复总结，不要遗忘之前记忆，除非原来的记忆超过了1800字，否则不要遗忘、不要压缩用户的历史记忆\n3、用户操控的设备音量、播放音乐、天气、退出、不想对话等和用户本身无关的内容，这些信息不需要加入到总结中\n4、聊天内容中的今天的日期时间、今天的天气情况与用户事件无关的数据，这些信息如果当成记忆存储会影响后续对话，这些信息不需要加入到总结中\n5、不要把设备操控的成果结果和失败结果加入到总结中，也不要把用户的一些废话加入到总结中\n6、不要为了总结而总结，如果用户的聊天没有意义，请返回原来的历史记录也是可以的\n7、只需要返回总结摘要，严格控制在1800字内\n8、不要包含代码、xml，不需要解释、注释和说明，保存记忆时仅从对话提取信息，不要混入示例内容\n9、如果提供了历史记忆，请将新对话内容与历史记忆进行智能合并，保留有价值的历史信息，同时添加新的重要信息\n\n历史记忆：\n{history_memory}\n\n新对话内容：\n{conversation}";
 
@@ -49,87 +63,19 @@ public class OpenAIStyleLLMServiceImpl implements LLMService {
 
     @Override
     public String generateSummary(String conversation, String promptTemplate, String modelId) {
-        if (!isAvailable()) {
-            log.warn("LLM服务不可用，无法生成总结");
+        LLMModelConfig config = resolveConfig(modelId);
+        if (config == null || !config.isComplete()) {
+            log.warn("LLM服务不可用，无法生成总结，modelId: {}", modelId);
             return "LLM服务不可用，无法生成总结";
         }
 
         try {
-            // 从智控台获取LLM模型配置
-            ModelConfigEntity llmConfig;
-            if (modelId != null && !modelId.trim().isEmpty()) {
-                // 通过具体模型ID获取配置
-                llmConfig = modelConfigService.getModelByIdFromCache(modelId);
-            } else {
-                // 保持向后兼容，使用默认配置
-                llmConfig = getDefaultLLMConfig();
-            }
-
-            if (llmConfig == null || llmConfig.getConfigJson() == null) {
-                log.error("未找到可用的LLM模型配置，modelId: {}", modelId);
-                return "未找到可用的LLM模型配置";
-            }
-
-            JSONObject configJson = llmConfig.getConfigJson();
-            String baseUrl = configJson.getStr("base_url");
-            String model = configJson.getStr("model_name");
-            String apiKey = configJson.getStr("api_key");
-            Double temperature = configJson.getDouble("temperature");
-            Integer maxTokens = configJson.getInt("max_tokens");
-
-            if (StringUtils.isBlank(baseUrl) || StringUtils.isBlank(apiKey)) {
-                log.error("LLM配置不完整，baseUrl或apiKey为空");
-                return "LLM配置不完整，无法生成总结";
-            }
-
             // 构建提示词
             String prompt = (promptTemplate != null ? promptTemplate : DEFAULT_SUMMARY_PROMPT).replace("{conversation}",
                     conversation);
-
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model != null ? model : "gpt-3.5-turbo");
-
-            Map<String, Object>[] messages = new Map[1];
-            Map<String, Object> message = new HashMap<>();
-            message.put("role", "user");
-            message.put("content", prompt);
-            messages[0] = message;
-
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", temperature != null ? temperature : 0.7);
-            requestBody.put("max_tokens", maxTokens != null ? maxTokens : 2000);
-
-            // 发送HTTP请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            // 构建完整的API URL
-            String apiUrl = baseUrl;
-            if (!apiUrl.endsWith("/chat/completions")) {
-                if (!apiUrl.endsWith("/")) {
-                    apiUrl += "/";
-                }
-                apiUrl += "chat/completions";
-            }
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    apiUrl, HttpMethod.POST, entity, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                JSONObject responseJson = JSONUtil.parseObj(response.getBody());
-                JSONArray choices = responseJson.getJSONArray("choices");
-                if (choices != null && choices.size() > 0) {
-                    JSONObject choice = choices.getJSONObject(0);
-                    JSONObject messageObj = choice.getJSONObject("message");
-                    return messageObj.getStr("content");
-                }
-            } else {
-                log.error("LLM API调用失败，状态码：{}，响应：{}", response.getStatusCode(), response.getBody());
-            }
+            return llmClient.chat(config, prompt,
+                    config.getTemperature() != null ? config.getTemperature() : 0.7,
+                    config.getMaxTokens() != null ? config.getMaxTokens() : 2000, null);
         } catch (Exception e) {
             log.error("调用LLM服务生成总结时发生异常，modelId: {}", modelId, e);
         }
@@ -145,86 +91,15 @@ public class OpenAIStyleLLMServiceImpl implements LLMService {
     @Override
     public String generateSummaryWithHistory(String conversation, String historyMemory, String promptTemplate,
             String modelId) {
-        if (!isAvailable()) {
-            log.warn("LLM服务不可用，无法生成总结");
+        LLMModelConfig config = resolveConfig(modelId);
+        if (config == null || !config.isComplete()) {
+            log.warn("LLM服务不可用，无法生成总结，modelId: {}", modelId);
             return "LLM服务不可用，无法生成总结";
         }
 
         try {
-            // 从智控台获取LLM模型配置
-            ModelConfigEntity llmConfig;
-            if (modelId != null && !modelId.trim().isEmpty()) {
-                // 通过具体模型ID获取配置
-                llmConfig = modelConfigService.getModelByIdFromCache(modelId);
-            } else {
-                // 保持向后兼容，使用默认配置
-                llmConfig = getDefaultLLMConfig();
-            }
-
-            if (llmConfig == null || llmConfig.getConfigJson() == null) {
-                log.error("未找到可用的LLM模型配置，modelId: {}", modelId);
-                return "未找到可用的LLM模型配置";
-            }
-
-            JSONObject configJson = llmConfig.getConfigJson();
-            String baseUrl = configJson.getStr("base_url");
-            String model = configJson.getStr("model_name");
-            String apiKey = configJson.getStr("api_key");
-
-            if (StringUtils.isBlank(baseUrl) || StringUtils.isBlank(apiKey)) {
-                log.error("LLM配置不完整，baseUrl或apiKey为空");
-                return "LLM配置不完整，无法生成总结";
-            }
-
-            // 构建提示词，包含历史记忆
-            String prompt = (promptTemplate != null ? promptTemplate : DEFAULT_SUMMARY_PROMPT)
-                    .replace("{history_memory}", historyMemory != null ? historyMemory : "无历史记忆")
-                    .replace("{conversation}", conversation);
-
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model != null ? model : "gpt-3.5-turbo");
-
-            Map<String, Object>[] messages = new Map[1];
-            Map<String, Object> message = new HashMap<>();
-            message.put("role", "user");
-            message.put("content", prompt);
-            messages[0] = message;
-
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.2);
-            requestBody.put("max_tokens", 2000);
-
-            // 发送HTTP请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            // 构建完整的API URL
-            String apiUrl = baseUrl;
-            if (!apiUrl.endsWith("/chat/completions")) {
-                if (!apiUrl.endsWith("/")) {
-                    apiUrl += "/";
-                }
-                apiUrl += "chat/completions";
-            }
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    apiUrl, HttpMethod.POST, entity, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                JSONObject responseJson = JSONUtil.parseObj(response.getBody());
-                JSONArray choices = responseJson.getJSONArray("choices");
-                if (choices != null && choices.size() > 0) {
-                    JSONObject choice = choices.getJSONObject(0);
-                    JSONObject messageObj = choice.getJSONObject("message");
-                    return messageObj.getStr("content");
-                }
-            } else {
-                log.error("LLM API调用失败，状态码：{}，响应：{}", response.getStatusCode(), response.getBody());
-            }
+            return llmClient.chat(config, buildHistoryPrompt(conversation, historyMemory, promptTemplate), 0.2, 2000,
+                    null);
         } catch (Exception e) {
             log.error("调用LLM服务生成总结时发生异常，modelId: {}", modelId, e);
         }
@@ -233,48 +108,87 @@ public class OpenAIStyleLLMServiceImpl implements LLMService {
     }
 
     @Override
-    public boolean isAvailable() {
-        try {
-            ModelConfigEntity defaultLLMConfig = getDefaultLLMConfig();
-            if (defaultLLMConfig == null || defaultLLMConfig.getConfigJson() == null) {
-                return false;
+    public SseEmitter streamSummaryWithHistory(String conversation, String historyMemory, String promptTemplate,
+            String modelId) {
+        LLMModelConfig config = resolveConfig(modelId);
+        if (config == null || !config.isComplete()) {
+            throw new RenException("LLM服务不可用，无法生成总结");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        String prompt = buildHistoryPrompt(conversation, historyMemory, promptTemplate);
+        llmClient.executor().execute(() -> {
+            try {
+                String summary = llmClient.chat(config, prompt, 0.2, 2000, token -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(token));
+                    } catch (IOException e) {
+                        // 客户端断开后停止读取模型输出
+                        throw new RenException("客户端已断开");
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(summary));
+                emitter.complete();
+            } catch (Exception e) {
+                log.warn("流式生成总结失败，modelId: {}, 错误: {}", modelId, e.getMessage());
+                try {
+                    emitter.send(SseEmitter.event().name("error").data("生成总结失败，请稍后重试"));
+                    emitter.complete();
+                } catch (Exception ignored) {
+                    emitter.completeWithError(e);
+                }
             }
+        });
+        return emitter;
+    }
 
-            JSONObject configJson = defaultLLMConfig.getConfigJson();
-            String baseUrl = configJson.getStr("base_url");
-            String apiKey = configJson.getStr("api_key");
+    private String buildHistoryPrompt(String conversation, String historyMemory, String promptTemplate) {
+        // 构建提示词，包含历史记忆
+        return (promptTemplate != null ? promptTemplate : DEFAULT_SUMMARY_PROMPT)
+                .replace("{history_memory}", historyMemory != null ? historyMemory : "无历史记忆")
+                .replace("{conversation}", conversation);
+    }
 
-            return baseUrl != null && !baseUrl.trim().isEmpty() &&
-                    apiKey != null && !apiKey.trim().isEmpty();
-        } catch (Exception e) {
-            log.error("检查LLM服务可用性时发生异常：", e);
-            return false;
-        }
+    @Override
+    public boolean isAvailable() {
+        return isAvailable(null);
     }
 
     @Override
     public boolean isAvailable(String modelId) {
-        try {
-            if (modelId == null || modelId.trim().isEmpty()) {
-                return isAvailable();
-            }
-
-            // 通过具体模型ID获取配置
-            ModelConfigEntity modelConfig = modelConfigService.getModelByIdFromCache(modelId);
-            if (modelConfig == null || modelConfig.getConfigJson() == null) {
-                log.warn("未找到指定的LLM模型配置，modelId: {}", modelId);
-                return false;
-            }
+        LLMModelConfig config = resolveConfig(modelId);
+        return config != null && config.isComplete();
+    }
 
-            JSONObject configJson = modelConfig.getConfigJson();
-            String baseUrl = configJson.getStr("base_url");
-            String apiKey = configJson.getStr("api_key");
+    /**
+     * 模型配置变更后清空已解析的配置，默认模型也可能随之变化
+     */
+    @EventListener
+    public void onModelConfigChanged(ModelConfigChangedEvent event) {
+        if (event.getModelType() == null || "LLM".equalsIgnoreCase(event.getModelType())) {
+            configCache.invalidateAll();
+        }
+    }
 
-            return baseUrl != null && !baseUrl.trim().isEmpty() &&
-                    apiKey != null && !apiKey.trim().isEmpty();
+    /**
+     * 获取解析后的模型配置，modelId为空时使用默认LLM模型
+     */
+    private LLMModelConfig resolveConfig(String modelId) {
+        String key = StringUtils.isBlank(modelId) ? DEFAULT_MODEL_KEY : modelId.trim();
+        try {
+            // 未找到配置时不缓存，配置补全后即可生效
+            return configCache.get(key, k -> {
+                ModelConfigEntity entity = DEFAULT_MODEL_KEY.equals(k) ? getDefaultLLMConfig()
+                        : modelConfigService.getModelByIdFromCache(k);
+                if (entity == null || entity.getConfigJson() == null) {
+                    log.warn("未找到可用的LLM模型配置，modelId: {}", modelId);
+                    return null;
+                }
+                return LLMModelConfig.from(entity);
+            });
         } catch (Exception e) {
-            log.error("检查LLM服务可用性时发生异常，modelId: {}", modelId, e);
-            return false;
+            log.error("获取LLM模型配置时发生异常，modelId: {}", modelId, e);
+            return null;
         }
     }
 
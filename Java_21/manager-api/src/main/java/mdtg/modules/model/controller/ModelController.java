@@ -3,6 +3,7 @@ package mdtg.modules.model.controller;
 import java.util.List;
 
 import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -28,6 +29,7 @@ import mdtg.modules.model.dto.ModelConfigDTO;
 import mdtg.modules.model.dto.ModelProviderDTO;
 import mdtg.modules.model.dto.VoiceDTO;
 import mdtg.modules.model.entity.ModelConfigEntity;
+import mdtg.modules.model.event.ModelConfigChangedEvent;
 import mdtg.modules.model.service.ModelConfigService;
 import mdtg.modules.model.service.ModelProviderService;
 import mdtg.modules.timbre.service.TimbreService;
@@ -43,6 +45,7 @@ public class ModelController {
     private final ModelConfigService modelConfigService;
     private final ConfigService configService;
     private final AgentTemplateService agentTemplateService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @GetMapping("/names")
     @Operation(summary = "获取所有模型名称")
@@ -133,6 +136,7 @@ public class ModelController {
         entity.setConfigJson(null);
         entity.setIsEnabled(status);
         modelConfigService.updateById(entity);
+        eventPublisher.publishEvent(new ModelConfigChangedEvent(entity.getModelType(), id));
         return new Result<Void>();
     }
 
@@ -151,6 +155,7 @@ public class ModelController {
         // 不更新ConfigJson字段
         entity.setConfigJson(null);
         modelConfigService.updateById(entity);
+        eventPublisher.publishEvent(new ModelConfigChangedEvent(entity.getModelType(), id));
 
         // 更新模板表中对应的模型ID
         agentTemplateService.updateDefaultTemplateModelId(entity.getModelType(), entity.getId());
@@ -0,0 +1,23 @@
+package mdtg.modules.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 模型配置变更事件（新增、修改、删除、设置默认模型后发布）
+ * 监听方据此清理本地缓存的已解析配置
+ */
+@Getter
+@AllArgsConstructor
+public class ModelConfigChangedEvent {
+
+    /**
+     * 模型类型(Memory/ASR/VAD/LLM/TTS)，未知时为空
+     */
+    private final String modelType;
+
+    /**
+     * 模型配置ID，按类型批量变更时为空
+     */
+    private final String modelId;
+}
@@ -1,5 +1,6 @@
 package mdtg.modules.model.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,14 @@ public interface ModelConfigService extends BaseService<ModelConfigEntity> {
      */
     String getModelNameById(String id);
 
+    /**
+     * 批量获取模型名称，缓存一次批量读取，未命中的一次查库
+     *
+     * @param ids 模型ID
+     * @return 模型ID到名称的映射，不存在的ID不包含在内
+     */
+    Map<String, String> getModelNamesByIds(Collection<String> ids);
+
     /**
      * 根据ID获取模型配置
      * 
@@ -41,6 +50,14 @@ public interface ModelConfigService extends BaseService<ModelConfigEntity> {
      */
     ModelConfigEntity getModelByIdFromCache(String id);
 
+    /**
+     * 批量获取模型配置，缓存一次批量读取，未命中的一次查库
+     *
+     * @param ids 模型ID
+     * @return 模型ID到配置实体的映射，不存在的ID不包含在内
+     */
+    Map<String, ModelConfigEntity> getModelsByIdsFromCache(Collection<String> ids);
+
     /**
      * 设置默认模型
      *
@@ -1,12 +1,15 @@
 package mdtg.modules.model.service.impl;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -37,6 +40,7 @@ import mdtg.modules.model.dto.ModelConfigBodyDTO;
 import mdtg.modules.model.dto.ModelConfigDTO;
 import mdtg.modules.model.dto.ModelProviderDTO;
 import mdtg.modules.model.entity.ModelConfigEntity;
+import mdtg.modules.model.event.ModelConfigChangedEvent;
 import mdtg.modules.model.service.ModelConfigService;
 import mdtg.modules.model.service.ModelProviderService;
 
@@ -49,6 +53,7 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
     private final ModelProviderService modelProviderService;
     private final RedisUtils redisUtils;
     private final AgentDao agentDao;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<ModelBasicInfoDTO> getModelCodeList(String modelType, String modelName) {
@@ -125,6 +130,7 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
 
         // 7. 清除缓存
         clearModelCache(id);
+        eventPublisher.publishEvent(new ModelConfigChangedEvent(modelType, id));
 
         // 8. 返回处理后的数据（包含敏感数据掩码）
         return buildResponseDTO(modelConfigEntity);
@@ -139,6 +145,7 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         ModelConfigEntity modelConfigEntity = prepareAddEntity(modelConfigBodyDTO, modelType);
 
         modelConfigDao.insert(modelConfigEntity);
+        eventPublisher.publishEvent(new ModelConfigChangedEvent(modelType, modelConfigEntity.getId()));
 
         return buildResponseDTO(modelConfigEntity);
     }
@@ -160,6 +167,8 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         modelConfigDao.deleteById(id);
 
         clearModelCache(id);
+        eventPublisher.publishEvent(
+                new ModelConfigChangedEvent(modelConfig != null ? modelConfig.getModelType() : null, id));
     }
 
     @Override
@@ -186,6 +195,38 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         return null;
     }
 
+    @Override
+    public Map<String, String> getModelNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        List<String> distinctIds = ids.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return names;
+        }
+
+        List<Object> cachedNames = redisUtils.multiGet(distinctIds.stream().map(RedisKeys::getModelNameById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Object cachedName = cachedNames.get(i);
+            if (cachedName instanceof String && StringUtils.isNotBlank((String) cachedName)) {
+                names.put(distinctIds.get(i), (String) cachedName);
+            } else {
+                missingIds.add(distinctIds.get(i));
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            Map<String, Object> toCache = new HashMap<>();
+            for (ModelConfigEntity entity : modelConfigDao.selectBatchIds(missingIds)) {
+                names.put(entity.getId(), entity.getModelName());
+                if (StringUtils.isNotBlank(entity.getModelName())) {
+                    toCache.put(RedisKeys.getModelNameById(entity.getId()), entity.getModelName());
+                }
+            }
+            redisUtils.setAll(toCache);
+        }
+        return names;
+    }
+
     @Override
     public ModelConfigEntity selectById(Serializable id) {
         ModelConfigEntity entity = super.selectById(id);
@@ -227,6 +268,37 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         return entity;
     }
 
+    @Override
+    public Map<String, ModelConfigEntity> getModelsByIdsFromCache(Collection<String> ids) {
+        Map<String, ModelConfigEntity> models = new HashMap<>();
+        List<String> distinctIds = ids.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return models;
+        }
+
+        List<Object> cachedModels = redisUtils
+                .multiGet(distinctIds.stream().map(RedisKeys::getModelConfigById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Object cachedModel = cachedModels.get(i);
+            if (cachedModel instanceof ModelConfigEntity) {
+                models.put(distinctIds.get(i), (ModelConfigEntity) cachedModel);
+            } else {
+                missingIds.add(distinctIds.get(i));
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            Map<String, Object> toCache = new HashMap<>();
+            for (ModelConfigEntity entity : modelConfigDao.selectBatchIds(missingIds)) {
+                models.put(entity.getId(), entity);
+                toCache.put(RedisKeys.getModelConfigById(entity.getId()), entity);
+            }
+            redisUtils.setAll(toCache);
+        }
+        return models;
+    }
+
     /**
      * 验证编辑参数
      */
@@ -278,6 +350,7 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
 
         // 清除相关缓存
         clearModelCacheByType(modelType);
+        eventPublisher.publishEvent(new ModelConfigChangedEvent(modelType, null));
     }
 
     /**
@@ -446,8 +519,13 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
     private void clearModelCacheByType(String modelType) {
         List<ModelConfigEntity> entities = modelConfigDao.selectList(
                 new QueryWrapper<ModelConfigEntity>().eq("model_type", modelType));
+        List<String> keys = new ArrayList<>(entities.size() * 2);
         for (ModelConfigEntity entity : entities) {
-            clearModelCache(entity.getId());
+            keys.add(RedisKeys.getModelConfigById(entity.getId()));
+            keys.add(RedisKeys.getModelNameById(entity.getId()));
+        }
+        if (!keys.isEmpty()) {
+            redisUtils.delete(keys);
         }
     }
 
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -22,6 +23,7 @@ import mdtg.common.page.PageData;
 import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.common.user.UserDetail;
 import mdtg.common.utils.ConvertUtils;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.knowledge.dao.KnowledgeBaseDao;
 import mdtg.modules.knowledge.entity.KnowledgeBaseEntity;
 import mdtg.modules.model.dao.ModelProviderDao;
@@ -37,6 +39,7 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
 
     private final ModelProviderDao modelProviderDao;
     private final KnowledgeBaseDao knowledgeBaseDao;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<ModelProviderDTO> getPluginList() {
@@ -157,6 +160,8 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
                 .updateById(ConvertUtils.sourceToTarget(modelProviderDTO, ModelProviderEntity.class)) == 0) {
             throw new RenException(ErrorCode.UPDATE_DATA_FAILED);
         }
+        // 插件的providerCode来自供应器，会下发到设备配置中
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
         return ConvertUtils.sourceToTarget(modelProviderDTO, ModelProviderDTO.class);
     }
 
@@ -165,6 +170,7 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
         if (modelProviderDao.deleteById(id) == 0) {
             throw new RenException(ErrorCode.DELETE_DATA_FAILED);
         }
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
     }
 
     @Override
@@ -172,6 +178,7 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
         if (modelProviderDao.deleteBatchIds(ids) == 0) {
             throw new RenException(ErrorCode.DELETE_DATA_FAILED);
         }
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
     }
 
     @Override
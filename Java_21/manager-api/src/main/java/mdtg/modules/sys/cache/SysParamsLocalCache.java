@@ -0,0 +1,156 @@
+package mdtg.modules.sys.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.redis.RedisKeys;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.sys.event.SysParamsChangedEvent;
+
+/**
+ * 系统参数进程内缓存
+ * 启动时加载全部参数，参数变更后通过Redis频道通知所有节点淘汰对应参数；
+ * 同时缓存参数的解析结果（如拆分后的地址列表、签名密钥），参数原值不变时不重复解析。
+ * 频道消息丢失时依靠过期时间兜底
+ */
+@Slf4j
+@Component
+public class SysParamsLocalCache implements MessageListener {
+
+    private final RedisUtils redisUtils;
+
+    private final boolean enabled;
+
+    private final Cache<String, Optional<String>> values;
+
+    /**
+     * 解析结果，key为参数编码和解析形式
+     */
+    private final Map<String, ParsedValue> parsedValues = new ConcurrentHashMap<>();
+
+    public SysParamsLocalCache(RedisUtils redisUtils, RedisMessageListenerContainer listenerContainer,
+            @Value("${sys.params-cache.enabled:true}") boolean enabled,
+            @Value("${sys.params-cache.local-expire:300}") long localExpire) {
+        this.redisUtils = redisUtils;
+        this.enabled = enabled;
+        this.values = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(localExpire))
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getSysParamsChannelKey()));
+    }
+
+    /**
+     * 获取参数值，未命中时调用loader加载并缓存（包括不存在的参数）
+     *
+     * @param paramCode 参数编码
+     * @param loader    从Redis或数据库加载参数值
+     */
+    public String get(String paramCode, Function<String, String> loader) {
+        if (!enabled) {
+            return loader.apply(paramCode);
+        }
+        return values.get(paramCode, code -> Optional.ofNullable(loader.apply(code))).orElse(null);
+    }
+
+    /**
+     * 获取参数的解析结果，参数原值变化后重新解析
+     *
+     * @param paramCode 参数编码
+     * @param form      解析形式，同一参数的不同解析结果以此区分
+     * @param rawValue  当前参数原值
+     * @param parser    解析函数
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getParsed(String paramCode, String form, String rawValue, Function<String, T> parser) {
+        String key = paramCode + "#" + form;
+        ParsedValue parsed = parsedValues.get(key);
+        if (parsed == null || !Objects.equals(parsed.rawValue, rawValue)) {
+            parsed = new ParsedValue(rawValue, parser.apply(rawValue));
+            parsedValues.put(key, parsed);
+        }
+        return (T) parsed.value;
+    }
+
+    /**
+     * 预加载参数
+     *
+     * @param params 参数编码与参数值
+     */
+    public void putAll(Map<String, String> params) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Optional<String>> entries = new HashMap<>();
+        params.forEach((code, value) -> entries.put(code, Optional.ofNullable(value)));
+        values.putAll(entries);
+    }
+
+    /**
+     * 淘汰本节点的参数
+     *
+     * @param paramCodes 参数编码，为空时淘汰全部
+     */
+    public void invalidate(Collection<String> paramCodes) {
+        if (paramCodes == null || paramCodes.isEmpty()) {
+            values.invalidateAll();
+        } else {
+            values.invalidateAll(paramCodes);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSysParamsChanged(SysParamsChangedEvent event) {
+        invalidate(event.getParamCodes());
+        try {
+            redisUtils.publish(RedisKeys.getSysParamsChannelKey(),
+                    event.getParamCodes() != null ? new ArrayList<>(event.getParamCodes()) : new ArrayList<>());
+        } catch (Exception e) {
+            // 其他节点依靠过期时间淘汰
+            log.error("发布系统参数变更通知失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisUtils.deserialize(message.getBody());
+            if (body instanceof Collection<?> codes) {
+                invalidate(codes.stream().map(String::valueOf).toList());
+            } else {
+                invalidate(null);
+            }
+        } catch (Exception e) {
+            log.warn("系统参数变更通知解析失败，淘汰全部参数: {}", e.getMessage());
+            invalidate(null);
+        }
+    }
+
+    private static class ParsedValue {
+        private final String rawValue;
+        private final Object value;
+
+        private ParsedValue(String rawValue, Object value) {
+            this.rawValue = rawValue;
+            this.value = value;
+        }
+    }
+}
@@ -56,11 +56,7 @@ public class ServerSideManageController {
     @GetMapping("/server-list")
     @RequiresPermissions("sys:role:superAdmin")
     public Result<List<String>> getWsServerList() {
-        String wsText = sysParamsService.getValue(Constant.SERVER_WEBSOCKET, true);
-        if (StringUtils.isBlank(wsText)) {
-            return new Result<List<String>>().ok(Collections.emptyList());
-        }
-        return new Result<List<String>>().ok(Arrays.asList(wsText.split(";")));
+        return new Result<List<String>>().ok(sysParamsService.getValueList(Constant.SERVER_WEBSOCKET));
     }
 
     @Operation(summary = "通知python服务端更新配置")
@@ -71,14 +67,13 @@ public class ServerSideManageController {
         if (emitSeverActionDTO.getAction() == null) {
             throw new RenException(ErrorCode.INVALID_SERVER_ACTION);
         }
-        String wsText = sysParamsService.getValue(Constant.SERVER_WEBSOCKET, true);
-        if (StringUtils.isBlank(wsText)) {
+        List<String> wsList = sysParamsService.getValueList(Constant.SERVER_WEBSOCKET);
+        if (wsList.isEmpty()) {
             throw new RenException(ErrorCode.SERVER_WEBSOCKET_NOT_CONFIGURED);
         }
         String targetWs = emitSeverActionDTO.getTargetWs();
-        String[] wsList = wsText.split(";");
         // 找到需要发起的
-        if (StringUtils.isBlank(targetWs) || !Arrays.asList(wsList).contains(targetWs)) {
+        if (StringUtils.isBlank(targetWs) || !wsList.contains(targetWs)) {
             throw new RenException(ErrorCode.TARGET_WEBSOCKET_NOT_EXIST);
         }
         return new Result<Boolean>().ok(emitServerActionByWs(targetWs, emitSeverActionDTO.getAction()));
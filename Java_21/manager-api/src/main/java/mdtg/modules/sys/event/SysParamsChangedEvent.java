@@ -0,0 +1,19 @@
+package mdtg.modules.sys.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 系统参数变更事件（新增、修改、删除参数后发布）
+ */
+@Getter
+@AllArgsConstructor
+public class SysParamsChangedEvent {
+
+    /**
+     * 变更的参数编码
+     */
+    private final List<String> paramCodes;
+}
@@ -2,6 +2,7 @@ package mdtg.modules.sys.service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import mdtg.common.page.PageData;
 import mdtg.common.service.BaseService;
@@ -41,6 +42,22 @@ public interface SysParamsService extends BaseService<SysParamsEntity> {
      */
     <T> T getValueObject(String paramCode, Class<T> clazz);
 
+    /**
+     * 根据参数编码，获取value的解析结果，参数值不变时复用上次的解析结果
+     *
+     * @param paramCode 参数编码
+     * @param form      解析形式，同一参数的不同解析结果以此区分
+     * @param parser    解析函数，参数值可能为空
+     */
+    <T> T getParsedValue(String paramCode, String form, Function<String, T> parser);
+
+    /**
+     * 根据参数编码，获取以分号分隔的value列表，忽略空项，未配置时返回空列表
+     *
+     * @param paramCode 参数编码
+     */
+    List<String> getValueList(String paramCode);
+
     /**
      * 根据参数编码，更新value
      *
@@ -49,6 +66,11 @@ public interface SysParamsService extends BaseService<SysParamsEntity> {
      */
     int updateValueByCode(String paramCode, String paramValue);
 
+    /**
+     * 加载全部参数到进程内缓存
+     */
+    void initLocalCache();
+
     /**
      * 初始化服务器密钥
      */
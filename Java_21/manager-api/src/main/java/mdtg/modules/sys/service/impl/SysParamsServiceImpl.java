@@ -3,10 +3,13 @@ package mdtg.modules.sys.service.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,9 +25,11 @@ import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.common.utils.ConvertUtils;
 import mdtg.common.utils.JsonUtils;
 import mdtg.common.utils.SM2Utils;
+import mdtg.modules.sys.cache.SysParamsLocalCache;
 import mdtg.modules.sys.dao.SysParamsDao;
 import mdtg.modules.sys.dto.SysParamsDTO;
 import mdtg.modules.sys.entity.SysParamsEntity;
+import mdtg.modules.sys.event.SysParamsChangedEvent;
 import mdtg.modules.sys.redis.SysParamsRedis;
 import mdtg.modules.sys.service.SysParamsService;
 
@@ -35,6 +40,8 @@ import mdtg.modules.sys.service.SysParamsService;
 @Service
 public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParamsEntity> implements SysParamsService {
     private final SysParamsRedis sysParamsRedis;
+    private final SysParamsLocalCache sysParamsLocalCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PageData<SysParamsDTO> page(Map<String, Object> params) {
@@ -80,6 +87,7 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
         insert(entity);
 
         sysParamsRedis.set(entity.getParamCode(), entity.getParamValue());
+        eventPublisher.publishEvent(new SysParamsChangedEvent(List.of(entity.getParamCode())));
     }
 
     @Override
@@ -91,6 +99,7 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
         updateById(entity);
 
         sysParamsRedis.set(entity.getParamCode(), entity.getParamValue());
+        eventPublisher.publishEvent(new SysParamsChangedEvent(List.of(entity.getParamCode())));
     }
 
     /**
@@ -159,24 +168,33 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
 
         // 删除
         deleteBatchIds(Arrays.asList(ids));
+        eventPublisher.publishEvent(new SysParamsChangedEvent(paramCodeList));
     }
 
     @Override
     public String getValue(String paramCode, Boolean fromCache) {
-        String paramValue = null;
         if (fromCache) {
-            paramValue = sysParamsRedis.get(paramCode);
-            if (paramValue == null) {
-                paramValue = baseDao.getValueByCode(paramCode);
+            return sysParamsLocalCache.get(paramCode, this::getValueFromRedis);
+        }
+        return baseDao.getValueByCode(paramCode);
+    }
 
-                sysParamsRedis.set(paramCode, paramValue);
-            }
-        } else {
+    private String getValueFromRedis(String paramCode) {
+        String paramValue = sysParamsRedis.get(paramCode);
+        if (paramValue == null) {
             paramValue = baseDao.getValueByCode(paramCode);
+
+            sysParamsRedis.set(paramCode, paramValue);
         }
         return paramValue;
     }
 
+    @Override
+    public <T> T getParsedValue(String paramCode, String form, Function<String, T> parser) {
+        String paramValue = getValue(paramCode, true);
+        return sysParamsLocalCache.getParsed(paramCode, form, paramValue, parser);
+    }
+
     @Override
     public <T> T getValueObject(String paramCode, Class<T> clazz) {
         String paramValue = getValue(paramCode, true);
@@ -196,9 +214,33 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
     public int updateValueByCode(String paramCode, String paramValue) {
         int count = baseDao.updateValueByCode(paramCode, paramValue);
         sysParamsRedis.set(paramCode, paramValue);
+        eventPublisher.publishEvent(new SysParamsChangedEvent(List.of(paramCode)));
         return count;
     }
 
+    @Override
+    public List<String> getValueList(String paramCode) {
+        return getParsedValue(paramCode, "list", paramValue -> {
+            if (StringUtils.isBlank(paramValue) || "null".equals(paramValue)) {
+                return List.of();
+            }
+            return Arrays.stream(paramValue.split(";"))
+                    .map(String::trim)
+                    .filter(StringUtils::isNotBlank)
+                    .toList();
+        });
+    }
+
+    @Override
+    public void initLocalCache() {
+        List<SysParamsEntity> entityList = baseDao.selectList(null);
+        Map<String, String> params = new HashMap<>();
+        for (SysParamsEntity entity : entityList) {
+            params.put(entity.getParamCode(), entity.getParamValue());
+        }
+        sysParamsLocalCache.putAll(params);
+    }
+
     @Override
     public void initServerSecret() {
         // 获取服务器密钥
@@ -1,6 +1,8 @@
 package mdtg.modules.timbre.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import mdtg.common.page.PageData;
 import mdtg.common.service.BaseService;
@@ -65,6 +67,14 @@ public interface TimbreService extends BaseService<TimbreEntity> {
      */
     String getTimbreNameById(String id);
 
+    /**
+     * 批量获取音色名称（包括克隆音色）
+     * 
+     * @param ids 音色ID
+     * @return 音色ID到名称的映射，不存在的ID不包含在内
+     */
+    Map<String, String> getTimbreNamesByIds(Collection<String> ids);
+
     /**
      * 根据音色编码获取音色信息
      * 
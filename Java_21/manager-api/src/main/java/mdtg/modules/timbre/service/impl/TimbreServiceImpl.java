@@ -2,12 +2,14 @@ package mdtg.modules.timbre.service.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ import mdtg.common.redis.RedisUtils;
 import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.common.utils.ConvertUtils;
 import mdtg.common.utils.MessageUtils;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.model.dto.VoiceDTO;
 import mdtg.modules.security.user.SecurityUser;
 import mdtg.modules.timbre.dao.TimbreDao;
@@ -48,6 +51,7 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
     private final TimbreDao timbreDao;
     private final VoiceCloneDao voiceCloneDao;
     private final RedisUtils redisUtils;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PageData<TimbreDetailsVO> page(TimbrePageDTO dto) {
@@ -113,12 +117,14 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
         baseDao.updateById(timbreEntity);
         // 删除缓存
         redisUtils.delete(RedisKeys.getTimbreDetailsKey(timbreId));
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(String[] ids) {
         baseDao.deleteBatchIds(Arrays.asList(ids));
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
     }
 
     @Override
@@ -145,6 +151,7 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
         if (currentUserId != null) {
             // 查询用户的所有克隆音色记录
             List<VoiceDTO> cloneEntities = voiceCloneDao.getTrainSuccess(ttsModelId, currentUserId);
+            Map<String, Object> cloneNames = new HashMap<>();
             for (VoiceDTO entity : cloneEntities) {
                 // 只添加训练成功的克隆音色，且模型ID匹配
                 VoiceDTO voiceDTO = new VoiceDTO();
@@ -152,10 +159,10 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
                 voiceDTO.setName(MessageUtils.getMessage(ErrorCode.VOICE_CLONE_PREFIX) + entity.getName());
                 // 保留从数据库查询到的voiceDemo字段
                 voiceDTO.setVoiceDemo(entity.getVoiceDemo());
-                redisUtils.set(RedisKeys.getTimbreNameById(voiceDTO.getId()), voiceDTO.getName(),
-                        RedisUtils.NOT_EXPIRE);
+                cloneNames.put(RedisKeys.getTimbreNameById(voiceDTO.getId()), voiceDTO.getName());
                 voiceDTOs.add(0, voiceDTO);
             }
+            redisUtils.setAll(cloneNames, RedisUtils.NOT_EXPIRE);
         }
 
         return CollectionUtil.isEmpty(voiceDTOs) ? null : voiceDTOs;
@@ -199,6 +206,49 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
         return null;
     }
 
+    @Override
+    public Map<String, String> getTimbreNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        List<String> distinctIds = ids.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return names;
+        }
+
+        List<Object> cachedNames = redisUtils.multiGet(distinctIds.stream().map(RedisKeys::getTimbreNameById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Object cachedName = cachedNames.get(i);
+            if (cachedName instanceof String && StringUtils.isNotBlank((String) cachedName)) {
+                names.put(distinctIds.get(i), (String) cachedName);
+            } else {
+                missingIds.add(distinctIds.get(i));
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return names;
+        }
+
+        Map<String, Object> toCache = new HashMap<>();
+        for (TimbreEntity entity : timbreDao.selectBatchIds(missingIds)) {
+            names.put(entity.getId(), entity.getName());
+            if (StringUtils.isNotBlank(entity.getName())) {
+                toCache.put(RedisKeys.getTimbreNameById(entity.getId()), entity.getName());
+            }
+        }
+        // 不是系统音色的再按克隆音色查询
+        List<String> cloneIds = missingIds.stream().filter(id -> !names.containsKey(id)).toList();
+        if (!cloneIds.isEmpty()) {
+            String prefix = MessageUtils.getMessage(ErrorCode.VOICE_CLONE_PREFIX);
+            for (VoiceCloneEntity cloneEntity : voiceCloneDao.selectBatchIds(cloneIds)) {
+                String name = prefix + cloneEntity.getName();
+                names.put(cloneEntity.getId(), name);
+                toCache.put(RedisKeys.getTimbreNameById(cloneEntity.getId()), name);
+            }
+        }
+        redisUtils.setAll(toCache);
+        return names;
+    }
+
     @Override
     public VoiceDTO getByVoiceCode(String ttsModelId, String voiceCode) {
         if (StringUtils.isBlank(voiceCode)) {
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -30,6 +31,7 @@ import mdtg.common.page.PageData;
 import mdtg.common.service.impl.BaseServiceImpl;
 import mdtg.common.utils.ConvertUtils;
 import mdtg.common.utils.DateUtils;
+import mdtg.modules.agent.event.AgentConfigChangedEvent;
 import mdtg.modules.model.entity.ModelConfigEntity;
 import mdtg.modules.model.service.ModelConfigService;
 import mdtg.modules.sys.service.SysUserService;
@@ -48,6 +50,7 @@ public class VoiceCloneServiceImpl extends BaseServiceImpl<VoiceCloneDao, VoiceC
     private final ModelConfigService modelConfigService;
     private final SysUserService sysUserService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PageData<VoiceCloneEntity> page(Map<String, Object> params) {
@@ -123,6 +126,7 @@ public class VoiceCloneServiceImpl extends BaseServiceImpl<VoiceCloneDao, VoiceC
     @Override
     public void delete(String[] ids) {
         baseDao.deleteBatchIds(Arrays.asList(ids));
+        eventPublisher.publishEvent(new AgentConfigChangedEvent(null));
     }
 
     @Override
@@ -187,13 +191,17 @@ public class VoiceCloneServiceImpl extends BaseServiceImpl<VoiceCloneDao, VoiceC
 
         List<VoiceCloneResponseDTO> dtoList = new ArrayList<>(entityList.size());
 
+        // 批量获取模型名称
+        Map<String, String> modelNames = modelConfigService
+                .getModelNamesByIds(entityList.stream().map(VoiceCloneEntity::getModelId).toList());
+
         // 转换每个实体为DTO
         for (VoiceCloneEntity entity : entityList) {
             VoiceCloneResponseDTO dto = ConvertUtils.sourceToTarget(entity, VoiceCloneResponseDTO.class);
 
             // 设置模型名称
             if (StringUtils.isNotBlank(entity.getModelId())) {
-                dto.setModelName(modelConfigService.getModelNameById(entity.getModelId()));
+                dto.setModelName(modelNames.get(entity.getModelId()));
             }
 
             // 设置用户名称
@@ -0,0 +1,9 @@
+-- 聊天音频迁移到音频存储，表中只保留内容摘要、大小和存储位置
+ALTER TABLE `ai_agent_chat_audio`
+    ADD COLUMN `content_hash` VARCHAR(64) DEFAULT NULL COMMENT '音频内容SHA-256' AFTER `audio`,
+    ADD COLUMN `size` BIGINT DEFAULT NULL COMMENT '音频大小（字节）' AFTER `content_hash`,
+    ADD COLUMN `storage` VARCHAR(16) DEFAULT NULL COMMENT '存储类型（local/s3），为空表示音频仍在audio字段' AFTER `size`,
+    ADD COLUMN `location` VARCHAR(255) DEFAULT NULL COMMENT '音频在存储中的位置' AFTER `storage`,
+    MODIFY COLUMN `audio` LONGBLOB NULL COMMENT '音频opus数据，迁移到音频存储后为空',
+    ADD INDEX `idx_content_hash` (`content_hash`),
+    ADD INDEX `idx_storage` (`storage`);
@@ -0,0 +1,10 @@
+-- 将有序集合成员从KEYS[1]转移到KEYS[2]（分数为ARGV[2]）
+-- 成员已在KEYS[2]中或已被其他实例取走时返回0
+if redis.call('ZSCORE', KEYS[2], ARGV[1]) then
+    return 0
+end
+if redis.call('ZREM', KEYS[1], ARGV[1]) == 1 then
+    redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+    return 1
+end
+return 0
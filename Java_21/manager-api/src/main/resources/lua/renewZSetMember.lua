@@ -0,0 +1,7 @@
+-- 成员仍在KEYS[1]中时将分数更新为ARGV[2]并返回1
+-- 成员已被移除（如租约到期被重新排队）时返回0
+if redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+    redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+    return 1
+end
+return 0
@@ -0,0 +1,120 @@
+package mdtg.common.redis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 对比逐个读写与批量读写的耗时，需要本地Redis
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("dev")
+@DisplayName("Redis批量操作测试")
+public class RedisBatchBenchmarkTest {
+
+    private static final int COUNT = 500;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    private final List<String> keys = new ArrayList<>();
+
+    @AfterEach
+    public void cleanup() {
+        redisUtils.delete(keys);
+    }
+
+    @Test
+    @DisplayName("逐个get与multiGet对比")
+    public void testSingleGetVersusMultiGet() {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < COUNT; i++) {
+            String key = "test:batch:model:name:" + i;
+            keys.add(key);
+            values.put(key, "模型" + i);
+        }
+        redisUtils.setAll(values, 300);
+
+        // 预热连接
+        redisUtils.multiGet(keys);
+        for (int i = 0; i < 10; i++) {
+            redisUtils.get(keys.get(i));
+        }
+
+        long singleNanos = 0;
+        long batchNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Object> single = new ArrayList<>(COUNT);
+            for (String key : keys) {
+                single.add(redisUtils.get(key));
+            }
+            singleNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Object> batch = redisUtils.multiGet(keys);
+            batchNanos += System.nanoTime() - start;
+
+            Assertions.assertEquals(single, batch);
+        }
+        log.info("{}个key：逐个get平均{}ms，multiGet平均{}ms", COUNT,
+                singleNanos / ROUNDS / 1_000_000.0, batchNanos / ROUNDS / 1_000_000.0);
+        Assertions.assertEquals("模型0", redisUtils.get(keys.get(0)));
+    }
+
+    @Test
+    @DisplayName("逐个set与管道setAll对比")
+    public void testSingleSetVersusPipelinedSetAll() {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < COUNT; i++) {
+            String key = "test:batch:device:count:" + i;
+            keys.add(key);
+            values.put(key, i);
+        }
+
+        long start = System.nanoTime();
+        values.forEach((key, value) -> redisUtils.set(key, value, 300));
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        redisUtils.setAll(values, 300);
+        long batchNanos = System.nanoTime() - start;
+
+        log.info("{}个key：逐个set耗时{}ms，管道setAll耗时{}ms", COUNT,
+                singleNanos / 1_000_000.0, batchNanos / 1_000_000.0);
+        List<Object> stored = redisUtils.multiGet(keys);
+        for (int i = 0; i < COUNT; i++) {
+            Assertions.assertEquals(values.get(keys.get(i)), stored.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("管道批量读取hash")
+    public void testPipelinedHashGetAll() {
+        for (int i = 0; i < 20; i++) {
+            String key = "test:batch:status:" + i;
+            keys.add(key);
+            redisUtils.hSet(key, "doc-" + i, "RUNNING", 300);
+        }
+        keys.add("test:batch:status:missing");
+
+        Map<String, Map<String, Object>> result = redisUtils.hGetAll(keys);
+
+        Assertions.assertEquals(keys.size(), result.size());
+        Assertions.assertEquals("RUNNING", result.get("test:batch:status:3").get("doc-3"));
+        Assertions.assertTrue(result.get("test:batch:status:missing").isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package mdtg.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import mdtg.modules.agent.audio.AudioRange;
+
+public class AudioRangeTest {
+
+    @Test
+    public void testNoRangeReadsWholeAudio() {
+        AudioRange range = AudioRange.resolve(null, 100);
+        assertFalse(range.partial());
+        assertEquals(0, range.offset());
+        assertEquals(100, range.length());
+    }
+
+    @Test
+    public void testSatisfiableRanges() {
+        AudioRange range = AudioRange.resolve("bytes=10-19", 100);
+        assertTrue(range.partial());
+        assertEquals(10, range.offset());
+        assertEquals(10, range.length());
+        assertEquals("bytes 10-19/100", range.contentRange(100));
+
+        // 结束位置超出音频大小时截断到末尾
+        range = AudioRange.resolve("bytes=90-200", 100);
+        assertEquals(90, range.offset());
+        assertEquals(10, range.length());
+
+        range = AudioRange.resolve("bytes=50-", 100);
+        assertEquals(50, range.offset());
+        assertEquals(50, range.length());
+
+        // 后缀范围读取最后N个字节
+        range = AudioRange.resolve("bytes=-30", 100);
+        assertEquals(70, range.offset());
+        assertEquals(30, range.length());
+    }
+
+    @Test
+    public void testUnsatisfiableRanges() {
+        assertNull(AudioRange.resolve("bytes=500-", 100));
+        assertNull(AudioRange.resolve("bytes=100-199", 100));
+        assertNull(AudioRange.resolve("bytes=0-", 0));
+        assertNull(AudioRange.resolve("bytes=20-10", 100));
+        assertNull(AudioRange.resolve("items=0-10", 100));
+    }
+}
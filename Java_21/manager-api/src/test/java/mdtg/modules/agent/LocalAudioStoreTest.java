@@ -0,0 +1,78 @@
+package mdtg.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mdtg.modules.agent.audio.impl.LocalAudioStore;
+
+public class LocalAudioStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testPutAndOpenRoundTrip() throws IOException {
+        byte[] first = "first-audio-data".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second-audio-data".getBytes(StandardCharsets.UTF_8);
+
+        LocalAudioStore store = new LocalAudioStore(dir.toString(), 1024, false);
+        try {
+            String firstLocation = store.put("hash1", first);
+            String secondLocation = store.put("hash2", second);
+            assertNotEquals(firstLocation, secondLocation);
+
+            assertArrayEquals(first, read(store, firstLocation, 0, first.length));
+            assertArrayEquals(second, read(store, secondLocation, 0, second.length));
+            // 范围读取只返回音频内的一段
+            assertArrayEquals(Arrays.copyOfRange(second, 7, 12), read(store, secondLocation, 7, 5));
+
+            assertThrows(IOException.class, () -> store.open(firstLocation, 10, first.length));
+        } finally {
+            store.destroy();
+        }
+    }
+
+    @Test
+    public void testSegmentRolloverAndReopen() throws IOException {
+        byte[] data = new byte[600];
+        Arrays.fill(data, (byte) 7);
+
+        LocalAudioStore store = new LocalAudioStore(dir.toString(), 1024, false);
+        String firstLocation;
+        String secondLocation;
+        try {
+            firstLocation = store.put("hash1", data);
+            // 超出分段上限时写入新分段
+            secondLocation = store.put("hash2", data);
+        } finally {
+            store.destroy();
+        }
+        assertNotEquals(firstLocation.split(":")[0], secondLocation.split(":")[0]);
+
+        // 重新打开后已写入的音频仍可读取
+        LocalAudioStore reopened = new LocalAudioStore(dir.toString(), 1024, false);
+        try {
+            assertArrayEquals(data, read(reopened, firstLocation, 0, data.length));
+            assertArrayEquals(data, read(reopened, secondLocation, 0, data.length));
+        } finally {
+            reopened.destroy();
+        }
+    }
+
+    private static byte[] read(LocalAudioStore store, String location, long offset, long length)
+            throws IOException {
+        try (InputStream in = store.open(location, offset, length)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package mdtg.modules.device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.common.redis.RedisUtils;
+import mdtg.modules.device.controller.OTAController;
+import mdtg.modules.device.dto.DeviceReportReqDTO;
+import mdtg.modules.device.service.DeviceService;
+import mdtg.modules.device.service.impl.DeviceConnectionBuffer;
+import mdtg.modules.device.service.impl.OtaRequestLimiter;
+
+/**
+ * 模拟设备集中开机，回放1万次OTA检查请求，统计耗时和被拒绝的请求数，需要本地数据库和Redis
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("dev")
+@DisplayName("OTA检查压力测试")
+public class OtaLoadTest {
+
+    private static final int DEVICES = 2000;
+    private static final int BOOTS_PER_DEVICE = 5;
+    private static final int CLIENT_CONCURRENCY = 500;
+
+    @Autowired
+    private OTAController otaController;
+    @Autowired
+    private DeviceService deviceService;
+    @Autowired
+    private DeviceConnectionBuffer deviceConnectionBuffer;
+    @Autowired
+    private OtaRequestLimiter otaRequestLimiter;
+    @Autowired
+    private RedisUtils redisUtils;
+
+    private final List<String> macAddresses = new ArrayList<>();
+
+    @AfterEach
+    public void cleanup() {
+        deviceConnectionBuffer.flush();
+        // 未绑定的模拟设备会生成激活码，测试结束后清理
+        for (String macAddress : macAddresses) {
+            String code = deviceService.geCodeByDeviceId(macAddress);
+            if (code != null) {
+                redisUtils.delete("ota:activation:code:" + code);
+            }
+            redisUtils.delete("ota:activation:data:" + macAddress.replace(":", "_").toLowerCase());
+        }
+    }
+
+    @Test
+    @DisplayName("回放1万次设备上报")
+    public void testReplayDeviceReports() throws InterruptedException {
+        for (int i = 0; i < DEVICES; i++) {
+            macAddresses.add(String.format(Locale.ROOT, "fe:ed:%02x:%02x:%02x:%02x", (i >> 24) & 0xff,
+                    (i >> 16) & 0xff, (i >> 8) & 0xff, i & 0xff));
+        }
+        List<String> reports = new ArrayList<>(DEVICES * BOOTS_PER_DEVICE);
+        for (int boot = 0; boot < BOOTS_PER_DEVICE; boot++) {
+            reports.addAll(macAddresses);
+        }
+        Collections.shuffle(reports);
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        ConcurrentHashMap<Integer, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+        Semaphore clients = new Semaphore(CLIENT_CONCURRENCY);
+        long rejectedBefore = otaRequestLimiter.getRejectedCount();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String macAddress : reports) {
+                clients.acquire();
+                executor.submit(() -> {
+                    try {
+                        long begin = System.nanoTime();
+                        ResponseEntity<String> response = otaController.checkOTAVersion(report(macAddress),
+                                macAddress, macAddress);
+                        latencies.add(System.nanoTime() - begin);
+                        statusCounts.computeIfAbsent(response.getStatusCode().value(), k -> new AtomicInteger())
+                                .incrementAndGet();
+                    } finally {
+                        clients.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        log.info("{}次上报耗时{}ms，吞吐{}次/秒，p50 {}ms，p99 {}ms，最大{}ms，状态码分布{}，被拒绝{}次",
+                reports.size(), elapsed / 1_000_000, reports.size() * 1_000_000_000L / elapsed,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 1.0), statusCounts,
+                otaRequestLimiter.getRejectedCount() - rejectedBefore);
+
+        Assertions.assertEquals(reports.size(), sorted.size());
+        Assertions.assertTrue(statusCounts.containsKey(200));
+    }
+
+    private static DeviceReportReqDTO report(String macAddress) {
+        DeviceReportReqDTO report = new DeviceReportReqDTO();
+        report.setMacAddress(macAddress);
+        report.setChipModelName("esp32s3");
+        DeviceReportReqDTO.Application application = new DeviceReportReqDTO.Application();
+        application.setVersion("1." + ThreadLocalRandom.current().nextInt(3) + ".0");
+        report.setApplication(application);
+        DeviceReportReqDTO.BoardInfo board = new DeviceReportReqDTO.BoardInfo();
+        board.setType("bread-compact-wifi");
+        report.setBoard(board);
+        return report;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
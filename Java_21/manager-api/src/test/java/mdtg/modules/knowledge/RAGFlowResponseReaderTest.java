@@ -0,0 +1,80 @@
+package mdtg.modules.knowledge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowChunk;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowDocument;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowPage;
+import mdtg.modules.knowledge.rag.impl.ragflow.RAGFlowResponseReader;
+
+@Slf4j
+public class RAGFlowResponseReaderTest {
+
+    private static InputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadLargeChunkPage() throws Exception {
+        int count = 10000;
+        StringBuilder body = new StringBuilder("{\"code\":0,\"data\":{\"chunks\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"id\":\"chunk-").append(i)
+                    .append("\",\"content\":\"第").append(i).append("段内容\"")
+                    .append(",\"document_id\":\"doc-1\",\"docnm_kwd\":\"test.pdf\"")
+                    .append(",\"important_keywords\":[\"k1\",\"k2\"],\"questions\":[]")
+                    .append(",\"positions\":[[1,10,20,30,40]],\"available\":true")
+                    .append(",\"unknown\":{\"nested\":[1,2,{\"x\":null}]}}");
+        }
+        body.append("],\"doc\":{\"id\":\"doc-1\",\"name\":\"test.pdf\",\"chunk_count\":").append(count)
+                .append(",\"run\":\"DONE\",\"status\":\"1\"},\"total\":").append(count).append("}}");
+
+        long start = System.nanoTime();
+        RAGFlowPage<RAGFlowChunk> page = RAGFlowResponseReader.readChunkPage(json(body.toString()));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("解析{}个切片耗时: {}ms, 响应大小: {}", count, elapsedMs, body.length());
+
+        assertEquals(count, page.getItems().size());
+        assertEquals(count, page.getTotal());
+        RAGFlowChunk last = page.getItems().get(count - 1);
+        assertEquals("chunk-9999", last.getId());
+        assertEquals("第9999段内容", last.getContent());
+        assertEquals(List.of("k1", "k2"), last.getImportantKeywords());
+        assertTrue(last.getQuestions().isEmpty());
+        assertEquals(5, last.getPositions().get(0).size());
+        assertEquals(Boolean.TRUE, last.getAvailable());
+        assertEquals("DONE", page.getDocument().getRun());
+        assertEquals(1, page.getDocument().getStatus());
+    }
+
+    @Test
+    public void testReadDocumentPageWithLenientTypes() throws Exception {
+        String body = "{\"data\":{\"total\":\"2\",\"docs\":[" +
+                "{\"id\":\"d1\",\"size\":\"1024\",\"create_time\":1700000000000,\"parser_config\":{\"chunk_token_num\":128}}," +
+                "{\"id\":\"d2\",\"size\":2048.0,\"status\":0,\"run\":\"RUNNING\",\"meta_fields\":null}" +
+                "]},\"code\":0}";
+
+        RAGFlowPage<RAGFlowDocument> page = RAGFlowResponseReader.readDocumentPage(json(body));
+
+        assertEquals(2, page.getTotal());
+        assertEquals(1024L, page.getItems().get(0).getSize());
+        assertEquals(1700000000000L, page.getItems().get(0).getCreateTime());
+        assertEquals(128, page.getItems().get(0).getParserConfig().get("chunk_token_num"));
+        assertEquals(2048L, page.getItems().get(1).getSize());
+        assertEquals("RUNNING", page.getItems().get(1).getRun());
+        assertNull(page.getItems().get(1).getMetaFields());
+    }
+}
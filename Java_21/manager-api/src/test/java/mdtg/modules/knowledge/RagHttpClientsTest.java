@@ -0,0 +1,68 @@
+package mdtg.modules.knowledge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import mdtg.common.exception.RenException;
+import mdtg.modules.knowledge.rag.RagHttpClients;
+
+public class RagHttpClientsTest {
+
+    @Test
+    public void testFanOutKeepsBatchOrder() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+
+        List<Integer> sums = RagHttpClients.fanOut(items, 32, 4,
+                batch -> batch.stream().mapToInt(Integer::intValue).sum());
+
+        // 100条按32条一批拆分为4批（最后一批为96~99），结果按批次顺序返回
+        assertEquals(4, sums.size());
+        assertEquals(items.subList(0, 32).stream().mapToInt(Integer::intValue).sum(), sums.get(0));
+        assertEquals(items.subList(96, 100).stream().mapToInt(Integer::intValue).sum(), sums.get(3));
+    }
+
+    @Test
+    public void testFanOutBoundedConcurrency() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(i);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        RagHttpClients.fanOut(items, 2, 3, batch -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return batch.size();
+        });
+
+        assertTrue(peak.get() >= 1, "至少应执行一个批次");
+        assertTrue(peak.get() <= 3, "并发批次数不应超过上限，实际最大并发批次数: " + peak.get());
+    }
+
+    @Test
+    public void testFanOutPropagatesFailure() {
+        List<Integer> items = List.of(1, 2, 3, 4);
+        assertThrows(RenException.class, () -> RagHttpClients.fanOut(items, 1, 2, batch -> {
+            if (batch.get(0) == 3) {
+                throw new RenException("batch failed");
+            }
+            return batch.size();
+        }));
+    }
+}
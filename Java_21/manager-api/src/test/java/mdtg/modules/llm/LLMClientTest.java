@@ -0,0 +1,154 @@
+package mdtg.modules.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import mdtg.common.exception.RenException;
+import mdtg.modules.llm.client.LLMClient;
+import mdtg.modules.llm.client.LLMMetrics;
+import mdtg.modules.llm.client.LLMModelConfig;
+
+public class LLMClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failuresBeforeSuccess;
+    private volatile long stallMillis;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (requests.incrementAndGet() <= failuresBeforeSuccess) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String token : List.of("用户", "喜欢", "听音乐")) {
+                    String event = "data: {\"choices\":[{\"delta\":{\"content\":\"" + token + "\"}}]}\n\n";
+                    out.write(event.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    if (stallMillis > 0) {
+                        // 模拟上游输出一段后卡住
+                        try {
+                            Thread.sleep(stallMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+                out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private LLMModelConfig config() {
+        LLMModelConfig config = new LLMModelConfig();
+        config.setModelId("test-model");
+        config.setModel("test");
+        config.setApiKey("sk-test");
+        config.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions");
+        return config;
+    }
+
+    @Test
+    public void testStreamTokensAndRecordMetrics() {
+        LLMMetrics metrics = new LLMMetrics();
+        LLMClient client = new LLMClient(metrics, 1000, 5000, 5000, 2, 1000, 0, 0, 10);
+        List<String> tokens = new ArrayList<>();
+
+        String content = client.chat(config(), "总结", 0.2, 100, tokens::add);
+
+        assertEquals("用户喜欢听音乐", content);
+        assertEquals(List.of("用户", "喜欢", "听音乐"), tokens);
+        Map<String, Object> stats = metrics.getStats().get("test-model");
+        assertEquals(1L, stats.get("requests"));
+        assertEquals(3L, stats.get("tokens"));
+    }
+
+    @Test
+    public void testRetryOnServerError() {
+        failuresBeforeSuccess = 2;
+        LLMMetrics metrics = new LLMMetrics();
+        LLMClient client = new LLMClient(metrics, 1000, 5000, 5000, 2, 1000, 0, 2, 10);
+
+        String content = client.chat(config(), "总结", 0.2, 100, null);
+
+        assertEquals("用户喜欢听音乐", content);
+        assertEquals(3, requests.get());
+        assertEquals(2L, metrics.getStats().get("test-model").get("retries"));
+    }
+
+    @Test
+    public void testIdleStreamReleasesPermit() {
+        stallMillis = 3000;
+        LLMMetrics metrics = new LLMMetrics();
+        LLMClient client = new LLMClient(metrics, 1000, 5000, 300, 1, 100, 0, 0, 10);
+
+        long start = System.nanoTime();
+        assertThrows(RenException.class, () -> client.chat(config(), "总结", 0.2, 100, null));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < 2000, "空闲超时后应立即失败，实际耗时: " + elapsedMs + "ms");
+
+        // 唯一的并发许可已释放，下一次请求不会因等待许可被拒绝
+        stallMillis = 0;
+        assertEquals("用户喜欢听音乐", client.chat(config(), "总结", 0.2, 100, null));
+    }
+
+    @Test
+    public void testBackoffReleasesPermit() throws Exception {
+        failuresBeforeSuccess = 1;
+        LLMMetrics metrics = new LLMMetrics();
+        LLMClient client = new LLMClient(metrics, 1000, 5000, 5000, 1, 500, 0, 1, 2000);
+
+        Thread retrying = Thread.ofVirtual().start(() -> client.chat(config(), "总结", 0.2, 100, null));
+        while (requests.get() < 1) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        // 第一个请求退避期间不占用唯一的并发许可
+        assertEquals("用户喜欢听音乐", client.chat(config(), "总结", 0.2, 100, null));
+        retrying.join();
+        assertEquals(0L, metrics.getStats().get("test-model").get("rejected"));
+    }
+
+    @Test
+    public void testCallbackFailureCountedAsCancelled() {
+        LLMMetrics metrics = new LLMMetrics();
+        LLMClient client = new LLMClient(metrics, 1000, 5000, 5000, 2, 1000, 0, 2, 10);
+
+        assertThrows(RenException.class, () -> client.chat(config(), "总结", 0.2, 100, token -> {
+            throw new RenException("客户端已断开");
+        }));
+        Map<String, Object> stats = metrics.getStats().get("test-model");
+        assertEquals(1L, stats.get("cancelled"));
+        assertEquals(0L, stats.get("failures"));
+        assertEquals(1, requests.get());
+    }
+}